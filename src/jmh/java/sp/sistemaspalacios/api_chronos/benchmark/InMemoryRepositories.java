@@ -0,0 +1,114 @@
+package sp.sistemaspalacios.api_chronos.benchmark;
+
+import sp.sistemaspalacios.api_chronos.entity.boundaries.generalConfiguration.GeneralConfiguration;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.HolidayExemption;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.OvertimeType;
+import sp.sistemaspalacios.api_chronos.entity.holiday.Holiday;
+import sp.sistemaspalacios.api_chronos.entity.shift.Shifts;
+import sp.sistemaspalacios.api_chronos.repository.boundaries.generalConfiguration.GeneralConfigurationRepository;
+import sp.sistemaspalacios.api_chronos.repository.boundaries.holiday.HolidayRepository;
+import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.HolidayExemptionRepository;
+import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.OvertimeTypeRepository;
+import sp.sistemaspalacios.api_chronos.repository.shift.ShiftsRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Repositorios en memoria para los benchmarks. Cada uno es un proxy de la interfaz de Spring Data:
+ * los métodos registrados responden desde listas fijas y cualquier otro lanza
+ * UnsupportedOperationException, así un benchmark no puede ir a una BD sin que se note.
+ */
+public final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    public static OvertimeTypeRepository overtimeTypes(List<OvertimeType> types) {
+        List<OvertimeType> active = types.stream().filter(OvertimeType::isActive).toList();
+        return of(OvertimeTypeRepository.class, Map.of(
+                "findByActiveTrue", args -> new ArrayList<>(active),
+                "findAll", args -> new ArrayList<>(types)
+        ));
+    }
+
+    public static HolidayRepository holidays(List<Holiday> holidays) {
+        return of(HolidayRepository.class, Map.of(
+                "findAll", args -> new ArrayList<>(holidays)
+        ));
+    }
+
+    public static GeneralConfigurationRepository generalConfiguration(Map<String, String> values) {
+        List<GeneralConfiguration> configs = values.entrySet().stream()
+                .map(e -> GeneralConfiguration.builder().type(e.getKey()).value(e.getValue()).build())
+                .toList();
+        return of(GeneralConfigurationRepository.class, Map.of(
+                "findAll", args -> new ArrayList<>(configs),
+                "findByType", args -> configs.stream().filter(c -> c.getType().equals(args[0])).findFirst()
+        ));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static ShiftsRepository shifts(Collection<Shifts> shifts) {
+        Map<Long, Shifts> byId = new HashMap<>();
+        for (Shifts shift : shifts) byId.putIfAbsent(shift.getId(), shift);
+        return of(ShiftsRepository.class, Map.of(
+                "findAllByIdWithDetails", args -> {
+                    List<Shifts> result = new ArrayList<>();
+                    for (Long id : (Collection<Long>) args[0]) {
+                        Shifts shift = byId.get(id);
+                        if (shift != null) result.add(shift);
+                    }
+                    return result;
+                }
+        ));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static HolidayExemptionRepository holidayExemptions(List<HolidayExemption> exemptions) {
+        Map<Long, List<HolidayExemption>> byEmployee = exemptions.stream()
+                .sorted(Comparator.comparing(HolidayExemption::getId))
+                .collect(Collectors.groupingBy(HolidayExemption::getEmployeeId));
+        return of(HolidayExemptionRepository.class, Map.of(
+                "findByEmployeeIdInAndHolidayDateBetweenOrderByIdAsc", args -> {
+                    Collection<Long> employeeIds = (Collection<Long>) args[0];
+                    LocalDate start = (LocalDate) args[1];
+                    LocalDate end = (LocalDate) args[2];
+                    List<HolidayExemption> result = new ArrayList<>();
+                    for (Long employeeId : employeeIds) {
+                        for (HolidayExemption ex : byEmployee.getOrDefault(employeeId, List.of())) {
+                            if (!ex.getHolidayDate().isBefore(start) && !ex.getHolidayDate().isAfter(end)) {
+                                result.add(ex);
+                            }
+                        }
+                    }
+                    result.sort(Comparator.comparing(HolidayExemption::getId));
+                    return result;
+                }
+        ));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <R> R of(Class<R> type, Map<String, Function<Object[], Object>> handlers) {
+        return (R) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "toString":
+                    return "InMemory" + type.getSimpleName();
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    break;
+            }
+            Function<Object[], Object> handler = handlers.get(method.getName());
+            if (handler == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }
+            return handler.apply(args != null ? args : new Object[0]);
+        });
+    }
+}
@@ -0,0 +1,181 @@
+package sp.sistemaspalacios.api_chronos.benchmark;
+
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleTimeBlock;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.HolidayExemption;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.OvertimeType;
+import sp.sistemaspalacios.api_chronos.entity.holiday.Holiday;
+import sp.sistemaspalacios.api_chronos.entity.shift.ShiftDetail;
+import sp.sistemaspalacios.api_chronos.entity.shift.Shifts;
+
+import java.math.BigDecimal;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Datos sintéticos y reproducibles (semilla fija) para los benchmarks: horarios de dos semanas
+ * con turnos de mañana, tarde, noche y partido, algunos empleados con un segundo horario
+ * solapado (horas extra), un festivo en el rango y unas pocas excepciones.
+ */
+public final class SyntheticSchedules {
+
+    public static final long SEED = 20250303L;
+
+    // Lunes; el rango incluye dos domingos y el festivo de abajo
+    public static final LocalDate START = LocalDate.of(2025, 3, 17);
+    public static final int DAYS = 14;
+    public static final LocalDate HOLIDAY = LocalDate.of(2025, 3, 24);
+
+    // Plantillas: pares inicio/fin por bloque
+    private static final String[][][] TEMPLATES = {
+            {{"06:00", "14:00"}},                    // mañana
+            {{"14:00", "22:00"}},                    // tarde
+            {{"22:00", "06:00"}},                    // noche (cruza medianoche)
+            {{"07:00", "12:00"}, {"13:00", "17:00"}} // partido
+    };
+
+    private SyntheticSchedules() {
+    }
+
+    public static List<EmployeeSchedule> schedules(int employees) {
+        Random random = new Random(SEED);
+        List<Shifts> shifts = shifts();
+        List<EmployeeSchedule> result = new ArrayList<>(employees + employees / 20 + 1);
+        long scheduleId = 1;
+
+        for (int i = 0; i < employees; i++) {
+            long employeeId = 1000L + i;
+            int template = random.nextInt(TEMPLATES.length);
+            result.add(schedule(scheduleId++, employeeId, shifts.get(template), TEMPLATES[template], random));
+
+            // ~5% con un segundo horario el mismo período (genera horas extra por solape)
+            if (random.nextInt(20) == 0) {
+                int extra = (template + 1) % TEMPLATES.length;
+                result.add(schedule(scheduleId++, employeeId, shifts.get(extra), TEMPLATES[extra], random));
+            }
+        }
+        return result;
+    }
+
+    public static List<Holiday> holidays() {
+        Holiday holiday = new Holiday();
+        holiday.setId(1L);
+        holiday.setHolidayDate(HOLIDAY);
+        holiday.setDescription("Día de San José");
+        holiday.setRecordDate(LocalDateTime.of(2025, 1, 1, 0, 0));
+        return List.of(holiday);
+    }
+
+    /** Una excepción de festivo para ~2% de los empleados, alternando los motivos. */
+    public static List<HolidayExemption> exemptions(int employees) {
+        String[] reasons = {"NO_APLICAR_RECARGO", "DIA_LIBRE", "OTRO"};
+        List<HolidayExemption> result = new ArrayList<>();
+        long id = 1;
+        for (int i = 0; i < employees; i += 50) {
+            HolidayExemption ex = new HolidayExemption();
+            ex.setId(id);
+            ex.setEmployeeId(1000L + i);
+            ex.setHolidayDate(HOLIDAY);
+            ex.setHolidayName("Día de San José");
+            ex.setExemptionReason(reasons[(int) (id % reasons.length)]);
+            result.add(ex);
+            id++;
+        }
+        return result;
+    }
+
+    public static List<OvertimeType> overtimeTypes() {
+        String[] bases = {"REGULAR", "EXTRA", "FESTIVO", "DOMINICAL", "FESTIVO_DOMINICAL",
+                "EXTRA_FESTIVO", "EXTRA_DOMINICAL", "EXTRA_FESTIVO_DOMINICAL"};
+        List<OvertimeType> result = new ArrayList<>();
+        long id = 1;
+        for (String base : bases) {
+            for (String suffix : new String[]{"_DIURNA", "_NOCTURNA"}) {
+                result.add(OvertimeType.builder()
+                        .id(id++)
+                        .code(base + suffix)
+                        .displayName(base + suffix)
+                        .percentage(new BigDecimal("0.25"))
+                        .active(true)
+                        .build());
+            }
+        }
+        return result;
+    }
+
+    public static Map<String, String> workingRules() {
+        Map<String, String> values = new HashMap<>();
+        values.put("NIGHT_START", "19:00");
+        values.put("WEEKLY_HOURS", "44:00");
+        values.put("DAILY_HOURS", "08:00");
+        values.put("BREAK", "30");
+        return values;
+    }
+
+    private static EmployeeSchedule schedule(long id, long employeeId, Shifts shift, String[][] blocks, Random random) {
+        EmployeeSchedule schedule = new EmployeeSchedule();
+        schedule.setId(id);
+        schedule.setEmployeeId(employeeId);
+        schedule.setShift(shift);
+        schedule.setStartDate(START);
+        schedule.setEndDate(START.plusDays(DAYS - 1));
+
+        List<EmployeeScheduleDay> days = new ArrayList<>();
+        long dayId = id * 100;
+        for (int d = 0; d < DAYS; d++) {
+            // Un día libre por semana, al azar
+            if (random.nextInt(7) == 0) continue;
+
+            LocalDate date = START.plusDays(d);
+            EmployeeScheduleDay day = new EmployeeScheduleDay();
+            day.setId(dayId++);
+            day.setDate(java.sql.Date.valueOf(date));
+            day.setDayOfWeek(date.getDayOfWeek().getValue());
+            day.setEmployeeSchedule(schedule);
+
+            List<EmployeeScheduleTimeBlock> timeBlocks = new ArrayList<>();
+            for (String[] block : blocks) {
+                EmployeeScheduleTimeBlock tb = new EmployeeScheduleTimeBlock();
+                tb.setId(day.getId() * 10 + timeBlocks.size());
+                tb.setEmployeeScheduleDay(day);
+                tb.setStartTime(Time.valueOf(LocalTime.parse(block[0])));
+                tb.setEndTime(Time.valueOf(LocalTime.parse(block[1])));
+                timeBlocks.add(tb);
+            }
+            day.setTimeBlocks(timeBlocks);
+            days.add(day);
+        }
+        schedule.setDays(days);
+        return schedule;
+    }
+
+    private static List<Shifts> shifts() {
+        String[] names = {"Mañana", "Tarde", "Noche", "Partido"};
+        List<Shifts> result = new ArrayList<>();
+        for (int t = 0; t < TEMPLATES.length; t++) {
+            Shifts shift = new Shifts();
+            shift.setId((long) t + 1);
+            shift.setName(names[t]);
+            shift.setDependencyId(1L);
+
+            List<ShiftDetail> details = new ArrayList<>();
+            for (int dow = 1; dow <= 7; dow++) {
+                for (String[] block : TEMPLATES[t]) {
+                    ShiftDetail detail = new ShiftDetail();
+                    detail.setShift(shift);
+                    detail.setDayOfWeek(dow);
+                    detail.setStartTime(block[0]);
+                    detail.setEndTime(block[1]);
+                    details.add(detail);
+                }
+            }
+            shift.setShiftDetails(details);
+            result.add(shift);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,82 @@
+package sp.sistemaspalacios.api_chronos.service.common;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aritmética de horas de {@link TimeService} sobre pares de horas sintéticos,
+ * mezclando formato 24h ("14:00") y 12h ("02:00 PM", "07:30AM").
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimeServiceBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int employees;
+
+    private TimeService timeService;
+    private String[] starts;
+    private String[] ends;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        timeService = new TimeService();
+        Random random = new Random(20250303L);
+
+        // Dos bloques por empleado, como un turno partido
+        int n = employees * 2;
+        starts = new String[n];
+        ends = new String[n];
+        for (int i = 0; i < n; i++) {
+            int start = random.nextInt(24 * 4) * 15;
+            int end = (start + 60 + random.nextInt(10) * 60) % (24 * 60);
+            starts[i] = format(start, random.nextBoolean());
+            ends[i] = format(end, random.nextBoolean());
+        }
+    }
+
+    @Benchmark
+    public void parseAny(Blackhole bh) {
+        for (int i = 0; i < starts.length; i++) {
+            bh.consume(timeService.parseAny(starts[i]));
+            bh.consume(timeService.parseAny(ends[i]));
+        }
+    }
+
+    @Benchmark
+    public double calculateHoursBetween() {
+        double total = 0;
+        for (int i = 0; i < starts.length; i++) {
+            total += timeService.calculateHoursBetween(starts[i], ends[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int timeOverlaps() {
+        int overlaps = 0;
+        for (int i = 0; i + 1 < starts.length; i += 2) {
+            if (timeService.timeOverlaps(starts[i], ends[i], starts[i + 1], ends[i + 1])) overlaps++;
+        }
+        return overlaps;
+    }
+
+    private static String format(int minutes, boolean twelveHour) {
+        int h = minutes / 60;
+        int m = minutes % 60;
+        if (!twelveHour) {
+            return String.format("%02d:%02d", h, m);
+        }
+        int h12 = h % 12 == 0 ? 12 : h % 12;
+        // Alterna con y sin espacio antes de AM/PM, ambos los acepta parseAny
+        String suffix = h < 12 ? "AM" : "PM";
+        return String.format("%02d:%02d%s%s", h12, m, (minutes / 15) % 2 == 0 ? " " : "", suffix);
+    }
+}
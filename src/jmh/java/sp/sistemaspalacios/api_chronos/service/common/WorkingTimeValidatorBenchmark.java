@@ -0,0 +1,58 @@
+package sp.sistemaspalacios.api_chronos.service.common;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import sp.sistemaspalacios.api_chronos.benchmark.SyntheticSchedules;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleTimeBlock;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link WorkingTimeValidatorService#validateNoOverlap} con los bloques de cada empleado por día,
+ * tomados de los horarios sintéticos (incluye los empleados con dos horarios solapados).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkingTimeValidatorBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int employees;
+
+    private WorkingTimeValidatorService validator;
+    private List<List<WorkingTimeCalculatorService.Interval>> intervalsByEmployeeDay;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        validator = new WorkingTimeValidatorService(new TimeService(), new WorkingTimeCalculatorService());
+
+        // employeeId|fecha -> intervalos de todos sus horarios ese día
+        Map<String, List<WorkingTimeCalculatorService.Interval>> grouped = new LinkedHashMap<>();
+        for (EmployeeSchedule schedule : SyntheticSchedules.schedules(employees)) {
+            for (EmployeeScheduleDay day : schedule.getDays()) {
+                LocalDate date = ((java.sql.Date) day.getDate()).toLocalDate();
+                List<WorkingTimeCalculatorService.Interval> intervals =
+                        grouped.computeIfAbsent(schedule.getEmployeeId() + "|" + date, k -> new ArrayList<>());
+                for (EmployeeScheduleTimeBlock block : day.getTimeBlocks()) {
+                    intervals.add(new WorkingTimeCalculatorService.Interval(
+                            block.getStartTime().toLocalTime(), block.getEndTime().toLocalTime()));
+                }
+            }
+        }
+        intervalsByEmployeeDay = new ArrayList<>(grouped.values());
+    }
+
+    @Benchmark
+    public void validateNoOverlap(Blackhole bh) {
+        for (List<WorkingTimeCalculatorService.Interval> intervals : intervalsByEmployeeDay) {
+            bh.consume(validator.validateNoOverlap(intervals));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.overtime;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import sp.sistemaspalacios.api_chronos.benchmark.InMemoryRepositories;
+import sp.sistemaspalacios.api_chronos.benchmark.SyntheticSchedules;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
+import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.WorkingRulesService;
+import sp.sistemaspalacios.api_chronos.service.boundaries.holiday.HolidayCalendar;
+import sp.sistemaspalacios.api_chronos.service.common.TimeService;
+import sp.sistemaspalacios.api_chronos.service.employeeAttendance.ScheduleDayIndex;
+import sp.sistemaspalacios.api_chronos.service.employeeAttendance.ScheduleDayIndexListener;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.holiday.HolidayExemptionService;
+import sp.sistemaspalacios.api_chronos.service.shift.ShiftTemplateCache;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clasificación de horas sobre horarios sintéticos de 1, 100 y 10.000 empleados,
+ * con los servicios reales y repositorios en memoria (sin BD).
+ * <p>
+ * System.out se descarta hacia un stream nulo por si algún servicio de apoyo imprime algo;
+ * las trazas de la clasificación solo existen con el logger en TRACE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HourClassificationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int employees;
+
+    private HourClassificationService service;
+    private List<EmployeeSchedule> schedules;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        HolidayCalendar holidayCalendar = new HolidayCalendar(
+                InMemoryRepositories.holidays(SyntheticSchedules.holidays()));
+        holidayCalendar.reload();
+
+        WorkingRulesService workingRulesService = new WorkingRulesService(
+                InMemoryRepositories.generalConfiguration(SyntheticSchedules.workingRules()));
+        workingRulesService.refresh();
+
+        schedules = SyntheticSchedules.schedules(employees);
+
+        ShiftTemplateCache shiftTemplateCache = new ShiftTemplateCache(
+                InMemoryRepositories.shifts(schedules.stream().map(EmployeeSchedule::getShift).toList()),
+                new TimeService(),
+                // Sin índice de días: el benchmark no modifica turnos
+                new ScheduleDayIndexListener(new StaticListableBeanFactory().getBeanProvider(ScheduleDayIndex.class)));
+
+        service = new HourClassificationService(
+                new OvertimeTypeService(InMemoryRepositories.overtimeTypes(SyntheticSchedules.overtimeTypes())),
+                new HolidayExemptionService(InMemoryRepositories.holidayExemptions(SyntheticSchedules.exemptions(employees))),
+                holidayCalendar,
+                workingRulesService,
+                shiftTemplateCache,
+                // Sin registro de métricas: se mide solo la clasificación
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class),
+                62);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> classifyScheduleHours() {
+        return service.classifyScheduleHours(schedules);
+    }
+
+    // Un día por horario (el festivo, con turnos diurnos, nocturnos y partidos) por la API pública
+    @Benchmark
+    public void classifyDayHours(Blackhole bh) {
+        for (EmployeeSchedule schedule : schedules) {
+            bh.consume(service.classifyDayHours(schedule, SyntheticSchedules.HOLIDAY));
+        }
+    }
+}
@@ -2,10 +2,12 @@ package sp.sistemaspalacios.api_chronos;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 
 @SpringBootApplication
+@EnableScheduling
 public class ApiChronosApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,32 @@
+package sp.sistemaspalacios.api_chronos.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Cuenta las sentencias que Hibernate prepara en el hilo actual, entre {@link #start()} y
+ * {@link #stop()} ({@link RequestMetricsFilter} lo hace por petición). Se registra con
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ * Las consultas hechas con JdbcTemplate no pasan por aquí.
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    /** Sentencias contadas desde {@link #start()}; deja de contar en el hilo. */
+    public static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count != null ? count[0] : 0;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) count[0]++;
+        return sql;
+    }
+}
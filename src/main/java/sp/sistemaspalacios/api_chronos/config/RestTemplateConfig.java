@@ -1,7 +1,10 @@
 package sp.sistemaspalacios.api_chronos.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
@@ -9,7 +12,19 @@ public class RestTemplateConfig {
 
     //@LoadBalanced
     @Bean
+    @Primary
     public RestTemplate restTemplate() {
         return new RestTemplate();
     }
+
+    // Cliente del servicio de notificaciones: con timeouts para no retener al despachador
+    @Bean
+    public RestTemplate notificationRestTemplate(
+            @Value("${notification.http.connect-timeout-ms:2000}") int connectTimeoutMs,
+            @Value("${notification.http.read-timeout-ms:5000}") int readTimeoutMs) {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(connectTimeoutMs);
+        factory.setReadTimeout(readTimeoutMs);
+        return new RestTemplate(factory);
+    }
 }
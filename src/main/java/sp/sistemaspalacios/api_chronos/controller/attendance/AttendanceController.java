@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import sp.sistemaspalacios.api_chronos.entity.employeeAttendance.AttendanceType;
 import sp.sistemaspalacios.api_chronos.entity.employeeAttendance.EmployeeAttendance;
+import sp.sistemaspalacios.api_chronos.service.employeeAttendance.AttendanceBoardService;
 import sp.sistemaspalacios.api_chronos.service.employeeAttendance.AttendanceValidationService;
 import sp.sistemaspalacios.api_chronos.service.employeeAttendance.EmployeeAttendanceService;
 
@@ -20,6 +21,7 @@ public class AttendanceController {
 
     private final EmployeeAttendanceService attendanceService;
     private final AttendanceValidationService validationService;
+    private final AttendanceBoardService boardService;
 
     /**
      * Registrar marcación con validación automática
@@ -72,4 +74,20 @@ public class AttendanceController {
         Map<String, Object> summary = validationService.getDailySummary(employeeId, date);
         return ResponseEntity.ok(summary);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tablero del día para toda una dependencia: estado, minutos de retraso y bloques de cada empleado
+     * GET /api/attendance-validation/board?dependencyId=5&date=2025-11-19 (sin fecha: hoy)
+     */
+    @GetMapping("/board")
+    public ResponseEntity<?> getDailyBoard(
+            @RequestParam Long dependencyId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    ) {
+        try {
+            return ResponseEntity.ok(boardService.getBoard(dependencyId, date));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
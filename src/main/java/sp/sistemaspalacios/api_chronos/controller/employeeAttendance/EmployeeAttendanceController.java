@@ -3,11 +3,16 @@ package sp.sistemaspalacios.api_chronos.controller.employeeAttendance;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import sp.sistemaspalacios.api_chronos.dto.attendance.AttendancePunchRequest;
+import sp.sistemaspalacios.api_chronos.dto.attendance.AttendancePunchResult;
 import sp.sistemaspalacios.api_chronos.entity.employeeAttendance.AttendanceType;
 import sp.sistemaspalacios.api_chronos.entity.employeeAttendance.EmployeeAttendance;
 import sp.sistemaspalacios.api_chronos.service.employeeAttendance.EmployeeAttendanceService;
 
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 
@@ -36,6 +41,27 @@ public class EmployeeAttendanceController {
         }
     }
 
+    /**
+     * Registro de varias marcaciones en una sola petición (terminales en cambio de turno).
+     * Devuelve un resultado por marcación, en el mismo orden.
+     */
+    @PostMapping("/register-batch")
+    public ResponseEntity<?> registerAttendanceBatch(@RequestBody List<AttendancePunchRequest> punches) {
+        try {
+            List<AttendancePunchResult> results = service.registerAttendanceBatch(punches);
+
+            long registered = results.stream().filter(AttendancePunchResult::isSuccess).count();
+            Map<String, Object> response = new HashMap<>();
+            response.put("total", results.size());
+            response.put("registered", registered);
+            response.put("rejected", results.size() - registered);
+            response.put("results", results);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PostMapping("/register-manual")
     public ResponseEntity<?> registerManualAttendance(@RequestBody ManualAttendanceRequest request) {
         try {
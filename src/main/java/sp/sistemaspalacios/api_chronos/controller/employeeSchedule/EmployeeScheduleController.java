@@ -1,10 +1,14 @@
 package sp.sistemaspalacios.api_chronos.controller.employeeSchedule;
 
 import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import sp.sistemaspalacios.api_chronos.dto.employee.EmployeeHoursSummaryDTO;
 import sp.sistemaspalacios.api_chronos.dto.employee.EmployeeScheduleDTO;
 import sp.sistemaspalacios.api_chronos.dto.schedule.ScheduleAssignmentGroupDTO;
@@ -24,8 +28,15 @@ import sp.sistemaspalacios.api_chronos.exception.ResourceNotFoundException;
 import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.EmployeeScheduleDayRepository;
 import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.EmployeeScheduleTimeBlockRepository;
 import sp.sistemaspalacios.api_chronos.service.common.TimeService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment.GroupRecalculationQueue;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment.IncrementalGroupRecalculationService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment.IncrementalGroupRecalculationService.DaySnapshot;
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment.ScheduleAssignmentGroupService;
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.core.EmployeeScheduleService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.query.PayrollExportService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.time.ScheduleBulkDeleter.DeleteResult;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.time.ScheduleExpansionService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.time.TimeBlockBulkUpdateService;
 
 import java.sql.Time;
 import java.text.SimpleDateFormat;
@@ -34,6 +45,7 @@ import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
+@Slf4j
 @RestController
 @RequestMapping("/employee-schedules")
 public class EmployeeScheduleController {
@@ -43,16 +55,31 @@ public class EmployeeScheduleController {
     private final EmployeeScheduleTimeBlockRepository employeeScheduleTimeBlockRepository;
     private final TimeService timeService;
     private final ScheduleAssignmentGroupService groupService;
+    private final IncrementalGroupRecalculationService incrementalRecalculation;
+    private final GroupRecalculationQueue recalculationQueue;
+    private final ScheduleExpansionService scheduleExpansionService;
+    private final PayrollExportService payrollExportService;
+    private final TimeBlockBulkUpdateService timeBlockBulkUpdateService;
     public EmployeeScheduleController(EmployeeScheduleService employeeScheduleService, TimeService timeService,
                                       EmployeeScheduleDayRepository employeeScheduleDayRepository,
                                       EmployeeScheduleTimeBlockRepository employeeScheduleTimeBlockRepository,
-                                      ScheduleAssignmentGroupService groupService
+                                      ScheduleAssignmentGroupService groupService,
+                                      IncrementalGroupRecalculationService incrementalRecalculation,
+                                      GroupRecalculationQueue recalculationQueue,
+                                      ScheduleExpansionService scheduleExpansionService,
+                                      PayrollExportService payrollExportService,
+                                      TimeBlockBulkUpdateService timeBlockBulkUpdateService
                                       ) {
         this.employeeScheduleService = employeeScheduleService;
         this.employeeScheduleDayRepository = employeeScheduleDayRepository;
         this.employeeScheduleTimeBlockRepository = employeeScheduleTimeBlockRepository;
         this.timeService = timeService;
         this.groupService = groupService;
+        this.incrementalRecalculation = incrementalRecalculation;
+        this.recalculationQueue = recalculationQueue;
+        this.scheduleExpansionService = scheduleExpansionService;
+        this.payrollExportService = payrollExportService;
+        this.timeBlockBulkUpdateService = timeBlockBulkUpdateService;
 
 
     }
@@ -384,6 +411,68 @@ public class EmployeeScheduleController {
         return ResponseEntity.noContent().build();
     }
 
+    @DeleteMapping("/employee/{employeeId}")
+    public ResponseEntity<Map<String, Object>> deleteSchedulesByEmployee(@PathVariable Long employeeId) {
+        DeleteResult result = employeeScheduleService.deleteSchedulesByEmployee(employeeId);
+        Map<String, Object> response = deleteResponse(result);
+        response.put("employeeId", employeeId);
+        response.put("deletedGroups", result.deletedGroupIds());
+        response.put("recalculatedGroups", result.affectedGroupIds());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Elimina los días (con sus bloques) de un rango, en los horarios indicados o en todos los del
+     * empleado. En horarios compactos las fechas del rango quedan quitadas del patrón.
+     */
+    @DeleteMapping("/days")
+    public ResponseEntity<Map<String, Object>> deleteScheduleDays(
+            @RequestParam(required = false) List<Long> scheduleIds,
+            @RequestParam(required = false) Long employeeId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        DeleteResult result;
+        try {
+            result = employeeScheduleService.deleteScheduleDays(scheduleIds, employeeId, startDate, endDate);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        // ✅ UN RECÁLCULO POR EMPLEADO con el rango borrado (ya confirmado el borrado)
+        int recalculatedEmployees = 0;
+        for (Long affectedEmployee : result.employeeIds()) {
+            if (affectedEmployee == null) continue;
+            try {
+                if (recalculationQueue.isEnabled()) {
+                    recalculationQueue.enqueue(affectedEmployee, startDate, endDate);
+                } else {
+                    recalculationQueue.recalculateNow(affectedEmployee, startDate, endDate);
+                }
+                recalculatedEmployees++;
+            } catch (Exception e) {
+                log.error("Error en recálculo del empleado {} ({} a {}) tras borrar días",
+                        affectedEmployee, startDate, endDate, e);
+            }
+        }
+
+        Map<String, Object> response = deleteResponse(result);
+        response.put("startDate", startDate);
+        response.put("endDate", endDate);
+        response.put("recalculatedEmployees", recalculatedEmployees);
+        response.put("recalculationQueued", recalculationQueue.isEnabled());
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> deleteResponse(DeleteResult result) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("deletedSchedules", result.schedules());
+        response.put("deletedDays", result.days());
+        response.put("deletedBlocks", result.blocks());
+        response.put("deletedGroupLinks", result.groupLinks());
+        return response;
+    }
+
     // =================== TIME BLOCK MANAGEMENT ===================
 
     @PostMapping("/timeblocks")
@@ -418,317 +507,120 @@ public class EmployeeScheduleController {
     }
 
 
-    // ✅ MÉTODO DE RECÁLCULO MEJORADO Y SINCRONIZADO
-    private void recalculateEmployeeGroupsSync(Long employeeId) {
+    // ✅ RECÁLCULO DE UN DÍA: siempre se reclasifica solo la fecha modificada en los grupos del
+    // horario; la cola queda para las ediciones de varios días y para el respaldo
+    private DaySnapshot captureDayForRecalculation(Long dayId) {
         try {
-            System.out.println("\n🔄 === INICIANDO RECÁLCULO PARA EMPLEADO: " + employeeId + " ===");
-
-            // Verificar que groupService no sea null
-            if (groupService == null) {
-                System.err.println("❌ ERROR CRÍTICO: groupService es NULL");
-                return;
-            }
-
-            // Obtener grupos del empleado
-            List<ScheduleAssignmentGroupDTO> groups = groupService.getEmployeeGroups(employeeId);
-            System.out.println("📊 GRUPOS ENCONTRADOS: " + groups.size());
-
-            if (groups.isEmpty()) {
-                System.out.println("⚠️ NO HAY GRUPOS PARA RECALCULAR - empleado: " + employeeId);
-                return;
-            }
-
-            // Recalcular cada grupo
-            int recalculatedCount = 0;
-            for (ScheduleAssignmentGroupDTO group : groups) {
-                try {
-                    System.out.println("\n🔢 RECALCULANDO GRUPO ID: " + group.getId());
-
-                    // ANTES DEL RECÁLCULO
-                    System.out.println("📊 ANTES:");
-                    System.out.println("  - Total Hours: " + group.getTotalHours());
-                    System.out.println("  - Regular Hours: " + group.getRegularHours());
-                    System.out.println("  - Overtime Hours: " + group.getOvertimeHours());
-
-                    // EJECUTAR RECÁLCULO
-                    groupService.recalculateGroup(group.getId());
-
-                    // VERIFICAR DESPUÉS
-                    ScheduleAssignmentGroupDTO updated = groupService.getGroupById(group.getId());
-                    System.out.println("📊 DESPUÉS:");
-                    System.out.println("  - Total Hours: " + updated.getTotalHours());
-                    System.out.println("  - Regular Hours: " + updated.getRegularHours());
-                    System.out.println("  - Overtime Hours: " + updated.getOvertimeHours());
-
-                    recalculatedCount++;
-                    System.out.println("✅ GRUPO " + group.getId() + " RECALCULADO EXITOSAMENTE");
-
-                } catch (Exception e) {
-                    System.err.println("❌ ERROR RECALCULANDO GRUPO " + group.getId() + ": " + e.getMessage());
-                    e.printStackTrace();
-                }
-            }
-
-            System.out.println("\n✅ === RECÁLCULO COMPLETADO ===");
-            System.out.println("👤 Empleado: " + employeeId);
-            System.out.println("📊 Grupos recalculados: " + recalculatedCount + "/" + groups.size());
-
+            return incrementalRecalculation.captureDay(dayId);
         } catch (Exception e) {
-            System.err.println("❌ ERROR GENERAL EN RECÁLCULO EMPLEADO " + employeeId + ": " + e.getMessage());
-            e.printStackTrace();
+            log.warn("No se pudo capturar el día {} para recálculo", dayId, e);
+            return null;
         }
     }
-    private void autoRecalculateEmployeeGroups(Long employeeId) {
-        try {
-            System.out.println("🔄 === INICIANDO RECÁLCULO PARA EMPLEADO: " + employeeId + " ===");
 
-            // Verificar que groupService no sea null
-            if (groupService == null) {
-                System.err.println("❌ ERROR CRÍTICO: groupService es NULL");
-                return;
+    /**
+     * Aplica la diferencia del día a los grupos; si no hay captura o falla, recalcula todos
+     * los grupos del empleado. Devuelve false si no se pudo recalcular.
+     */
+    private boolean recalculateDay(DaySnapshot snapshot, Long employeeId) {
+        if (snapshot != null) {
+            try {
+                incrementalRecalculation.applyDay(snapshot);
+                return true;
+            } catch (Exception e) {
+                log.warn("Error en recálculo del día {}, recalculando empleado", snapshot.dayId(), e);
+                if (employeeId == null) employeeId = snapshot.employeeId();
             }
+        }
+        return recalculateEmployee(employeeId);
+    }
 
-            List<ScheduleAssignmentGroupDTO> groups = groupService.getEmployeeGroups(employeeId);
-            System.out.println("📊 GRUPOS ENCONTRADOS: " + groups.size());
-
-            if (groups.isEmpty()) {
-                System.out.println("⚠️ NO HAY GRUPOS PARA RECALCULAR - empleado: " + employeeId);
-                return;
-            }
+    // Todos los grupos del empleado: en cola o en la misma petición
+    private boolean recalculateEmployee(Long employeeId) {
+        if (employeeId == null) {
+            log.warn("No se pudo recalcular: employeeId es null");
+            return false;
+        }
+        if (recalculationQueue.isEnabled()) {
+            recalculationQueue.enqueueEmployee(employeeId);
+        } else {
+            recalculateEmployeeGroupsSync(employeeId);
+        }
+        return true;
+    }
 
+    // Recálculo completo de todos los grupos del empleado (respaldo del recálculo por día)
+    private void recalculateEmployeeGroupsSync(Long employeeId) {
+        try {
+            List<ScheduleAssignmentGroupDTO> groups = groupService.getEmployeeGroups(employeeId);
+            int recalculatedCount = 0;
             for (ScheduleAssignmentGroupDTO group : groups) {
                 try {
-                    System.out.println("🔢 RECALCULANDO GRUPO ID: " + group.getId());
-
-                    // ANTES DEL RECÁLCULO
-                    System.out.println("📊 ANTES - Total Hours: " + group.getTotalHours());
-                    System.out.println("📊 ANTES - Regular Hours: " + group.getRegularHours());
-
                     groupService.recalculateGroup(group.getId());
-
-                    // VERIFICAR DESPUÉS
-                    ScheduleAssignmentGroupDTO updated = groupService.getGroupById(group.getId());
-                    System.out.println("📊 DESPUÉS - Total Hours: " + updated.getTotalHours());
-                    System.out.println("📊 DESPUÉS - Regular Hours: " + updated.getRegularHours());
-
-                    System.out.println("✅ GRUPO " + group.getId() + " RECALCULADO EXITOSAMENTE");
-
+                    recalculatedCount++;
                 } catch (Exception e) {
-                    System.err.println("❌ ERROR RECALCULANDO GRUPO " + group.getId() + ": " + e.getMessage());
-                    e.printStackTrace();
+                    log.warn("Error recalculando grupo {}", group.getId(), e);
                 }
             }
-
-            System.out.println("✅ === RECÁLCULO COMPLETADO PARA EMPLEADO: " + employeeId + " ===");
-
+            log.debug("Empleado {}: {}/{} grupos recalculados", employeeId, recalculatedCount, groups.size());
         } catch (Exception e) {
-            System.err.println("❌ ERROR EN RECÁLCULO EMPLEADO " + employeeId + ": " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error en recálculo del empleado {}", employeeId, e);
         }
     }
+    /**
+     * Edición de los bloques de una dependencia en un solo lote: se valida todo antes de escribir
+     * (400 con la lista de errores si algo falla, sin aplicar nada) y se recalcula una vez por
+     * empleado el rango de fechas tocado.
+     */
     @PutMapping("/time-blocks/by-dependency")
     public ResponseEntity<Map<String, Object>> updateTimeBlocksByDependency(
             @RequestBody List<TimeBlockDependencyDTO> timeBlockDTOList) {
-        try {
-            if (timeBlockDTOList == null || timeBlockDTOList.isEmpty()) {
-                return ResponseEntity.badRequest().build();
-            }
-
-            List<Map<String, Object>> processedBlocks = new ArrayList<>();
-            Map<String, Object> response = new LinkedHashMap<>();
-
-            // 📊 RECOLECTAR EMPLEADOS AFECTADOS PARA RECÁLCULO
-            Set<Long> affectedEmployees = new HashSet<>();
-
-            System.out.println("📄 PROCESANDO " + timeBlockDTOList.size() + " BLOQUES");
-
-            for (TimeBlockDependencyDTO timeBlockDTO : timeBlockDTOList) {
-                System.out.println("\n📦 PROCESANDO BLOQUE: " + timeBlockDTO);
-                System.out.println("  - ID: " + timeBlockDTO.getId());
-                System.out.println("  - Start Time: " + timeBlockDTO.getStartTime());
-                System.out.println("  - End Time: " + timeBlockDTO.getEndTime());
-                System.out.println("  - Break Start Time: " + timeBlockDTO.getBreakStartTime());
-                System.out.println("  - Break End Time: " + timeBlockDTO.getBreakEndTime());
-
-                // 📊 AGREGAR EMPLEADO A LA LISTA DE AFECTADOS
-                if (timeBlockDTO.getNumberId() != null) {
-                    try {
-                        affectedEmployees.add(timeBlockDTO.getNumberId());
-                    } catch (Exception e) {
-                        System.err.println("⚠️ Error parseando employeeId: " + timeBlockDTO.getNumberId());
-                    }
-                }
-
-                try {
-                    // Validaciones básicas
-                    if (timeBlockDTO.getEmployeeScheduleDayId() == null) {
-                        System.out.println("❌ ERROR: employeeScheduleDayId es null");
-                        continue;
-                    }
-
-                    boolean isDelete = (timeBlockDTO.getStartTime() == null || timeBlockDTO.getStartTime().trim().isEmpty()) &&
-                            (timeBlockDTO.getEndTime() == null || timeBlockDTO.getEndTime().trim().isEmpty());
-
-                    if (timeBlockDTO.getId() != null && timeBlockDTO.getId() > 0) {
-                        // ✅ ACTUALIZAR BLOQUE EXISTENTE
-                        System.out.println("📄 ACTUALIZANDO BLOQUE EXISTENTE ID: " + timeBlockDTO.getId());
-
-                        EmployeeScheduleTimeBlock existingBlock = employeeScheduleTimeBlockRepository
-                                .findById(timeBlockDTO.getId()).orElse(null);
-
-                        if (existingBlock != null) {
-                            if (isDelete) {
-                                // ✅ ELIMINAR BLOQUE
-                                System.out.println("🗑️ ELIMINANDO BLOQUE ID: " + timeBlockDTO.getId());
-                                employeeScheduleTimeBlockRepository.delete(existingBlock);
-
-                                Map<String, Object> blockResponse = new LinkedHashMap<>();
-                                blockResponse.put("id", timeBlockDTO.getId());
-                                blockResponse.put("action", "DELETED");
-                                blockResponse.put("numberId", timeBlockDTO.getNumberId());
-                                processedBlocks.add(blockResponse);
-                            } else {
-                                // ✅ ACTUALIZAR BLOQUE CON BREAKS
-                                System.out.println("💾 ACTUALIZANDO CONTENIDO DEL BLOQUE");
-
-                                existingBlock.setStartTime(Time.valueOf(normalizeTimeString(timeBlockDTO.getStartTime())));
-                                existingBlock.setEndTime(Time.valueOf(normalizeTimeString(timeBlockDTO.getEndTime())));
-
-                                // ✅ MANEJAR BREAKS EN ACTUALIZACIÓN
-                                if (timeBlockDTO.getBreakStartTime() != null && !timeBlockDTO.getBreakStartTime().trim().isEmpty()) {
-                                    existingBlock.setBreakStartTime(Time.valueOf(normalizeTimeString(timeBlockDTO.getBreakStartTime())));
-                                    System.out.println("☕ Break start actualizado: " + timeBlockDTO.getBreakStartTime());
-                                } else {
-                                    existingBlock.setBreakStartTime(null);
-                                    System.out.println("🧹 Break start limpiado");
-                                }
-
-                                if (timeBlockDTO.getBreakEndTime() != null && !timeBlockDTO.getBreakEndTime().trim().isEmpty()) {
-                                    existingBlock.setBreakEndTime(Time.valueOf(normalizeTimeString(timeBlockDTO.getBreakEndTime())));
-                                    System.out.println("☕ Break end actualizado: " + timeBlockDTO.getBreakEndTime());
-                                } else {
-                                    existingBlock.setBreakEndTime(null);
-                                    System.out.println("🧹 Break end limpiado");
-                                }
-
-                                existingBlock.setUpdatedAt(new Date());
-                                EmployeeScheduleTimeBlock updatedBlock = employeeScheduleTimeBlockRepository.save(existingBlock);
-
-                                // Respuesta con breaks incluidos
-                                Map<String, Object> blockResponse = new LinkedHashMap<>();
-                                blockResponse.put("id", updatedBlock.getId());
-                                blockResponse.put("employeeScheduleDayId", updatedBlock.getEmployeeScheduleDay().getId());
-                                blockResponse.put("startTime", updatedBlock.getStartTime().toString());
-                                blockResponse.put("endTime", updatedBlock.getEndTime().toString());
-
-                                // ✅ INCLUIR BREAKS EN RESPUESTA
-                                if (updatedBlock.getBreakStartTime() != null) {
-                                    blockResponse.put("breakStartTime", updatedBlock.getBreakStartTime().toString());
-                                }
-                                if (updatedBlock.getBreakEndTime() != null) {
-                                    blockResponse.put("breakEndTime", updatedBlock.getBreakEndTime().toString());
-                                }
-
-                                blockResponse.put("numberId", timeBlockDTO.getNumberId());
-                                blockResponse.put("action", "UPDATED");
-                                processedBlocks.add(blockResponse);
-
-                                System.out.println("✅ BLOQUE ACTUALIZADO: " + blockResponse);
-                            }
-                        } else {
-                            System.out.println("❌ NO SE ENCONTRÓ BLOQUE CON ID: " + timeBlockDTO.getId());
-                        }
-                    } else if (!isDelete) {
-                        // ✅ CREAR NUEVO BLOQUE CON BREAKS
-                        System.out.println("➕ CREANDO NUEVO BLOQUE");
-
-                        EmployeeScheduleDay day = employeeScheduleDayRepository
-                                .findById(timeBlockDTO.getEmployeeScheduleDayId()).orElse(null);
-
-                        if (day != null) {
-                            EmployeeScheduleTimeBlock newBlock = new EmployeeScheduleTimeBlock();
-                            newBlock.setEmployeeScheduleDay(day);
-                            newBlock.setStartTime(Time.valueOf(normalizeTimeString(timeBlockDTO.getStartTime())));
-                            newBlock.setEndTime(Time.valueOf(normalizeTimeString(timeBlockDTO.getEndTime())));
-
-                            // ✅ MANEJAR BREAKS EN CREACIÓN
-                            if (timeBlockDTO.getBreakStartTime() != null && !timeBlockDTO.getBreakStartTime().trim().isEmpty()) {
-                                newBlock.setBreakStartTime(Time.valueOf(normalizeTimeString(timeBlockDTO.getBreakStartTime())));
-                                System.out.println("☕ Break start asignado: " + timeBlockDTO.getBreakStartTime());
-                            }
-
-                            if (timeBlockDTO.getBreakEndTime() != null && !timeBlockDTO.getBreakEndTime().trim().isEmpty()) {
-                                newBlock.setBreakEndTime(Time.valueOf(normalizeTimeString(timeBlockDTO.getBreakEndTime())));
-                                System.out.println("☕ Break end asignado: " + timeBlockDTO.getBreakEndTime());
-                            }
-
-                            newBlock.setCreatedAt(new Date());
-                            EmployeeScheduleTimeBlock savedBlock = employeeScheduleTimeBlockRepository.save(newBlock);
-
-                            // Respuesta con breaks incluidos
-                            Map<String, Object> blockResponse = new LinkedHashMap<>();
-                            blockResponse.put("id", savedBlock.getId());
-                            blockResponse.put("employeeScheduleDayId", savedBlock.getEmployeeScheduleDay().getId());
-                            blockResponse.put("startTime", savedBlock.getStartTime().toString());
-                            blockResponse.put("endTime", savedBlock.getEndTime().toString());
-
-                            // ✅ INCLUIR BREAKS EN RESPUESTA
-                            if (savedBlock.getBreakStartTime() != null) {
-                                blockResponse.put("breakStartTime", savedBlock.getBreakStartTime().toString());
-                            }
-                            if (savedBlock.getBreakEndTime() != null) {
-                                blockResponse.put("breakEndTime", savedBlock.getBreakEndTime().toString());
-                            }
-
-                            blockResponse.put("numberId", timeBlockDTO.getNumberId());
-                            blockResponse.put("action", "CREATED");
-                            processedBlocks.add(blockResponse);
-
-                            System.out.println("✅ BLOQUE CREADO: " + blockResponse);
-                        } else {
-                            System.out.println("❌ NO SE ENCONTRÓ DÍA CON ID: " + timeBlockDTO.getEmployeeScheduleDayId());
-                        }
-                    }
-                } catch (Exception e) {
-                    System.err.println("❌ ERROR PROCESANDO BLOQUE: " + e.getMessage());
-                    e.printStackTrace();
-                }
-            }
-
-            // ✅ RECÁLCULO AUTOMÁTICO PARA EMPLEADOS AFECTADOS
-            if (!affectedEmployees.isEmpty()) {
-                try {
-                    System.out.println("🔄 INICIANDO RECÁLCULO MASIVO PARA " + affectedEmployees.size() + " EMPLEADOS");
-                    for (Long employeeId : affectedEmployees) {
-                        try {
-                            autoRecalculateEmployeeGroups(employeeId);
-                            System.out.println("✅ Recálculo completado para empleado: " + employeeId);
-                        } catch (Exception e) {
-                            System.err.println("⚠️ Error recalculando empleado " + employeeId + ": " + e.getMessage());
-                        }
-                    }
-                    System.out.println("🔄 RECÁLCULO MASIVO COMPLETADO para " + affectedEmployees.size() + " empleados");
-                } catch (Exception e) {
-                    System.err.println("⚠️ ERROR EN RECÁLCULO MASIVO: " + e.getMessage());
-                }
-            }
-
-            response.put("success", true);
-            response.put("message", "Time blocks processed successfully");
-            response.put("processedBlocks", processedBlocks);
-            response.put("totalProcessed", processedBlocks.size());
-            response.put("recalculatedEmployees", affectedEmployees.size());
-
-            System.out.println("\n✅ PROCESAMIENTO COMPLETADO: " + processedBlocks.size() + " bloques");
-
-            return ResponseEntity.ok(response);
+        if (timeBlockDTOList == null || timeBlockDTOList.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
 
+        TimeBlockBulkUpdateService.BulkResult result;
+        try {
+            result = timeBlockBulkUpdateService.apply(timeBlockDTOList);
+        } catch (TimeBlockBulkUpdateService.InvalidBatchException e) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("success", false);
+            error.put("message", e.getMessage());
+            error.put("errors", e.getErrors());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
-            System.err.println("❌ ERROR GENERAL: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error en edición masiva de bloques", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("success", false, "message", "Error processing time blocks"));
         }
+
+        // ✅ UN RECÁLCULO POR EMPLEADO con el rango tocado (ya confirmado el lote)
+        int recalculatedEmployees = 0;
+        for (TimeBlockBulkUpdateService.EmployeePeriod period : result.affectedPeriods()) {
+            try {
+                if (recalculationQueue.isEnabled()) {
+                    recalculationQueue.enqueue(period.employeeId(), period.from(), period.to());
+                } else {
+                    recalculationQueue.recalculateNow(period.employeeId(), period.from(), period.to());
+                }
+                recalculatedEmployees++;
+            } catch (Exception e) {
+                log.error("Error en recálculo del empleado {} ({} a {}) tras la edición masiva",
+                        period.employeeId(), period.from(), period.to(), e);
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("message", "Time blocks processed successfully");
+        response.put("processedBlocks", result.processedBlocks());
+        response.put("totalProcessed", result.processedBlocks().size());
+        response.put("updated", result.updated());
+        response.put("created", result.created());
+        response.put("deleted", result.deleted());
+        response.put("recalculatedEmployees", recalculatedEmployees);
+        response.put("recalculationQueued", recalculationQueue.isEnabled());
+        return ResponseEntity.ok(response);
     }
     @DeleteMapping("/timeblocks/{timeBlockId}")
     public ResponseEntity<Map<String, Object>> deleteTimeBlock(@PathVariable Long timeBlockId) {
@@ -744,7 +636,9 @@ public class EmployeeScheduleController {
             List<EmployeeScheduleTimeBlock> remainingBlocks =
                     employeeScheduleTimeBlockRepository.findByEmployeeScheduleDayId(dayId);
 
-            if (remainingBlocks.isEmpty()) {
+            // En horarios compactos el día vacío se conserva: marca la fecha como quitada del patrón
+            if (remainingBlocks.isEmpty()
+                    && !ScheduleExpansionService.isCompact(block.getEmployeeScheduleDay().getEmployeeSchedule())) {
                 employeeScheduleDayRepository.deleteById(dayId);
             }
 
@@ -780,21 +674,20 @@ public class EmployeeScheduleController {
                 System.err.println("⚠️ Error obteniendo employeeId: " + e.getMessage());
             }
 
+            DaySnapshot snapshot = captureDayForRecalculation(dayId);
+
             // Eliminar todos los timeBlocks de este día
             employeeScheduleTimeBlockRepository.deleteByEmployeeScheduleDayId(dayId);
 
-            // Eliminar el día mismo
-            employeeScheduleDayRepository.deleteById(dayId);
+            // Eliminar el día mismo (en compactos queda vacío para que el patrón no lo vuelva a generar)
+            if (!ScheduleExpansionService.isCompact(day.getEmployeeSchedule())) {
+                employeeScheduleDayRepository.deleteById(dayId);
+            }
 
             System.out.println("🗑️ DÍA ELIMINADO EXITOSAMENTE: " + dayId);
 
             // ✅ RECÁLCULO AUTOMÁTICO DESPUÉS DE ELIMINAR
-            if (employeeId != null) {
-                System.out.println("🔄 INICIANDO RECÁLCULO PARA EMPLEADO: " + employeeId);
-                recalculateEmployeeGroupsSync(employeeId);
-            } else {
-                System.err.println("❌ NO SE PUDO RECALCULAR - employeeId es NULL");
-            }
+            boolean recalculated = recalculateDay(snapshot, employeeId);
 
             Map<String, Object> response = new LinkedHashMap<>();
             response.put("success", true);
@@ -802,7 +695,7 @@ public class EmployeeScheduleController {
             response.put("dayId", dayId);
             response.put("date", day.getDate());
             response.put("employeeId", employeeId);
-            response.put("recalculated", employeeId != null);
+            response.put("recalculated", recalculated);
 
             return ResponseEntity.ok(response);
 
@@ -816,6 +709,50 @@ public class EmployeeScheduleController {
                     .body(Map.of("error", "Error interno del servidor: " + e.getMessage()));
         }
     }
+    /**
+     * Guarda una fecha de un horario compacto como día propio, para editar sus bloques con los
+     * endpoints de siempre. Body: {"date": "yyyy-MM-dd", "removed": false}
+     */
+    @PostMapping("/{id}/overrides")
+    public ResponseEntity<Map<String, Object>> createOverride(@PathVariable Long id,
+                                                              @RequestBody Map<String, Object> body) {
+        try {
+            Object dateObj = body.get("date");
+            if (dateObj == null || dateObj.toString().isBlank()) {
+                throw new IllegalArgumentException("date es requerido");
+            }
+            LocalDate date = LocalDate.parse(dateObj.toString());
+            boolean removed = body.get("removed") != null && Boolean.parseBoolean(body.get("removed").toString());
+
+            EmployeeScheduleDay day = scheduleExpansionService.materializeOverride(id, date, removed);
+            if (removed) {
+                recalculateEmployee(day.getEmployeeSchedule().getEmployeeId());
+            }
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("success", true);
+            response.put("scheduleId", id);
+            response.put("dayId", day.getId());
+            response.put("date", date);
+            response.put("removed", day.getTimeBlocks().isEmpty());
+            response.put("timeBlocks", day.getTimeBlocks().stream().map(tb -> {
+                Map<String, Object> blockMap = new LinkedHashMap<>();
+                blockMap.put("id", tb.getId());
+                blockMap.put("startTime", tb.getStartTime() != null ? tb.getStartTime().toString() : null);
+                blockMap.put("endTime", tb.getEndTime() != null ? tb.getEndTime().toString() : null);
+                return blockMap;
+            }).collect(Collectors.toList()));
+            return ResponseEntity.ok(response);
+
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException | IllegalStateException | java.time.format.DateTimeParseException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PostMapping("/cleanup-empty-days/{employeeId}")
     public ResponseEntity<Map<String, Object>> cleanupEmptyDaysForEmployee(
             @PathVariable Long employeeId) {
@@ -944,6 +881,10 @@ public class EmployeeScheduleController {
         if (scheduleRequest.get("endDate") != null && !scheduleRequest.get("endDate").toString().isBlank()) {
             schedule.setEndDate(LocalDate.parse(scheduleRequest.get("endDate").toString()));
         }
+        // Sin "compact" se usa schedule.compact.default
+        if (scheduleRequest.get("compact") != null) {
+            schedule.setCompact(Boolean.parseBoolean(scheduleRequest.get("compact").toString()));
+        }
 
         return schedule;
     }
@@ -1030,8 +971,6 @@ public class EmployeeScheduleController {
 
     @GetMapping("/employee/{employeeId}/daily-breakdown")
     public ResponseEntity<Map<String, Object>> getDailyBreakdown(@PathVariable Long employeeId) {
-        employeeScheduleService.testDiagnostic(employeeId);
-
         try {
             Map<String, Object> breakdown = employeeScheduleService.getDailyBreakdown(employeeId);
             return ResponseEntity.ok(breakdown);
@@ -1042,6 +981,33 @@ public class EmployeeScheduleController {
     }
 
 
+    /**
+     * Horas clasificadas del período para nómina, una fila por empleado, fecha y tipo de hora.
+     * format=csv (por defecto) o ndjson; la respuesta se escribe a medida que se lee.
+     */
+    @GetMapping("/export/hours")
+    public ResponseEntity<?> exportClassifiedHours(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long dependencyId,
+            @RequestParam(defaultValue = "csv") String format) {
+        PayrollExportService.Format exportFormat;
+        try {
+            exportFormat = PayrollExportService.Format.of(format);
+            payrollExportService.validate(startDate, endDate);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        StreamingResponseBody body = out ->
+                payrollExportService.export(startDate, endDate, dependencyId, exportFormat, out);
+        String fileName = "horas_" + startDate + "_" + endDate + "." + exportFormat.name().toLowerCase(Locale.ROOT);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
     @GetMapping("/daily-breakdown-filtered/{employeeId}")
     public ResponseEntity<Map<String, Object>> getDailyBreakdownFiltered(@PathVariable Long employeeId) {
         try {
@@ -1138,6 +1104,10 @@ public class EmployeeScheduleController {
             boolean isDelete = (timeBlockDTO.getStartTime() == null || timeBlockDTO.getStartTime().trim().isEmpty()) &&
                     (timeBlockDTO.getEndTime() == null || timeBlockDTO.getEndTime().trim().isEmpty());
 
+            DaySnapshot snapshot = existingBlock.getEmployeeScheduleDay() != null
+                    ? captureDayForRecalculation(existingBlock.getEmployeeScheduleDay().getId())
+                    : null;
+
             if (isDelete) {
                 System.out.println("🗑️ ELIMINANDO TIMEBLOCK ID: " + id);
                 employeeScheduleTimeBlockRepository.delete(existingBlock);
@@ -1151,14 +1121,7 @@ public class EmployeeScheduleController {
                 // ✅ RECÁLCULO AUTOMÁTICO DESPUÉS DE ELIMINAR
                 System.out.println("🔍 VERIFICANDO RECÁLCULO POST-ELIMINACIÓN:");
                 System.out.println("  - employeeId: " + employeeId);
-                System.out.println("  - employeeId es null?: " + (employeeId == null));
-
-                if (employeeId != null) {
-                    System.out.println("🚀 LLAMANDO A recalculateEmployeeGroupsSync...");
-                    recalculateEmployeeGroupsSync(employeeId);
-                } else {
-                    System.err.println("❌ employeeId ES NULL, no se puede recalcular");
-                }
+                recalculateDay(snapshot, employeeId);
 
                 return ResponseEntity.ok(response);
 
@@ -1190,14 +1153,7 @@ public class EmployeeScheduleController {
                 // ✅ RECÁLCULO AUTOMÁTICO DESPUÉS DE ACTUALIZAR
                 System.out.println("🔍 VERIFICANDO RECÁLCULO POST-ACTUALIZACIÓN:");
                 System.out.println("  - employeeId: " + employeeId);
-                System.out.println("  - employeeId es null?: " + (employeeId == null));
-
-                if (employeeId != null) {
-                    System.out.println("🚀 LLAMANDO A recalculateEmployeeGroupsSync...");
-                    recalculateEmployeeGroupsSync(employeeId);
-                } else {
-                    System.err.println("❌ employeeId ES NULL, no se puede recalcular");
-                }
+                recalculateDay(snapshot, employeeId);
 
                 Map<String, Object> response = new LinkedHashMap<>();
                 response.put("success", true);
@@ -7,6 +7,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import sp.sistemaspalacios.api_chronos.dto.schedule.ScheduleAssignmentGroupDTO;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment.GroupRecalculationJobService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment.GroupRecalculationQueue;
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment.ScheduleAssignmentGroupService;
 
 import java.time.LocalDate;
@@ -21,6 +23,8 @@ import java.util.Map;
 public class ScheduleAssignmentGroupController {
 
     private final ScheduleAssignmentGroupService groupService;
+    private final GroupRecalculationJobService recalculationJobService;
+    private final GroupRecalculationQueue recalculationQueue;
 
     /**
      * 1. CREAR/AGRUPAR asignaciones
@@ -141,6 +145,105 @@ public class ScheduleAssignmentGroupController {
         }
     }
 
+    /**
+     * 6. INICIAR recálculo masivo (período y/o dependencia) en segundo plano
+     * POST /api/schedule-groups/recalculation-jobs
+     */
+    @PostMapping("/recalculation-jobs")
+    public ResponseEntity<?> startRecalculationJob(@RequestBody RecalculationJobRequest request) {
+        try {
+            GroupRecalculationJobService.JobSnapshot job = recalculationJobService.start(
+                    request.getStartDate(), request.getEndDate(), request.getDependencyId());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * 7. CONSULTAR progreso de un recálculo
+     * GET /api/schedule-groups/recalculation-jobs/{jobId}
+     */
+    @GetMapping("/recalculation-jobs/{jobId}")
+    public ResponseEntity<?> getRecalculationJob(@PathVariable String jobId) {
+        return recalculationJobService.get(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/recalculation-jobs")
+    public ResponseEntity<?> listRecalculationJobs() {
+        return ResponseEntity.ok(recalculationJobService.list());
+    }
+
+    /**
+     * 8. CANCELAR un recálculo (los lotes en curso terminan)
+     * DELETE /api/schedule-groups/recalculation-jobs/{jobId}
+     */
+    @DeleteMapping("/recalculation-jobs/{jobId}")
+    public ResponseEntity<?> cancelRecalculationJob(@PathVariable String jobId) {
+        return recalculationJobService.cancel(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 9. ESTADO de la cola de recálculo por ediciones
+     * GET /api/schedule-groups/recalculation-queue
+     */
+    @GetMapping("/recalculation-queue")
+    public ResponseEntity<GroupRecalculationQueue.QueueStats> getRecalculationQueueStats() {
+        return ResponseEntity.ok(recalculationQueue.getStats());
+    }
+
+    /**
+     * 10. ¿Están al día los totales del empleado? (fresh = sin ediciones pendientes; UNKNOWN si la cola no lo ha visto)
+     * GET /api/schedule-groups/recalculation-queue/employees/{employeeId}
+     */
+    @GetMapping("/recalculation-queue/employees/{employeeId}")
+    public ResponseEntity<GroupRecalculationQueue.EmployeeStatus> getEmployeeRecalculationStatus(
+            @PathVariable Long employeeId) {
+        return ResponseEntity.ok(recalculationQueue.getStatus(employeeId));
+    }
+
+    public static class RecalculationJobRequest {
+        @DateTimeFormat(pattern = "yyyy-MM-dd")
+        private LocalDate startDate;
+        @DateTimeFormat(pattern = "yyyy-MM-dd")
+        private LocalDate endDate;
+        private Long dependencyId;
+
+        public LocalDate getStartDate() {
+            return startDate;
+        }
+
+        public void setStartDate(LocalDate startDate) {
+            this.startDate = startDate;
+        }
+
+        public LocalDate getEndDate() {
+            return endDate;
+        }
+
+        public void setEndDate(LocalDate endDate) {
+            this.endDate = endDate;
+        }
+
+        public Long getDependencyId() {
+            return dependencyId;
+        }
+
+        public void setDependencyId(Long dependencyId) {
+            this.dependencyId = dependencyId;
+        }
+    }
+
     /**
      * Clase interna para el request
      */
@@ -167,7 +270,6 @@ public class ScheduleAssignmentGroupController {
     }
 
 
-// MODIFICAR el endpoint en ScheduleAssignmentGroupController
 
     @GetMapping
     public ResponseEntity<?> getAllScheduleGroups(
@@ -176,32 +278,22 @@ public class ScheduleAssignmentGroupController {
             @RequestParam(required = false) Long employeeId,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Long cursor,
             @RequestParam(defaultValue = "50") int size) {
 
         try {
-            // Limitar el tamaño máximo para evitar sobrecarga
-            if (size > 100) size = 100;
-
-            List<ScheduleAssignmentGroupDTO> allGroups = groupService.getAllScheduleGroupsWithFilters(
-                    status, shiftName, employeeId, startDate, endDate);
-
-            // Aplicar paginación manual
-            int totalGroups = allGroups.size();
-            int startIndex = page * size;
-            int endIndex = Math.min(startIndex + size, totalGroups);
-
-            List<ScheduleAssignmentGroupDTO> pagedGroups = allGroups.subList(startIndex, endIndex);
+            // Paginación por cursor: enviar el nextCursor de la respuesta anterior
+            ScheduleAssignmentGroupService.GroupPage result = groupService.getAllScheduleGroupsWithFilters(
+                    status, shiftName, employeeId, startDate, endDate, cursor, size);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("totalGroups", totalGroups);
-            response.put("groups", pagedGroups);
-            response.put("page", page);
+            response.put("groups", result.groups());
             response.put("size", size);
-            response.put("totalPages", (int) Math.ceil((double) totalGroups / size));
-            response.put("hasNext", endIndex < totalGroups);
-            response.put("hasPrevious", page > 0);
+            response.put("cursor", cursor);
+            response.put("nextCursor", result.nextCursor());
+            response.put("hasNext", result.hasNext());
+            response.put("hasPrevious", cursor != null);
 
             return ResponseEntity.ok(response);
 
@@ -0,0 +1,16 @@
+package sp.sistemaspalacios.api_chronos.dto.attendance;
+
+import lombok.Data;
+import sp.sistemaspalacios.api_chronos.entity.employeeAttendance.AttendanceType;
+
+import java.util.Date;
+
+@Data
+public class AttendancePunchRequest {
+
+    private Long scheduleId;
+    private AttendanceType type;
+
+    // Hora de la marcación en la terminal; si no viene se usa la hora del servidor
+    private Date timestamp;
+}
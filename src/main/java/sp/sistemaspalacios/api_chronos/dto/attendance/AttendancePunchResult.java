@@ -0,0 +1,24 @@
+package sp.sistemaspalacios.api_chronos.dto.attendance;
+
+import lombok.Data;
+import sp.sistemaspalacios.api_chronos.entity.employeeAttendance.AttendanceType;
+
+import java.util.Date;
+
+@Data
+public class AttendancePunchResult {
+
+    // Posición de la marcación en la petición
+    private int index;
+    private Long scheduleId;
+    private AttendanceType type;
+    private Date timestamp;
+
+    private boolean success;
+    private boolean blocked;
+    private Long attendanceId;
+    private Boolean isLate;
+    private String status;
+    private String alertType;
+    private String message;
+}
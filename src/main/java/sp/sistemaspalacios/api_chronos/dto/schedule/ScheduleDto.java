@@ -49,6 +49,9 @@ public final class ScheduleDto {
         @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
         private LocalDate endDate;
 
+        // null = valor por defecto (schedule.compact.default)
+        private Boolean compact;
+
         public ScheduleAssignment() {}
 
         public Long getEmployeeId() { return employeeId; }
@@ -63,6 +66,9 @@ public final class ScheduleDto {
         public LocalDate getEndDate() { return endDate; }
         public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
 
+        public Boolean getCompact() { return compact; }
+        public void setCompact(Boolean compact) { this.compact = compact; }
+
         @Override
         public String toString() {
             return "ScheduleAssignment{" +
@@ -101,6 +107,8 @@ public final class ScheduleDto {
         @Valid // ⬅️ importante para validar cada HolidayDecision
         private List<HolidayDecision> holidayDecisions = new ArrayList<>(); // ⬅️ evita null
 
+        private Boolean compact;
+
         public ConfirmedAssignment() {}
         public Long getEmployeeId() { return employeeId; }
         public void setEmployeeId(Long employeeId) { this.employeeId = employeeId; }
@@ -112,6 +120,8 @@ public final class ScheduleDto {
         public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
         public List<HolidayDecision> getHolidayDecisions() { return holidayDecisions; }
         public void setHolidayDecisions(List<HolidayDecision> holidayDecisions) { this.holidayDecisions = holidayDecisions; }
+        public Boolean getCompact() { return compact; }
+        public void setCompact(Boolean compact) { this.compact = compact; }
     }
 
     public static class HolidayDecision { @NotNull
@@ -7,11 +7,16 @@ import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
 import java.util.Date;
 
 @Entity
-@Table(name = "employee_attendance")
+// Particionada por mes sobre timestamp (AttendancePartitionManager): la PK en BD es (id, timestamp)
+@Table(name = "employee_attendance", indexes = {
+        @Index(name = "idx_attendance_schedule_ts", columnList = "employee_schedule_id, timestamp")
+})
 @Data
 public class EmployeeAttendance {
+    // Secuencia (y no IDENTITY) para que Hibernate pueda agrupar los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employee_attendance_seq")
+    @SequenceGenerator(name = "employee_attendance_seq", sequenceName = "employee_attendance_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -2,6 +2,7 @@ package sp.sistemaspalacios.api_chronos.entity.employeeSchedule;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 import sp.sistemaspalacios.api_chronos.entity.shift.Shifts;
 
 import java.util.ArrayList;
@@ -30,12 +31,18 @@ public class EmployeeSchedule {
 
 
     @OneToMany(mappedBy = "employeeSchedule", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<EmployeeScheduleDay> days = new ArrayList<>();
 
     // Columna para almacenar el ID de days
     @Column(name = "days_parent_id")
     private Long daysParentId;
 
+    // Modo compacto: no se generan días; solo se guardan los días que difieren del patrón del turno
+    // (bloques editados, festivos quitados = día sin bloques, segmentos personalizados)
+    @Column(name = "compact")
+    private Boolean compact;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     @Temporal(TemporalType.TIMESTAMP)
     private Date createdAt;
@@ -2,6 +2,8 @@ package sp.sistemaspalacios.api_chronos.entity.employeeSchedule;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
+import sp.sistemaspalacios.api_chronos.service.employeeAttendance.ScheduleDayIndexListener;
 
 import java.time.ZoneId;
 import java.util.ArrayList;
@@ -11,6 +13,7 @@ import java.util.List;
 @Entity
 @Table(name = "employee_schedule_days")
 @Data
+@EntityListeners(ScheduleDayIndexListener.class)
 public class EmployeeScheduleDay {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -26,6 +29,7 @@ public class EmployeeScheduleDay {
     private EmployeeSchedule employeeSchedule;
 
     @OneToMany(mappedBy = "employeeScheduleDay", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     private List<EmployeeScheduleTimeBlock> timeBlocks = new ArrayList<>();
 
     // Nuevo campo para days_parent_id
@@ -2,6 +2,7 @@ package sp.sistemaspalacios.api_chronos.entity.employeeSchedule;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import sp.sistemaspalacios.api_chronos.service.employeeAttendance.ScheduleDayIndexListener;
 
 import java.sql.Time;
 import java.util.Date;
@@ -9,6 +10,7 @@ import java.util.Date;
 @Entity
 @Table(name = "employee_schedule_time_blocks")
 @Data
+@EntityListeners(ScheduleDayIndexListener.class)
 public class EmployeeScheduleTimeBlock {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
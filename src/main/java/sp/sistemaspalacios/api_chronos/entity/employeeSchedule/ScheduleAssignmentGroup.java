@@ -2,6 +2,7 @@ package sp.sistemaspalacios.api_chronos.entity.employeeSchedule;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -9,7 +10,10 @@ import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "schedule_assignment_group")
+@Table(name = "schedule_assignment_group", indexes = {
+        @Index(name = "idx_sag_employee_period_end", columnList = "employee_id, period_end"),
+        @Index(name = "idx_sag_period_end", columnList = "period_end")
+})
 @Data
 public class ScheduleAssignmentGroup {
 
@@ -35,6 +39,7 @@ public class ScheduleAssignmentGroup {
             joinColumns = @JoinColumn(name = "group_id")
     )
     @Column(name = "employee_schedule_id")
+    @BatchSize(size = 100)
     private List<Long> employeeScheduleIds = new ArrayList<>();
 
     @Column(name = "total_hours", precision = 10, scale = 2)
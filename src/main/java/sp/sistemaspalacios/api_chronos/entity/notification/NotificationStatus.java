@@ -0,0 +1,8 @@
+package sp.sistemaspalacios.api_chronos.entity.notification;
+
+public enum NotificationStatus {
+    PENDING,    // En espera de envío (o de reintento)
+    SENDING,    // Tomada por el despachador
+    SENT,       // Entregada
+    DEAD        // Agotó los reintentos
+}
@@ -2,10 +2,13 @@ package sp.sistemaspalacios.api_chronos.repository.employeeAttendance;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sp.sistemaspalacios.api_chronos.entity.employeeAttendance.EmployeeAttendance;
 import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -15,12 +18,25 @@ public interface EmployeeAttendanceRepository extends JpaRepository<EmployeeAtte
     List<EmployeeAttendance> findByEmployeeSchedule(EmployeeSchedule employeeSchedule);
     Optional<EmployeeAttendance> findTopByEmployeeScheduleOrderByTimestampDesc(EmployeeSchedule employeeSchedule);
 
+    /**
+     * Marcaciones del horario en [from, to), por rango semiabierto sobre timestamp: usa el índice
+     * (employee_schedule_id, timestamp) y solo recorre las particiones mensuales del rango.
+     */
     @Query("SELECT ea FROM EmployeeAttendance ea " +
             "WHERE ea.employeeSchedule = :schedule " +
-            "AND DATE(ea.timestamp) = :date " +
+            "AND ea.timestamp >= :from AND ea.timestamp < :to " +
             "ORDER BY ea.timestamp ASC")
-    List<EmployeeAttendance> findByEmployeeScheduleAndDate(
-            EmployeeSchedule schedule,
-            Date date
+    List<EmployeeAttendance> findByEmployeeScheduleAndTimestampRange(
+            @Param("schedule") EmployeeSchedule schedule,
+            @Param("from") Date from,
+            @Param("to") Date to
     );
+
+    /** Marcaciones del horario en la fecha indicada (día completo, hora local). */
+    default List<EmployeeAttendance> findByEmployeeScheduleAndDate(EmployeeSchedule schedule, LocalDate date) {
+        ZoneId zone = ZoneId.systemDefault();
+        return findByEmployeeScheduleAndTimestampRange(schedule,
+                Date.from(date.atStartOfDay(zone).toInstant()),
+                Date.from(date.plusDays(1).atStartOfDay(zone).toInstant()));
+    }
 }
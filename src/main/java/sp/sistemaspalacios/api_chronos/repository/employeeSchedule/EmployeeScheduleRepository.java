@@ -8,6 +8,7 @@ import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
 import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -16,7 +17,7 @@ public interface EmployeeScheduleRepository extends JpaRepository<EmployeeSchedu
 
     @Query(value = """
             SELECT es.id, es.created_at, es.employee_id, es.end_date, 
-                   es.shift_id, es.start_date, es.updated_at, es.days_parent_id
+                   es.shift_id, es.start_date, es.updated_at, es.days_parent_id, es.compact
             FROM chronos.employee_schedules es 
             WHERE es.employee_id = :employeeId
             """, nativeQuery = true)
@@ -69,11 +70,77 @@ public interface EmployeeScheduleRepository extends JpaRepository<EmployeeSchedu
             "ORDER BY d.date, tb.startTime")
     List<EmployeeScheduleDay> findDaysWithTimeBlocksByScheduleIds(@Param("scheduleIds") List<Long> scheduleIds);
 
+    // Días (con bloques) de varios horarios en las fechas indicadas
+    @Query("SELECT DISTINCT d FROM EmployeeScheduleDay d " +
+            "LEFT JOIN FETCH d.timeBlocks tb " +
+            "JOIN FETCH d.employeeSchedule es " +
+            "WHERE es.id IN :scheduleIds AND d.date IN :dates")
+    List<EmployeeScheduleDay> findDaysWithTimeBlocksByScheduleIdsAndDates(@Param("scheduleIds") Collection<Long> scheduleIds,
+                                                                         @Param("dates") Collection<Date> dates);
+
+    // Todos los días (con bloques) de las fechas indicadas; carga del índice de días
+    @Query("SELECT DISTINCT d FROM EmployeeScheduleDay d " +
+            "LEFT JOIN FETCH d.timeBlocks tb " +
+            "JOIN FETCH d.employeeSchedule es " +
+            "WHERE d.date IN :dates")
+    List<EmployeeScheduleDay> findDaysWithTimeBlocksByDates(@Param("dates") Collection<Date> dates);
+
+    @Query("SELECT DISTINCT d FROM EmployeeScheduleDay d " +
+            "LEFT JOIN FETCH d.timeBlocks tb " +
+            "JOIN FETCH d.employeeSchedule es " +
+            "WHERE d.id IN :dayIds")
+    List<EmployeeScheduleDay> findDaysWithTimeBlocksByIds(@Param("dayIds") Collection<Long> dayIds);
+
+    // Horarios compactos vigentes en [from, to], con su turno y patrón (índice de días)
+    @Query("SELECT DISTINCT es FROM EmployeeSchedule es JOIN FETCH es.shift s LEFT JOIN FETCH s.shiftDetails " +
+            "WHERE es.compact = true AND es.startDate <= :to AND (es.endDate IS NULL OR es.endDate >= :from)")
+    List<EmployeeSchedule> findCompactActiveBetween(@Param("from") java.time.LocalDate from,
+                                                    @Param("to") java.time.LocalDate to);
+
+    @Query("SELECT DISTINCT es FROM EmployeeSchedule es JOIN FETCH es.shift s LEFT JOIN FETCH s.shiftDetails " +
+            "WHERE es.id IN :scheduleIds AND es.compact = true " +
+            "AND es.startDate <= :to AND (es.endDate IS NULL OR es.endDate >= :from)")
+    List<EmployeeSchedule> findCompactActiveBetweenByIds(@Param("scheduleIds") Collection<Long> scheduleIds,
+                                                         @Param("from") java.time.LocalDate from,
+                                                         @Param("to") java.time.LocalDate to);
+
+    // Bloques de una fecha como filas [dayId, scheduleId, startTime, endTime] (bloque null si el día no tiene);
+    // lectura directa, sin pasar por colecciones ya cargadas en el contexto de persistencia
+    @Query("SELECT d.id, es.id, tb.startTime, tb.endTime FROM EmployeeScheduleDay d " +
+            "JOIN d.employeeSchedule es " +
+            "LEFT JOIN d.timeBlocks tb " +
+            "WHERE es.id IN :scheduleIds AND d.date = :date " +
+            "ORDER BY d.id, tb.id")
+    List<Object[]> findBlockRowsByScheduleIdsAndDate(@Param("scheduleIds") Collection<Long> scheduleIds,
+                                                     @Param("date") Date date);
+
+    // Cuáles de los horarios tienen al menos un día propio
+    @Query("SELECT DISTINCT d.employeeSchedule.id FROM EmployeeScheduleDay d WHERE d.employeeSchedule.id IN :scheduleIds")
+    List<Long> findScheduleIdsWithDays(@Param("scheduleIds") Collection<Long> scheduleIds);
+
+    // [scheduleId, employeeId, fecha] de un día
+    @Query("SELECT es.id, es.employeeId, d.date FROM EmployeeScheduleDay d JOIN d.employeeSchedule es WHERE d.id = :dayId")
+    List<Object[]> findDayOwner(@Param("dayId") Long dayId);
+
+    @Query("SELECT es FROM EmployeeSchedule es LEFT JOIN FETCH es.shift WHERE es.id IN :ids")
+    List<EmployeeSchedule> findByIdInWithShift(@Param("ids") Collection<Long> ids);
+
+    // Horarios compactos de los turnos (recarga del índice de días al cambiar un turno)
+    @Query("SELECT es.id FROM EmployeeSchedule es WHERE es.compact = true AND es.shift.id IN :shiftIds")
+    List<Long> findCompactIdsByShiftIdIn(@Param("shiftIds") Collection<Long> shiftIds);
+
 
     // Agregar este método en EmployeeScheduleRepository
     @Query("SELECT es FROM EmployeeSchedule es WHERE es.shift.id IN :shiftIds")
     List<EmployeeSchedule> findByShiftIdIn(@Param("shiftIds") List<Long> shiftIds);
 
+    // Vista por dependencia: horarios con su turno en una sola consulta
+    @Query("SELECT es FROM EmployeeSchedule es JOIN FETCH es.shift s WHERE s.dependencyId = :dependencyId")
+    List<EmployeeSchedule> findByDependencyIdWithShift(@Param("dependencyId") Long dependencyId);
+
+    @Query("SELECT es FROM EmployeeSchedule es JOIN FETCH es.shift s WHERE s.id = :shiftId")
+    List<EmployeeSchedule> findByShiftIdWithShift(@Param("shiftId") Long shiftId);
+
 
 
 
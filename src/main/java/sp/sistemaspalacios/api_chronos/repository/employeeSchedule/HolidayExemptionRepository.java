@@ -5,6 +5,7 @@ import org.springframework.stereotype.Repository;
 import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.HolidayExemption;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,6 +20,11 @@ public interface HolidayExemptionRepository extends JpaRepository<HolidayExempti
     // Verificar si existe una excepción para empleado y fecha
     boolean existsByEmployeeIdAndHolidayDate(Long employeeId, LocalDate holidayDate);
 
+    // Cargar en una sola consulta las excepciones de varios empleados en un rango de fechas
+    List<HolidayExemption> findByEmployeeIdInAndHolidayDateBetweenOrderByIdAsc(Collection<Long> employeeIds,
+                                                                              LocalDate start,
+                                                                              LocalDate end);
+
 
     @org.springframework.data.jpa.repository.Query(value = """
         SELECT he.*
@@ -1,5 +1,6 @@
 package sp.sistemaspalacios.api_chronos.repository.employeeSchedule;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -36,6 +37,70 @@ public interface ScheduleAssignmentGroupRepository extends JpaRepository<Schedul
             "WHERE scheduleId = :scheduleId")
     Optional<ScheduleAssignmentGroup> findByEmployeeScheduleId(@Param("scheduleId") Long scheduleId);
 
+    // Todos los grupos que incluyen el horario
+    @Query("SELECT sag FROM ScheduleAssignmentGroup sag " +
+            "JOIN sag.employeeScheduleIds scheduleId " +
+            "WHERE scheduleId = :scheduleId")
+    List<ScheduleAssignmentGroup> findAllByEmployeeScheduleId(@Param("scheduleId") Long scheduleId);
+
+    // Listado paginado por cursor (id > afterId); los filtros de fecha siempre llevan valor.
+    // shiftName (en minúsculas y sin espacios extremos, null = todos): algún horario del grupo es de ese turno
+    @Query("SELECT sag FROM ScheduleAssignmentGroup sag " +
+            "WHERE sag.id > :afterId " +
+            "AND (:employeeId IS NULL OR sag.employeeId = :employeeId) " +
+            "AND sag.periodEnd >= :endFrom " +
+            "AND sag.periodEnd < :endBefore " +
+            "AND sag.periodStart <= :startUntil " +
+            "AND (:shiftName IS NULL OR EXISTS (" +
+            "SELECT 1 FROM ScheduleAssignmentGroup g JOIN g.employeeScheduleIds scheduleId, EmployeeSchedule es " +
+            "WHERE g.id = sag.id AND es.id = scheduleId " +
+            "AND LOWER(TRIM(es.shift.name)) = :shiftName)) " +
+            "ORDER BY sag.id ASC")
+    List<ScheduleAssignmentGroup> findPageAfter(
+            @Param("afterId") Long afterId,
+            @Param("employeeId") Long employeeId,
+            @Param("endFrom") Date endFrom,
+            @Param("endBefore") Date endBefore,
+            @Param("startUntil") Date startUntil,
+            @Param("shiftName") String shiftName,
+            Pageable pageable
+    );
+
+    // Grupos que se cruzan con el período, como [id, employeeId] ordenados por empleado (job de recálculo)
+    @Query("SELECT sag.id, sag.employeeId FROM ScheduleAssignmentGroup sag " +
+            "WHERE sag.periodStart <= :endDate " +
+            "AND sag.periodEnd >= :startDate " +
+            "ORDER BY sag.employeeId, sag.id")
+    List<Object[]> findRecalculationTargets(
+            @Param("startDate") Date startDate,
+            @Param("endDate") Date endDate
+    );
+
+    // Igual, limitado a grupos con al menos un horario de un turno de la dependencia
+    @Query("SELECT DISTINCT sag.id, sag.employeeId FROM ScheduleAssignmentGroup sag " +
+            "JOIN sag.employeeScheduleIds scheduleId, EmployeeSchedule es " +
+            "WHERE es.id = scheduleId " +
+            "AND es.shift.dependencyId = :dependencyId " +
+            "AND sag.periodStart <= :endDate " +
+            "AND sag.periodEnd >= :startDate " +
+            "ORDER BY sag.employeeId, sag.id")
+    List<Object[]> findRecalculationTargetsByDependency(
+            @Param("dependencyId") Long dependencyId,
+            @Param("startDate") Date startDate,
+            @Param("endDate") Date endDate
+    );
+
+    // IDs de los grupos del empleado que se cruzan con el rango (cola de recálculo)
+    @Query("SELECT sag.id FROM ScheduleAssignmentGroup sag " +
+            "WHERE sag.employeeId = :employeeId " +
+            "AND sag.periodStart <= :endDate " +
+            "AND sag.periodEnd >= :startDate")
+    List<Long> findIdsByEmployeeIdAndPeriodOverlap(
+            @Param("employeeId") Long employeeId,
+            @Param("startDate") Date startDate,
+            @Param("endDate") Date endDate
+    );
+
     // Buscar grupos en un período específico
     @Query("SELECT sag FROM ScheduleAssignmentGroup sag " +
             "WHERE sag.periodStart >= :startDate " +
@@ -0,0 +1,54 @@
+package sp.sistemaspalacios.api_chronos.repository.notification;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import sp.sistemaspalacios.api_chronos.entity.notification.NotificationOutbox;
+import sp.sistemaspalacios.api_chronos.entity.notification.NotificationStatus;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    // Notificaciones listas para enviar; las filas tomadas por otra instancia se saltan (SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT n FROM NotificationOutbox n " +
+            "WHERE n.status IN :statuses AND n.nextAttemptAt <= :now " +
+            "ORDER BY n.id ASC")
+    List<NotificationOutbox> findDueForUpdate(
+            @Param("statuses") Collection<NotificationStatus> statuses,
+            @Param("now") Date now,
+            Pageable pageable
+    );
+
+    @Modifying
+    @Query("UPDATE NotificationOutbox n SET n.status = :status, n.nextAttemptAt = :leaseUntil WHERE n.id IN :ids")
+    int markClaimed(@Param("ids") Collection<Long> ids,
+                    @Param("status") NotificationStatus status,
+                    @Param("leaseUntil") Date leaseUntil);
+
+    @Modifying
+    @Query("UPDATE NotificationOutbox n SET n.status = :status, n.sentAt = :sentAt, " +
+            "n.attempts = n.attempts + 1, n.lastError = null WHERE n.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids,
+                 @Param("status") NotificationStatus status,
+                 @Param("sentAt") Date sentAt);
+
+    @Modifying
+    @Query("UPDATE NotificationOutbox n SET n.status = :status, n.attempts = :attempts, " +
+            "n.nextAttemptAt = :nextAttemptAt, n.lastError = :lastError WHERE n.id = :id")
+    int markFailed(@Param("id") Long id,
+                   @Param("status") NotificationStatus status,
+                   @Param("attempts") Integer attempts,
+                   @Param("nextAttemptAt") Date nextAttemptAt,
+                   @Param("lastError") String lastError);
+
+    long countByStatus(NotificationStatus status);
+}
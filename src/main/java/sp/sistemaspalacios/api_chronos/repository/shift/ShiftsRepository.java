@@ -6,6 +6,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sp.sistemaspalacios.api_chronos.entity.shift.Shifts;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,6 +15,10 @@ public interface ShiftsRepository extends JpaRepository<Shifts, Long> {
 
     Shifts findByDependencyIdAndId(Long dependencyId, Long id);
 
+    // Turnos con sus detalles en una consulta
+    @Query("SELECT DISTINCT s FROM Shifts s LEFT JOIN FETCH s.shiftDetails WHERE s.id IN :ids")
+    List<Shifts> findAllByIdWithDetails(@Param("ids") Collection<Long> ids);
+
     @Query(value = "SELECT DISTINCT s.id, s.name, s.description, s.dependency_id " +
             "FROM shifts s " +
             "INNER JOIN shift_details sd ON s.id = sd.shift_id " +
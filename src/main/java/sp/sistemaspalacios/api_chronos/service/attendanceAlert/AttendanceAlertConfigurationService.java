@@ -4,12 +4,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import sp.sistemaspalacios.api_chronos.entity.attendanceAlert.AlertAction;
 import sp.sistemaspalacios.api_chronos.entity.attendanceAlert.AlertType;
 import sp.sistemaspalacios.api_chronos.entity.attendanceAlert.AttendanceAlertConfiguration;
 import sp.sistemaspalacios.api_chronos.repository.attendanceAlert.AttendanceAlertConfigurationRepository;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @Service
@@ -18,8 +21,21 @@ public class AttendanceAlertConfigurationService {
 
     private final AttendanceAlertConfigurationRepository repository;
 
+    // Configuraciones activas en memoria; se descartan cuando confirma un cambio
+    private volatile List<AttendanceAlertConfiguration> activeCache;
+    private final AtomicLong cacheVersion = new AtomicLong();
+
     public List<AttendanceAlertConfiguration> getAllActiveConfigurations() {
-        return repository.findAllActiveOrderedByPriority();
+        List<AttendanceAlertConfiguration> cached = activeCache;
+        if (cached == null) {
+            long version = cacheVersion.get();
+            cached = List.copyOf(repository.findAllActiveOrderedByPriority());
+            // Solo se guarda si nadie invalidó mientras se leía
+            if (cacheVersion.get() == version) {
+                activeCache = cached;
+            }
+        }
+        return cached;
     }
 
     public AttendanceAlertConfiguration getByAlertType(AlertType alertType) {
@@ -38,6 +54,7 @@ public class AttendanceAlertConfigurationService {
             throw new IllegalArgumentException("La acción es requerida");
         }
 
+        invalidateAfterCommit();
         return repository.save(config);
     }
 
@@ -47,12 +64,32 @@ public class AttendanceAlertConfigurationService {
                 .orElseThrow(() -> new IllegalArgumentException("Configuración no encontrada"));
 
         config.setIsActive(isActive);
+        invalidateAfterCommit();
         return repository.save(config);
     }
 
     @Transactional
     public void deleteConfiguration(Long id) {
         repository.deleteById(id);
+        invalidateAfterCommit();
+    }
+
+    private void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    private void invalidate() {
+        cacheVersion.incrementAndGet();
+        activeCache = null;
     }
 
     @Transactional
@@ -105,6 +142,7 @@ public class AttendanceAlertConfigurationService {
             config.setPriority(priority);
 
             repository.save(config);
+            invalidateAfterCommit();
             log.info("  ➕ Creada: {}", alertType);
         }
     }
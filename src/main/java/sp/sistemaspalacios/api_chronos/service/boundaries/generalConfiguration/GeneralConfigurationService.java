@@ -11,6 +11,7 @@ import sp.sistemaspalacios.api_chronos.repository.boundaries.generalConfiguratio
 public class GeneralConfigurationService {
 
     private final GeneralConfigurationRepository repository;
+    private final WorkingRulesService workingRulesService;
 
     /**
      * 🔹 Obtener la configuración por tipo
@@ -36,7 +37,9 @@ public class GeneralConfigurationService {
         }
 
         existing.setValue(rawValue); // actualiza valor
-        return repository.save(existing); // guarda
+        GeneralConfiguration saved = repository.save(existing); // guarda
+        workingRulesService.refreshAfterCommit(); // publica las reglas nuevas
+        return saved;
     }
 
     private void validateConfiguration(String type, String rawValue) {
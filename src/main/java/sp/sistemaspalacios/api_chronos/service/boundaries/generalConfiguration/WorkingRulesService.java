@@ -0,0 +1,103 @@
+package sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sp.sistemaspalacios.api_chronos.entity.boundaries.generalConfiguration.GeneralConfiguration;
+import sp.sistemaspalacios.api_chronos.repository.boundaries.generalConfiguration.GeneralConfigurationRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Mantiene en memoria el {@link WorkingRulesSnapshot} vigente. Se carga al arrancar y se
+ * reemplaza de forma atómica cuando {@code GeneralConfigurationService.saveOrUpdate} confirma.
+ * Los consumidores leen {@link #current()} o se suscriben para enterarse de los cambios.
+ */
+@Slf4j
+@Service
+public class WorkingRulesService {
+
+    private final GeneralConfigurationRepository repository;
+    private final List<Consumer<WorkingRulesSnapshot>> subscribers = new CopyOnWriteArrayList<>();
+
+    private volatile WorkingRulesSnapshot snapshot = WorkingRulesSnapshot.EMPTY;
+    private volatile boolean loaded = false;
+
+    public WorkingRulesService(GeneralConfigurationRepository repository) {
+        this.repository = repository;
+    }
+
+    @PostConstruct
+    void init() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            // Si la BD no está disponible al arrancar, se intenta de nuevo en la primera consulta
+            log.warn("No se pudo cargar la configuración general al iniciar: {}", e.getMessage());
+        }
+    }
+
+    /** Reglas vigentes; inmutables, se pueden usar durante toda una operación. */
+    public WorkingRulesSnapshot current() {
+        if (!loaded) {
+            refresh();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Registra un consumidor que recibe el snapshot actual y cada snapshot nuevo.
+     */
+    public void subscribe(Consumer<WorkingRulesSnapshot> subscriber) {
+        subscribers.add(subscriber);
+        if (loaded) {
+            subscriber.accept(snapshot);
+        }
+    }
+
+    /** Vuelve a leer la configuración y reemplaza el snapshot. */
+    public void refresh() {
+        List<GeneralConfiguration> configs = repository.findAll();
+        Map<String, String> values = new HashMap<>();
+        for (GeneralConfiguration config : configs) {
+            if (config.getType() != null && config.getValue() != null) {
+                values.put(config.getType(), config.getValue());
+            }
+        }
+
+        WorkingRulesSnapshot next = WorkingRulesSnapshot.from(values);
+        this.snapshot = next;
+        this.loaded = true;
+        log.debug("Reglas de jornada cargadas: {}", values);
+
+        for (Consumer<WorkingRulesSnapshot> subscriber : subscribers) {
+            try {
+                subscriber.accept(next);
+            } catch (Exception e) {
+                log.warn("Error notificando cambio de configuración: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Recarga cuando la transacción actual confirme; si no hay transacción, de inmediato.
+     */
+    public void refreshAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh();
+                }
+            });
+        } else {
+            refresh();
+        }
+    }
+}
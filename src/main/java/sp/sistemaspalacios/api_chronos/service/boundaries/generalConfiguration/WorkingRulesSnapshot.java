@@ -0,0 +1,140 @@
+package sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reglas de jornada (NIGHT_START, WEEKLY_HOURS, DAILY_HOURS, BREAK) ya interpretadas.
+ * Inmutable: cuando cambia la configuración se construye una nueva instancia.
+ * Los valores parseados son null si la configuración no existe o no se puede interpretar.
+ */
+public final class WorkingRulesSnapshot {
+
+    public static final String NIGHT_START = "NIGHT_START";
+    public static final String WEEKLY_HOURS = "WEEKLY_HOURS";
+    public static final String DAILY_HOURS = "DAILY_HOURS";
+    public static final String BREAK = "BREAK";
+
+    public static final WorkingRulesSnapshot EMPTY = from(Collections.emptyMap());
+
+    private final Map<String, String> rawValues;
+    private final Integer nightStartMinutes;
+    private final BigDecimal weeklyHours;
+    private final BigDecimal dailyHours;
+    private final Integer breakMinutes;
+
+    private WorkingRulesSnapshot(Map<String, String> rawValues) {
+        this.rawValues = rawValues;
+        this.nightStartMinutes = parseClockMinutes(rawValues.get(NIGHT_START));
+        this.weeklyHours = parseHours(rawValues.get(WEEKLY_HOURS));
+        this.dailyHours = parseHours(rawValues.get(DAILY_HOURS));
+        this.breakMinutes = parseBreakMinutes(rawValues.get(BREAK));
+    }
+
+    public static WorkingRulesSnapshot from(Map<String, String> rawValues) {
+        return new WorkingRulesSnapshot(Collections.unmodifiableMap(new HashMap<>(rawValues)));
+    }
+
+    // ===== VALORES CRUDOS (tal cual están en BD) =====
+
+    public String getRaw(String type) {
+        return rawValues.get(type);
+    }
+
+    /** Igual que {@code GeneralConfigurationService.getByType(type).getValue()}, sin ir a la BD. */
+    public String requireRaw(String type) {
+        String value = rawValues.get(type);
+        if (value == null) {
+            throw new IllegalArgumentException("No hay configuración para: " + type);
+        }
+        return value;
+    }
+
+    // ===== VALORES INTERPRETADOS =====
+
+    /** Inicio de la jornada nocturna en minutos desde las 00:00. */
+    public Integer getNightStartMinutes() { return nightStartMinutes; }
+
+    public LocalTime getNightStart() {
+        return nightStartMinutes != null ? LocalTime.of(nightStartMinutes / 60, nightStartMinutes % 60) : null;
+    }
+
+    public BigDecimal getWeeklyHours() { return weeklyHours; }
+
+    public BigDecimal getDailyHours() { return dailyHours; }
+
+    public Integer getBreakMinutes() { return breakMinutes; }
+
+    public BigDecimal requireWeeklyHours() { return require(weeklyHours, WEEKLY_HOURS); }
+
+    public BigDecimal requireDailyHours() { return require(dailyHours, DAILY_HOURS); }
+
+    public int requireBreakMinutes() { return require(breakMinutes, BREAK); }
+
+    private <T> T require(T value, String type) {
+        if (value == null) {
+            requireRaw(type); // lanza el mismo error que getByType si no existe
+            throw new IllegalArgumentException("Valor inválido para " + type + ": " + rawValues.get(type));
+        }
+        return value;
+    }
+
+    // ===== PARSEO =====
+
+    // "19:00" -> 1140
+    private static Integer parseClockMinutes(String value) {
+        if (value == null) return null;
+        try {
+            String[] parts = value.trim().split(":");
+            int hours = Integer.parseInt(parts[0]);
+            int minutes = Integer.parseInt(parts[1]);
+            if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) return null;
+            return hours * 60 + minutes;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // "44:00" -> 44.00, "9.5" -> 9.5
+    private static BigDecimal parseHours(String value) {
+        if (value == null || value.trim().isEmpty()) return null;
+        String clean = value.trim();
+        try {
+            if (clean.contains(":")) {
+                String[] parts = clean.split(":");
+                if (parts.length != 2) return null;
+                return new BigDecimal(parts[0]).add(
+                        new BigDecimal(parts[1]).divide(BigDecimal.valueOf(60), 2, RoundingMode.HALF_UP)
+                );
+            }
+            return new BigDecimal(clean.replace(',', '.'));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // Mismos formatos que acepta la validación de BREAK: "30", "30 minutes", "00:30"
+    private static Integer parseBreakMinutes(String value) {
+        if (value == null) return null;
+        String clean = value.trim();
+        try {
+            if (clean.matches("^\\d+$")) {
+                return Integer.parseInt(clean);
+            }
+            if (clean.toLowerCase().contains("minute")) {
+                return Integer.parseInt(clean.replaceAll("[^0-9]", ""));
+            }
+            if (clean.matches("^\\d+:\\d+$")) {
+                String[] parts = clean.split(":");
+                return Integer.parseInt(parts[0]) * 60 + Integer.parseInt(parts[1]);
+            }
+            return null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
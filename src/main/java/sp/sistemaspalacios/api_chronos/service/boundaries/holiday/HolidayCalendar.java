@@ -0,0 +1,132 @@
+package sp.sistemaspalacios.api_chronos.service.boundaries.holiday;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sp.sistemaspalacios.api_chronos.entity.holiday.Holiday;
+import sp.sistemaspalacios.api_chronos.repository.boundaries.holiday.HolidayRepository;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calendario de festivos en memoria. Se carga al arrancar y se reemplaza completo
+ * (de forma atómica) cada vez que se crea, actualiza o elimina un festivo, así las
+ * consultas de los ciclos por día no van a la base de datos.
+ */
+@Slf4j
+@Service
+public class HolidayCalendar {
+
+    private static final String DEFAULT_NAME = "Festivo";
+
+    private final HolidayRepository holidayRepository;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean loaded = false;
+
+    public HolidayCalendar(HolidayRepository holidayRepository) {
+        this.holidayRepository = holidayRepository;
+    }
+
+    @PostConstruct
+    void init() {
+        try {
+            reload();
+        } catch (Exception e) {
+            // Si la BD no está disponible al arrancar, se intenta de nuevo en la primera consulta
+            log.warn("No se pudo cargar el calendario de festivos al iniciar: {}", e.getMessage());
+        }
+    }
+
+    /** Vuelve a leer todos los festivos y reemplaza el calendario actual. */
+    public void reload() {
+        List<Holiday> holidays = holidayRepository.findAll();
+        this.snapshot = Snapshot.of(holidays);
+        this.loaded = true;
+        log.debug("Calendario de festivos cargado: {} fechas", snapshot.size());
+    }
+
+    /**
+     * Recarga el calendario cuando la transacción actual confirme; si no hay transacción, de inmediato.
+     */
+    public void reloadAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        } else {
+            reload();
+        }
+    }
+
+    /** Calendario vigente; inmutable, se puede usar durante toda una operación. */
+    public Snapshot snapshot() {
+        if (!loaded) {
+            reload();
+        }
+        return snapshot;
+    }
+
+    public boolean isHoliday(LocalDate date) {
+        return snapshot().isHoliday(date);
+    }
+
+    public String getHolidayName(LocalDate date) {
+        return snapshot().getName(date);
+    }
+
+    /**
+     * Vista inmutable: un BitSet por año (bit = día del año - 1) y una tabla de nombres.
+     */
+    public static final class Snapshot {
+
+        public static final Snapshot EMPTY = new Snapshot(Collections.emptyMap(), Collections.emptyMap());
+
+        private final Map<Integer, BitSet> daysByYear;
+        private final Map<LocalDate, String> names;
+
+        private Snapshot(Map<Integer, BitSet> daysByYear, Map<LocalDate, String> names) {
+            this.daysByYear = daysByYear;
+            this.names = names;
+        }
+
+        static Snapshot of(List<Holiday> holidays) {
+            Map<Integer, BitSet> daysByYear = new HashMap<>();
+            Map<LocalDate, String> names = new HashMap<>();
+            for (Holiday h : holidays) {
+                if (h == null || h.getHolidayDate() == null) continue;
+                LocalDate date = h.getHolidayDate();
+                daysByYear.computeIfAbsent(date.getYear(), y -> new BitSet(366))
+                        .set(date.getDayOfYear() - 1);
+                String desc = h.getDescription();
+                names.putIfAbsent(date, (desc == null || desc.isBlank()) ? DEFAULT_NAME : desc);
+            }
+            return new Snapshot(daysByYear, names);
+        }
+
+        public boolean isHoliday(LocalDate date) {
+            if (date == null) return false;
+            BitSet days = daysByYear.get(date.getYear());
+            return days != null && days.get(date.getDayOfYear() - 1);
+        }
+
+        public String getName(LocalDate date) {
+            if (date == null) return DEFAULT_NAME;
+            return names.getOrDefault(date, DEFAULT_NAME);
+        }
+
+        public int size() {
+            return names.size();
+        }
+    }
+}
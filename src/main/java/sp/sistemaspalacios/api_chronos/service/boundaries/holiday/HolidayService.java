@@ -14,27 +14,22 @@ import java.util.Optional;
 public class HolidayService {
 
     private final HolidayRepository holidayRepository;
+    private final HolidayCalendar holidayCalendar;
 
-    public HolidayService(HolidayRepository holidayRepository) {
+    public HolidayService(HolidayRepository holidayRepository, HolidayCalendar holidayCalendar) {
         this.holidayRepository = holidayRepository;
+        this.holidayCalendar = holidayCalendar;
     }
 
-    @Transactional(readOnly = true)
+    // Se resuelve en memoria con el calendario de festivos
     public boolean isHoliday(LocalDate date) {
         if (date == null) return false;
-        return holidayRepository.existsByHolidayDate(date);
+        return holidayCalendar.isHoliday(date);
     }
 
     // === NUEVO: nombre/descripcion del festivo en una fecha dada ===
-    @Transactional(readOnly = true)
     public String getHolidayName(LocalDate date) {
-        if (date == null) return "Festivo";
-        return holidayRepository.findByHolidayDate(date)
-                .map(h -> {
-                    String desc = h.getDescription();
-                    return (desc == null || desc.isBlank()) ? "Festivo" : desc;
-                })
-                .orElse("Festivo");
+        return holidayCalendar.getHolidayName(date);
     }
 
     @Transactional(readOnly = true)
@@ -49,7 +44,9 @@ public class HolidayService {
 
     @Transactional
     public Holiday createHoliday(Holiday holiday) {
-        return holidayRepository.save(holiday);
+        Holiday saved = holidayRepository.save(holiday);
+        holidayCalendar.reloadAfterCommit();
+        return saved;
     }
 
     @Transactional
@@ -59,7 +56,9 @@ public class HolidayService {
         holiday.setHolidayDate(holidayDetails.getHolidayDate());
         holiday.setDescription(holidayDetails.getDescription());
         holiday.setRecordDate(holidayDetails.getRecordDate());
-        return holidayRepository.save(holiday);
+        Holiday saved = holidayRepository.save(holiday);
+        holidayCalendar.reloadAfterCommit();
+        return saved;
     }
 
     @Transactional
@@ -67,5 +66,6 @@ public class HolidayService {
         Holiday holiday = holidayRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Holiday not found with id " + id));
         holidayRepository.delete(holiday);
+        holidayCalendar.reloadAfterCommit();
     }
 }
@@ -0,0 +1,180 @@
+package sp.sistemaspalacios.api_chronos.service.employeeAttendance;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import sp.sistemaspalacios.api_chronos.entity.employeeAttendance.AttendanceType;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Tablero de asistencia de una dependencia en una fecha: el estado de cada empleado (como en
+ * {@link AttendanceValidationService#getDailySummary}) en una sola respuesta.
+ * El costo no depende del número de empleados:
+ * - una consulta para los horarios activos de la dependencia,
+ * - los días desde {@link ScheduleDayIndex} (en memoria para hoy y mañana, una consulta si no),
+ * - una consulta por rango semiabierto para las marcaciones de todos esos horarios.
+ * Las marcaciones de un empleado se juntan entre todos sus horarios activos en la dependencia.
+ */
+@Slf4j
+@Service
+public class AttendanceBoardService {
+
+    public static final String ABSENT = "AUSENTE";
+    public static final String IN_PROGRESS = "EN_CURSO";
+    public static final String COMPLETE = "COMPLETO";
+    public static final String NO_SCHEDULE = "SIN_HORARIO";
+
+    private static final String ACTIVE_SCHEDULES =
+            "SELECT es.id, es.employee_id FROM employee_schedules es " +
+                    "JOIN shifts s ON s.id = es.shift_id " +
+                    "WHERE s.dependency_id = ? AND es.start_date <= ? AND (es.end_date IS NULL OR es.end_date >= ?) " +
+                    "ORDER BY es.employee_id, es.id";
+
+    private static final String ATTENDANCES =
+            "SELECT employee_schedule_id, type, timestamp FROM employee_attendance " +
+                    "WHERE employee_schedule_id = ANY (?) AND timestamp >= ? AND timestamp < ? " +
+                    "ORDER BY timestamp";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduleDayIndex dayIndex;
+
+    public AttendanceBoardService(JdbcTemplate jdbcTemplate, ScheduleDayIndex dayIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dayIndex = dayIndex;
+    }
+
+    public record BoardRow(Long employeeId, Long scheduleId, String status, String message,
+                           boolean hasClockIn, boolean hasClockOut, LocalTime firstClockIn, LocalTime lastClockOut,
+                           Integer lateMinutes, int totalAttendances, LocalTime scheduledStart,
+                           List<ScheduleDayIndex.Block> scheduledBlocks) {}
+
+    public record Board(Long dependencyId, LocalDate date, int employees, Map<String, Integer> totals,
+                        List<BoardRow> rows) {}
+
+    public Board getBoard(Long dependencyId, LocalDate date) {
+        if (dependencyId == null) throw new IllegalArgumentException("dependencyId es obligatorio");
+        LocalDate day = date != null ? date : LocalDate.now();
+        long start = System.nanoTime();
+
+        // 1) Horarios activos por empleado
+        Map<Long, List<Long>> schedulesByEmployee = new LinkedHashMap<>();
+        java.sql.Date sqlDate = java.sql.Date.valueOf(day);
+        jdbcTemplate.query(ACTIVE_SCHEDULES, (RowCallbackHandler) rs -> schedulesByEmployee
+                        .computeIfAbsent(rs.getLong(2), k -> new ArrayList<>()).add(rs.getLong(1)),
+                dependencyId, sqlDate, sqlDate);
+
+        Map<String, Integer> totals = new LinkedHashMap<>();
+        for (String status : List.of(ABSENT, IN_PROGRESS, COMPLETE, NO_SCHEDULE)) totals.put(status, 0);
+        if (schedulesByEmployee.isEmpty()) {
+            return new Board(dependencyId, day, 0, totals, List.of());
+        }
+
+        // 2) Día de cada horario en la fecha
+        List<ScheduleDayIndex.Key> keys = new ArrayList<>();
+        for (List<Long> scheduleIds : schedulesByEmployee.values()) {
+            for (Long scheduleId : scheduleIds) keys.add(new ScheduleDayIndex.Key(scheduleId, day));
+        }
+        Map<ScheduleDayIndex.Key, ScheduleDayIndex.DayEntry> days = dayIndex.findAll(keys);
+
+        // 3) Marcaciones del día de todos los horarios, ya ordenadas por hora
+        Long[] scheduleIds = keys.stream().map(ScheduleDayIndex.Key::scheduleId).toArray(Long[]::new);
+        Map<Long, List<Punch>> punchesBySchedule = new HashMap<>();
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(ATTENDANCES);
+            ps.setArray(1, con.createArrayOf("bigint", scheduleIds));
+            ps.setObject(2, from);
+            ps.setObject(3, to);
+            return ps;
+        }, (RowCallbackHandler) rs -> punchesBySchedule
+                .computeIfAbsent(rs.getLong(1), k -> new ArrayList<>())
+                .add(new Punch(parseType(rs.getString(2)), rs.getObject(3, LocalDateTime.class).toLocalTime())));
+
+        List<BoardRow> rows = new ArrayList<>(schedulesByEmployee.size());
+        schedulesByEmployee.forEach((employeeId, ids) -> {
+            BoardRow row = toRow(employeeId, ids, day, days, punchesBySchedule);
+            totals.merge(row.status(), 1, Integer::sum);
+            rows.add(row);
+        });
+
+        log.debug("Tablero de asistencia dependencia {} {}: {} empleados en {} ms",
+                dependencyId, day, rows.size(), (System.nanoTime() - start) / 1_000_000);
+        return new Board(dependencyId, day, rows.size(), totals, rows);
+    }
+
+    // ===== INTERNOS =====
+
+    private record Punch(AttendanceType type, LocalTime time) {}
+
+    private BoardRow toRow(Long employeeId, List<Long> scheduleIds, LocalDate date,
+                           Map<ScheduleDayIndex.Key, ScheduleDayIndex.DayEntry> days,
+                           Map<Long, List<Punch>> punchesBySchedule) {
+        // El primer horario con bloques ese día es el que se evalúa
+        ScheduleDayIndex.DayEntry day = null;
+        for (Long scheduleId : scheduleIds) {
+            ScheduleDayIndex.DayEntry entry = days.get(new ScheduleDayIndex.Key(scheduleId, date));
+            if (entry != null && !entry.blocks().isEmpty()) {
+                day = entry;
+                break;
+            }
+        }
+        Long scheduleId = day != null ? day.scheduleId() : scheduleIds.get(0);
+
+        List<Punch> punches = new ArrayList<>();
+        for (Long id : scheduleIds) punches.addAll(punchesBySchedule.getOrDefault(id, List.of()));
+        punches.sort(Comparator.comparing(Punch::time));
+
+        LocalTime firstClockIn = null;
+        LocalTime lastClockOut = null;
+        for (Punch punch : punches) {
+            if (punch.type() == AttendanceType.CLOCK_IN && firstClockIn == null) firstClockIn = punch.time();
+            if (punch.type() == AttendanceType.CLOCK_OUT) lastClockOut = punch.time();
+        }
+        boolean hasClockIn = firstClockIn != null;
+        boolean hasClockOut = lastClockOut != null;
+
+        if (day == null) {
+            return new BoardRow(employeeId, scheduleId, NO_SCHEDULE, "Sin horario para este día",
+                    hasClockIn, hasClockOut, firstClockIn, lastClockOut, null, punches.size(), null, List.of());
+        }
+
+        // Misma cuenta que la validación de entrada: minutos completos después de la hora programada
+        Integer lateMinutes = null;
+        if (hasClockIn && day.firstBlockStart() != null) {
+            long seconds = ChronoUnit.SECONDS.between(day.firstBlockStart(), firstClockIn);
+            lateMinutes = (int) Math.max(0, seconds / 60);
+        }
+
+        String status;
+        String message;
+        if (!hasClockIn) {
+            status = ABSENT;
+            message = "Sin marcación de entrada";
+        } else if (!hasClockOut) {
+            status = IN_PROGRESS;
+            message = "Turno en curso";
+        } else {
+            status = COMPLETE;
+            message = "Turno completado";
+        }
+        return new BoardRow(employeeId, scheduleId, status, message, hasClockIn, hasClockOut,
+                firstClockIn, lastClockOut, lateMinutes, punches.size(), day.firstBlockStart(), day.blocks());
+    }
+
+    private static AttendanceType parseType(String value) {
+        if (value == null) return null;
+        try {
+            return AttendanceType.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package sp.sistemaspalacios.api_chronos.service.employeeAttendance;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Health {@code attendancePartition}: DOWN si employee_attendance no se pudo particionar o si el
+ * último mantenimiento dejó problemas (ver {@link AttendancePartitionManager.State}).
+ */
+@Component
+@RequiredArgsConstructor
+public class AttendancePartitionHealthIndicator implements HealthIndicator {
+
+    private final AttendancePartitionManager partitionManager;
+
+    @Override
+    public Health health() {
+        AttendancePartitionManager.State state = partitionManager.getState();
+        Health.Builder builder = state.healthy() ? Health.up() : Health.down();
+        builder.withDetail("enabled", state.enabled())
+                .withDetail("partitioned", state.partitioned());
+        if (state.conversionError() != null) builder.withDetail("conversionError", state.conversionError());
+        if (!state.maintenanceProblems().isEmpty()) builder.withDetail("problems", state.maintenanceProblems());
+        if (state.lastMaintenance() != null) builder.withDetail("lastMaintenance", state.lastMaintenance().toString());
+        if (state.enabled() && state.partitioned()) builder.withDetail("partitions", partitionManager.getPartitions().size());
+        return builder.build();
+    }
+}
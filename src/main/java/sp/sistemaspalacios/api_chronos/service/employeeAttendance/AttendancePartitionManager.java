@@ -0,0 +1,280 @@
+package sp.sistemaspalacios.api_chronos.service.employeeAttendance;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Particionado mensual de employee_attendance (PARTITION BY RANGE sobre timestamp). Se activa con
+ * {@code attendance.partitioning.enabled}; sin él la tabla queda como la crea Hibernate.
+ * - Al arrancar, si la tabla que creó Hibernate aún no está particionada, se convierte: la tabla
+ *   actual queda como partición employee_attendance_legacy (hasta el mes siguiente al de la última
+ *   marcación), sin copiar filas. La PK pasa a (id, timestamp), como exige el particionado.
+ * - Se mantienen creadas las particiones del mes actual y de los {@code months-ahead} siguientes,
+ *   más una partición DEFAULT para marcaciones fuera de rango.
+ * - Retención: con {@code retention-months > 0} las particiones que terminan antes de ese corte
+ *   se desvinculan y se mueven al esquema de archivo ({@code archive}) o se eliminan ({@code drop}).
+ * El índice (employee_schedule_id, timestamp) se crea en la tabla padre y lo heredan las particiones.
+ * Los fallos de conversión y mantenimiento quedan en {@link #getState()} (health
+ * {@code attendancePartition}); con {@code fail-on-error} un fallo de conversión detiene el arranque.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class AttendancePartitionManager {
+
+    private static final String TABLE = "employee_attendance";
+    private static final String LEGACY = "employee_attendance_legacy";
+    private static final String DEFAULT_PARTITION = "employee_attendance_default";
+    private static final String INDEX = "idx_attendance_schedule_ts";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern BOUNDS = Pattern.compile("FROM \\((.+?)\\) TO \\((.+?)\\)");
+
+    private static final String PARTITIONS =
+            "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) " +
+                    "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                    "WHERE i.inhparent = to_regclass(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final String retentionAction;
+    private final String archiveSchema;
+    private final boolean failOnError;
+
+    private volatile String conversionError;
+    private volatile List<String> maintenanceProblems = List.of();
+    private volatile LocalDateTime lastMaintenance;
+
+    public AttendancePartitionManager(JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${attendance.partitioning.enabled:false}") boolean enabled,
+                                      @Value("${attendance.partitioning.months-ahead:3}") int monthsAhead,
+                                      @Value("${attendance.partitioning.retention-months:0}") int retentionMonths,
+                                      @Value("${attendance.partitioning.retention-action:archive}") String retentionAction,
+                                      @Value("${attendance.partitioning.archive-schema:chronos_archive}") String archiveSchema,
+                                      @Value("${attendance.partitioning.fail-on-error:false}") boolean failOnError) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.monthsAhead = Math.max(1, monthsAhead);
+        this.retentionMonths = Math.max(0, retentionMonths);
+        this.retentionAction = retentionAction == null ? "archive" : retentionAction.trim().toLowerCase(Locale.ROOT);
+        this.archiveSchema = archiveSchema;
+        this.failOnError = failOnError;
+    }
+
+    @PostConstruct
+    void init() {
+        if (!enabled) return;
+        try {
+            if ("r".equals(relkind())) {
+                transaction.executeWithoutResult(status -> convert());
+            }
+        } catch (Exception e) {
+            conversionError = e.getMessage();
+            if (failOnError) {
+                throw new IllegalStateException("No se pudo particionar " + TABLE, e);
+            }
+            log.error("No se pudo particionar {}; la tabla sigue sin particiones", TABLE, e);
+            return;
+        }
+        maintain();
+    }
+
+    /** Crea las particiones de los próximos meses y aplica la retención. */
+    @Scheduled(cron = "${attendance.partitioning.cron:0 20 0 * * *}")
+    public void maintain() {
+        if (!enabled) return;
+        List<String> problems = new ArrayList<>();
+        try {
+            if (!isPartitioned()) return;
+            createUpcomingPartitions(problems);
+            if (retentionMonths > 0) applyRetention(problems);
+            if (defaultHasRows()) {
+                problems.add("La partición " + DEFAULT_PARTITION + " tiene marcaciones");
+            }
+        } catch (Exception e) {
+            problems.add("Mantenimiento: " + e.getMessage());
+            log.error("Mantenimiento de particiones de {} falló", TABLE, e);
+        }
+        maintenanceProblems = List.copyOf(problems);
+        lastMaintenance = LocalDateTime.now();
+    }
+
+    /**
+     * Estado del particionado. {@code healthy} es false si la conversión falló o si el último
+     * mantenimiento dejó problemas (partición no creada o no retirada, filas en DEFAULT).
+     */
+    public record State(boolean enabled, boolean partitioned, String conversionError,
+                        List<String> maintenanceProblems, LocalDateTime lastMaintenance) {
+        public boolean healthy() {
+            return !enabled || (partitioned && conversionError == null && maintenanceProblems.isEmpty());
+        }
+    }
+
+    public State getState() {
+        boolean partitioned = enabled && isPartitioned();
+        return new State(enabled, partitioned, conversionError, maintenanceProblems, lastMaintenance);
+    }
+
+    public record Partition(String name, LocalDate from, LocalDate to) {
+        boolean isDefault() {
+            return from == null && to == null;
+        }
+    }
+
+    /** Particiones actuales con sus límites [from, to); from null = MINVALUE, ambos null = DEFAULT. */
+    public List<Partition> getPartitions() {
+        List<Partition> partitions = jdbcTemplate.query(PARTITIONS, (rs, i) -> toPartition(rs.getString(1), rs.getString(2)), TABLE);
+        partitions.sort(Comparator.comparing(Partition::to, Comparator.nullsLast(Comparator.naturalOrder())));
+        return partitions;
+    }
+
+    // ===== INTERNOS =====
+
+    private void convert() {
+        long start = System.nanoTime();
+        jdbcTemplate.execute("LOCK TABLE " + TABLE + " IN ACCESS EXCLUSIVE MODE");
+
+        LocalDateTime maxTimestamp = jdbcTemplate.queryForObject(
+                "SELECT MAX(timestamp) FROM " + TABLE, LocalDateTime.class);
+        YearMonth current = YearMonth.now();
+        YearMonth lastMonth = maxTimestamp != null && YearMonth.from(maxTimestamp).isAfter(current)
+                ? YearMonth.from(maxTimestamp) : current;
+        LocalDate legacyEnd = lastMonth.plusMonths(1).atDay(1);
+
+        // La tabla actual pasa a ser la partición histórica; sus nombres de PK e índice se liberan para la nueva
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + LEGACY);
+        String pk = jdbcTemplate.query(
+                "SELECT conname FROM pg_constraint WHERE conrelid = to_regclass(?) AND contype = 'p'",
+                rs -> rs.next() ? rs.getString(1) : null, LEGACY);
+        if (pk != null) {
+            jdbcTemplate.execute("ALTER TABLE " + LEGACY + " RENAME CONSTRAINT " + pk + " TO " + LEGACY + "_pkey");
+        }
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS " + INDEX + " RENAME TO " + INDEX + "_legacy");
+        // Tablas de antes de la secuencia: una partición no puede tener columna IDENTITY
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY + " ALTER COLUMN id DROP IDENTITY IF EXISTS");
+
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + LEGACY + " INCLUDING DEFAULTS) " +
+                "PARTITION BY RANGE (timestamp)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + TABLE + "_pkey PRIMARY KEY (id, timestamp)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT fk_attendance_schedule " +
+                "FOREIGN KEY (employee_schedule_id) REFERENCES employee_schedules (id)");
+        jdbcTemplate.execute("CREATE INDEX " + INDEX + " ON " + TABLE + " (employee_schedule_id, timestamp)");
+
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + LEGACY +
+                " FOR VALUES FROM (MINVALUE) TO ('" + legacyEnd + "')");
+        jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT");
+
+        log.info("🗂️ {} particionada por mes: histórico hasta {} en {} ms",
+                TABLE, legacyEnd, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void createUpcomingPartitions(List<String> problems) {
+        List<Partition> partitions = getPartitions();
+        YearMonth first = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = first.plusMonths(i);
+            LocalDate from = month.atDay(1);
+            LocalDate to = month.plusMonths(1).atDay(1);
+            if (partitions.stream().anyMatch(p -> !p.isDefault() && overlaps(p, from, to))) continue;
+
+            String name = TABLE + "_p" + month.format(SUFFIX);
+            try {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + TABLE +
+                        " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+                log.info("Partición {} creada ({} a {})", name, from, to);
+            } catch (Exception e) {
+                // Ej. la partición DEFAULT ya tiene marcaciones de ese mes
+                problems.add("No se pudo crear la partición " + name + ": " + e.getMessage());
+                log.error("No se pudo crear la partición {}", name, e);
+            }
+        }
+    }
+
+    private void applyRetention(List<String> problems) {
+        LocalDate cutoff = YearMonth.now().minusMonths(retentionMonths).atDay(1);
+        for (Partition partition : getPartitions()) {
+            if (partition.isDefault() || partition.to() == null || partition.to().isAfter(cutoff)) continue;
+            try {
+                transaction.executeWithoutResult(status -> retire(partition));
+            } catch (Exception e) {
+                problems.add("No se pudo retirar la partición " + partition.name() + ": " + e.getMessage());
+                log.error("No se pudo retirar la partición {}", partition.name(), e);
+            }
+        }
+    }
+
+    private void retire(Partition partition) {
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition.name());
+        if ("drop".equals(retentionAction)) {
+            jdbcTemplate.execute("DROP TABLE " + partition.name());
+            log.info("🗑️ Partición {} eliminada (antes de {})", partition.name(), partition.to());
+            return;
+        }
+        // Archivo: fuera del esquema activo y sin FK, para no bloquear el borrado de horarios viejos
+        List<String> foreignKeys = jdbcTemplate.queryForList(
+                "SELECT conname FROM pg_constraint WHERE conrelid = to_regclass(?) AND contype = 'f'",
+                String.class, partition.name());
+        for (String fk : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + partition.name() + " DROP CONSTRAINT " + fk);
+        }
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + archiveSchema);
+        jdbcTemplate.execute("ALTER TABLE " + partition.name() + " SET SCHEMA " + archiveSchema);
+        log.info("📦 Partición {} archivada en {} (antes de {})", partition.name(), archiveSchema, partition.to());
+    }
+
+    private boolean defaultHasRows() {
+        if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, DEFAULT_PARTITION) != Boolean.TRUE) {
+            return false;
+        }
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + ")", Boolean.class));
+    }
+
+    private boolean isPartitioned() {
+        return "p".equals(relkind());
+    }
+
+    // 'r' tabla normal, 'p' particionada, null si no existe
+    private String relkind() {
+        return jdbcTemplate.query("SELECT CAST(relkind AS TEXT) FROM pg_class WHERE oid = to_regclass(?)",
+                rs -> rs.next() ? rs.getString(1) : null, TABLE);
+    }
+
+    private static boolean overlaps(Partition p, LocalDate from, LocalDate to) {
+        boolean startsBeforeEnd = p.from() == null || p.from().isBefore(to);
+        boolean endsAfterStart = p.to() == null || p.to().isAfter(from);
+        return startsBeforeEnd && endsAfterStart;
+    }
+
+    private static Partition toPartition(String name, String bound) {
+        Matcher m = bound != null ? BOUNDS.matcher(bound) : null;
+        if (m == null || !m.find()) return new Partition(name, null, null);
+        return new Partition(name, toDate(m.group(1)), toDate(m.group(2)));
+    }
+
+    // 'MINVALUE' / 'MAXVALUE' -> null; '2026-10-01 00:00:00' -> 2026-10-01
+    private static LocalDate toDate(String value) {
+        String v = value.replace("'", "").trim();
+        if (v.equalsIgnoreCase("MINVALUE") || v.equalsIgnoreCase("MAXVALUE")) return null;
+        return LocalDate.parse(v.substring(0, 10));
+    }
+}
@@ -0,0 +1,44 @@
+package sp.sistemaspalacios.api_chronos.service.employeeAttendance;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * employee_attendance pasó de IDENTITY a la secuencia employee_attendance_seq (para los INSERT
+ * en lote). Al arrancar, si la secuencia está por debajo de los IDs ya existentes, se adelanta.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class AttendanceSequenceAligner {
+
+    // Debe coincidir con allocationSize de EmployeeAttendance
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void align() {
+        try {
+            jdbcTemplate.query(
+                    "SELECT CASE WHEN s.last_value < m.max_id + ? " +
+                            "THEN setval('employee_attendance_seq', m.max_id + ?) END " +
+                            "FROM employee_attendance_seq s, " +
+                            "(SELECT COALESCE(MAX(id), 0) AS max_id FROM employee_attendance) m",
+                    rs -> {
+                        long value = rs.getLong(1);
+                        if (!rs.wasNull()) {
+                            log.info("Secuencia employee_attendance_seq ajustada a {}", value);
+                        }
+                    },
+                    ALLOCATION_SIZE, ALLOCATION_SIZE);
+        } catch (Exception e) {
+            log.warn("No se pudo verificar la secuencia de marcaciones: {}", e.getMessage());
+        }
+    }
+}
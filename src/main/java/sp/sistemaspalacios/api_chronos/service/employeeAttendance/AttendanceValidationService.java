@@ -1,5 +1,7 @@
 package sp.sistemaspalacios.api_chronos.service.employeeAttendance;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -11,15 +13,17 @@ import sp.sistemaspalacios.api_chronos.entity.employeeAttendance.AttendanceType;
 import sp.sistemaspalacios.api_chronos.entity.employeeAttendance.EmployeeAttendance;
 import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
 import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
-import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleTimeBlock;
 import sp.sistemaspalacios.api_chronos.repository.employeeAttendance.EmployeeAttendanceRepository;
 import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.EmployeeScheduleRepository;
 import sp.sistemaspalacios.api_chronos.service.attendanceAlert.AttendanceAlertConfigurationService;
-import sp.sistemaspalacios.api_chronos.service.notification.NotificationService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.time.ScheduleExpansionService;
+import sp.sistemaspalacios.api_chronos.service.notification.NotificationOutboxService;
 
 import java.time.*;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -29,10 +33,45 @@ public class AttendanceValidationService {
     private final EmployeeAttendanceRepository attendanceRepository;
     private final EmployeeScheduleRepository scheduleRepository;
     private final AttendanceAlertConfigurationService alertConfigService;
-    private final NotificationService notificationService;
+    private final NotificationOutboxService notificationOutbox;
+    private final ScheduleDayIndex dayIndex;
+    private final ScheduleExpansionService scheduleExpansionService;
+    private final MeterRegistry meterRegistry;
 
     @Transactional
     public AttendanceValidationResult validateAttendance(EmployeeAttendance attendance) {
+        return timed("single", () ->
+                evaluate(attendance, date -> dayIndex.find(attendance.getEmployeeSchedule().getId(), date), true));
+    }
+
+    /**
+     * Validación para el registro en lote: el día del horario ya viene resuelto (null si no hay)
+     * y las alertas se encolan en la transacción del lote.
+     */
+    public AttendanceValidationResult validateWithDay(EmployeeAttendance attendance, ScheduleDayIndex.DayEntry scheduleDay) {
+        return timed("batch", () -> evaluate(attendance, date -> scheduleDay, false));
+    }
+
+    // Latencia de la validación (attendance.validation), por camino (single/batch) y resultado
+    private AttendanceValidationResult timed(String path, Supplier<AttendanceValidationResult> validation) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            AttendanceValidationResult result = validation.get();
+            outcome = result.isValid() ? "valid" : "invalid";
+            return result;
+        } finally {
+            sample.stop(Timer.builder("attendance.validation")
+                    .description("Duración de la validación de una marcación")
+                    .tag("path", path)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private AttendanceValidationResult evaluate(EmployeeAttendance attendance,
+                                                Function<LocalDate, ScheduleDayIndex.DayEntry> dayLookup,
+                                                boolean standalone) {
         try {
             log.info("🔍 Validando marcación - Employee: {}, Type: {}, Time: {}",
                     attendance.getEmployeeSchedule().getEmployeeId(),
@@ -53,27 +92,23 @@ public class AttendanceValidationService {
             LocalDate attendanceDate = attendance.getTimestamp().toInstant()
                     .atZone(ZoneId.systemDefault()).toLocalDate();
 
-            EmployeeSchedule schedule = attendance.getEmployeeSchedule();
-            EmployeeScheduleDay scheduleDay = getScheduleDayForDate(schedule, attendanceDate);
+            ScheduleDayIndex.DayEntry scheduleDay = dayLookup.apply(attendanceDate);
 
-            if (scheduleDay == null || scheduleDay.getTimeBlocks().isEmpty()) {
+            if (scheduleDay == null || scheduleDay.blocks().isEmpty()) {
                 log.warn("⚠️ No hay horario configurado para esta fecha");
                 result.setValid(true);
                 result.setMessage("Sin horario configurado para validar");
                 return result;
             }
 
-            EmployeeScheduleTimeBlock firstBlock = scheduleDay.getTimeBlocks().stream()
-                    .min(Comparator.comparing(EmployeeScheduleTimeBlock::getStartTime))
-                    .orElse(null);
+            LocalTime scheduledTime = scheduleDay.firstBlockStart();
 
-            if (firstBlock == null) {
+            if (scheduledTime == null) {
                 result.setValid(true);
                 result.setMessage("Sin horario de entrada configurado");
                 return result;
             }
 
-            LocalTime scheduledTime = firstBlock.getStartTime().toLocalTime();
             LocalTime actualTime = attendance.getTimestamp().toInstant()
                     .atZone(ZoneId.systemDefault()).toLocalTime();
 
@@ -108,7 +143,8 @@ public class AttendanceValidationService {
                         message,
                         matchedAlert,
                         scheduledTime,
-                        actualTime
+                        actualTime,
+                        shouldBlock && standalone
                 );
             }
 
@@ -202,7 +238,8 @@ public class AttendanceValidationService {
             String message,
             AttendanceAlertConfiguration config,
             LocalTime scheduledTime,
-            LocalTime actualTime
+            LocalTime actualTime,
+            boolean rollsBack
     ) {
         try {
             String detailedMessage = String.format(
@@ -225,9 +262,14 @@ public class AttendanceValidationService {
                 recipients = employeeId.toString();
             }
 
-            notificationService.sendLatenessNotification(recipients, detailedMessage);
+            // Se encola junto con la marcación; si la marcación se bloquea (rollback) igual se avisa
+            if (rollsBack) {
+                notificationOutbox.enqueueIndependent(recipients, detailedMessage);
+            } else {
+                notificationOutbox.enqueue(recipients, detailedMessage);
+            }
 
-            log.info("📤 Notificación enviada: {}", config.getAlertType());
+            log.info("📤 Notificación encolada: {}", config.getAlertType());
 
         } catch (Exception e) {
             log.error("❌ Error enviando notificación: {}", e.getMessage(), e);
@@ -238,6 +280,11 @@ public class AttendanceValidationService {
             EmployeeSchedule schedule,
             LocalDate date
     ) {
+        // Compacto: el día guardado de esa fecha o el generado del patrón (null si se quitó)
+        if (ScheduleExpansionService.isCompact(schedule)) {
+            List<EmployeeScheduleDay> days = scheduleExpansionService.expand(schedule, schedule.getDays(), date, date);
+            return days.isEmpty() ? null : days.get(0);
+        }
         if (schedule.getDays() == null || schedule.getDays().isEmpty()) {
             return null;
         }
@@ -275,7 +322,7 @@ public class AttendanceValidationService {
             }
 
             List<EmployeeAttendance> attendances = attendanceRepository
-                    .findByEmployeeScheduleAndDate(schedule, java.sql.Date.valueOf(date));
+                    .findByEmployeeScheduleAndDate(schedule, date);
 
             summary.put("hasSchedule", true);
             summary.put("employeeId", employeeId);
@@ -2,7 +2,10 @@ package sp.sistemaspalacios.api_chronos.service.employeeAttendance;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import sp.sistemaspalacios.api_chronos.dto.attendance.AttendancePunchRequest;
+import sp.sistemaspalacios.api_chronos.dto.attendance.AttendancePunchResult;
 import sp.sistemaspalacios.api_chronos.dto.attendance.AttendanceValidationResult;
 import sp.sistemaspalacios.api_chronos.entity.employeeAttendance.AttendanceType;
 import sp.sistemaspalacios.api_chronos.entity.employeeAttendance.EmployeeAttendance;
@@ -10,7 +13,10 @@ import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
 import sp.sistemaspalacios.api_chronos.repository.employeeAttendance.EmployeeAttendanceRepository;
 import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.EmployeeScheduleRepository;
 
-import java.util.Date;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -19,6 +25,14 @@ public class EmployeeAttendanceService {
     private final EmployeeAttendanceRepository repository;
     private final EmployeeScheduleRepository scheduleRepository;
     private final AttendanceValidationService validationService; // ← AGREGAR
+    private final ScheduleDayIndex dayIndex;
+
+    @Value("${attendance.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    // Margen para el reloj del dispositivo; una marcación más antigua no entra como normal
+    @Value("${attendance.batch.max-skew-seconds:300}")
+    private long maxSkewSeconds;
 
     // ✅ MODIFICAR ESTE MÉTODO
     @Transactional
@@ -85,4 +99,127 @@ public class EmployeeAttendanceService {
 
         return repository.save(attendance);
     }
-}
\ No newline at end of file
+
+    /**
+     * Registro de marcaciones en lote (cambio de turno): los horarios se cargan en una consulta,
+     * los días salen del índice en memoria, las alertas se evalúan con la configuración en
+     * memoria y los INSERT se envían en lotes JDBC. Cada marcación tiene su resultado; las rechazadas no se guardan.
+     * Las marcaciones con hora anterior a {@code max-skew-seconds} se rechazan: las atrasadas
+     * se registran por {@link #registerManualAttendance}, que las deja marcadas para Gestión Humana.
+     */
+    @Transactional
+    public List<AttendancePunchResult> registerAttendanceBatch(List<AttendancePunchRequest> punches) {
+        if (punches == null || punches.isEmpty()) {
+            throw new IllegalArgumentException("Debe enviar al menos una marcación");
+        }
+        if (punches.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Máximo " + maxBatchSize + " marcaciones por lote");
+        }
+
+        Date now = new Date();
+        Date oldestAllowed = new Date(now.getTime() - maxSkewSeconds * 1000);
+
+        // 1. Horarios y días de todas las marcaciones
+        Set<Long> scheduleIds = new HashSet<>();
+        Set<ScheduleDayIndex.Key> dayKeys = new HashSet<>();
+        for (AttendancePunchRequest punch : punches) {
+            if (punch == null || punch.getScheduleId() == null) continue;
+            scheduleIds.add(punch.getScheduleId());
+            dayKeys.add(new ScheduleDayIndex.Key(punch.getScheduleId(),
+                    toLocalDate(punch.getTimestamp() != null ? punch.getTimestamp() : now)));
+        }
+
+        Map<Long, EmployeeSchedule> schedulesById = scheduleIds.isEmpty()
+                ? Collections.emptyMap()
+                : scheduleRepository.findByIdInWithShift(scheduleIds).stream()
+                .collect(Collectors.toMap(EmployeeSchedule::getId, s -> s, (a, b) -> a));
+
+        // Hoy y mañana salen de memoria; otras fechas se resuelven en una sola consulta
+        Map<ScheduleDayIndex.Key, ScheduleDayIndex.DayEntry> daysByKey = dayIndex.findAll(dayKeys);
+
+        // 2. Validación de cada marcación
+        List<AttendancePunchResult> results = new ArrayList<>(punches.size());
+        List<EmployeeAttendance> toSave = new ArrayList<>();
+        List<AttendancePunchResult> toSaveResults = new ArrayList<>();
+
+        for (int i = 0; i < punches.size(); i++) {
+            AttendancePunchRequest punch = punches.get(i);
+            AttendancePunchResult result = new AttendancePunchResult();
+            result.setIndex(i);
+            results.add(result);
+
+            if (punch == null || punch.getScheduleId() == null || punch.getType() == null) {
+                result.setMessage("Debe proporcionar scheduleId y type");
+                continue;
+            }
+            result.setScheduleId(punch.getScheduleId());
+            result.setType(punch.getType());
+
+            Date timestamp = punch.getTimestamp() != null ? punch.getTimestamp() : now;
+            result.setTimestamp(timestamp);
+            if (timestamp.after(now)) {
+                result.setMessage("La fecha de marcación no puede ser en el futuro.");
+                continue;
+            }
+            if (timestamp.before(oldestAllowed)) {
+                result.setMessage("La fecha de marcación es anterior a la permitida; debe registrarse como marcación manual.");
+                continue;
+            }
+
+            EmployeeSchedule schedule = schedulesById.get(punch.getScheduleId());
+            if (schedule == null) {
+                result.setMessage("No se encontró el horario del empleado");
+                continue;
+            }
+            if (schedule.getShift() == null) {
+                result.setMessage("El horario del empleado no tiene un turno asignado");
+                continue;
+            }
+
+            EmployeeAttendance attendance = new EmployeeAttendance();
+            attendance.setEmployeeSchedule(schedule);
+            attendance.setType(punch.getType());
+            attendance.setTimestamp(timestamp);
+
+            ScheduleDayIndex.DayEntry day = daysByKey.get(new ScheduleDayIndex.Key(schedule.getId(), toLocalDate(timestamp)));
+            AttendanceValidationResult validation = validationService.validateWithDay(attendance, day);
+            result.setStatus(validation.getStatus());
+            result.setAlertType(validation.getAlertType());
+
+            if (punch.getType() == AttendanceType.CLOCK_IN) {
+                attendance.setIsLate(validation.getMinutesLate() > 0);
+                attendance.setMessage(validation.getMessage());
+
+                if (!validation.isValid()) {
+                    result.setBlocked(true);
+                    result.setMessage(validation.getMessage());
+                    continue;
+                }
+            } else {
+                attendance.setIsLate(false);
+                attendance.setMessage("Marcación registrada correctamente");
+            }
+
+            toSave.add(attendance);
+            toSaveResults.add(result);
+        }
+
+        // 3. INSERT en lotes (id por secuencia + hibernate.jdbc.batch_size)
+        List<EmployeeAttendance> saved = repository.saveAll(toSave);
+        for (int i = 0; i < saved.size(); i++) {
+            EmployeeAttendance attendance = saved.get(i);
+            AttendancePunchResult result = toSaveResults.get(i);
+            result.setSuccess(true);
+            result.setAttendanceId(attendance.getId());
+            result.setIsLate(attendance.getIsLate());
+            result.setMessage(attendance.getMessage());
+        }
+
+        return results;
+    }
+
+    private LocalDate toLocalDate(Date date) {
+        if (date instanceof java.sql.Date) return ((java.sql.Date) date).toLocalDate();
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+}
@@ -0,0 +1,344 @@
+package sp.sistemaspalacios.api_chronos.service.employeeAttendance;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleTimeBlock;
+import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.EmployeeScheduleRepository;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.time.ScheduleExpansionService;
+
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Índice en memoria (horario, fecha) -> bloques del día y hora del primer bloque, para validar
+ * marcaciones sin recorrer todos los días del horario.
+ * - Hoy y mañana se mantienen cargados; se rotan a medianoche.
+ * - Cuando cambian días o bloques ({@link ScheduleDayIndexListener}) solo se recargan las
+ *   entradas afectadas, después del commit. Al crear o borrar un horario, o al cambiar su turno,
+ *   se recargan las fechas cargadas de esos horarios.
+ * - Fechas fuera de la ventana se consultan a la BD sin guardarse.
+ * - Los horarios compactos aportan entradas generadas del patrón del turno (sin dayId) en las
+ *   fechas sin día guardado; sus días guardados sin bloques (fechas quitadas) no tienen entrada.
+ */
+@Slf4j
+@Service
+public class ScheduleDayIndex {
+
+    private final EmployeeScheduleRepository scheduleRepository;
+    private final ScheduleExpansionService scheduleExpansionService;
+
+    // fecha -> scheduleId -> entrada (solo fechas cargadas)
+    private final ConcurrentHashMap<LocalDate, ConcurrentHashMap<Long, DayEntry>> warm = new ConcurrentHashMap<>();
+    // dayId -> clave, para ubicar la entrada cuando cambia un día o un bloque
+    private final ConcurrentHashMap<Long, Key> keyByDayId = new ConcurrentHashMap<>();
+
+    // Las recargas incrementales corren en su propio hilo, con una sesión nueva
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "schedule-day-index");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ScheduleDayIndex(EmployeeScheduleRepository scheduleRepository,
+                            ScheduleExpansionService scheduleExpansionService) {
+        this.scheduleRepository = scheduleRepository;
+        this.scheduleExpansionService = scheduleExpansionService;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    @PostConstruct
+    void init() {
+        try {
+            roll();
+        } catch (Exception e) {
+            // Si la BD no está disponible al arrancar, se carga en la primera consulta
+            log.warn("No se pudo cargar el índice de días al iniciar: {}", e.getMessage());
+        }
+    }
+
+    /** Deja cargados hoy y mañana y descarta los días anteriores. */
+    @Scheduled(cron = "${attendance.day-index.roll-cron:0 1 0 * * *}")
+    public synchronized void roll() {
+        LocalDate today = LocalDate.now();
+        for (LocalDate date : new ArrayList<>(warm.keySet())) {
+            if (date.isBefore(today)) {
+                unload(date);
+            }
+        }
+        for (LocalDate date : List.of(today, today.plusDays(1))) {
+            if (!warm.containsKey(date)) {
+                load(date);
+            }
+        }
+    }
+
+    // ===== CONSULTA =====
+
+    /** Día del horario en la fecha, o null si no tiene día configurado. */
+    public DayEntry find(Long scheduleId, LocalDate date) {
+        if (scheduleId == null || date == null) return null;
+        return findAll(List.of(new Key(scheduleId, date))).get(new Key(scheduleId, date));
+    }
+
+    /**
+     * Resuelve varias claves: las de la ventana cargada desde memoria y el resto en una sola consulta.
+     * Las claves sin día configurado no aparecen en el mapa.
+     */
+    public Map<Key, DayEntry> findAll(Collection<Key> keys) {
+        ensureCurrent();
+
+        Map<Key, DayEntry> result = new HashMap<>();
+        Set<Long> coldScheduleIds = new HashSet<>();
+        Set<LocalDate> coldDates = new HashSet<>();
+        Set<Key> coldKeys = new HashSet<>();
+
+        for (Key key : keys) {
+            Map<Long, DayEntry> byDate = warm.get(key.date());
+            if (byDate != null) {
+                DayEntry entry = byDate.get(key.scheduleId());
+                if (entry != null) result.put(key, entry);
+            } else {
+                coldKeys.add(key);
+                coldScheduleIds.add(key.scheduleId());
+                coldDates.add(key.date());
+            }
+        }
+
+        if (!coldKeys.isEmpty()) {
+            for (DayEntry entry : entries(coldScheduleIds, coldDates).values()) {
+                Key key = new Key(entry.scheduleId(), entry.date());
+                if (coldKeys.contains(key)) result.put(key, entry);
+            }
+        }
+        return result;
+    }
+
+    public boolean isWarm(LocalDate date) {
+        return warm.containsKey(date);
+    }
+
+    // ===== ACTUALIZACIÓN INCREMENTAL =====
+
+    /** Encola la recarga de los días indicados (lo usa {@link ScheduleDayIndexListener} tras el commit). */
+    public void refreshDaysAsync(Collection<Long> dayIds) {
+        if (dayIds == null || dayIds.isEmpty() || warm.isEmpty()) return;
+        Set<Long> ids = Set.copyOf(dayIds);
+        submit(() -> refreshDays(ids));
+    }
+
+    /** Encola la recarga de todas las fechas cargadas de los horarios (creados o borrados). */
+    public void refreshSchedulesAsync(Collection<Long> scheduleIds) {
+        if (scheduleIds == null || scheduleIds.isEmpty() || warm.isEmpty()) return;
+        Set<Long> ids = Set.copyOf(scheduleIds);
+        submit(() -> refreshSchedules(ids));
+    }
+
+    /** Encola la recarga de los horarios compactos de los turnos modificados. */
+    public void refreshShiftsAsync(Collection<Long> shiftIds) {
+        if (shiftIds == null || shiftIds.isEmpty() || warm.isEmpty()) return;
+        Set<Long> ids = Set.copyOf(shiftIds);
+        submit(() -> refreshSchedules(scheduleRepository.findCompactIdsByShiftIdIn(ids)));
+    }
+
+    /**
+     * Recarga las entradas de los días indicados (creados, modificados o eliminados, ellos o sus bloques).
+     */
+    public synchronized void refreshDays(Collection<Long> dayIds) {
+        if (dayIds == null || dayIds.isEmpty() || warm.isEmpty()) return;
+
+        Set<Key> affected = new HashSet<>();
+        for (Long dayId : dayIds) {
+            Key old = keyByDayId.get(dayId);
+            if (old != null) affected.add(old);
+        }
+        for (EmployeeScheduleDay day : scheduleRepository.findDaysWithTimeBlocksByIds(dayIds)) {
+            LocalDate date = toLocalDate(day.getDate());
+            if (date != null && day.getEmployeeSchedule() != null) {
+                affected.add(new Key(day.getEmployeeSchedule().getId(), date));
+            }
+        }
+
+        // Por fecha cargada: releer los días de los horarios afectados y reemplazar sus entradas
+        Map<LocalDate, Set<Long>> scheduleIdsByDate = new HashMap<>();
+        for (Key key : affected) {
+            if (warm.containsKey(key.date())) {
+                scheduleIdsByDate.computeIfAbsent(key.date(), d -> new HashSet<>()).add(key.scheduleId());
+            }
+        }
+        scheduleIdsByDate.forEach((date, scheduleIds) ->
+                replace(date, scheduleIds, entries(scheduleIds, Set.of(date))));
+        log.debug("Índice de días actualizado: {} días, {} entradas", dayIds.size(), affected.size());
+    }
+
+    /**
+     * Recarga las entradas de los horarios en todas las fechas cargadas, con una sola lectura
+     * (los compactos generan sus entradas del patrón; un horario borrado sale del índice).
+     */
+    public synchronized void refreshSchedules(Collection<Long> scheduleIds) {
+        if (scheduleIds == null || scheduleIds.isEmpty() || warm.isEmpty()) return;
+
+        Set<LocalDate> dates = Set.copyOf(warm.keySet());
+        Map<Key, DayEntry> fresh = entries(scheduleIds, dates);
+        for (LocalDate date : dates) {
+            replace(date, scheduleIds, fresh);
+        }
+        log.debug("Índice de días actualizado: {} horarios en {} fechas", scheduleIds.size(), dates.size());
+    }
+
+    // ===== INTERNOS =====
+
+    private void submit(Runnable refresh) {
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh.run();
+                } catch (Exception e) {
+                    log.warn("Error actualizando el índice de días: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Índice de días detenido, se ignora la actualización");
+        }
+    }
+
+    /** Reemplaza (o quita) en la fecha cargada las entradas de los horarios con las de {@code fresh}. */
+    private void replace(LocalDate date, Collection<Long> scheduleIds, Map<Key, DayEntry> fresh) {
+        ConcurrentHashMap<Long, DayEntry> byDate = warm.get(date);
+        if (byDate == null) return;
+        for (Long scheduleId : scheduleIds) {
+            DayEntry entry = fresh.get(new Key(scheduleId, date));
+            DayEntry previous = entry != null ? byDate.put(scheduleId, entry) : byDate.remove(scheduleId);
+            if (previous != null && previous.dayId() != null) keyByDayId.remove(previous.dayId());
+            if (entry != null && entry.dayId() != null) keyByDayId.put(entry.dayId(), new Key(scheduleId, date));
+        }
+    }
+
+    private void ensureCurrent() {
+        if (!warm.containsKey(LocalDate.now())) {
+            roll();
+        }
+    }
+
+    private void load(LocalDate date) {
+        Map<Key, DayEntry> entries = entries(null, Set.of(date));
+        ConcurrentHashMap<Long, DayEntry> byDate = new ConcurrentHashMap<>();
+        entries.forEach((key, entry) -> {
+            byDate.put(key.scheduleId(), entry);
+            if (entry.dayId() != null) keyByDayId.put(entry.dayId(), key);
+        });
+        warm.put(date, byDate);
+        log.info("Índice de días cargado para {}: {} horarios", date, byDate.size());
+    }
+
+    private void unload(LocalDate date) {
+        Map<Long, DayEntry> removed = warm.remove(date);
+        if (removed != null) {
+            removed.values().forEach(entry -> {
+                if (entry.dayId() != null) keyByDayId.remove(entry.dayId());
+            });
+        }
+    }
+
+    /** Entradas de los días guardados y, para los horarios compactos, las del patrón. */
+    private Map<Key, DayEntry> entries(Collection<Long> scheduleIds, Collection<LocalDate> dates) {
+        List<EmployeeScheduleDay> stored = queryDays(scheduleIds, dates);
+        Map<Key, DayEntry> entries = build(stored);
+        if (dates.isEmpty()) return entries;
+
+        LocalDate from = Collections.min(dates);
+        LocalDate to = Collections.max(dates);
+        List<EmployeeSchedule> compact = scheduleIds == null
+                ? scheduleRepository.findCompactActiveBetween(from, to)
+                : scheduleRepository.findCompactActiveBetweenByIds(scheduleIds, from, to);
+        if (compact.isEmpty()) return entries;
+
+        Map<Long, List<EmployeeScheduleDay>> storedBySchedule = new HashMap<>();
+        for (EmployeeScheduleDay day : stored) {
+            if (day.getEmployeeSchedule() != null) {
+                storedBySchedule.computeIfAbsent(day.getEmployeeSchedule().getId(), id -> new ArrayList<>()).add(day);
+            }
+        }
+        for (EmployeeSchedule schedule : compact) {
+            List<EmployeeScheduleDay> overrides = storedBySchedule.getOrDefault(schedule.getId(), Collections.emptyList());
+            // Fechas quitadas: fuera del índice
+            for (EmployeeScheduleDay day : overrides) {
+                if (day.getTimeBlocks().isEmpty()) entries.remove(new Key(schedule.getId(), toLocalDate(day.getDate())));
+            }
+            for (LocalDate date : dates) {
+                Key key = new Key(schedule.getId(), date);
+                if (entries.containsKey(key)) continue;
+                for (EmployeeScheduleDay day : scheduleExpansionService.expand(schedule, overrides, date, date)) {
+                    if (day.getId() == null) entries.put(key, DayEntry.of(key, day));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private List<EmployeeScheduleDay> queryDays(Collection<Long> scheduleIds, Collection<LocalDate> dates) {
+        List<Date> sqlDates = dates.stream().map(d -> (Date) java.sql.Date.valueOf(d)).toList();
+        return scheduleIds == null
+                ? scheduleRepository.findDaysWithTimeBlocksByDates(sqlDates)
+                : scheduleRepository.findDaysWithTimeBlocksByScheduleIdsAndDates(scheduleIds, sqlDates);
+    }
+
+    // Si un horario tiene más de un día en la misma fecha, se usa el de menor id
+    private Map<Key, DayEntry> build(List<EmployeeScheduleDay> days) {
+        Map<Key, DayEntry> entries = new HashMap<>();
+        days.stream()
+                .filter(d -> d.getEmployeeSchedule() != null && d.getDate() != null)
+                .sorted(Comparator.comparing(EmployeeScheduleDay::getId))
+                .forEach(day -> {
+                    Key key = new Key(day.getEmployeeSchedule().getId(), toLocalDate(day.getDate()));
+                    entries.putIfAbsent(key, DayEntry.of(key, day));
+                });
+        return entries;
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        if (date == null) return null;
+        if (date instanceof java.sql.Date) return ((java.sql.Date) date).toLocalDate();
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    private static LocalTime toLocalTime(Time time) {
+        return time != null ? time.toLocalTime() : null;
+    }
+
+    // ===== TIPOS =====
+
+    public record Key(Long scheduleId, LocalDate date) {}
+
+    public record Block(Long id, LocalTime start, LocalTime end, LocalTime breakStart, LocalTime breakEnd) {}
+
+    /** Bloques del día ordenados por hora de inicio; {@code firstBlockStart} es null si no hay ninguno con hora. */
+    public record DayEntry(Long scheduleId, LocalDate date, Long dayId, LocalTime firstBlockStart, List<Block> blocks) {
+
+        static DayEntry of(Key key, EmployeeScheduleDay day) {
+            List<Block> blocks = new ArrayList<>();
+            for (EmployeeScheduleTimeBlock tb : day.getTimeBlocks()) {
+                blocks.add(new Block(tb.getId(), toLocalTime(tb.getStartTime()), toLocalTime(tb.getEndTime()),
+                        toLocalTime(tb.getBreakStartTime()), toLocalTime(tb.getBreakEndTime())));
+            }
+            blocks.sort(Comparator.comparing(Block::start, Comparator.nullsLast(Comparator.naturalOrder())));
+            LocalTime first = blocks.isEmpty() ? null : blocks.get(0).start();
+            return new DayEntry(key.scheduleId(), key.date(), day.getId(), first, List.copyOf(blocks));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package sp.sistemaspalacios.api_chronos.service.employeeAttendance;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleTimeBlock;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Listener JPA de días y bloques: junta los IDs de día modificados en la transacción y,
+ * al confirmar, pide a {@link ScheduleDayIndex} que recargue solo esos días.
+ * Los horarios compactos no tienen días guardados para cada fecha: para ellos se anotan el
+ * horario ({@link #markSchedulesChanged}) o el turno ({@link #markShiftChanged}) y se recargan
+ * todas sus fechas cargadas.
+ */
+@Slf4j
+@Component
+public class ScheduleDayIndexListener {
+
+    private static final Object RESOURCE_KEY = ScheduleDayIndexListener.class;
+
+    private final ObjectProvider<ScheduleDayIndex> index;
+
+    public ScheduleDayIndexListener(ObjectProvider<ScheduleDayIndex> index) {
+        this.index = index;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        Long dayId = null;
+        if (entity instanceof EmployeeScheduleDay day) {
+            dayId = day.getId();
+        } else if (entity instanceof EmployeeScheduleTimeBlock block && block.getEmployeeScheduleDay() != null) {
+            // El proxy del día da el id sin inicializarse
+            dayId = block.getEmployeeScheduleDay().getId();
+        }
+        if (dayId != null) {
+            markDirty(dayId);
+        }
+    }
+
+    /** Para escrituras que no pasan por JPA (inserción masiva por JDBC). */
+    public void markDaysChanged(Collection<Long> dayIds) {
+        mark(pending -> dayIds.stream().filter(Objects::nonNull).forEach(pending.dayIds::add));
+    }
+
+    /** Horarios creados o borrados: sus entradas del patrón no dependen de un día guardado. */
+    public void markSchedulesChanged(Collection<Long> scheduleIds) {
+        mark(pending -> scheduleIds.stream().filter(Objects::nonNull).forEach(pending.scheduleIds::add));
+    }
+
+    /** Turno modificado: cambia el patrón de los horarios compactos que lo usan. */
+    public void markShiftChanged(Long shiftId) {
+        if (shiftId != null) mark(pending -> pending.shiftIds.add(shiftId));
+    }
+
+    private void markDirty(Long dayId) {
+        mark(pending -> pending.dayIds.add(dayId));
+    }
+
+    // Dentro de una transacción se junta todo y se envía al confirmar; fuera, enseguida
+    private void mark(Consumer<Pending> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Pending pending = new Pending();
+            change.accept(pending);
+            refresh(pending);
+            return;
+        }
+
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(RESOURCE_KEY);
+        if (pending == null) {
+            Pending created = new Pending();
+            TransactionSynchronizationManager.bindResource(RESOURCE_KEY, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+                }
+            });
+            pending = created;
+        }
+        change.accept(pending);
+    }
+
+    private void refresh(Pending pending) {
+        try {
+            ScheduleDayIndex dayIndex = index.getObject();
+            if (!pending.dayIds.isEmpty()) dayIndex.refreshDaysAsync(pending.dayIds);
+            if (!pending.scheduleIds.isEmpty()) dayIndex.refreshSchedulesAsync(pending.scheduleIds);
+            if (!pending.shiftIds.isEmpty()) dayIndex.refreshShiftsAsync(pending.shiftIds);
+        } catch (Exception e) {
+            log.warn("No se pudo actualizar el índice de días: {}", e.getMessage());
+        }
+    }
+
+    private static final class Pending {
+        final Set<Long> dayIds = new HashSet<>();
+        final Set<Long> scheduleIds = new HashSet<>();
+        final Set<Long> shiftIds = new HashSet<>();
+    }
+}
@@ -0,0 +1,292 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.ScheduleAssignmentGroupRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Job de recálculo de totales de todos los grupos de un período (cierre de mes), opcionalmente
+ * limitado a una dependencia.
+ * - Los grupos se reparten por empleado: todos los grupos de un empleado van en el mismo lote.
+ * - Cada lote es una transacción ({@link ScheduleAssignmentGroupService#recalculateGroups}) y
+ *   los lotes corren en un pool acotado ({@code recalculation.parallelism}, 0 = núcleos).
+ * - Si un lote falla (también si falla la clasificación de horas) se reintenta grupo por grupo;
+ *   los que vuelven a fallar se cuentan en {@code failedGroups}.
+ * - Se consulta el progreso por ID y se puede cancelar; los lotes ya iniciados terminan.
+ * Solo corre un job a la vez; el estado vive en memoria y se guardan los últimos terminados.
+ */
+@Slf4j
+@Service
+public class GroupRecalculationJobService {
+
+    public enum JobStatus { RUNNING, COMPLETED, COMPLETED_WITH_ERRORS, CANCELLED }
+
+    private static final int MAX_ERRORS_KEPT = 20;
+
+    private final ScheduleAssignmentGroupRepository groupRepository;
+    private final ScheduleAssignmentGroupService groupService;
+    private final int chunkSize;
+    private final int maxFinishedJobs;
+    private final ExecutorService workers;
+    private final int parallelism;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Deque<String> finishedOrder = new ConcurrentLinkedDeque<>();
+    private volatile Job current;
+
+    public GroupRecalculationJobService(ScheduleAssignmentGroupRepository groupRepository,
+                                        ScheduleAssignmentGroupService groupService,
+                                        @Value("${recalculation.parallelism:0}") int parallelism,
+                                        @Value("${recalculation.chunk-size:50}") int chunkSize,
+                                        @Value("${recalculation.max-finished-jobs:20}") int maxFinishedJobs) {
+        this.groupRepository = groupRepository;
+        this.groupService = groupService;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxFinishedJobs = Math.max(1, maxFinishedJobs);
+        this.workers = Executors.newFixedThreadPool(this.parallelism, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "group-recalc-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    // ===== API =====
+
+    /**
+     * Inicia el recálculo de los grupos que se cruzan con [startDate, endDate], o de todos los de
+     * la dependencia si no hay fechas. Lanza IllegalStateException si ya hay un job en curso.
+     */
+    public synchronized JobSnapshot start(LocalDate startDate, LocalDate endDate, Long dependencyId) {
+        if (startDate == null && endDate == null && dependencyId == null) {
+            throw new IllegalArgumentException("Debe indicar un rango de fechas o una dependencia");
+        }
+        if (startDate != null && endDate != null && endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("La fecha final no puede ser anterior a la inicial");
+        }
+        Job running = current;
+        if (running != null && running.status == JobStatus.RUNNING) {
+            throw new IllegalStateException("Ya hay un recálculo en curso: " + running.id);
+        }
+
+        LocalDate from = startDate != null ? startDate : ScheduleAssignmentGroupService.MIN_DATE;
+        LocalDate to = endDate != null ? endDate : ScheduleAssignmentGroupService.MAX_DATE;
+        List<Object[]> targets = dependencyId != null
+                ? groupRepository.findRecalculationTargetsByDependency(dependencyId,
+                java.sql.Date.valueOf(from), java.sql.Date.valueOf(to))
+                : groupRepository.findRecalculationTargets(java.sql.Date.valueOf(from), java.sql.Date.valueOf(to));
+
+        List<List<Long>> chunks = partitionByEmployee(targets);
+        Job job = new Job(UUID.randomUUID().toString(), startDate, endDate, dependencyId,
+                targets.size(), countEmployees(targets), chunks.size());
+        jobs.put(job.id, job);
+        current = job;
+
+        log.info("Recálculo {} iniciado: {} grupos de {} empleados en {} lotes (paralelismo {})",
+                job.id, job.totalGroups, job.employees, chunks.size(), parallelism);
+
+        if (chunks.isEmpty()) {
+            finish(job);
+        } else {
+            for (List<Long> groupIds : chunks) {
+                Chunk chunk = new Chunk(groupIds);
+                job.chunks.add(chunk);
+                chunk.future = workers.submit(() -> runChunk(job, chunk));
+            }
+        }
+        return job.snapshot();
+    }
+
+    public Optional<JobSnapshot> get(String jobId) {
+        Job job = jobs.get(jobId);
+        return job != null ? Optional.of(job.snapshot()) : Optional.empty();
+    }
+
+    public List<JobSnapshot> list() {
+        List<JobSnapshot> result = new ArrayList<>();
+        for (Job job : jobs.values()) {
+            result.add(job.snapshot());
+        }
+        result.sort(Comparator.comparing(JobSnapshot::startedAt).reversed());
+        return result;
+    }
+
+    /** Cancela los lotes pendientes; los que ya están corriendo terminan su transacción. */
+    public synchronized Optional<JobSnapshot> cancel(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) return Optional.empty();
+        if (job.status == JobStatus.RUNNING) {
+            job.cancelled = true;
+            int skipped = 0;
+            for (Chunk chunk : job.chunks) {
+                // Solo se descartan los lotes que no empezaron; los que corren terminan y cierran el job
+                if (chunk.started.compareAndSet(false, true)) {
+                    skipped++;
+                    Future<?> future = chunk.future;
+                    if (future != null) future.cancel(false);
+                }
+            }
+            log.info("Recálculo {} cancelado; {} lotes sin iniciar descartados", job.id, skipped);
+            // Los lotes descartados no pasan por el finally de runChunk, se descuentan aquí
+            if (skipped > 0 && job.remainingChunks.addAndGet(-skipped) == 0) {
+                finish(job);
+            }
+        }
+        return Optional.of(job.snapshot());
+    }
+
+    // ===== EJECUCIÓN =====
+
+    private void runChunk(Job job, Chunk chunk) {
+        // Descartado por cancel(), que ya lo descontó
+        if (!chunk.started.compareAndSet(false, true)) return;
+        List<Long> groupIds = chunk.groupIds;
+        try {
+            if (job.cancelled) return;
+            try {
+                job.processedGroups.addAndGet(groupService.recalculateGroups(groupIds));
+            } catch (Exception e) {
+                // Si el lote falla, se reintenta grupo por grupo para no perder los demás
+                log.warn("Recálculo {}: falló un lote de {} grupos, reintentando uno a uno",
+                        job.id, groupIds.size(), e);
+                for (Long groupId : groupIds) {
+                    if (job.cancelled) return;
+                    try {
+                        job.processedGroups.addAndGet(groupService.recalculateGroups(List.of(groupId)));
+                    } catch (Exception groupError) {
+                        job.failedGroups.incrementAndGet();
+                        job.addError("Grupo " + groupId + ": " + groupError.getMessage());
+                    }
+                }
+            }
+        } finally {
+            if (job.remainingChunks.decrementAndGet() == 0) {
+                finish(job);
+            }
+        }
+    }
+
+    private void finish(Job job) {
+        job.finishedAt = LocalDateTime.now();
+        if (job.cancelled) {
+            job.status = JobStatus.CANCELLED;
+        } else if (job.failedGroups.get() > 0) {
+            job.status = JobStatus.COMPLETED_WITH_ERRORS;
+        } else {
+            job.status = JobStatus.COMPLETED;
+        }
+        job.chunks.clear();
+        log.info("Recálculo {} terminado ({}): {}/{} grupos, {} con error",
+                job.id, job.status, job.processedGroups.get(), job.totalGroups, job.failedGroups.get());
+
+        finishedOrder.addLast(job.id);
+        while (finishedOrder.size() > maxFinishedJobs) {
+            String oldest = finishedOrder.pollFirst();
+            if (oldest != null) jobs.remove(oldest);
+        }
+    }
+
+    /** Lotes de hasta chunkSize grupos sin partir los grupos de un mismo empleado. */
+    private List<List<Long>> partitionByEmployee(List<Object[]> targets) {
+        List<List<Long>> chunks = new ArrayList<>();
+        List<Long> chunk = new ArrayList<>();
+        Long previousEmployee = null;
+        for (Object[] row : targets) {
+            Long groupId = ((Number) row[0]).longValue();
+            Long employeeId = row[1] != null ? ((Number) row[1]).longValue() : null;
+            boolean newEmployee = !Objects.equals(employeeId, previousEmployee);
+            if (newEmployee && chunk.size() >= chunkSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+            chunk.add(groupId);
+            previousEmployee = employeeId;
+        }
+        if (!chunk.isEmpty()) chunks.add(chunk);
+        return chunks;
+    }
+
+    private int countEmployees(List<Object[]> targets) {
+        Set<Object> employees = new HashSet<>();
+        for (Object[] row : targets) employees.add(row[1]);
+        return employees.size();
+    }
+
+    // ===== ESTADO =====
+
+    public record JobSnapshot(String jobId, JobStatus status, LocalDate startDate, LocalDate endDate,
+                              Long dependencyId, int totalGroups, int employees, int processedGroups,
+                              int failedGroups, double progress, LocalDateTime startedAt,
+                              LocalDateTime finishedAt, List<String> errors) {}
+
+    /** Lote de grupos; {@code started} lo gana runChunk al empezar o cancel() al descartarlo. */
+    private static final class Chunk {
+        final List<Long> groupIds;
+        final AtomicBoolean started = new AtomicBoolean();
+        volatile Future<?> future;
+
+        Chunk(List<Long> groupIds) {
+            this.groupIds = groupIds;
+        }
+    }
+
+    private static final class Job {
+        final String id;
+        final LocalDate startDate;
+        final LocalDate endDate;
+        final Long dependencyId;
+        final int totalGroups;
+        final int employees;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final AtomicInteger processedGroups = new AtomicInteger();
+        final AtomicInteger failedGroups = new AtomicInteger();
+        final AtomicInteger remainingChunks;
+        final List<Chunk> chunks = new CopyOnWriteArrayList<>();
+        final List<String> errors = new CopyOnWriteArrayList<>();
+        volatile JobStatus status = JobStatus.RUNNING;
+        volatile boolean cancelled;
+        volatile LocalDateTime finishedAt;
+
+        Job(String id, LocalDate startDate, LocalDate endDate, Long dependencyId,
+            int totalGroups, int employees, int chunks) {
+            this.id = id;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.dependencyId = dependencyId;
+            this.totalGroups = totalGroups;
+            this.employees = employees;
+            this.remainingChunks = new AtomicInteger(chunks);
+        }
+
+        void addError(String message) {
+            if (errors.size() < MAX_ERRORS_KEPT) errors.add(message);
+        }
+
+        JobSnapshot snapshot() {
+            int processed = processedGroups.get();
+            int failed = failedGroups.get();
+            double progress = totalGroups == 0 ? 1.0 : Math.min(1.0, (double) (processed + failed) / totalGroups);
+            return new JobSnapshot(id, status, startDate, endDate, dependencyId, totalGroups, employees,
+                    processed, failed, progress, startedAt, finishedAt, List.copyOf(errors));
+        }
+    }
+}
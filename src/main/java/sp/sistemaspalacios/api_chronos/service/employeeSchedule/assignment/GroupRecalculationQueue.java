@@ -0,0 +1,335 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.ScheduleAssignmentGroupRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cola de recálculo de grupos para las ediciones de horarios.
+ * - Cada edición marca "empleado X sucio en [desde, hasta]"; los rangos del mismo empleado se
+ *   unen (duplicados, solapados o contiguos) hasta que se procesan.
+ * - Un empleado se procesa cuando pasa {@code recalculation.queue.debounce-ms} sin ediciones nuevas,
+ *   o a más tardar {@code recalculation.queue.max-delay-ms} después de la primera de la ráfaga.
+ * - Se recalculan una vez los grupos del empleado que se cruzan con los rangos, en un pool acotado.
+ *   Un empleado nunca se procesa en dos hilos a la vez; lo que llegue mientras corre queda para
+ *   la siguiente vuelta.
+ * El estado por empleado ({@link #getStatus}) indica si sus totales ya están al día.
+ * Apagada por defecto. Las ediciones de un solo día no pasan por la cola: usan el recálculo
+ * por día ({@link IncrementalGroupRecalculationService}).
+ */
+@Slf4j
+@Service
+public class GroupRecalculationQueue implements MeterBinder {
+
+    /** UNKNOWN: la cola no ha visto ediciones del empleado desde que arrancó. */
+    public enum State { PENDING, RUNNING, FRESH, UNKNOWN }
+
+    private static final LocalDate MIN_DATE = ScheduleAssignmentGroupService.MIN_DATE;
+    private static final LocalDate MAX_DATE = ScheduleAssignmentGroupService.MAX_DATE;
+
+    private final ScheduleAssignmentGroupRepository groupRepository;
+    private final ScheduleAssignmentGroupService groupService;
+    private final boolean enabled;
+    private final long debounceMillis;
+    private final long maxDelayMillis;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService workers;
+
+    private final ConcurrentHashMap<Long, EmployeeEntry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder recalculatedGroups = new LongAdder();
+
+    public GroupRecalculationQueue(ScheduleAssignmentGroupRepository groupRepository,
+                                   ScheduleAssignmentGroupService groupService,
+                                   @Value("${recalculation.queue.enabled:false}") boolean enabled,
+                                   @Value("${recalculation.queue.debounce-ms:1500}") long debounceMillis,
+                                   @Value("${recalculation.queue.max-delay-ms:10000}") long maxDelayMillis,
+                                   @Value("${recalculation.queue.workers:2}") int workerCount) {
+        this.groupRepository = groupRepository;
+        this.groupService = groupService;
+        this.enabled = enabled;
+        this.debounceMillis = Math.max(0, debounceMillis);
+        this.maxDelayMillis = Math.max(this.debounceMillis, maxDelayMillis);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonFactory("group-recalc-queue-timer"));
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerCount), daemonFactory("group-recalc-queue"));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /** Si está apagada, las ediciones de varios días recalculan en la misma petición. */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // ===== ENCOLAR =====
+
+    /**
+     * Marca el rango del empleado como pendiente. Dentro de una transacción se encola al
+     * confirmarla, para que el recálculo no lea datos sin confirmar. Fechas null = sin límite.
+     */
+    public void enqueue(Long employeeId, LocalDate from, LocalDate to) {
+        if (employeeId == null) return;
+        LocalDate start = from != null ? from : MIN_DATE;
+        LocalDate end = to != null ? to : MAX_DATE;
+        if (end.isBefore(start)) {
+            LocalDate tmp = start;
+            start = end;
+            end = tmp;
+        }
+
+        LocalDate rangeStart = start;
+        LocalDate rangeEnd = end;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEnqueue(employeeId, rangeStart, rangeEnd);
+                }
+            });
+        } else {
+            doEnqueue(employeeId, rangeStart, rangeEnd);
+        }
+    }
+
+    /** Todos los grupos del empleado. */
+    public void enqueueEmployee(Long employeeId) {
+        enqueue(employeeId, null, null);
+    }
+
+    /**
+     * Recalcula ya, en el hilo actual, los grupos del empleado que se cruzan con el rango (para
+     * cuando la cola está apagada). Devuelve cuántos grupos se recalcularon.
+     */
+    public int recalculateNow(Long employeeId, LocalDate from, LocalDate to) {
+        if (employeeId == null) return 0;
+        List<Long> groupIds = groupRepository.findIdsByEmployeeIdAndPeriodOverlap(employeeId,
+                java.sql.Date.valueOf(from != null ? from : MIN_DATE), java.sql.Date.valueOf(to != null ? to : MAX_DATE));
+        return groupIds.isEmpty() ? 0 : groupService.recalculateGroups(new LinkedHashSet<>(groupIds));
+    }
+
+    // ===== ESTADO =====
+
+    /** Sin entrada no se sabe si los totales están al día (p. ej. tras reiniciar): UNKNOWN, fresh = false. */
+    public EmployeeStatus getStatus(Long employeeId) {
+        EmployeeEntry entry = employeeId != null ? entries.get(employeeId) : null;
+        if (entry == null) {
+            return new EmployeeStatus(employeeId, State.UNKNOWN, false, List.of(), null, null, null);
+        }
+        synchronized (entry) {
+            return entry.status(employeeId);
+        }
+    }
+
+    public QueueStats getStats() {
+        int pending = 0;
+        int running = 0;
+        for (EmployeeEntry entry : entries.values()) {
+            synchronized (entry) {
+                if (entry.running) running++;
+                else if (!entry.ranges.isEmpty()) pending++;
+            }
+        }
+        return new QueueStats(enabled, debounceMillis, pending, running, enqueued.sum(),
+                batches.sum(), failedBatches.sum(), recalculatedGroups.sum());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("recalculation.queue.pending", this, q -> q.getStats().pendingEmployees())
+                .description("Empleados con rangos pendientes de recálculo")
+                .register(registry);
+        Gauge.builder("recalculation.queue.running", this, q -> q.getStats().runningEmployees())
+                .register(registry);
+        FunctionCounter.builder("recalculation.queue.enqueued", enqueued, LongAdder::sum).register(registry);
+        FunctionCounter.builder("recalculation.queue.batches", batches, LongAdder::sum).register(registry);
+        FunctionCounter.builder("recalculation.queue.batches.failed", failedBatches, LongAdder::sum).register(registry);
+        FunctionCounter.builder("recalculation.queue.groups", recalculatedGroups, LongAdder::sum).register(registry);
+    }
+
+    public record DateRange(LocalDate startDate, LocalDate endDate) {}
+
+    public record EmployeeStatus(Long employeeId, State state, boolean fresh, List<DateRange> pendingRanges,
+                                 LocalDateTime lastEnqueuedAt, LocalDateTime lastCompletedAt, String lastError) {}
+
+    public record QueueStats(boolean enabled, long debounceMillis, int pendingEmployees, int runningEmployees,
+                             long enqueuedEvents, long processedBatches, long failedBatches,
+                             long recalculatedGroups) {}
+
+    // ===== INTERNOS =====
+
+    private void doEnqueue(Long employeeId, LocalDate start, LocalDate end) {
+        enqueued.increment();
+        EmployeeEntry entry = entries.computeIfAbsent(employeeId, id -> new EmployeeEntry());
+        long now = System.currentTimeMillis();
+        synchronized (entry) {
+            if (entry.ranges.isEmpty()) {
+                entry.firstEnqueuedAt = now;
+            }
+            entry.addRange(start, end);
+            entry.lastEnqueuedAt = now;
+            entry.lastEnqueuedAtTime = LocalDateTime.now();
+            if (!entry.timerScheduled && !entry.running) {
+                entry.timerScheduled = true;
+                schedule(employeeId, debounceMillis);
+            }
+        }
+    }
+
+    private void schedule(Long employeeId, long delayMillis) {
+        try {
+            scheduler.schedule(() -> onTimer(employeeId), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("Cola de recálculo detenida; empleado {} queda pendiente", employeeId);
+        }
+    }
+
+    /** Despacha al empleado si ya pasó la ventana; si no, vuelve a programar el timer. */
+    private void onTimer(Long employeeId) {
+        EmployeeEntry entry = entries.get(employeeId);
+        if (entry == null) return;
+
+        List<DateRange> ranges;
+        synchronized (entry) {
+            long now = System.currentTimeMillis();
+            long due = Math.min(entry.lastEnqueuedAt + debounceMillis, entry.firstEnqueuedAt + maxDelayMillis);
+            if (now < due) {
+                schedule(employeeId, due - now);
+                return;
+            }
+            entry.timerScheduled = false;
+            if (entry.ranges.isEmpty()) return;
+            ranges = entry.drainRanges();
+            entry.running = true;
+        }
+
+        try {
+            workers.execute(() -> process(employeeId, entry, ranges));
+        } catch (RejectedExecutionException e) {
+            synchronized (entry) {
+                entry.running = false;
+                for (DateRange range : ranges) entry.addRange(range.startDate(), range.endDate());
+            }
+            log.warn("Cola de recálculo detenida; empleado {} queda pendiente", employeeId);
+        }
+    }
+
+    private void process(Long employeeId, EmployeeEntry entry, List<DateRange> ranges) {
+        String error = null;
+        int groups = 0;
+        try {
+            Set<Long> groupIds = new LinkedHashSet<>();
+            for (DateRange range : ranges) {
+                groupIds.addAll(groupRepository.findIdsByEmployeeIdAndPeriodOverlap(employeeId,
+                        java.sql.Date.valueOf(range.startDate()), java.sql.Date.valueOf(range.endDate())));
+            }
+            if (!groupIds.isEmpty()) {
+                groups = groupService.recalculateGroups(groupIds);
+            }
+            recalculatedGroups.add(groups);
+            log.debug("Cola de recálculo: empleado {} -> {} grupos ({} rangos)", employeeId, groups, ranges.size());
+        } catch (Exception e) {
+            failedBatches.increment();
+            error = e.getMessage();
+            log.warn("Cola de recálculo: error en empleado {}", employeeId, e);
+        } finally {
+            batches.increment();
+            synchronized (entry) {
+                entry.running = false;
+                entry.lastCompletedAt = LocalDateTime.now();
+                entry.lastError = error;
+                // Ediciones que llegaron mientras corría
+                if (!entry.ranges.isEmpty() && !entry.timerScheduled) {
+                    entry.timerScheduled = true;
+                    schedule(employeeId, debounceMillis);
+                }
+            }
+        }
+    }
+
+    private static ThreadFactory daemonFactory(String prefix) {
+        return new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        };
+    }
+
+    /** Estado de un empleado; se accede sincronizado sobre la propia entrada. */
+    private static final class EmployeeEntry {
+        // Rangos disjuntos ordenados por inicio
+        final List<DateRange> ranges = new ArrayList<>();
+        long firstEnqueuedAt;
+        long lastEnqueuedAt;
+        LocalDateTime lastEnqueuedAtTime;
+        LocalDateTime lastCompletedAt;
+        String lastError;
+        boolean timerScheduled;
+        boolean running;
+
+        /** Inserta el rango uniendo los que se solapan o son contiguos. */
+        void addRange(LocalDate start, LocalDate end) {
+            LocalDate mergedStart = start;
+            LocalDate mergedEnd = end;
+            int insertAt = 0;
+            Iterator<DateRange> it = ranges.iterator();
+            int index = 0;
+            while (it.hasNext()) {
+                DateRange r = it.next();
+                boolean touches = !r.startDate().isAfter(plusDay(mergedEnd)) && !plusDay(r.endDate()).isBefore(mergedStart);
+                if (touches) {
+                    if (r.startDate().isBefore(mergedStart)) mergedStart = r.startDate();
+                    if (r.endDate().isAfter(mergedEnd)) mergedEnd = r.endDate();
+                    it.remove();
+                    continue;
+                }
+                if (r.startDate().isBefore(mergedStart)) insertAt = index + 1;
+                index++;
+            }
+            ranges.add(insertAt, new DateRange(mergedStart, mergedEnd));
+        }
+
+        List<DateRange> drainRanges() {
+            List<DateRange> drained = new ArrayList<>(ranges);
+            ranges.clear();
+            return drained;
+        }
+
+        EmployeeStatus status(Long employeeId) {
+            State state = running ? State.RUNNING : (!ranges.isEmpty() ? State.PENDING : State.FRESH);
+            // Si la última vuelta falló, los totales no se consideran al día
+            return new EmployeeStatus(employeeId, state, state == State.FRESH && lastError == null, List.copyOf(ranges),
+                    lastEnqueuedAtTime, lastCompletedAt, lastError);
+        }
+
+        private static LocalDate plusDay(LocalDate date) {
+            return date.equals(MAX_DATE) ? date : date.plusDays(1);
+        }
+    }
+}
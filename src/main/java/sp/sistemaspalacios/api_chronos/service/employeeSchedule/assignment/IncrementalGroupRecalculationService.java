@@ -0,0 +1,190 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleTimeBlock;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.ScheduleAssignmentGroup;
+import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.EmployeeScheduleRepository;
+import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.ScheduleAssignmentGroupRepository;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.overtime.HourClassificationService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Recálculo incremental de los totales de un grupo cuando cambian los bloques de un día.
+ * Antes del cambio se toma la clasificación de ese día en cada grupo del horario
+ * ({@link #captureDay}); después se clasifica de nuevo solo ese día y la diferencia se
+ * aplica a los totales guardados ({@link #applyDay}).
+ * <p>
+ * La diferencia solo se aplica si el día tiene únicamente horas REGULAR_: con horas extra,
+ * dominicales o festivas cambia también el tipo predominante, que necesita el desglose
+ * completo, y ese grupo se recalcula entero. Lo mismo si el horario se quedó sin días
+ * (pasa a clasificarse por su rango de fechas) o si {@code recalculation.incremental.enabled}
+ * está apagado.
+ */
+@Slf4j
+@Service
+public class IncrementalGroupRecalculationService {
+
+    private static final String REGULAR_PREFIX = "REGULAR_";
+
+    private final EmployeeScheduleRepository scheduleRepository;
+    private final ScheduleAssignmentGroupRepository groupRepository;
+    private final ScheduleAssignmentGroupService groupService;
+    private final HourClassificationService hourClassificationService;
+    private final boolean incrementalEnabled;
+
+    public IncrementalGroupRecalculationService(EmployeeScheduleRepository scheduleRepository,
+                                                ScheduleAssignmentGroupRepository groupRepository,
+                                                ScheduleAssignmentGroupService groupService,
+                                                HourClassificationService hourClassificationService,
+                                                @Value("${recalculation.incremental.enabled:true}") boolean incrementalEnabled) {
+        this.scheduleRepository = scheduleRepository;
+        this.groupRepository = groupRepository;
+        this.groupService = groupService;
+        this.hourClassificationService = hourClassificationService;
+        this.incrementalEnabled = incrementalEnabled;
+    }
+
+    /**
+     * Clasificación del día en cada grupo de su horario, antes de modificarlo.
+     * Devuelve null si el día no existe.
+     */
+    @Transactional(readOnly = true)
+    public DaySnapshot captureDay(Long dayId) {
+        if (dayId == null) return null;
+        List<Object[]> owner = scheduleRepository.findDayOwner(dayId);
+        if (owner.isEmpty()) return null;
+
+        Object[] row = owner.get(0);
+        Long scheduleId = ((Number) row[0]).longValue();
+        Long employeeId = row[1] != null ? ((Number) row[1]).longValue() : null;
+        LocalDate date = toLocalDate((Date) row[2]);
+
+        Map<Long, Map<String, BigDecimal>> hoursByGroup = new LinkedHashMap<>();
+        for (ScheduleAssignmentGroup group : groupRepository.findAllByEmployeeScheduleId(scheduleId)) {
+            // Apagado: solo se anotan los grupos, applyDay los recalcula completos
+            hoursByGroup.put(group.getId(), incrementalEnabled ? classifyGroupDay(group, date) : Collections.emptyMap());
+        }
+        return new DaySnapshot(dayId, scheduleId, employeeId, date, hoursByGroup);
+    }
+
+    /** Aplica a cada grupo la diferencia entre el día capturado y el día actual. */
+    @Transactional
+    public DeltaResult applyDay(DaySnapshot before) {
+        if (before == null) return new DeltaResult(0, 0);
+
+        boolean scheduleHasDays = !scheduleRepository.findScheduleIdsWithDays(List.of(before.scheduleId())).isEmpty();
+        int incremental = 0;
+        int full = 0;
+
+        for (Map.Entry<Long, Map<String, BigDecimal>> entry : before.hoursByGroup().entrySet()) {
+            ScheduleAssignmentGroup group = groupRepository.findById(entry.getKey()).orElse(null);
+            if (group == null) continue;
+
+            Map<String, BigDecimal> beforeHours = entry.getValue();
+            Map<String, BigDecimal> afterHours = (incrementalEnabled && scheduleHasDays)
+                    ? classifyGroupDay(group, before.date())
+                    : null;
+
+            if (afterHours == null || !onlyRegular(beforeHours) || !onlyRegular(afterHours)) {
+                groupService.recalculateGroups(List.of(group.getId()));
+                full++;
+                continue;
+            }
+
+            BigDecimal delta = sum(afterHours).subtract(sum(beforeHours));
+            if (delta.signum() != 0) {
+                group.setRegularHours(nz(group.getRegularHours()).add(delta).setScale(2, RoundingMode.HALF_UP));
+                group.setTotalHours(nz(group.getTotalHours()).add(delta).setScale(2, RoundingMode.HALF_UP));
+                groupRepository.save(group);
+            }
+            incremental++;
+        }
+
+        log.debug("Recálculo del día {} (horario {}, {}): {} grupos por diferencia, {} completos",
+                before.dayId(), before.scheduleId(), before.date(), incremental, full);
+        return new DeltaResult(incremental, full);
+    }
+
+    public record DaySnapshot(Long dayId, Long scheduleId, Long employeeId, LocalDate date,
+                              Map<Long, Map<String, BigDecimal>> hoursByGroup) {}
+
+    public record DeltaResult(int incrementalGroups, int fullGroups) {}
+
+    // ===== INTERNOS =====
+
+    /**
+     * Clasifica una fecha con los horarios del grupo. Los bloques se leen con una consulta de
+     * filas (no de las colecciones del contexto de persistencia, que pueden estar desactualizadas
+     * dentro de la misma petición) y se arman días transitorios solo para esa fecha.
+     */
+    private Map<String, BigDecimal> classifyGroupDay(ScheduleAssignmentGroup group, LocalDate date) {
+        List<Long> scheduleIds = new ArrayList<>(new LinkedHashSet<>(group.getEmployeeScheduleIds()));
+        if (scheduleIds.isEmpty()) return Collections.emptyMap();
+
+        List<EmployeeSchedule> schedules = scheduleRepository.findAllByIdWithShift(scheduleIds);
+
+        Map<Long, List<EmployeeScheduleDay>> daysOnDate = new HashMap<>();
+        for (Long id : scheduleRepository.findScheduleIdsWithDays(scheduleIds)) {
+            daysOnDate.put(id, new ArrayList<>());
+        }
+
+        Map<Long, EmployeeScheduleDay> daysById = new LinkedHashMap<>();
+        for (Object[] row : scheduleRepository.findBlockRowsByScheduleIdsAndDate(scheduleIds, java.sql.Date.valueOf(date))) {
+            Long dayId = ((Number) row[0]).longValue();
+            Long scheduleId = ((Number) row[1]).longValue();
+            EmployeeScheduleDay day = daysById.computeIfAbsent(dayId, id -> {
+                EmployeeScheduleDay d = new EmployeeScheduleDay();
+                d.setId(id);
+                d.setDate(java.sql.Date.valueOf(date));
+                d.setDayOfWeek(date.getDayOfWeek().getValue());
+                daysOnDate.computeIfAbsent(scheduleId, k -> new ArrayList<>()).add(d);
+                return d;
+            });
+            if (row[2] != null && row[3] != null) {
+                EmployeeScheduleTimeBlock block = new EmployeeScheduleTimeBlock();
+                block.setStartTime((Time) row[2]);
+                block.setEndTime((Time) row[3]);
+                day.getTimeBlocks().add(block);
+            }
+        }
+
+        // Compactos sin fecha fin hasta el fin del período, como en el recálculo completo
+        return hourClassificationService.classifyScheduleDate(schedules, date, daysOnDate,
+                toLocalDate(group.getPeriodEnd()));
+    }
+
+    private boolean onlyRegular(Map<String, BigDecimal> hours) {
+        for (String type : hours.keySet()) {
+            if (!type.startsWith(REGULAR_PREFIX)) return false;
+        }
+        return true;
+    }
+
+    private BigDecimal sum(Map<String, BigDecimal> hours) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal value : hours.values()) {
+            total = total.add(value);
+        }
+        return total;
+    }
+
+    private BigDecimal nz(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private LocalDate toLocalDate(Date date) {
+        if (date == null) return null;
+        if (date instanceof java.sql.Date) return ((java.sql.Date) date).toLocalDate();
+        return new java.sql.Date(date.getTime()).toLocalDate();
+    }
+}
@@ -2,6 +2,7 @@ package sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import sp.sistemaspalacios.api_chronos.dto.overtime.OvertimeTypeDTO;
@@ -34,6 +35,11 @@ public class ScheduleAssignmentGroupService {
 
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
 
+    // Tamaño máximo de página del listado y límites de fecha cuando no hay filtro (también los usa el recálculo)
+    private static final int MAX_PAGE_SIZE = 500;
+    static final LocalDate MIN_DATE = LocalDate.of(1900, 1, 1);
+    static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
 
 
     public List<ScheduleAssignmentGroupDTO> getEmployeeGroups(Long employeeId) {
@@ -51,7 +57,8 @@ public class ScheduleAssignmentGroupService {
         syncStatusWithDates(group);
 
         List<EmployeeSchedule> schedules = scheduleRepository.findAllById(group.getEmployeeScheduleIds());
-        Map<String, BigDecimal> hoursByType = hourClassificationService.classifyScheduleHours(schedules);
+        Map<String, BigDecimal> hoursByType =
+                hourClassificationService.classifyScheduleHours(schedules, convertToLocalDate(group.getPeriodEnd()));
 
         return convertToDTO(group, schedules, hoursByType);
     }
@@ -61,7 +68,8 @@ public class ScheduleAssignmentGroupService {
         ScheduleAssignmentGroup group = getGroupOrThrow(groupId);
         List<EmployeeSchedule> schedules = scheduleRepository.findAllByIdWithShift(group.getEmployeeScheduleIds());
 
-        Map<String, BigDecimal> hoursByType = hourClassificationService.classifyScheduleHours(schedules);
+        Map<String, BigDecimal> hoursByType =
+                hourClassificationService.classifyScheduleHours(schedules, convertToLocalDate(group.getPeriodEnd()));
         updateGroupTotalsSimple(group, hoursByType);
         syncStatusWithDates(group);
         group = groupRepository.save(group);
@@ -69,6 +77,45 @@ public class ScheduleAssignmentGroupService {
         return convertToDTO(group, schedules, hoursByType);
     }
 
+    /**
+     * Recalcula varios grupos en una sola transacción (lo usa el job de recálculo por período):
+     * los horarios de todos se cargan en una consulta y los totales se escriben juntos al
+     * confirmar, en updates por lote. Devuelve cuántos grupos se recalcularon.
+     * Si la clasificación falla se lanza la excepción (y se revierte la transacción) en lugar de
+     * guardar totales en cero, para que quien llama cuente el lote como fallido.
+     */
+    @Transactional
+    public int recalculateGroups(Collection<Long> groupIds) {
+        if (groupIds == null || groupIds.isEmpty()) return 0;
+
+        List<ScheduleAssignmentGroup> groups = groupRepository.findAllById(groupIds);
+        List<Long> scheduleIds = groups.stream()
+                .flatMap(g -> g.getEmployeeScheduleIds().stream())
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, EmployeeSchedule> schedulesById = scheduleIds.isEmpty()
+                ? Collections.emptyMap()
+                : scheduleRepository.findAllByIdWithShift(scheduleIds).stream()
+                .collect(Collectors.toMap(EmployeeSchedule::getId, s -> s, (a, b) -> a));
+
+        Map<Long, List<EmployeeSchedule>> schedulesByGroup = new LinkedHashMap<>();
+        for (ScheduleAssignmentGroup group : groups) {
+            schedulesByGroup.put(group.getId(), group.getEmployeeScheduleIds().stream()
+                    .map(schedulesById::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList()));
+        }
+        Map<Long, Map<String, BigDecimal>> hoursByGroup =
+                hourClassificationService.classifyGroupHours(schedulesByGroup, periodEnds(groups));
+
+        for (ScheduleAssignmentGroup group : groups) {
+            updateGroupTotalsSimple(group, hoursByGroup.get(group.getId()));
+            group.setStatus(getEffectiveStatus(group));
+        }
+        groupRepository.saveAll(groups);
+        return groups.size();
+    }
+
     @Transactional
     public void deleteGroup(Long groupId) {
         if (!groupRepository.existsById(groupId)) {
@@ -77,52 +124,96 @@ public class ScheduleAssignmentGroupService {
         groupRepository.deleteById(groupId);
     }
 
-    public List<ScheduleAssignmentGroupDTO> getAllScheduleGroupsWithFilters(
+    /**
+     * Listado de grupos paginado por cursor: los filtros de estado, empleado, fechas y turno se
+     * resuelven en la BD, los horarios de toda la página se cargan en una sola consulta y sus
+     * horas se clasifican en una sola llamada.
+     * {@code afterId} es el {@code nextCursor} de la página anterior (null para la primera).
+     */
+    public GroupPage getAllScheduleGroupsWithFilters(
             String status, String shiftName, Long employeeId,
-            LocalDate startDate, LocalDate endDate) {
-
-        // 🔹 NO SINCRONIZAR TODOS - solo filtrar por status actual
-        List<ScheduleAssignmentGroup> allGroups = groupRepository.findAll();
+            LocalDate startDate, LocalDate endDate,
+            Long afterId, int size) {
 
-        // 🔹 FILTRADO RÁPIDO SIN CÁLCULOS PESADOS
-        List<ScheduleAssignmentGroup> filteredGroups = allGroups.stream()
-                .filter(group -> filterByStatusFast(group, status))
-                .filter(group -> filterByEmployee(group, employeeId))
-                .filter(group -> filterByDateRange(group, startDate, endDate))
-                .collect(Collectors.toList());
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        LocalDate today = LocalDate.now();
 
-        // 🔹 LIMITAR RESULTADOS PARA EVITAR SOBRECARGA
-        if (filteredGroups.size() > 100) {
-            filteredGroups = filteredGroups.stream()
-                    .limit(100)
-                    .collect(Collectors.toList());
+        // Estado efectivo por fecha: ACTIVE si periodEnd >= hoy, INACTIVE si periodEnd < hoy
+        LocalDate endFrom = MIN_DATE;
+        LocalDate endBefore = MAX_DATE;
+        if (status != null && !status.trim().isEmpty() && !"TODOS".equalsIgnoreCase(status)) {
+            if ("ACTIVE".equalsIgnoreCase(status)) {
+                endFrom = today;
+            } else if ("INACTIVE".equalsIgnoreCase(status)) {
+                endBefore = today;
+            } else {
+                return new GroupPage(Collections.emptyList(), null, false);
+            }
         }
+        if (startDate != null && startDate.isAfter(endFrom)) {
+            endFrom = startDate;
+        }
+        LocalDate startUntil = endDate != null ? endDate : MAX_DATE;
+        String shiftFilter = needsScheduleDetails(shiftName) ? shiftName.trim().toLowerCase(Locale.ROOT) : null;
+
+        // Se pide un registro extra para saber si hay más páginas
+        List<ScheduleAssignmentGroup> groups = groupRepository.findPageAfter(
+                afterId != null ? afterId : 0L,
+                employeeId,
+                java.sql.Date.valueOf(endFrom),
+                java.sql.Date.valueOf(endBefore),
+                java.sql.Date.valueOf(startUntil),
+                shiftFilter,
+                PageRequest.of(0, pageSize + 1));
+
+        boolean hasNext = groups.size() > pageSize;
+        if (hasNext) {
+            groups = groups.subList(0, pageSize);
+        }
+        Long nextCursor = hasNext ? groups.get(groups.size() - 1).getId() : null;
 
-        // 🔹 PROCESAMIENTO OPTIMIZADO
-        return filteredGroups.stream()
-                .map(group -> {
-                    try {
-                        return convertToFastDTO(group, shiftName);
-                    } catch (Exception e) {
-                        log.error("Error procesando grupo {}: {}", group.getId(), e.getMessage());
-                        return null;
-                    }
-                })
-                .filter(Objects::nonNull)
+        // Horarios de todos los grupos de la página en una sola consulta
+        List<Long> scheduleIds = groups.stream()
+                .flatMap(g -> g.getEmployeeScheduleIds().stream())
+                .distinct()
                 .collect(Collectors.toList());
-    }
+        Map<Long, EmployeeSchedule> schedulesById = scheduleIds.isEmpty()
+                ? Collections.emptyMap()
+                : scheduleRepository.findAllByIdWithShift(scheduleIds).stream()
+                .collect(Collectors.toMap(EmployeeSchedule::getId, s -> s, (a, b) -> a));
+
+        Map<Long, List<EmployeeSchedule>> schedulesByGroup = new LinkedHashMap<>();
+        for (ScheduleAssignmentGroup group : groups) {
+            schedulesByGroup.put(group.getId(), group.getEmployeeScheduleIds().stream()
+                    .map(schedulesById::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList()));
+        }
+
+        // Desglose por tipo de toda la página con un solo contexto de clasificación
+        Map<Long, Map<String, BigDecimal>> hoursByGroup;
+        try {
+            hoursByGroup = hourClassificationService.classifyGroupHours(schedulesByGroup, periodEnds(groups));
+        } catch (Exception e) {
+            log.error("Error clasificando horas de la página de grupos", e);
+            hoursByGroup = Collections.emptyMap();
+        }
 
-    // 🔹 MÉTODO RÁPIDO PARA DETERMINAR STATUS SIN ACTUALIZAR BD
-    private boolean filterByStatusFast(ScheduleAssignmentGroup group, String status) {
-        if (status == null || status.trim().isEmpty() || "TODOS".equalsIgnoreCase(status)) {
-            return true;
+        List<ScheduleAssignmentGroupDTO> result = new ArrayList<>();
+        for (ScheduleAssignmentGroup group : groups) {
+            try {
+                result.add(convertToFastDTO(group, schedulesByGroup.get(group.getId()),
+                        hoursByGroup.getOrDefault(group.getId(), Collections.emptyMap()), shiftName));
+            } catch (Exception e) {
+                log.error("Error procesando grupo {}: {}", group.getId(), e.getMessage());
+            }
         }
 
-        // Calcular status efectivo SIN guardar en BD
-        String effectiveStatus = calculateEffectiveStatus(group);
-        return status.equalsIgnoreCase(effectiveStatus);
+        return new GroupPage(result, nextCursor, hasNext);
     }
 
+    public record GroupPage(List<ScheduleAssignmentGroupDTO> groups, Long nextCursor, boolean hasNext) {}
+
     private String calculateEffectiveStatus(ScheduleAssignmentGroup group) {
         if (group.getPeriodEnd() == null) return "ACTIVE";
 
@@ -133,7 +224,10 @@ public class ScheduleAssignmentGroupService {
     }
 
     // 🔹 CONVERSIÓN RÁPIDA SIN CÁLCULOS DE HORAS COMPLEJOS
-    private ScheduleAssignmentGroupDTO convertToFastDTO(ScheduleAssignmentGroup group, String shiftNameFilter) {
+    private ScheduleAssignmentGroupDTO convertToFastDTO(ScheduleAssignmentGroup group,
+                                                        List<EmployeeSchedule> schedules,
+                                                        Map<String, BigDecimal> hoursByType,
+                                                        String shiftNameFilter) {
         ScheduleAssignmentGroupDTO dto = new ScheduleAssignmentGroupDTO();
 
         dto.setId(group.getId());
@@ -154,8 +248,6 @@ public class ScheduleAssignmentGroupService {
         dto.setFestivoType(group.getFestivoType());
 
         // ✅ CORRECCIÓN: Usar breakdown REAL en lugar de inventado
-        List<EmployeeSchedule> schedules = scheduleRepository.findAllByIdWithShift(group.getEmployeeScheduleIds());
-        Map<String, BigDecimal> hoursByType = hourClassificationService.classifyScheduleHours(schedules);
         dto.setOvertimeBreakdown(createBreakdown(hoursByType));
 
         // AGREGAR NOMBRE DEL TURNO
@@ -166,15 +258,11 @@ public class ScheduleAssignmentGroupService {
             dto.setShiftName("Sin turno");
         }
 
-        // SOLO cargar schedule details si realmente se necesitan
+        // SOLO cargar schedule details si realmente se necesitan (el grupo ya viene filtrado por turno)
         if (needsScheduleDetails(shiftNameFilter)) {
-            if (shiftNameFilter != null && !shiftNameFilter.trim().isEmpty() && !"TODOS".equalsIgnoreCase(shiftNameFilter)) {
-                schedules = schedules.stream()
-                        .filter(s -> matchesShiftName(s, shiftNameFilter.trim()))
-                        .collect(Collectors.toList());
-
-                if (schedules.isEmpty()) return null;
-            }
+            schedules = schedules.stream()
+                    .filter(s -> matchesShiftName(s, shiftNameFilter.trim()))
+                    .collect(Collectors.toList());
 
             List<ScheduleDetailDTO> details = schedules.stream()
                     .map(this::createBasicScheduleDetail)
@@ -243,6 +331,11 @@ public class ScheduleAssignmentGroupService {
     }
 
     public ScheduleDetailDTO createScheduleDetailWithCalculation(EmployeeSchedule schedule) {
+        return createScheduleDetailWithCalculation(schedule, null);
+    }
+
+    // openEndedUntil: fin del período del grupo, para los compactos sin fecha fin
+    private ScheduleDetailDTO createScheduleDetailWithCalculation(EmployeeSchedule schedule, LocalDate openEndedUntil) {
         ScheduleDetailDTO detail = new ScheduleDetailDTO();
 
         detail.setScheduleId(schedule.getId());
@@ -273,7 +366,8 @@ public class ScheduleAssignmentGroupService {
         }
 
         // Resto del método sin cambios...
-        Map<String, BigDecimal> hoursByType = hourClassificationService.classifyScheduleHours(Collections.singletonList(schedule));
+        Map<String, BigDecimal> hoursByType =
+                hourClassificationService.classifyScheduleHours(Collections.singletonList(schedule), openEndedUntil);
 
         BigDecimal regularHours = sumHoursByPrefix(hoursByType, "REGULAR_");
         BigDecimal overtimeHours = sumHoursByPrefix(hoursByType, "EXTRA_").add(sumHoursByPrefix(hoursByType, "DOMINICAL_"));
@@ -358,7 +452,8 @@ public class ScheduleAssignmentGroupService {
     }
     private ScheduleAssignmentGroupDTO convertGroupToDTO(ScheduleAssignmentGroup group) {
         List<EmployeeSchedule> schedules = scheduleRepository.findAllByIdWithShift(group.getEmployeeScheduleIds());
-        Map<String, BigDecimal> hoursByType = hourClassificationService.classifyScheduleHours(schedules);
+        Map<String, BigDecimal> hoursByType =
+                hourClassificationService.classifyScheduleHours(schedules, convertToLocalDate(group.getPeriodEnd()));
         return convertToDTO(group, schedules, hoursByType);
     }
 
@@ -405,32 +500,14 @@ public class ScheduleAssignmentGroupService {
 
         dto.setOvertimeBreakdown(createBreakdown(hoursByType));
 
+        LocalDate periodEnd = convertToLocalDate(group.getPeriodEnd());
         List<ScheduleDetailDTO> details = schedules.stream()
-                .map(this::createScheduleDetailWithCalculation)
+                .map(schedule -> createScheduleDetailWithCalculation(schedule, periodEnd))
                 .collect(Collectors.toList());
         dto.setScheduleDetails(details);
 
         return dto;
     }
-    private boolean filterByEmployee(ScheduleAssignmentGroup group, Long employeeId) {
-        return employeeId == null || Objects.equals(group.getEmployeeId(), employeeId);
-    }
-
-    private boolean filterByDateRange(ScheduleAssignmentGroup group, LocalDate startDate, LocalDate endDate) {
-        if (startDate == null && endDate == null) return true;
-
-        LocalDate groupStart = convertToLocalDate(group.getPeriodStart());
-        LocalDate groupEnd = convertToLocalDate(group.getPeriodEnd());
-
-        if (startDate != null && endDate == null) {
-            return !groupEnd.isBefore(startDate);
-        }
-        if (startDate == null) {
-            return !groupStart.isAfter(endDate);
-        }
-        return !groupStart.isAfter(endDate) && !groupEnd.isBefore(startDate);
-    }
-
     private boolean matchesShiftName(EmployeeSchedule schedule, String shiftName) {
         String displayName = getShiftDisplayName(schedule.getShift());
         return displayName != null && shiftName.equalsIgnoreCase(displayName.trim());
@@ -470,6 +547,15 @@ public class ScheduleAssignmentGroupService {
         return null;
     }
 
+    // Fin del período de cada grupo (horizonte de sus compactos sin fecha fin)
+    private Map<Long, LocalDate> periodEnds(List<ScheduleAssignmentGroup> groups) {
+        Map<Long, LocalDate> periodEnds = new HashMap<>();
+        for (ScheduleAssignmentGroup group : groups) {
+            periodEnds.put(group.getId(), convertToLocalDate(group.getPeriodEnd()));
+        }
+        return periodEnds;
+    }
+
     private LocalDate convertToLocalDate(Date date) {
         if (date == null) return null;
         if (date instanceof java.sql.Date) return ((java.sql.Date) date).toLocalDate();
@@ -520,7 +606,7 @@ public class ScheduleAssignmentGroupService {
             Map<String, BigDecimal> hoursByType = new HashMap<>();
             try {
                 List<EmployeeSchedule> allSchedules = scheduleRepository.findAllById(group.getEmployeeScheduleIds());
-                hoursByType = hourClassificationService.classifyScheduleHours(allSchedules);
+                hoursByType = hourClassificationService.classifyScheduleHours(allSchedules, endL);
             } catch (Exception e) {
                 System.err.println("Error calculando horas: " + e.getMessage());
                 e.printStackTrace();
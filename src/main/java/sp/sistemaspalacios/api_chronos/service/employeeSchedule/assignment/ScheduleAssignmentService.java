@@ -1,6 +1,7 @@
 package sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment;
 
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import sp.sistemaspalacios.api_chronos.dto.employee.EmployeeHoursSummaryDTO;
@@ -9,19 +10,20 @@ import sp.sistemaspalacios.api_chronos.dto.schedule.ScheduleDto;
 import sp.sistemaspalacios.api_chronos.dto.schedule.ScheduleDto.*;
 import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
 import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
-import sp.sistemaspalacios.api_chronos.entity.shift.ShiftDetail;
 import sp.sistemaspalacios.api_chronos.entity.shift.Shifts;
 import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.EmployeeScheduleDayRepository;
 import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.EmployeeScheduleRepository;
 import sp.sistemaspalacios.api_chronos.repository.shift.ShiftsRepository;
+import sp.sistemaspalacios.api_chronos.service.employeeAttendance.ScheduleDayIndexListener;
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.core.ScheduleCalculationService;
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.holiday.HolidayExemptionService;
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.holiday.HolidayProcessingService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.time.ScheduleDayBulkWriter;
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.time.ScheduleDayGeneratorService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.time.ScheduleExpansionService;
 
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
  @Service
  public class ScheduleAssignmentService {
 
@@ -34,6 +36,11 @@ import java.util.stream.Collectors;
      private final ScheduleAssignmentGroupService groupService;
      private final HolidayExemptionService holidayExemptionService;
      private final ScheduleCalculationService scheduleCalculationService;
+     private final ScheduleDayBulkWriter scheduleDayBulkWriter;
+     private final ScheduleExpansionService scheduleExpansionService;
+     private final ScheduleConflictDetector scheduleConflictDetector;
+     private final ScheduleDayIndexListener dayIndexListener;
+     private final boolean compactByDefault;
 
      public ScheduleAssignmentService(
              EmployeeScheduleRepository employeeScheduleRepository,
@@ -44,7 +51,12 @@ import java.util.stream.Collectors;
              ScheduleDayGeneratorService scheduleDayGeneratorService,
              ScheduleAssignmentGroupService groupService,
              HolidayExemptionService holidayExemptionService,
-             ScheduleCalculationService scheduleCalculationService
+             ScheduleCalculationService scheduleCalculationService,
+             ScheduleDayBulkWriter scheduleDayBulkWriter,
+             ScheduleExpansionService scheduleExpansionService,
+             ScheduleConflictDetector scheduleConflictDetector,
+             ScheduleDayIndexListener dayIndexListener,
+             @Value("${schedule.compact.default:false}") boolean compactByDefault
      ) {
          this.employeeScheduleRepository = employeeScheduleRepository;
          this.employeeScheduleDayRepository = employeeScheduleDayRepository;
@@ -55,6 +67,11 @@ import java.util.stream.Collectors;
          this.groupService = groupService;
          this.holidayExemptionService = holidayExemptionService;
          this.scheduleCalculationService = scheduleCalculationService;
+         this.scheduleDayBulkWriter = scheduleDayBulkWriter;
+         this.scheduleExpansionService = scheduleExpansionService;
+         this.scheduleConflictDetector = scheduleConflictDetector;
+         this.dayIndexListener = dayIndexListener;
+         this.compactByDefault = compactByDefault;
      }
 
 
@@ -65,6 +82,7 @@ import java.util.stream.Collectors;
                  throw new IllegalArgumentException("confirmedAssignments es requerido");
              }
              List<EmployeeSchedule> created = new ArrayList<>();
+             List<EmployeeScheduleDay> pendingDays = new ArrayList<>();
              for (int i = 0; i < request.getConfirmedAssignments().size(); i++) {
                  ConfirmedAssignment ca = request.getConfirmedAssignments().get(i);
                  try {
@@ -76,8 +94,8 @@ import java.util.stream.Collectors;
                      EmployeeSchedule saved = employeeScheduleRepository.save(s);
 
                      List<HolidayDecision> decisions = (ca.getHolidayDecisions() != null) ? ca.getHolidayDecisions() : Collections.emptyList();
-                     scheduleDayGeneratorService.generateScheduleDaysWithHolidayDecisions(saved, decisions);
-                     created.add(employeeScheduleRepository.save(saved));
+                     pendingDays.addAll(daysToStore(saved, decisions));
+                     created.add(saved);
 
                  } catch (Exception e) {
                      System.err.println("Error processing confirmed assignment " + (i+1) + ": " + e.getMessage());
@@ -85,6 +103,7 @@ import java.util.stream.Collectors;
                      throw e;
                  }
              }
+             materializeDays(created, pendingDays);
              return processCreatedSchedules(created);
 
          } catch (Exception e) {
@@ -120,6 +139,7 @@ import java.util.stream.Collectors;
      @Transactional
      public List<EmployeeSchedule> createMultipleSchedules(List<EmployeeSchedule> schedules) {
          List<EmployeeSchedule> savedSchedules = new ArrayList<>();
+         List<EmployeeScheduleDay> pendingDays = new ArrayList<>();
          Long commonDaysParentId = null;
 
          for (EmployeeSchedule schedule : schedules) {
@@ -129,32 +149,63 @@ import java.util.stream.Collectors;
              Shifts shift = shiftsRepository.findById(schedule.getShift().getId())
                      .orElseThrow(() -> new IllegalArgumentException("Turno no encontrado"));
              schedule.setShift(shift);
-
-             scheduleDayGeneratorService.generateScheduleDaysWithHolidayDecisions(schedule, Collections.emptyList());
+             schedule.setDays(new ArrayList<>());
+             if (schedule.getCompact() == null) schedule.setCompact(compactByDefault);
 
              EmployeeSchedule savedSchedule = employeeScheduleRepository.save(schedule);
+             if (commonDaysParentId == null) commonDaysParentId = savedSchedule.getId();
+             savedSchedule.setDaysParentId(commonDaysParentId);
 
-             List<EmployeeScheduleDay> savedDays = new ArrayList<>();
-             for (EmployeeScheduleDay day : savedSchedule.getDays()) {
-                 day.setEmployeeSchedule(savedSchedule);
-                 if (commonDaysParentId == null) commonDaysParentId = savedSchedule.getId();
+             for (EmployeeScheduleDay day : daysToStore(savedSchedule, Collections.emptyList())) {
                  day.setDaysParentId(commonDaysParentId);
-                 EmployeeScheduleDay savedDay = employeeScheduleDayRepository.save(day);
-                 savedDays.add(savedDay);
+                 pendingDays.add(day);
              }
-
-             savedSchedule.setDays(savedDays);
-             savedSchedule.setDaysParentId(commonDaysParentId);
-             employeeScheduleRepository.save(savedSchedule);
-
              savedSchedules.add(savedSchedule);
          }
 
+         materializeDays(savedSchedules, pendingDays);
          return savedSchedules;
      }
 
 
 
+     /**
+      * Días a guardar de un horario nuevo: todos los del rango o, si es compacto, solo los
+      * festivos que difieren del patrón del turno.
+      */
+     private List<EmployeeScheduleDay> daysToStore(EmployeeSchedule schedule, List<HolidayDecision> decisions) {
+         if (ScheduleExpansionService.isCompact(schedule)) {
+             return scheduleExpansionService.buildOverrides(schedule, decisions);
+         }
+         return scheduleDayGeneratorService.generateDays(schedule, decisions);
+     }
+
+     /**
+      * Inserta los días generados de los horarios ya guardados con la escritura masiva (JDBC)
+      * y carga en una sola consulta los días insertados (con bloques) en la colección de cada
+      * horario. Los horarios son nuevos: su colección estaba vacía. Los compactos se anotan
+      * en el índice de días, que no ve sus fechas generadas del patrón.
+      */
+     private void materializeDays(List<EmployeeSchedule> schedules, List<EmployeeScheduleDay> days) {
+         employeeScheduleRepository.flush();
+         scheduleDayBulkWriter.insertDays(days);
+         dayIndexListener.markSchedulesChanged(schedules.stream()
+                 .filter(ScheduleExpansionService::isCompact)
+                 .map(EmployeeSchedule::getId)
+                 .toList());
+         if (days.isEmpty() || schedules.isEmpty()) return;
+
+         Map<Long, EmployeeSchedule> byId = new LinkedHashMap<>();
+         for (EmployeeSchedule schedule : schedules) byId.put(schedule.getId(), schedule);
+         // La consulta repite el día por cada bloque; por identidad (equals de @Data recorre el horario)
+         Set<EmployeeScheduleDay> loaded = Collections.newSetFromMap(new IdentityHashMap<>());
+         for (EmployeeScheduleDay day : employeeScheduleRepository
+                 .findDaysWithTimeBlocksByScheduleIds(new ArrayList<>(byId.keySet()))) {
+             EmployeeSchedule schedule = byId.get(day.getEmployeeSchedule().getId());
+             if (schedule != null && loaded.add(day)) schedule.getDays().add(day);
+         }
+     }
+
      private AssignmentResult processCreatedSchedules(List<EmployeeSchedule> created) {
          try {
              if (created == null || created.isEmpty()) {
@@ -275,6 +326,7 @@ import java.util.stream.Collectors;
          schedule.setShift(shift);
          schedule.setStartDate(assignment.getStartDate());
          schedule.setEndDate(assignment.getEndDate());
+         schedule.setCompact(assignment.getCompact() != null ? assignment.getCompact() : compactByDefault);
 
          if (schedule.getCreatedAt() == null) {
              schedule.setCreatedAt(new java.util.Date());
@@ -315,6 +367,7 @@ import java.util.stream.Collectors;
 
          schedule.setStartDate(assignment.getStartDate());
          schedule.setEndDate(assignment.getEndDate());
+         schedule.setCompact(assignment.getCompact() != null ? assignment.getCompact() : compactByDefault);
          schedule.setCreatedAt(new Date());
          return schedule;
      }
@@ -388,18 +441,15 @@ import java.util.stream.Collectors;
 
              // Crear y guardar los schedules
              List<EmployeeSchedule> created = new ArrayList<>();
+             List<EmployeeScheduleDay> pendingDays = new ArrayList<>();
              for (int i = 0; i < request.getAssignments().size(); i++) {
                  ScheduleAssignment a = request.getAssignments().get(i);
                  try {
                      EmployeeSchedule s = createScheduleFromAssignment(a);
                      s.setDays(new ArrayList<>());
                      EmployeeSchedule saved = employeeScheduleRepository.save(s);
-                     scheduleDayGeneratorService.generateScheduleDaysWithHolidayDecisions(
-                             saved,
-                             Collections.emptyList()
-                     );
-                     EmployeeSchedule finalSaved = employeeScheduleRepository.save(saved);
-                     created.add(finalSaved);
+                     pendingDays.addAll(daysToStore(saved, Collections.emptyList()));
+                     created.add(saved);
 
                  } catch (Exception e) {
                      System.err.println("Error processing assignment " + (i+1) + ": " + e.getClass().getName());
@@ -409,7 +459,7 @@ import java.util.stream.Collectors;
                  }
              }
 
-             employeeScheduleRepository.flush();
+             materializeDays(created, pendingDays);
              AssignmentResult result = processCreatedSchedules(created);
              return result;
 
@@ -425,196 +475,29 @@ import java.util.stream.Collectors;
              throw e;
          }
      }
-     private boolean hasTimeOverlapOnDateBetweenAssignments(ScheduleAssignment a1, ScheduleAssignment a2, LocalDate date) {
-         Shifts shift1 = shiftsRepository.findById(a1.getShiftId()).orElse(null);
-         Shifts shift2 = shiftsRepository.findById(a2.getShiftId()).orElse(null);
-
-         if (shift1 == null || shift2 == null) {
-             return false;
-         }
-         if (Objects.equals(shift1.getId(), shift2.getId())) {
-             return false;
-         }
-
-         int dayOfWeek = date.getDayOfWeek().getValue();
-
-         List<ShiftDetail> details1 = getShiftDetailsForDay(shift1, dayOfWeek);
-         List<ShiftDetail> details2 = getShiftDetailsForDay(shift2, dayOfWeek);
-
-         if (details1.isEmpty() || details2.isEmpty()) {
-             return false;
-         }
-
-         // Verificar solapamiento real de horarios
-         for (ShiftDetail detail1 : details1) {
-             for (ShiftDetail detail2 : details2) {
-                 if (timesActuallyOverlap(detail1, detail2)) {
-                     return true;
-                 }
-             }
-         }
-
-         return false;
-     }
-
-     // Método para obtener detalles de un turno para un día específico
-     private List<ShiftDetail> getShiftDetailsForDay(Shifts shift, int dayOfWeek) {
-         if (shift == null || shift.getShiftDetails() == null) {
-             return Collections.emptyList();
-         }
-
-         return shift.getShiftDetails().stream()
-                 .filter(detail -> Objects.equals(detail.getDayOfWeek(), dayOfWeek))
-                 .filter(detail -> detail.getStartTime() != null && detail.getEndTime() != null)
-                 .filter(detail -> !detail.getStartTime().trim().isEmpty() && !detail.getEndTime().trim().isEmpty())
-                 .collect(Collectors.toList());
-     }
-
 
      private List<ScheduleConflict> detectSameDateConflicts(List<ScheduleAssignment> assignments) {
          List<ScheduleConflict> conflicts = new ArrayList<>();
 
-         // Agrupar por empleado
-         Map<Long, List<ScheduleAssignment>> byEmployee = assignments.stream()
-                 .collect(Collectors.groupingBy(ScheduleAssignment::getEmployeeId));
-         for (Map.Entry<Long, List<ScheduleAssignment>> entry : byEmployee.entrySet()) {
-             Long employeeId = entry.getKey();
-             List<ScheduleAssignment> employeeAssignments = entry.getValue();
-             List<EmployeeSchedule> existingSchedules = employeeScheduleRepository.findByEmployeeId(employeeId);
-             for (ScheduleAssignment newAssignment : employeeAssignments) {
-                 LocalDate newStart = newAssignment.getStartDate();
-                 LocalDate newEnd = (newAssignment.getEndDate() != null) ? newAssignment.getEndDate() : newStart;
-                 for (EmployeeSchedule existing : existingSchedules) {
-                     LocalDate existingStart = existing.getStartDate();
-                     LocalDate existingEnd = (existing.getEndDate() != null) ? existing.getEndDate() : existingStart;
-                     if (datesOverlap(newStart, newEnd, existingStart, existingEnd)) {
-                         LocalDate overlapStart = Collections.max(Arrays.asList(newStart, existingStart));
-                         LocalDate overlapEnd = Collections.min(Arrays.asList(newEnd, existingEnd));
-
-                         boolean hasRealConflict = false;
-                         LocalDate conflictDate = null;
-
-                         // Verificar cada fecha en el período de solapamiento
-                         for (LocalDate date = overlapStart; !date.isAfter(overlapEnd); date = date.plusDays(1)) {
-                             if (hasTimeOverlapOnDate(newAssignment, existing, date)) {
-                                 hasRealConflict = true;
-                                 conflictDate = date;
-                                 break;
-                             }
-                         }
-                         if (hasRealConflict) {
-                             ScheduleConflict conflict = new ScheduleConflict();
-                             conflict.setEmployeeId(employeeId);
-                             conflict.setConflictDate(conflictDate);
-                             conflict.setMessage("Conflicto de horarios: el empleado ya tiene un turno con horarios que se solapan en la fecha " +
-                                     conflictDate + " (Turno existente: " + existing.getShift().getId() +
-                                     " vs Turno nuevo: " + newAssignment.getShiftId() + ")");
-                             conflicts.add(conflict);
-                         } else {
-
-                         }
-                     } else {
-
-                     }
-                 }
-             }
-
-             // 2. Verificar conflictos entre nuevas asignaciones del mismo empleado
-             if (employeeAssignments.size() > 1) {
-                 for (int i = 0; i < employeeAssignments.size(); i++) {
-                     for (int j = i + 1; j < employeeAssignments.size(); j++) {
-                         ScheduleAssignment a1 = employeeAssignments.get(i);
-                         ScheduleAssignment a2 = employeeAssignments.get(j);
-
-                         LocalDate start1 = a1.getStartDate();
-                         LocalDate end1 = (a1.getEndDate() != null) ? a1.getEndDate() : start1;
-                         LocalDate start2 = a2.getStartDate();
-                         LocalDate end2 = (a2.getEndDate() != null) ? a2.getEndDate() : start2;
-
-                         if (datesOverlap(start1, end1, start2, end2)) {
-                             // Verificar solapamiento de horarios
-                             LocalDate overlapStart = Collections.max(Arrays.asList(start1, start2));
-                             LocalDate overlapEnd = Collections.min(Arrays.asList(end1, end2));
-
-                             for (LocalDate date = overlapStart; !date.isAfter(overlapEnd); date = date.plusDays(1)) {
-                                 if (hasTimeOverlapOnDateBetweenAssignments(a1, a2, date)) {
-                                     ScheduleConflict conflict = new ScheduleConflict();
-                                     conflict.setEmployeeId(employeeId);
-                                     conflict.setConflictDate(date);
-                                     conflict.setMessage("Conflicto entre asignaciones: el empleado tiene dos turnos con horarios que se solapan en la fecha " +
-                                             date + " (Turno " + a1.getShiftId() + " vs Turno " + a2.getShiftId() + ")");
-                                     conflicts.add(conflict);
-                                     break;
-                                 }
-                             }
-                         }
-                     }
-                 }
+         // Mismo turno no es conflicto; un turno inexistente tampoco
+         for (ScheduleConflictDetector.Overlap overlap : scheduleConflictDetector.detect(assignments, false)) {
+             if (!overlap.verified()) continue;
+
+             ScheduleAssignment assignment = overlap.first().assignment();
+             ScheduleConflict conflict = new ScheduleConflict();
+             conflict.setEmployeeId(assignment.getEmployeeId());
+             conflict.setConflictDate(overlap.date());
+             if (overlap.againstExisting()) {
+                 conflict.setExistingScheduleId(overlap.second().existing().getId());
+                 conflict.setMessage("Conflicto de horarios: el empleado ya tiene un turno con horarios que se solapan en la fecha " +
+                         overlap.date() + " (Turno existente: " + overlap.secondShift().shiftId() +
+                         " vs Turno nuevo: " + assignment.getShiftId() + ")");
+             } else {
+                 conflict.setMessage("Conflicto entre asignaciones: el empleado tiene dos turnos con horarios que se solapan en la fecha " +
+                         overlap.date() + " (Turno " + assignment.getShiftId() + " vs Turno " + overlap.second().assignment().getShiftId() + ")");
              }
+             conflicts.add(conflict);
          }
          return conflicts;
      }
-     private boolean datesOverlap(LocalDate start1, LocalDate end1, LocalDate start2, LocalDate end2) {
-         return !start1.isAfter(end2) && !start2.isAfter(end1);
-     }
-     private boolean hasTimeOverlapOnDate(ScheduleAssignment assignment, EmployeeSchedule existing, LocalDate date) {
-         Shifts newShift = shiftsRepository.findById(assignment.getShiftId()).orElse(null);
-         Shifts existingShift = existing.getShift();
-
-         if (newShift == null || existingShift == null) {
-             return false;
-         }
-         if (Objects.equals(newShift.getId(), existingShift.getId())) {
-             return false;
-         }
-         int dayOfWeek = date.getDayOfWeek().getValue();
-         List<ShiftDetail> newDetails = getShiftDetailsForDay(newShift, dayOfWeek);
-         List<ShiftDetail> existingDetails = getShiftDetailsForDay(existingShift, dayOfWeek);
-         if (newDetails.isEmpty() || existingDetails.isEmpty()) {
-             return false;
-         }
-         boolean hasOverlap = false;
-         for (ShiftDetail newDetail : newDetails) {
-             for (ShiftDetail existingDetail : existingDetails) {
-                 if (timesActuallyOverlap(newDetail, existingDetail)) {
-                     hasOverlap = true;
-                     break;
-                 }
-             }
-             if (hasOverlap) break;
-         }
-
-         if (!hasOverlap) {
-         }
-
-         return hasOverlap;
-     }
-
-     private boolean timesActuallyOverlap(ShiftDetail detail1, ShiftDetail detail2) {
-         if (detail1.getStartTime() == null || detail1.getEndTime() == null ||
-                 detail2.getStartTime() == null || detail2.getEndTime() == null) {
-             return false;
-         }
-
-         try {
-             java.time.LocalTime start1 = java.time.LocalTime.parse(detail1.getStartTime());
-             java.time.LocalTime end1 = java.time.LocalTime.parse(detail1.getEndTime());
-             java.time.LocalTime start2 = java.time.LocalTime.parse(detail2.getStartTime());
-             java.time.LocalTime end2 = java.time.LocalTime.parse(detail2.getEndTime());
-
-             boolean noOverlap = end1.isBefore(start2) || end1.equals(start2) ||
-                     end2.isBefore(start1) || end2.equals(start1);
-
-             return !noOverlap;
-         } catch (java.time.format.DateTimeParseException e) {
-             System.err.println("Error parsing time: " + e.getMessage());
-             return false;
-         }
-     }
-
-
-
-
-
-
  }
\ No newline at end of file
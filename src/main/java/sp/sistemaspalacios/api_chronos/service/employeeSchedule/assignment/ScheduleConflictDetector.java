@@ -0,0 +1,174 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment;
+
+import org.springframework.stereotype.Service;
+import sp.sistemaspalacios.api_chronos.dto.schedule.ScheduleDto.ScheduleAssignment;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
+import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.EmployeeScheduleRepository;
+import sp.sistemaspalacios.api_chronos.service.shift.ShiftTemplate;
+import sp.sistemaspalacios.api_chronos.service.shift.ShiftTemplateCache;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Detección de solapamientos entre las asignaciones de una solicitud y los horarios existentes.
+ * - Una consulta por solicitud para los horarios de todos los empleados; los turnos salen ya
+ *   compilados de {@link ShiftTemplateCache}.
+ * - Los días de la semana en que dos turnos chocan se calculan una vez por par de turnos.
+ * - Por empleado, los rangos de fechas se recorren ordenados por inicio (barrido): solo se
+ *   comparan los rangos que siguen activos, y la primera fecha en conflicto sale de mirar a lo
+ *   sumo siete días desde el inicio del cruce.
+ * Los horarios sin fecha fin cuentan solo su fecha de inicio, como en la validación anterior.
+ */
+@Service
+public class ScheduleConflictDetector {
+
+    private final EmployeeScheduleRepository employeeScheduleRepository;
+    private final ShiftTemplateCache shiftTemplateCache;
+
+    public ScheduleConflictDetector(EmployeeScheduleRepository employeeScheduleRepository,
+                                    ShiftTemplateCache shiftTemplateCache) {
+        this.employeeScheduleRepository = employeeScheduleRepository;
+        this.shiftTemplateCache = shiftTemplateCache;
+    }
+
+    /**
+     * Solapamientos de las asignaciones contra los horarios existentes de cada empleado y entre
+     * ellas. Con {@code sameShiftConflicts} en false, dos rangos del mismo turno no se consideran
+     * conflicto. El orden es: por empleado, primero contra existentes y luego entre asignaciones.
+     */
+    public List<Overlap> detect(List<ScheduleAssignment> assignments, boolean sameShiftConflicts) {
+        if (assignments == null || assignments.isEmpty()) return Collections.emptyList();
+
+        Map<Long, List<Span>> spansByEmployee = new LinkedHashMap<>();
+        Set<Long> shiftIds = new HashSet<>();
+        for (int i = 0; i < assignments.size(); i++) {
+            ScheduleAssignment a = assignments.get(i);
+            if (a == null || a.getEmployeeId() == null || a.getStartDate() == null) continue;
+            LocalDate end = a.getEndDate() != null ? a.getEndDate() : a.getStartDate();
+            spansByEmployee.computeIfAbsent(a.getEmployeeId(), k -> new ArrayList<>())
+                    .add(new Span(i, a, null, a.getShiftId(), a.getStartDate(), end));
+            if (a.getShiftId() != null) shiftIds.add(a.getShiftId());
+        }
+        if (spansByEmployee.isEmpty()) return Collections.emptyList();
+
+        for (EmployeeSchedule existing : employeeScheduleRepository.findByEmployeeIdIn(new ArrayList<>(spansByEmployee.keySet()))) {
+            if (existing.getStartDate() == null) continue;
+            // El ID del proxy del turno no inicializa la entidad
+            Long shiftId = existing.getShift() != null ? existing.getShift().getId() : null;
+            if (shiftId != null) shiftIds.add(shiftId);
+            LocalDate end = existing.getEndDate() != null ? existing.getEndDate() : existing.getStartDate();
+            List<Span> spans = spansByEmployee.get(existing.getEmployeeId());
+            if (spans != null) spans.add(new Span(-1, null, existing, shiftId, existing.getStartDate(), end));
+        }
+
+        Index index = new Index(shiftTemplateCache.getAll(shiftIds));
+        List<Overlap> result = new ArrayList<>();
+        for (List<Span> spans : spansByEmployee.values()) {
+            result.addAll(sweep(spans, index, sameShiftConflicts));
+        }
+        return result;
+    }
+
+    /** Un lado del conflicto: una asignación nueva ({@code assignment}) o un horario existente. */
+    public record Span(int order, ScheduleAssignment assignment, EmployeeSchedule existing,
+                       Long shiftId, LocalDate startDate, LocalDate endDate) {
+        public boolean isNew() {
+            return assignment != null;
+        }
+    }
+
+    /**
+     * {@code first} es siempre una asignación nueva; {@code second} un horario existente o una
+     * asignación posterior. {@code verified} es false si alguno de los turnos no existe.
+     */
+    public record Overlap(Span first, Span second, LocalDate date, ShiftTemplate firstShift, ShiftTemplate secondShift,
+                          boolean verified) {
+        public boolean againstExisting() {
+            return !second.isNew();
+        }
+    }
+
+    // ===== INTERNOS =====
+
+    private List<Overlap> sweep(List<Span> spans, Index index, boolean sameShiftConflicts) {
+        spans.sort(Comparator.comparing(Span::startDate));
+        List<Overlap> againstExisting = new ArrayList<>();
+        List<Overlap> betweenNew = new ArrayList<>();
+        List<Span> active = new ArrayList<>();
+
+        for (Span current : spans) {
+            active.removeIf(s -> s.endDate().isBefore(current.startDate()));
+            for (Span other : active) {
+                if (!current.isNew() && !other.isNew()) continue;
+
+                Span first;
+                Span second;
+                if (current.isNew() && other.isNew()) {
+                    first = current.order() < other.order() ? current : other;
+                    second = first == current ? other : current;
+                } else {
+                    first = current.isNew() ? current : other;
+                    second = first == current ? other : current;
+                }
+
+                Overlap overlap = check(first, second, index, sameShiftConflicts);
+                if (overlap != null) {
+                    (second.isNew() ? betweenNew : againstExisting).add(overlap);
+                }
+            }
+            active.add(current);
+        }
+
+        againstExisting.sort(Comparator.comparingInt((Overlap o) -> o.first().order())
+                .thenComparing(o -> o.second().existing().getId(), Comparator.nullsLast(Comparator.naturalOrder())));
+        betweenNew.sort(Comparator.comparingInt((Overlap o) -> o.first().order())
+                .thenComparingInt(o -> o.second().order()));
+
+        List<Overlap> result = new ArrayList<>(againstExisting.size() + betweenNew.size());
+        result.addAll(againstExisting);
+        result.addAll(betweenNew);
+        return result;
+    }
+
+    private Overlap check(Span first, Span second, Index index, boolean sameShiftConflicts) {
+        ShiftTemplate firstShift = first.shiftId() != null ? index.templates.get(first.shiftId()) : null;
+        ShiftTemplate secondShift = second.shiftId() != null ? index.templates.get(second.shiftId()) : null;
+        if (firstShift == null || secondShift == null) {
+            // Entre asignaciones nuevas un turno inexistente no es conflicto
+            return second.isNew() ? null
+                    : new Overlap(first, second, first.startDate(), firstShift, secondShift, false);
+        }
+        if (!sameShiftConflicts && Objects.equals(firstShift.shiftId(), secondShift.shiftId())) return null;
+
+        int mask = index.conflictDays(firstShift, secondShift);
+        if (mask == 0) return null;
+
+        LocalDate from = first.startDate().isAfter(second.startDate()) ? first.startDate() : second.startDate();
+        LocalDate to = first.endDate().isBefore(second.endDate()) ? first.endDate() : second.endDate();
+        // El patrón es semanal: si no choca en los primeros 7 días del cruce, no choca nunca
+        for (int i = 0; i < 7; i++) {
+            LocalDate date = from.plusDays(i);
+            if (date.isAfter(to)) break;
+            if ((mask & (1 << date.getDayOfWeek().getValue())) != 0) {
+                return new Overlap(first, second, date, firstShift, secondShift, true);
+            }
+        }
+        return null;
+    }
+
+    /** Turnos de la solicitud y días de conflicto por par de turnos, calculados a demanda. */
+    private static final class Index {
+        private final Map<Long, ShiftTemplate> templates;
+        private final Map<List<Long>, Integer> conflictDaysByPair = new HashMap<>();
+
+        Index(Map<Long, ShiftTemplate> templates) {
+            this.templates = templates;
+        }
+
+        int conflictDays(ShiftTemplate a, ShiftTemplate b) {
+            List<Long> key = a.shiftId() <= b.shiftId() ? List.of(a.shiftId(), b.shiftId()) : List.of(b.shiftId(), a.shiftId());
+            return conflictDaysByPair.computeIfAbsent(key, k -> a.conflictDays(b));
+        }
+    }
+}
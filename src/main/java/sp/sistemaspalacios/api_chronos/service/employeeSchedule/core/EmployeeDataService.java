@@ -1,55 +1,30 @@
 package sp.sistemaspalacios.api_chronos.service.employeeSchedule.core;
 
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import sp.sistemaspalacios.api_chronos.dto.employee.EmployeeResponse;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class EmployeeDataService {
 
-    private final RestTemplate restTemplate;
-    private final Map<Long, EmployeeResponse> employeeCache = new ConcurrentHashMap<>();
-    private final Map<Long, Long> cacheTimestamps = new ConcurrentHashMap<>();
-    private static final long CACHE_DURATION = 30 * 60 * 1000; // 30 minutos
+    private final EmployeeDirectoryClient employeeDirectoryClient;
 
-    public EmployeeDataService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    public EmployeeDataService(EmployeeDirectoryClient employeeDirectoryClient) {
+        this.employeeDirectoryClient = employeeDirectoryClient;
     }
 
     public EmployeeResponse getEmployeeData(Long employeeId) {
         if (employeeId == null) return null;
+        return employeeDirectoryClient.getEmployee(employeeId);
+    }
 
-        // Verificar cache
-        Long timestamp = cacheTimestamps.get(employeeId);
-        if (timestamp != null && (System.currentTimeMillis() - timestamp) < CACHE_DURATION) {
-            return employeeCache.get(employeeId);
-        }
-
-        // Llamada HTTP solo si no está en cache o expiró
-        try {
-            String url = "http://192.168.23.3:40020/api/employees/bynumberid/" + employeeId;
-            ResponseEntity<EmployeeResponse> response = restTemplate.exchange(
-                    url, HttpMethod.GET, new HttpEntity<>(null), EmployeeResponse.class
-            );
-            if (response.getStatusCode().is2xxSuccessful()) {
-                EmployeeResponse result = response.getBody();
-                // Guardar en cache
-                employeeCache.put(employeeId, result);
-                cacheTimestamps.put(employeeId, System.currentTimeMillis());
-                return result;
-            }
-        } catch (Exception e) {
-            System.err.println("Error obteniendo datos empleado " + employeeId + ": " + e.getMessage());
-        }
-        return null;
+    // Varios empleados en una sola pasada (cache + faltantes en paralelo)
+    public Map<Long, EmployeeResponse> getEmployeesData(Collection<Long> employeeIds) {
+        return employeeDirectoryClient.getEmployees(employeeIds);
     }
 
     public String getEmployeeName(Long employeeId) {
@@ -70,4 +45,4 @@ public class EmployeeDataService {
         }
         return "Empleado " + employeeId;
     }
-}
\ No newline at end of file
+}
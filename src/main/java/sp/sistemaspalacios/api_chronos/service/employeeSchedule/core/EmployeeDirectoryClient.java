@@ -0,0 +1,317 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.core;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import sp.sistemaspalacios.api_chronos.dto.employee.EmployeeResponse;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cliente del directorio de empleados (api de empleados).
+ * - Cache acotado por tamaño (LRU) y por TTL, con refresco anticipado (refresh-ahead).
+ * - Las consultas concurrentes del mismo ID se unen en una sola llamada HTTP.
+ * - {@link #getEmployees(Collection)} resuelve todos los faltantes de un lote en paralelo (concurrencia acotada).
+ * - Expone contadores de aciertos, fallos y latencia de las llamadas remotas, también en
+ *   Micrometer ({@code employee.directory.*}).
+ */
+@Slf4j
+@Service
+public class EmployeeDirectoryClient implements MeterBinder {
+
+    private final RestTemplate restTemplate;
+    private final String baseUrl;
+    private final String byNumberIdPath;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final long refreshAheadMillis;
+    private final long fetchTimeoutMillis;
+    private final ExecutorService fetchExecutor;
+
+    // LRU: orden de acceso, el más antiguo se expulsa al superar maxSize
+    private final Map<Long, CacheEntry> cache;
+    private final ConcurrentHashMap<Long, CompletableFuture<EmployeeResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder remoteCalls = new LongAdder();
+    private final LongAdder remoteFailures = new LongAdder();
+    private final LongAdder remoteNanos = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile Timer remoteTimer;
+
+    public EmployeeDirectoryClient(RestTemplate restTemplate,
+                                   @Value("${employees.service.url:http://192.168.23.3:40020}") String baseUrl,
+                                   @Value("${employees.service.by-number-id-path:/api/employees/bynumberid/}") String byNumberIdPath,
+                                   @Value("${employees.cache.max-size:5000}") int maxSize,
+                                   @Value("${employees.cache.ttl-minutes:30}") long ttlMinutes,
+                                   @Value("${employees.cache.refresh-ahead-minutes:25}") long refreshAheadMinutes,
+                                   @Value("${employees.fetch.parallelism:8}") int parallelism,
+                                   @Value("${employees.fetch.timeout-seconds:30}") long fetchTimeoutSeconds) {
+        this.restTemplate = restTemplate;
+        this.baseUrl = baseUrl;
+        this.byNumberIdPath = byNumberIdPath;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(ttlMinutes);
+        this.refreshAheadMillis = Math.min(TimeUnit.MINUTES.toMillis(refreshAheadMinutes), this.ttlMillis);
+        this.fetchTimeoutMillis = TimeUnit.SECONDS.toMillis(fetchTimeoutSeconds);
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CacheEntry> eldest) {
+                boolean evict = size() > EmployeeDirectoryClient.this.maxSize;
+                if (evict) evictions.increment();
+                return evict;
+            }
+        };
+        this.fetchExecutor = Executors.newFixedThreadPool(Math.max(1, parallelism), new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "employee-directory-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    // ===== CONSULTA INDIVIDUAL =====
+
+    public EmployeeResponse getEmployee(Long employeeId) {
+        if (employeeId == null) return null;
+
+        CacheEntry entry = readCache(employeeId);
+        if (entry != null) {
+            return entry.value;
+        }
+
+        misses.increment();
+        return await(load(employeeId), employeeId);
+    }
+
+    // ===== CONSULTA POR LOTES =====
+
+    /**
+     * Resuelve varios empleados: primero del cache y todos los faltantes de una vez, en
+     * paralelo con el pool acotado. Los IDs sin respuesta no aparecen en el mapa.
+     */
+    public Map<Long, EmployeeResponse> getEmployees(Collection<Long> employeeIds) {
+        Map<Long, EmployeeResponse> result = new HashMap<>();
+        if (employeeIds == null || employeeIds.isEmpty()) return result;
+
+        Map<Long, CompletableFuture<EmployeeResponse>> pending = new LinkedHashMap<>();
+        for (Long id : new LinkedHashSet<>(employeeIds)) {
+            if (id == null) continue;
+            CacheEntry entry = readCache(id);
+            if (entry != null) {
+                if (entry.value != null) result.put(id, entry.value);
+            } else {
+                misses.increment();
+                pending.put(id, null);
+            }
+        }
+
+        // Lanzar todos los faltantes; cada ID se une a una carga en curso si ya existe
+        for (Long id : new ArrayList<>(pending.keySet())) {
+            pending.put(id, load(id));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fetchTimeoutMillis);
+        for (Map.Entry<Long, CompletableFuture<EmployeeResponse>> e : pending.entrySet()) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                EmployeeResponse value = e.getValue().get(remaining, TimeUnit.NANOSECONDS);
+                if (value != null) result.put(e.getKey(), value);
+            } catch (TimeoutException ex) {
+                log.warn("Tiempo agotado obteniendo empleado {}", e.getKey());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException ex) {
+                log.warn("Error obteniendo empleado {}: {}", e.getKey(), ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage());
+            }
+        }
+        return result;
+    }
+
+    public void invalidate(Long employeeId) {
+        synchronized (cache) {
+            cache.remove(employeeId);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    // ===== MÉTRICAS =====
+
+    public Stats getStats() {
+        int size;
+        synchronized (cache) {
+            size = cache.size();
+        }
+        return new Stats(hits.sum(), misses.sum(), remoteCalls.sum(), remoteFailures.sum(),
+                remoteNanos.sum(), refreshes.sum(), evictions.sum(), size, inFlight.size());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("employee.directory.cache.hits", hits, LongAdder::sum)
+                .description("Consultas resueltas desde el cache")
+                .register(registry);
+        FunctionCounter.builder("employee.directory.cache.misses", misses, LongAdder::sum)
+                .description("Consultas que fueron al api de empleados")
+                .register(registry);
+        FunctionCounter.builder("employee.directory.remote.failures", remoteFailures, LongAdder::sum)
+                .register(registry);
+        FunctionCounter.builder("employee.directory.cache.evictions", evictions, LongAdder::sum)
+                .register(registry);
+        Gauge.builder("employee.directory.cache.hit.ratio", this, c -> c.getStats().hitRatio())
+                .description("Aciertos / (aciertos + fallos) desde el arranque")
+                .register(registry);
+        Gauge.builder("employee.directory.cache.size", cache, c -> {
+                    synchronized (c) {
+                        return c.size();
+                    }
+                })
+                .register(registry);
+        this.remoteTimer = Timer.builder("employee.directory.remote")
+                .description("Latencia de las llamadas al api de empleados")
+                .register(registry);
+    }
+
+    public record Stats(long hits, long misses, long remoteCalls, long remoteFailures,
+                        long remoteNanos, long refreshes, long evictions, int size, int inFlight) {
+
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+
+        public double averageRemoteMillis() {
+            return remoteCalls == 0 ? 0.0 : remoteNanos / 1_000_000.0 / remoteCalls;
+        }
+    }
+
+    // ===== INTERNOS =====
+
+    /**
+     * Devuelve la entrada vigente (contando el acierto) o null si no está o expiró.
+     * Si la entrada está por vencer, dispara un refresco en segundo plano.
+     */
+    private CacheEntry readCache(Long employeeId) {
+        CacheEntry entry;
+        synchronized (cache) {
+            entry = cache.get(employeeId);
+        }
+        if (entry == null) return null;
+
+        long age = System.currentTimeMillis() - entry.loadedAt;
+        if (age >= ttlMillis) return null;
+
+        hits.increment();
+        if (age >= refreshAheadMillis && !inFlight.containsKey(employeeId)) {
+            refreshes.increment();
+            load(employeeId);
+        }
+        return entry;
+    }
+
+    /** Carga unificada: si ya hay una llamada en curso para el ID, se reutiliza. */
+    private CompletableFuture<EmployeeResponse> load(Long employeeId) {
+        CompletableFuture<EmployeeResponse> created = new CompletableFuture<>();
+        CompletableFuture<EmployeeResponse> existing = inFlight.putIfAbsent(employeeId, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            fetchExecutor.execute(() -> {
+                try {
+                    created.complete(fetchRemote(employeeId));
+                } catch (Throwable t) {
+                    created.completeExceptionally(t);
+                } finally {
+                    inFlight.remove(employeeId, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(employeeId, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private EmployeeResponse fetchRemote(Long employeeId) {
+        long start = System.nanoTime();
+        remoteCalls.increment();
+        try {
+            String url = baseUrl + byNumberIdPath + employeeId;
+            ResponseEntity<EmployeeResponse> response = restTemplate.exchange(
+                    url, HttpMethod.GET, new HttpEntity<>(null), EmployeeResponse.class
+            );
+            if (response.getStatusCode().is2xxSuccessful()) {
+                EmployeeResponse result = response.getBody();
+                synchronized (cache) {
+                    cache.put(employeeId, new CacheEntry(result, System.currentTimeMillis()));
+                }
+                return result;
+            }
+            remoteFailures.increment();
+            return null;
+        } catch (Exception e) {
+            remoteFailures.increment();
+            log.warn("Error obteniendo datos empleado {}", employeeId, e);
+            return null;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            remoteNanos.add(elapsed);
+            Timer timer = remoteTimer;
+            if (timer != null) timer.record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private EmployeeResponse await(CompletableFuture<EmployeeResponse> future, Long employeeId) {
+        try {
+            return future.get(fetchTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.warn("Error obteniendo datos empleado {}", employeeId, e);
+            return null;
+        }
+    }
+
+    private static final class CacheEntry {
+        final EmployeeResponse value;
+        final long loadedAt;
+
+        CacheEntry(EmployeeResponse value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -20,11 +20,14 @@ import sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment.Sched
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment.ScheduleAssignmentService;
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.holiday.HolidayExemptionService;
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.overtime.HourClassificationService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.overtime.HourClassificationService.BlockHours;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.overtime.HourClassificationService.DayBreakdown;
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.query.ScheduleMappingService;
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.query.ScheduleQueryService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.time.ScheduleBulkDeleter;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.time.ScheduleBulkDeleter.DeleteResult;
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.time.TimeBlockService;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.TextStyle;
 import java.util.*;
@@ -48,6 +51,7 @@ public class EmployeeScheduleService {
     private final HourClassificationService hourClassificationService;
 
     private final ScheduleAssignmentGroupService groupService;
+    private final ScheduleBulkDeleter scheduleBulkDeleter;
 
     public EmployeeScheduleService(
             EmployeeScheduleRepository employeeScheduleRepository,
@@ -60,7 +64,8 @@ public class EmployeeScheduleService {
             TimeBlockService timeBlockService, HolidayService holidayService,
             HolidayExemptionService holidayExemptionService,
             HourClassificationService hourClassificationService,
-            ScheduleAssignmentGroupService groupService
+            ScheduleAssignmentGroupService groupService,
+            ScheduleBulkDeleter scheduleBulkDeleter
     ) {
         this.employeeScheduleRepository = employeeScheduleRepository;
         this.shiftsRepository = shiftsRepository;
@@ -74,6 +79,7 @@ public class EmployeeScheduleService {
         this.holidayExemptionService = holidayExemptionService;
         this.hourClassificationService = hourClassificationService;
         this.groupService = groupService;
+        this.scheduleBulkDeleter = scheduleBulkDeleter;
     }
 
     public AssignmentResult processMultipleAssignments(AssignmentRequest request) {
@@ -163,7 +169,31 @@ public class EmployeeScheduleService {
         if (!employeeScheduleRepository.existsById(id)) {
             throw new ResourceNotFoundException("EmployeeSchedule not found with id: " + id);
         }
-        employeeScheduleRepository.deleteById(id);
+        DeleteResult result = scheduleBulkDeleter.deleteSchedules(List.of(id));
+        groupService.recalculateGroups(result.affectedGroupIds());
+    }
+
+    /** Elimina todos los horarios del empleado (días, bloques y vínculos con grupos) por conjunto. */
+    @Transactional
+    public DeleteResult deleteSchedulesByEmployee(Long employeeId) {
+        DeleteResult result = scheduleBulkDeleter.deleteByEmployee(employeeId);
+        groupService.recalculateGroups(result.affectedGroupIds());
+        return result;
+    }
+
+    /**
+     * Elimina los días de {@code [from, to]} de los horarios indicados o, sin IDs, de todos los
+     * del empleado. El recálculo de grupos queda a cargo del llamador.
+     */
+    @Transactional
+    public DeleteResult deleteScheduleDays(List<Long> scheduleIds, Long employeeId, LocalDate from, LocalDate to) {
+        if (scheduleIds != null && !scheduleIds.isEmpty()) {
+            return scheduleBulkDeleter.deleteDays(scheduleIds, from, to);
+        }
+        if (employeeId == null) {
+            throw new IllegalArgumentException("Se requiere scheduleIds o employeeId");
+        }
+        return scheduleBulkDeleter.deleteDaysByEmployee(employeeId, from, to);
     }
 
     @Transactional
@@ -209,164 +239,21 @@ public class EmployeeScheduleService {
                 (!type.startsWith("REGULAR_") && !type.equals("REGULAR"));
     }
 
-    // Métodos helper en el servicio
-    private double calculateHours(String startTime, String endTime) {
-        try {
-            String[] start = startTime.split(":");
-            String[] end = endTime.split(":");
-
-            double startHours = Integer.parseInt(start[0]) + Integer.parseInt(start[1]) / 60.0;
-            double endHours = Integer.parseInt(end[0]) + Integer.parseInt(end[1]) / 60.0;
-
-            return Math.max(0, endHours - startHours);
-        } catch (Exception e) {
-            return 0.0;
-        }
-    }
-
-    public void testDiagnostic(Long employeeId) {
-        List<EmployeeScheduleDTO> schedules = getCompleteSchedulesByEmployeeId(employeeId);
 
-        for (EmployeeScheduleDTO schedule : schedules) {
-            EmployeeSchedule scheduleEntity = employeeScheduleRepository.findById(schedule.getId()).orElse(null);
-            if (scheduleEntity == null) {
-                continue;
-            }
-            Map<String, BigDecimal> fullClassification = hourClassificationService.classifyScheduleHours(Arrays.asList(scheduleEntity));
-            if (fullClassification.isEmpty()) {
-            } else {
-                fullClassification.forEach((type, hours) -> {
-                    if (hours.compareTo(BigDecimal.ZERO) > 0) {
-                    }
-                });
-            }
-            LocalDate testDate = LocalDate.of(2025, 9, 7); // Domingo
-            Map<String, BigDecimal> dayClassification = hourClassificationService.classifyDayHours(scheduleEntity, testDate);
-            if (dayClassification.isEmpty()) {
-
-            } else {
-                dayClassification.forEach((type, hours) ->
-                        System.out.println("  " + type + ": " + hours + "h"));
-            }
-            boolean hasSpecial = hourClassificationService.hasSpecialHours(dayClassification);
-        }
-
-    }
     public Map<String, Object> getDailyBreakdown(Long employeeId) {
         try {
-            // 1. Obtener resumen consolidado
             EmployeeHoursSummaryDTO summary = calculateEmployeeHoursSummary(employeeId);
 
-            // 2. Obtener schedules
-            List<EmployeeScheduleDTO> schedules = getCompleteSchedulesByEmployeeId(employeeId);
-
-            // 3. NUEVA ESTRATEGIA: Clasificar todos los schedules juntos
-            List<EmployeeSchedule> allScheduleEntities = schedules.stream()
-                    .map(dto -> employeeScheduleRepository.findById(dto.getId()).orElse(null))
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-
-            // Obtener clasificación completa de TODOS los schedules juntos
-            Map<String, BigDecimal> completeClassification = hourClassificationService.classifyScheduleHours(allScheduleEntities);
-
-            completeClassification.forEach((type, hours) -> {
-                if (hours.compareTo(BigDecimal.ZERO) > 0) {
-                    System.out.println("  " + type + ": " + hours + "h");
-                }
-            });
-
-            // 4. Identificar días que contribuyen a las horas especiales
+            // Solo los días con horas especiales (o con excepción), según la clasificación por bloque
             List<Map<String, Object>> dailyDetails = new ArrayList<>();
-
-            // Solo buscar tipos especiales del resultado completo
-            Map<String, BigDecimal> specialHours = completeClassification.entrySet().stream()
-                    .filter(entry -> isSpecialHourType(entry.getKey()) && entry.getValue().compareTo(BigDecimal.ZERO) > 0)
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-
-            if (!specialHours.isEmpty()) {
-                // LÓGICA CORREGIDA: Encontrar días que tienen horas especiales REALES
-                for (EmployeeScheduleDTO schedule : schedules) {
-                    Map<String, Object> days = (Map<String, Object>) schedule.getDays();
-                    List<Map<String, Object>> dayItems = (List<Map<String, Object>>) days.get("items");
-
-                    for (Map<String, Object> day : dayItems) {
-                        String dateStr = (String) day.get("date");
-                        LocalDate date = LocalDate.parse(dateStr);
-
-                        // Verificar si este día tiene bloques de tiempo
-                        List<Map<String, Object>> timeBlocks = (List<Map<String, Object>>) day.get("timeBlocks");
-                        if (timeBlocks != null && !timeBlocks.isEmpty()) {
-
-                            // Calcular horas del día y verificar si hay horas especiales REALES
-                            double totalDayHours = 0.0;
-                            List<Map<String, Object>> blockDetails = new ArrayList<>();
-                            boolean hasDaySpecialHours = false;  // Flag para horas especiales reales
-                            String dayType = "REGULAR";
-
-                            for (Map<String, Object> block : timeBlocks) {
-                                String startTime = (String) block.get("startTime");
-                                String endTime = (String) block.get("endTime");
-                                double blockHours = calculateHours(startTime, endTime);
-                                totalDayHours += blockHours;
-
-                                // VERIFICAR si este bloque específico tiene horas especiales
-                                boolean isBlockSpecial = isTimeBlockSpecial(startTime, endTime, date, employeeId);
-
-                                if (isBlockSpecial) {
-                                    hasDaySpecialHours = true;
-                                    // Determinar el tipo específico del bloque especial
-                                    dayType = determineBlockType(startTime, endTime, date, employeeId);
-                                }
-
-                                Map<String, Object> blockDetail = new HashMap<>();
-                                blockDetail.put("startTime", startTime.substring(0, 5));
-                                blockDetail.put("endTime", endTime.substring(0, 5));
-                                blockDetail.put("hours", blockHours);
-                                blockDetails.add(blockDetail);
-                            }
-
-                            // FILTRO CRÍTICO: Solo agregar si el día REALMENTE tiene horas especiales
-                            if (hasDaySpecialHours && totalDayHours > 0) {
-                                Map<String, Object> dayDetail = new HashMap<>();
-                                dayDetail.put("date", dateStr);
-                                dayDetail.put("dayOfWeek", date.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.forLanguageTag("es")));
-                                dayDetail.put("shiftName", schedule.getShiftName());
-                                dayDetail.put("hourType", dayType);
-                                dayDetail.put("totalHours", totalDayHours);
-                                dayDetail.put("timeBlocks", blockDetails);
-
-                                // Información adicional
-                                if (holidayService.isHoliday(date)) {
-                                    dayDetail.put("isHoliday", true);
-                                    dayDetail.put("holidayName", holidayService.getHolidayName(date));
-                                }
-
-                                if (holidayExemptionService.hasExemption(employeeId, date)) {
-                                    dayDetail.put("hasExemption", true);
-                                    dayDetail.put("exemptionReason", holidayExemptionService.getExemptionReason(employeeId, date));
-                                }
-
-                                dailyDetails.add(dayDetail);
-                            } else {
-                            }
-                        }
-                    }
+            for (DayBreakdown day : classifyEmployeeDays(employeeId)) {
+                boolean special = day.exempt() || day.hours().entrySet().stream()
+                        .anyMatch(e -> isSpecialHourType(e.getKey()) && e.getValue().signum() > 0);
+                if (special && day.totalHours().signum() > 0) {
+                    dailyDetails.add(toDayDetail(day));
                 }
             }
-
-            // Respuesta completa
-            Map<String, Object> response = new HashMap<>();
-            response.put("employeeId", employeeId);
-            response.put("employeeName", employeeDataService.getEmployeeName(employeeId));
-            response.put("totalHours", summary.getTotalHours());
-            response.put("regularHours", summary.getRegularHours());
-            response.put("overtimeHours", summary.getOvertimeHours());
-            response.put("festivoHours", summary.getFestivoHours());
-            response.put("overtimeType", summary.getOvertimeType());
-            response.put("festivoType", summary.getFestivoType());
-            response.put("dailyDetails", dailyDetails);
-
-            return response;
+            return breakdownResponse(employeeId, summary, dailyDetails);
 
         } catch (Exception e) {
             throw new RuntimeException("Error obteniendo breakdown diario", e);
@@ -393,6 +280,19 @@ public class EmployeeScheduleService {
             breakdown.put("totalHours", group.getTotalHours());
             breakdown.put("overtimeBreakdown", group.getOvertimeBreakdown());
 
+            // Días del período del grupo, de la misma clasificación por bloque
+            List<Map<String, Object>> dailyDetails = new ArrayList<>();
+            List<Long> scheduleIds = group.getEmployeeScheduleIds();
+            if (scheduleIds != null && !scheduleIds.isEmpty()) {
+                LocalDate from = group.getPeriodStart() != null ? LocalDate.parse(group.getPeriodStart()) : null;
+                LocalDate to = group.getPeriodEnd() != null ? LocalDate.parse(group.getPeriodEnd()) : null;
+                List<EmployeeSchedule> schedules = employeeScheduleRepository.findAllByIdWithShift(scheduleIds);
+                for (DayBreakdown day : hourClassificationService.classifyBreakdown(schedules, from, to)) {
+                    if (day.totalHours().signum() > 0) dailyDetails.add(toDayDetail(day));
+                }
+            }
+            breakdown.put("dailyDetails", dailyDetails);
+
             return breakdown;
 
         } catch (Exception e) {
@@ -405,178 +305,77 @@ public class EmployeeScheduleService {
 
     public Map<String, Object> getDailyBreakdownFiltered(Long employeeId) {
         try {
-            // Obtener resumen consolidado
             EmployeeHoursSummaryDTO summary = calculateEmployeeHoursSummary(employeeId);
 
-            // Obtener schedules
-            List<EmployeeScheduleDTO> schedules = getCompleteSchedulesByEmployeeId(employeeId);
-
-            // Clasificar todos los schedules juntos
-            List<EmployeeSchedule> allScheduleEntities = schedules.stream()
-                    .map(dto -> employeeScheduleRepository.findById(dto.getId()).orElse(null))
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-
-            Map<String, BigDecimal> completeClassification = hourClassificationService.classifyScheduleHours(allScheduleEntities);
-
+            // Todos los días con horas > 0
             List<Map<String, Object>> dailyDetails = new ArrayList<>();
-
-            // NUEVO: Solo procesar días que REALMENTE tienen timeBlocks válidos
-            for (EmployeeScheduleDTO schedule : schedules) {
-                Map<String, Object> days = (Map<String, Object>) schedule.getDays();
-                List<Map<String, Object>> dayItems = (List<Map<String, Object>>) days.get("items");
-
-                for (Map<String, Object> day : dayItems) {
-                    String dateStr = (String) day.get("date");
-                    LocalDate date = LocalDate.parse(dateStr);
-
-                    // FILTRO 1: Solo días con timeBlocks válidos
-                    List<Map<String, Object>> timeBlocks = (List<Map<String, Object>>) day.get("timeBlocks");
-                    if (timeBlocks == null || timeBlocks.isEmpty()) {
-                        continue; // Saltar días sin horarios
-                    }
-
-                    // FILTRO 2: Calcular horas reales del día
-                    double totalDayHours = 0.0;
-                    List<Map<String, Object>> blockDetails = new ArrayList<>();
-
-                    for (Map<String, Object> block : timeBlocks) {
-                        String startTime = (String) block.get("startTime");
-                        String endTime = (String) block.get("endTime");
-                        double blockHours = calculateHours(startTime, endTime);
-                        totalDayHours += blockHours;
-
-                        Map<String, Object> blockDetail = new HashMap<>();
-                        blockDetail.put("startTime", startTime.substring(0, 5));
-                        blockDetail.put("endTime", endTime.substring(0, 5));
-                        blockDetail.put("hours", blockHours);
-                        blockDetails.add(blockDetail);
-                    }
-
-                    // FILTRO 3: Solo incluir si tiene horas > 0
-                    if (totalDayHours > 0) {
-                        // Determinar tipo de día
-                        String dayType = determineBlockType(
-                                timeBlocks.get(0).get("startTime").toString(),
-                                timeBlocks.get(0).get("endTime").toString(),
-                                date,
-                                employeeId
-                        );
-
-                        Map<String, Object> dayDetail = new HashMap<>();
-                        dayDetail.put("date", dateStr);
-                        dayDetail.put("dayOfWeek", date.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.forLanguageTag("es")));
-                        dayDetail.put("shiftName", schedule.getShiftName());
-                        dayDetail.put("hourType", dayType);
-                        dayDetail.put("totalHours", totalDayHours);
-                        dayDetail.put("timeBlocks", blockDetails);
-
-                        // Información adicional
-                        if (holidayService.isHoliday(date)) {
-                            dayDetail.put("isHoliday", true);
-                            dayDetail.put("holidayName", holidayService.getHolidayName(date));
-                        }
-
-                        dailyDetails.add(dayDetail);
-                    }
+            for (DayBreakdown day : classifyEmployeeDays(employeeId)) {
+                if (day.totalHours().signum() > 0) {
+                    dailyDetails.add(toDayDetail(day));
                 }
             }
-
-            // Respuesta completa
-            Map<String, Object> response = new HashMap<>();
-            response.put("employeeId", employeeId);
-            response.put("employeeName", employeeDataService.getEmployeeName(employeeId));
-            response.put("totalHours", summary.getTotalHours());
-            response.put("regularHours", summary.getRegularHours());
-            response.put("overtimeHours", summary.getOvertimeHours());
-            response.put("festivoHours", summary.getFestivoHours());
-            response.put("overtimeType", summary.getOvertimeType());
-            response.put("festivoType", summary.getFestivoType());
-            response.put("dailyDetails", dailyDetails);
-
-            return response;
+            return breakdownResponse(employeeId, summary, dailyDetails);
 
         } catch (Exception e) {
             throw new RuntimeException("Error obteniendo breakdown diario filtrado", e);
         }
     }
 
-        private boolean isTimeBlockSpecial(String startTime, String endTime, LocalDate date, Long employeeId) {
-
-        // 1. Verificar si es festivo
-        if (holidayService.isHoliday(date)) {
-            return true;
-        }
-
-        // 2. Verificar si tiene exención
-        if (holidayExemptionService.hasExemption(employeeId, date)) {
-            return true;
-        }
-
-        // 3. Verificar si es horario nocturno (19:00 o posterior)
-        try {
-            int startHour = Integer.parseInt(startTime.split(":")[0]);
-            if (startHour >= 19) {
-                return true; // Horario nocturno = especial (segundo turno)
-            }
-        } catch (Exception e) {
-            // Si hay error parsing, asumir que no es especial
-        }
+    // ===== DESGLOSE DIARIO =====
 
-        // 4. Verificar si es domingo
-        if (date.getDayOfWeek().getValue() == 7) {
-            return true;
-        }
-
-        // 5. Horarios diurnos regulares (06:00-18:59) NO son especiales
-        return false;
+    // Los horarios del empleado clasificados por fecha y bloque en una sola pasada
+    private List<DayBreakdown> classifyEmployeeDays(Long employeeId) {
+        List<EmployeeSchedule> schedules = employeeScheduleRepository.findByEmployeeId(employeeId);
+        return hourClassificationService.classifyBreakdown(schedules, null, null);
     }
 
-    /**
-     * Determina el tipo específico del bloque especial
-     */
-    private String determineBlockType(String startTime, String endTime, LocalDate date, Long employeeId) {
-
-        // Verificar exenciones primero
-        if (holidayExemptionService.hasExemption(employeeId, date)) {
-            return "EXEMPT";
+    private Map<String, Object> toDayDetail(DayBreakdown day) {
+        List<Map<String, Object>> blockDetails = new ArrayList<>();
+        for (BlockHours block : day.blocks()) {
+            Map<String, Object> blockDetail = new HashMap<>();
+            blockDetail.put("startTime", formatMinutes(block.startMinutes()));
+            blockDetail.put("endTime", formatMinutes(block.endMinutes()));
+            blockDetail.put("hours", block.totalHours().doubleValue());
+            blockDetail.put("hourTypes", block.hours());
+            blockDetails.add(blockDetail);
         }
 
-        // Verificar si es festivo
-        if (holidayService.isHoliday(date)) {
-            // También verificar si el festivo es en horario nocturno
-            try {
-                int startHour = Integer.parseInt(startTime.split(":")[0]);
-                int endHour = Integer.parseInt(endTime.split(":")[0]);
-
-                // Si empieza a las 19:00 o después, O termina a las 19:00 o después
-                if (startHour >= 19 || endHour >= 19) {
-                    return "FESTIVO_NOCTURNA";
-                }
-            } catch (Exception e) {
-                // Error parsing, asumir diurno
-            }
-            return "FESTIVO_DIURNA";
+        Map<String, Object> dayDetail = new HashMap<>();
+        dayDetail.put("date", day.date().toString());
+        dayDetail.put("dayOfWeek", day.date().getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.forLanguageTag("es")));
+        dayDetail.put("shiftName", day.shiftName());
+        dayDetail.put("hourType", day.exempt() ? "EXEMPT" : day.mainType());
+        dayDetail.put("totalHours", day.totalHours().doubleValue());
+        dayDetail.put("hours", day.hours());
+        dayDetail.put("timeBlocks", blockDetails);
+
+        if (day.holiday()) {
+            dayDetail.put("isHoliday", true);
+            dayDetail.put("holidayName", day.holidayName());
         }
-
-        // Verificar si es horario nocturno (19:00 a 23:59)
-        try {
-            int startHour = Integer.parseInt(startTime.split(":")[0]);
-            int endHour = Integer.parseInt(endTime.split(":")[0]);
-
-            // Si empieza a las 19:00 o después, O termina a las 19:00 o después
-            if (startHour >= 19 || endHour >= 19) {
-                return "EXTRA_NOCTURNA";
-            }
-        } catch (Exception e) {
-            // Error parsing
+        if (day.exempt()) {
+            dayDetail.put("hasExemption", true);
+            dayDetail.put("exemptionReason", day.exemptionReason());
         }
+        return dayDetail;
+    }
 
-        // Verificar si es domingo (para horarios diurnos en domingo)
-        if (date.getDayOfWeek().getValue() == 7) {
-            return "DOMINICAL_DIURNA";
-        }
+    private Map<String, Object> breakdownResponse(Long employeeId, EmployeeHoursSummaryDTO summary,
+                                                  List<Map<String, Object>> dailyDetails) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("employeeId", employeeId);
+        response.put("employeeName", employeeDataService.getEmployeeName(employeeId));
+        response.put("totalHours", summary.getTotalHours());
+        response.put("regularHours", summary.getRegularHours());
+        response.put("overtimeHours", summary.getOvertimeHours());
+        response.put("festivoHours", summary.getFestivoHours());
+        response.put("overtimeType", summary.getOvertimeType());
+        response.put("festivoType", summary.getFestivoType());
+        response.put("dailyDetails", dailyDetails);
+        return response;
+    }
 
-        return "REGULAR_DIURNA"; // Por defecto
+    private static String formatMinutes(int minutes) {
+        return String.format("%02d:%02d", minutes / 60, minutes % 60);
     }
-}
\ No newline at end of file
+}
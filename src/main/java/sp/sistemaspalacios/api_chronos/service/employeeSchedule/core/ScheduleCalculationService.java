@@ -3,10 +3,11 @@ package sp.sistemaspalacios.api_chronos.service.employeeSchedule.core;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import sp.sistemaspalacios.api_chronos.dto.employee.EmployeeHoursSummaryDTO; // Usar tu DTO existente
 import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
 import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.EmployeeScheduleRepository;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.time.ScheduleBulkDeleter;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.time.ScheduleExpansionService;
 
 import java.util.Date;
 import java.util.HashMap;
@@ -19,6 +20,8 @@ public class ScheduleCalculationService {
 
     private final EmployeeScheduleRepository employeeScheduleRepository;
     private final EmployeeDataService employeeDataService;
+    private final ScheduleExpansionService scheduleExpansionService;
+    private final ScheduleBulkDeleter scheduleBulkDeleter;
 
     public EmployeeHoursSummaryDTO calculateEmployeeHoursSummary(Long employeeId) {
         if (employeeId == null) {
@@ -57,19 +60,10 @@ public class ScheduleCalculationService {
         }
     }
 
-    @Transactional
+    /** Días sin bloques de los horarios no compactos (en compactos un día vacío es un día quitado). */
     public void cleanupEmptyDaysForEmployee(Long employeeId) {
-        List<EmployeeSchedule> schedules = employeeScheduleRepository.findByEmployeeId(employeeId);
-
-        schedules.forEach(schedule -> {
-            if (schedule.getDays() != null) {
-                schedule.getDays().removeIf(day ->
-                        day.getTimeBlocks() == null || day.getTimeBlocks().isEmpty());
-                employeeScheduleRepository.save(schedule);
-            }
-        });
-
-        log.info("Limpieza completada para empleado: {}", employeeId);
+        int deleted = scheduleBulkDeleter.deleteEmptyDays(employeeId);
+        log.info("Limpieza completada para empleado: {} ({} días vacíos eliminados)", employeeId, deleted);
     }
 
     private EmployeeHoursSummaryDTO createEmptyHoursSummary(Long employeeId) {
@@ -90,7 +84,7 @@ public class ScheduleCalculationService {
     private double calculateScheduleHours(EmployeeSchedule schedule) {
         if (schedule.getDays() == null) return 0.0;
 
-        return schedule.getDays().stream()
+        return scheduleExpansionService.expand(schedule, schedule.getDays()).stream()
                 .mapToDouble(day -> {
                     if (day.getTimeBlocks() == null) return 0.0;
                     return day.getTimeBlocks().stream()
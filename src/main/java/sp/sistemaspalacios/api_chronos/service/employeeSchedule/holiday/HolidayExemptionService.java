@@ -8,7 +8,10 @@ import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.HolidayExemption;
 import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.HolidayExemptionRepository;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -87,6 +90,31 @@ public class HolidayExemptionService {
         return null;
     }
 
+    /**
+     * Carga en una sola consulta las excepciones de los empleados dados en el rango [start, end]
+     * y las indexa por empleado y fecha. El valor es el motivo de la primera excepción registrada
+     * (puede ser null), igual que {@link #getExemptionReason(Long, LocalDate)}.
+     */
+    public Map<Long, Map<LocalDate, String>> getExemptionIndex(Collection<Long> employeeIds,
+                                                              LocalDate start, LocalDate end) {
+        Map<Long, Map<LocalDate, String>> index = new HashMap<>();
+        if (employeeIds == null || employeeIds.isEmpty() || start == null || end == null) {
+            return index;
+        }
+
+        List<HolidayExemption> exemptions =
+                holidayExemptionRepository.findByEmployeeIdInAndHolidayDateBetweenOrderByIdAsc(employeeIds, start, end);
+
+        for (HolidayExemption ex : exemptions) {
+            if (ex.getEmployeeId() == null || ex.getHolidayDate() == null) continue;
+            Map<LocalDate, String> byDate = index.computeIfAbsent(ex.getEmployeeId(), k -> new HashMap<>());
+            if (!byDate.containsKey(ex.getHolidayDate())) {
+                byDate.put(ex.getHolidayDate(), ex.getExemptionReason());
+            }
+        }
+        return index;
+    }
+
     public List<HolidayExemptionDTO> getExemptionsByEmployee(Long employeeId) {
         return holidayExemptionRepository.findByEmployeeId(employeeId)
                 .stream()
@@ -2,12 +2,10 @@ package sp.sistemaspalacios.api_chronos.service.employeeSchedule.holiday;
 
 import org.springframework.stereotype.Service;
 import sp.sistemaspalacios.api_chronos.dto.schedule.ScheduleDto.*;
-import sp.sistemaspalacios.api_chronos.entity.shift.ShiftDetail;
-import sp.sistemaspalacios.api_chronos.entity.shift.Shifts;
-import sp.sistemaspalacios.api_chronos.repository.shift.ShiftsRepository;
 import sp.sistemaspalacios.api_chronos.service.boundaries.holiday.HolidayService;
-import sp.sistemaspalacios.api_chronos.service.common.TimeService;
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.core.EmployeeDataService;
+import sp.sistemaspalacios.api_chronos.service.shift.ShiftTemplate;
+import sp.sistemaspalacios.api_chronos.service.shift.ShiftTemplateCache;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -15,45 +13,38 @@ import java.util.*;
 @Service
 public class HolidayProcessingService {
 
-    private final ShiftsRepository shiftsRepository;
+    private final ShiftTemplateCache shiftTemplateCache;
     private final HolidayService holidayService;
     private final EmployeeDataService employeeDataService;
-    private final TimeService timeService;
 
-    public HolidayProcessingService(ShiftsRepository shiftsRepository,
+    public HolidayProcessingService(ShiftTemplateCache shiftTemplateCache,
                                     HolidayService holidayService,
-                                    EmployeeDataService employeeDataService,
-                                    TimeService timeService) {
-        this.shiftsRepository = shiftsRepository;
+                                    EmployeeDataService employeeDataService) {
+        this.shiftTemplateCache = shiftTemplateCache;
         this.holidayService = holidayService;
         this.employeeDataService = employeeDataService;
-        this.timeService = timeService;
     }
 
 
-    private List<ShiftSegmentDetail> calculateShiftSegmentsForDay(Shifts shift, LocalDate date) {
+    private List<ShiftSegmentDetail> calculateShiftSegmentsForDay(ShiftTemplate shift, LocalDate date) {
         List<ShiftSegmentDetail> segments = new ArrayList<>();
-        int dow = date.getDayOfWeek().getValue();
 
-        List<ShiftDetail> dayDetails = shift.getShiftDetails().stream()
-                .filter(detail -> detail.getDayOfWeek() != null && detail.getDayOfWeek().equals(dow))
-                .filter(detail -> detail.getStartTime() != null && detail.getEndTime() != null)
-                .collect(ArrayList::new, (list, item) -> list.add(item), ArrayList::addAll);
-
-        for (ShiftDetail detail : dayDetails) {
+        for (ShiftTemplate.Segment s : shift.segments(date.getDayOfWeek().getValue())) {
             ShiftSegmentDetail segment = new ShiftSegmentDetail();
-            segment.setSegmentName(determineSegmentName(detail.getStartTime()));
-            segment.setStartTime(timeService.normalizeTimeForDatabase(detail.getStartTime()));
-            segment.setEndTime(timeService.normalizeTimeForDatabase(detail.getEndTime()));
+            segment.setSegmentName(determineSegmentName(s.start()));
+            segment.setStartTime(formatMinutes(s.start()));
+            segment.setEndTime(formatMinutes(s.end()));
 
-            if (detail.getBreakStartTime() != null) segment.setBreakStartTime(timeService.normalizeTimeForDatabase(detail.getBreakStartTime()));
-            if (detail.getBreakEndTime() != null) segment.setBreakEndTime(timeService.normalizeTimeForDatabase(detail.getBreakEndTime()));
-            segment.setBreakMinutes(detail.getBreakMinutes());
+            if (s.hasBreakWindow()) {
+                segment.setBreakStartTime(formatMinutes(s.breakStart()));
+                segment.setBreakEndTime(formatMinutes(s.breakEnd()));
+            }
+            segment.setBreakMinutes(s.breakMinutes());
 
-            double workingHours = timeService.calculateHoursBetween(segment.getStartTime(), segment.getEndTime());
+            double workingHours = s.durationMinutes() / 60.0;
             segment.setWorkingHours(workingHours);
 
-            double breakHours = (segment.getBreakMinutes() != null) ? segment.getBreakMinutes() / 60.0 : 0.0;
+            double breakHours = s.breakMinutes() / 60.0;
             segment.setBreakHours(breakHours);
             segment.setEffectiveHours(Math.max(0.0, workingHours - breakHours));
 
@@ -62,15 +53,17 @@ public class HolidayProcessingService {
         return segments;
     }
 
-    private String determineSegmentName(String startTime) {
-        try {
-            int hour = Integer.parseInt(startTime.split(":")[0]);
-            if (hour >= 6 && hour < 14) return "Mañana";
-            if (hour >= 14 && hour < 20) return "Tarde";
-            return "Noche";
-        } catch (Exception e) {
-            return "Turno";
-        }
+    private String determineSegmentName(int startMinutes) {
+        int hour = startMinutes / 60;
+        if (hour >= 6 && hour < 14) return "Mañana";
+        if (hour >= 14 && hour < 20) return "Tarde";
+        return "Noche";
+    }
+
+    // "HH:mm", como TimeService.normalizeTimeForDatabase
+    private static String formatMinutes(int minutes) {
+        int m = Math.floorMod(minutes, 24 * 60);
+        return String.format("%02d:%02d", m / 60, m % 60);
     }
 
 
@@ -116,12 +109,19 @@ public class HolidayProcessingService {
     public List<HolidayWarning> detectHolidayWarnings(List<ScheduleAssignment> assignments) {
         List<HolidayWarning> warnings = new ArrayList<>();
 
+        // Todos los turnos de la solicitud en una sola carga
+        Set<Long> shiftIds = new HashSet<>();
+        for (ScheduleAssignment assignment : assignments) {
+            if (assignment.getShiftId() != null) shiftIds.add(assignment.getShiftId());
+        }
+        Map<Long, ShiftTemplate> shifts = shiftTemplateCache.getAll(shiftIds);
+
         for (ScheduleAssignment assignment : assignments) {
             LocalDate start = assignment.getStartDate();
             LocalDate end = (assignment.getEndDate() != null) ? assignment.getEndDate() : start;
 
-            Shifts shift = shiftsRepository.findById(assignment.getShiftId()).orElse(null);
-            if (shift == null || shift.getShiftDetails() == null) continue;
+            ShiftTemplate shift = shifts.get(assignment.getShiftId());
+            if (shift == null) continue;
 
             String employeeName = employeeDataService.getEmployeeName(assignment.getEmployeeId());
 
@@ -129,7 +129,7 @@ public class HolidayProcessingService {
                 if (holidayService.isHoliday(d)) {
 
                     // ✅ NUEVA VALIDACIÓN: Solo crear warning si el turno trabaja este día
-                    if (shiftWorksOnDay(shift, d)) {
+                    if (shift.worksOn(d.getDayOfWeek().getValue())) {
                         HolidayWarning warning = new HolidayWarning();
                         warning.setEmployeeId(assignment.getEmployeeId());
                         warning.setEmployeeName(employeeName);
@@ -145,19 +145,6 @@ public class HolidayProcessingService {
         return warnings;
     }
 
-    // AGREGAR ESTE MÉTODO NUEVO
-    private boolean shiftWorksOnDay(Shifts shift, LocalDate date) {
-        int dayOfWeek = date.getDayOfWeek().getValue(); // 1=Monday, 7=Sunday
-
-        return shift.getShiftDetails().stream()
-                .anyMatch(detail ->
-                        Objects.equals(detail.getDayOfWeek(), dayOfWeek) &&
-                                detail.getStartTime() != null &&
-                                detail.getEndTime() != null &&
-                                !detail.getStartTime().trim().isEmpty() &&
-                                !detail.getEndTime().trim().isEmpty()
-                );
-    }
 
 
 
@@ -0,0 +1,103 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.overtime;
+
+import sp.sistemaspalacios.api_chronos.dto.overtime.OvertimeTypeDTO;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
+import sp.sistemaspalacios.api_chronos.service.boundaries.holiday.HolidayCalendar;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Datos de referencia para una clasificación de horas, cargados una sola vez por llamada
+ * a {@link HourClassificationService#classifyScheduleHours(List)}.
+ * El ciclo por día solo lee de aquí; no hace consultas a la base de datos.
+ */
+public final class ClassificationContext {
+
+    private final int nightStartMinutes;
+    private final BigDecimal weeklyLimit;
+    private final HolidayCalendar.Snapshot holidays;
+    private final Map<String, OvertimeTypeDTO> availableTypes;
+
+    // employeeId -> fecha -> motivo de la excepción (el motivo puede ser null)
+    private final Map<Long, Map<LocalDate, String>> exemptions;
+
+    // Fechas a procesar de cada horario, calculadas una vez
+    private final Map<EmployeeSchedule, List<LocalDate>> datesBySchedule;
+
+    // Días a usar en lugar de schedule.getDays() (recálculo de una sola fecha); null = los del horario
+    private final Map<EmployeeSchedule, List<EmployeeScheduleDay>> daysBySchedule;
+
+    ClassificationContext(int nightStartMinutes,
+                          BigDecimal weeklyLimit,
+                          HolidayCalendar.Snapshot holidays,
+                          Map<String, OvertimeTypeDTO> availableTypes,
+                          Map<Long, Map<LocalDate, String>> exemptions,
+                          IdentityHashMap<EmployeeSchedule, List<LocalDate>> datesBySchedule) {
+        this(nightStartMinutes, weeklyLimit, holidays, availableTypes, exemptions, datesBySchedule, null);
+    }
+
+    ClassificationContext(int nightStartMinutes,
+                          BigDecimal weeklyLimit,
+                          HolidayCalendar.Snapshot holidays,
+                          Map<String, OvertimeTypeDTO> availableTypes,
+                          Map<Long, Map<LocalDate, String>> exemptions,
+                          IdentityHashMap<EmployeeSchedule, List<LocalDate>> datesBySchedule,
+                          IdentityHashMap<EmployeeSchedule, List<EmployeeScheduleDay>> daysBySchedule) {
+        this.nightStartMinutes = nightStartMinutes;
+        this.weeklyLimit = weeklyLimit;
+        this.holidays = holidays != null ? holidays : HolidayCalendar.Snapshot.EMPTY;
+        this.availableTypes = availableTypes != null ? availableTypes : Collections.emptyMap();
+        this.exemptions = exemptions != null ? exemptions : Collections.emptyMap();
+        this.datesBySchedule = datesBySchedule != null ? datesBySchedule : new IdentityHashMap<>();
+        this.daysBySchedule = daysBySchedule;
+    }
+
+    /** Misma configuración y excepciones con otras fechas por horario (p. ej. el período de cada grupo). */
+    ClassificationContext withDates(IdentityHashMap<EmployeeSchedule, List<LocalDate>> dates) {
+        return new ClassificationContext(nightStartMinutes, weeklyLimit, holidays, availableTypes, exemptions,
+                dates, daysBySchedule != null ? new IdentityHashMap<>(daysBySchedule) : null);
+    }
+
+    public int getNightStartMinutes() { return nightStartMinutes; }
+
+    public BigDecimal getWeeklyLimit() { return weeklyLimit; }
+
+    public Map<String, OvertimeTypeDTO> getAvailableTypes() { return availableTypes; }
+
+    public boolean isHoliday(LocalDate date) {
+        return holidays.isHoliday(date);
+    }
+
+    public String getHolidayName(LocalDate date) {
+        return holidays.getName(date);
+    }
+
+    public boolean hasExemption(Long employeeId, LocalDate date) {
+        Map<LocalDate, String> byDate = exemptions.get(employeeId);
+        return byDate != null && byDate.containsKey(date);
+    }
+
+    public String getExemptionReason(Long employeeId, LocalDate date) {
+        Map<LocalDate, String> byDate = exemptions.get(employeeId);
+        return byDate != null ? byDate.get(date) : null;
+    }
+
+    public List<LocalDate> getDates(EmployeeSchedule schedule) {
+        List<LocalDate> dates = datesBySchedule.get(schedule);
+        return dates != null ? dates : Collections.emptyList();
+    }
+
+    public List<EmployeeScheduleDay> getDays(EmployeeSchedule schedule) {
+        if (daysBySchedule != null) {
+            List<EmployeeScheduleDay> days = daysBySchedule.get(schedule);
+            return days != null ? days : Collections.emptyList();
+        }
+        return schedule.getDays();
+    }
+}
@@ -0,0 +1,54 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.overtime;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Acumulador de horas por tipo base y franja (diurna/nocturna), indexado por
+ * {@link HourBaseType#ordinal()}. Guarda centésimas de hora en un arreglo de long y solo
+ * crea los BigDecimal al final, en {@link #toMap(Map)}.
+ * <p>
+ * Cada segmento se redondea a centésimas (HALF_UP) antes de sumarse, igual que cuando se
+ * sumaban los BigDecimal de cada segmento, para que los totales no cambien.
+ */
+final class HourAccumulator {
+
+    private final long[] hundredths = new long[HourBaseType.VALUES.length * 2];
+
+    void add(HourBaseType type, boolean isNight, int minutes) {
+        if (minutes <= 0) return;
+        hundredths[slot(type, isNight)] += toHundredths(minutes);
+    }
+
+    boolean isEmpty() {
+        for (long value : hundredths) {
+            if (value != 0) return false;
+        }
+        return true;
+    }
+
+    /** Convierte a código de tipo -> horas; dos franjas que caen en el mismo código se suman. */
+    Map<String, BigDecimal> toMap(Map<String, ?> availableTypes) {
+        Map<String, Long> byCode = new HashMap<>();
+        for (HourBaseType type : HourBaseType.VALUES) {
+            for (int night = 0; night < 2; night++) {
+                long value = hundredths[type.ordinal() * 2 + night];
+                if (value == 0) continue;
+                byCode.merge(type.resolveCode(night == 1, availableTypes), value, Long::sum);
+            }
+        }
+        Map<String, BigDecimal> result = new HashMap<>();
+        byCode.forEach((code, value) -> result.put(code, BigDecimal.valueOf(value, 2)));
+        return result;
+    }
+
+    /** minutos / 60 redondeado a 2 decimales (HALF_UP), expresado en centésimas. */
+    static long toHundredths(int minutes) {
+        return (minutes * 100L + 30) / 60;
+    }
+
+    private static int slot(HourBaseType type, boolean isNight) {
+        return type.ordinal() * 2 + (isNight ? 1 : 0);
+    }
+}
@@ -0,0 +1,53 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.overtime;
+
+import java.util.Map;
+
+/**
+ * Tipos base de hora que produce la clasificación. Cada uno se combina con diurna/nocturna
+ * para formar el código final ({@code EXTRA_FESTIVO} + nocturna = {@code EXTRA_FESTIVO_NOCTURNA}).
+ */
+enum HourBaseType {
+    REGULAR,
+    EXTRA,
+    FESTIVO,
+    DOMINICAL,
+    FESTIVO_DOMINICAL,
+    EXTRA_FESTIVO,
+    EXTRA_DOMINICAL,
+    EXTRA_FESTIVO_DOMINICAL;
+
+    static final HourBaseType[] VALUES = values();
+
+    static HourBaseType of(boolean isExtra, boolean isHoliday, boolean isSunday) {
+        if (isExtra) {
+            if (isHoliday && isSunday) return EXTRA_FESTIVO_DOMINICAL;
+            if (isHoliday) return EXTRA_FESTIVO;
+            if (isSunday) return EXTRA_DOMINICAL;
+            return EXTRA;
+        }
+        if (isHoliday && isSunday) return FESTIVO_DOMINICAL;
+        if (isHoliday) return FESTIVO;
+        if (isSunday) return DOMINICAL;
+        return REGULAR;
+    }
+
+    /**
+     * Código a usar: el exacto si está activo; si no, el genérico de su familia
+     * (EXTRA_, FESTIVO_, DOMINICAL_ o REGULAR_).
+     */
+    String resolveCode(boolean isNight, Map<String, ?> availableTypes) {
+        String suffix = isNight ? "_NOCTURNA" : "_DIURNA";
+        String preferredCode = name() + suffix;
+        if (availableTypes.containsKey(preferredCode)) {
+            return preferredCode;
+        }
+        if (name().contains("EXTRA")) {
+            return "EXTRA" + suffix;
+        } else if (name().contains("FESTIVO")) {
+            return "FESTIVO" + suffix;
+        } else if (name().contains("DOMINICAL")) {
+            return "DOMINICAL" + suffix;
+        }
+        return "REGULAR" + suffix;
+    }
+}
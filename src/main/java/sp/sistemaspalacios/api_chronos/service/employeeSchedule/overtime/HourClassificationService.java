@@ -1,117 +1,90 @@
 package sp.sistemaspalacios.api_chronos.service.employeeSchedule.overtime;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import sp.sistemaspalacios.api_chronos.dto.overtime.OvertimeTypeDTO;
 import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
 import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
 import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleTimeBlock;
-import sp.sistemaspalacios.api_chronos.entity.shift.ShiftDetail;
-import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.GeneralConfigurationService;
-import sp.sistemaspalacios.api_chronos.service.boundaries.holiday.HolidayService;
+import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.WorkingRulesService;
+import sp.sistemaspalacios.api_chronos.service.boundaries.holiday.HolidayCalendar;
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.holiday.HolidayExemptionService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.time.ScheduleExpansionService;
+import sp.sistemaspalacios.api_chronos.service.shift.ShiftTemplate;
+import sp.sistemaspalacios.api_chronos.service.shift.ShiftTemplateCache;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Clasificación de horas por tipo (regular, extra, dominical, festivo; diurna y nocturna).
+ * Los horarios compactos sin fecha fin se expanden hasta {@code openEndedUntil} cuando el llamador
+ * lo conoce (fin del período del grupo, fin del rango pedido) y, si no, hasta
+ * {@code schedule.compact.open-ended-days} días después de hoy.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class HourClassificationService {
 
     private final OvertimeTypeService overtimeTypeService;
     private final HolidayExemptionService holidayExemptionService;
-    private final HolidayService holidayService;
-    private final GeneralConfigurationService configService;
+    private final HolidayCalendar holidayCalendar;
+    private final WorkingRulesService workingRulesService;
+    private final ShiftTemplateCache shiftTemplateCache;
+    private final int compactOpenEndedDays;
+
+    // Métricas: sin registro (benchmarks, pruebas) no se mide nada
+    private final MeterRegistry meterRegistry;
+    private final Counter classifiedDays;
+
+    public HourClassificationService(OvertimeTypeService overtimeTypeService,
+                                     HolidayExemptionService holidayExemptionService,
+                                     HolidayCalendar holidayCalendar,
+                                     WorkingRulesService workingRulesService,
+                                     ShiftTemplateCache shiftTemplateCache,
+                                     ObjectProvider<MeterRegistry> meterRegistry,
+                                     @Value("${schedule.compact.open-ended-days:62}") int compactOpenEndedDays) {
+        this.overtimeTypeService = overtimeTypeService;
+        this.holidayExemptionService = holidayExemptionService;
+        this.holidayCalendar = holidayCalendar;
+        this.workingRulesService = workingRulesService;
+        this.shiftTemplateCache = shiftTemplateCache;
+        this.compactOpenEndedDays = Math.max(0, compactOpenEndedDays);
+        this.meterRegistry = meterRegistry.getIfAvailable();
+        // rate() en Prometheus = días de horario clasificados por segundo
+        this.classifiedDays = this.meterRegistry == null ? null : Counter.builder("schedule.classification.days")
+                .description("Días (horario, fecha) con horas clasificados")
+                .register(this.meterRegistry);
+    }
 
 
+    /**
+     * Horas de una fecha del horario, por código de tipo. Se clasifica solo esa fecha: el
+     * resultado de un día no depende de los demás días del horario.
+     */
     public Map<String, BigDecimal> classifyDayHours(EmployeeSchedule schedule, LocalDate date) {
-        if (schedule == null || date == null) return new HashMap<>();
-
-        // Crear una lista temporal con solo este schedule pero filtrando para un día específico
-        List<EmployeeSchedule> singleScheduleList = Arrays.asList(schedule);
-
-        // Usar la lógica completa pero solo procesar el día solicitado
-        Map<String, BigDecimal> fullResult = classifyScheduleHours(singleScheduleList);
-
-        // Para debugging: obtener el total de horas de este día específico
-        List<int[]> dayRanges = getTimeRangesForDateSimple(schedule, date);
-
-        if (dayRanges.isEmpty()) {
-            return new HashMap<>(); // Sin horas para este día
-        }
-
-        // Calcular las horas totales de este día
-        BigDecimal dayTotalHours = BigDecimal.ZERO;
-        for (int[] range : dayRanges) {
-            int totalMinutes = (range[1] > range[0]) ?
-                    (range[1] - range[0]) :
-                    (1440 - range[0] + range[1]);
-            dayTotalHours = dayTotalHours.add(
-                    BigDecimal.valueOf(totalMinutes).divide(BigDecimal.valueOf(60), 2, RoundingMode.HALF_UP)
-            );
-        }
-
-        if (dayTotalHours.compareTo(BigDecimal.ZERO) == 0) {
-            return new HashMap<>();
-        }
-
-        // Si el resultado completo tiene tipos especiales, asignar proporcionalmente a este día
-        Map<String, BigDecimal> dayResult = new HashMap<>();
-
-        // Buscar tipos especiales en el resultado completo
-        for (Map.Entry<String, BigDecimal> entry : fullResult.entrySet()) {
-            String type = entry.getKey();
-            BigDecimal hours = entry.getValue();
-
-            if (hours.compareTo(BigDecimal.ZERO) > 0 && isSpecialHourType(type)) {
-                // Si encontramos horas especiales en el total, verificar si este día contribuye
-                int dayOfWeek = date.getDayOfWeek().getValue();
-                boolean isHoliday = getHolidayDates().contains(date);
-                boolean isSunday = (dayOfWeek == 7);
-
-                // Determinar si este día específico debería tener este tipo de horas especiales
-                if (shouldDayHaveSpecialType(type, isHoliday, isSunday, schedule.getEmployeeId(), date)) {
-                    dayResult.put(type, dayTotalHours);
-                    break; // Solo un tipo por día
-                }
-            }
-        }
-
-        return dayResult;
+        return timed("day", () -> classifyDay(schedule, date));
     }
 
-    // Método helper para determinar si un día debería tener un tipo específico
-    private boolean shouldDayHaveSpecialType(String type, boolean isHoliday, boolean isSunday,
-                                             Long employeeId, LocalDate date) {
-
-        // Verificar exenciones
-        boolean hasExemption = checkHolidayExemption(employeeId, date);
-        if (hasExemption) {
-            return type.equals("EXEMPT");
-        }
-        if (type.startsWith("FESTIVO_") && isHoliday) return true;
-        if (type.startsWith("DOMINICAL_") && isSunday) return true;
-        if (type.startsWith("EXTRA_")) {
-            // Las horas extras pueden aparecer cualquier día dependiendo del límite semanal
-            return true;
+    private Map<String, BigDecimal> classifyDay(EmployeeSchedule schedule, LocalDate date) {
+        Map<String, BigDecimal> result = new HashMap<>();
+        if (schedule == null || date == null) return result;
+        for (DayBreakdown day : breakdown(List.of(schedule), date, date)) {
+            day.hours().forEach((type, hours) -> result.merge(type, hours, BigDecimal::add));
         }
-
-        return false;
+        return result;
     }
 
-    private boolean isSpecialHourType(String type) {
-        return type.startsWith("EXTRA_") ||
-                type.startsWith("FESTIVO_") ||
-                type.startsWith("DOMINICAL_") ||
-                type.equals("EXEMPT");
-    }
-    // Método helper que falta
 
     public boolean hasSpecialHours(Map<String, BigDecimal> dayClassification) {
         return dayClassification.entrySet().stream()
@@ -128,57 +101,76 @@ public class HourClassificationService {
 
 
     /**
-     * Obtener rangos de tiempo simplificado - retorna array de [startMinutes, endMinutes]
+     * Rangos de un horario por fecha, como arreglo plano [inicio0, fin0, inicio1, fin1, ...] en minutos.
+     * Indexa los días del horario una sola vez (el primer día de cada fecha, como antes) y, si la
+     * fecha no tiene bloques, usa el turno compilado ({@link ShiftTemplateCache}) para ese día de la semana.
+     * En horarios compactos un día guardado sin bloques es una fecha quitada: no tiene rangos.
      */
-    private List<int[]> getTimeRangesForDateSimple(EmployeeSchedule schedule, LocalDate date) {
-        List<int[]> ranges = new ArrayList<>();
-        int dayOfWeek = date.getDayOfWeek().getValue();
-
-        // 🔍 LOG
-        System.out.println("getTimeRanges: Date=" + date + " ScheduleId=" + schedule.getId());
-
-        if (schedule.getDays() != null) {
-            Optional<EmployeeScheduleDay> dayOpt = schedule.getDays().stream()
-                    .filter(d -> {
-                        LocalDate dayDate = convertToLocalDateSafe(d.getDate());
-                        return date.equals(dayDate);
-                    })
-                    .findFirst();
-
-            if (dayOpt.isPresent() && dayOpt.get().getTimeBlocks() != null && !dayOpt.get().getTimeBlocks().isEmpty()) {
-                for (EmployeeScheduleTimeBlock block : dayOpt.get().getTimeBlocks()) {
-                    int[] range = new int[]{
-                            toMinutes(block.getStartTime().toString()),
-                            toMinutes(block.getEndTime().toString())
-                    };
-                    ranges.add(range);
-
-                    // 🔍 LOG - Ver qué rangos se agregan
-                    System.out.println("  → Adding range: " + range[0] + "-" + range[1]);
+    private final class ScheduleRanges {
+        private final EmployeeSchedule schedule;
+        private final List<EmployeeScheduleDay> days;
+        private Map<LocalDate, EmployeeScheduleDay> daysByDate;
+        private int[][] shiftRangesByDayOfWeek;
+
+        ScheduleRanges(EmployeeSchedule schedule, List<EmployeeScheduleDay> days) {
+            this.schedule = schedule;
+            this.days = days;
+        }
+
+        int[] forDate(LocalDate date) {
+            EmployeeScheduleDay day = dayFor(date);
+            if (day != null && day.getTimeBlocks().isEmpty() && ScheduleExpansionService.isCompact(schedule)) {
+                return NO_RANGES;
+            }
+            boolean fromDays = day != null && day.getTimeBlocks() != null && !day.getTimeBlocks().isEmpty();
+            int[] ranges;
+            if (fromDays) {
+                List<EmployeeScheduleTimeBlock> blocks = day.getTimeBlocks();
+                ranges = new int[blocks.size() * 2];
+                int i = 0;
+                for (EmployeeScheduleTimeBlock block : blocks) {
+                    ranges[i++] = toMinutes(block.getStartTime());
+                    ranges[i++] = toMinutes(block.getEndTime());
                 }
-                System.out.println("  → Found " + ranges.size() + " ranges from DAYS");
-                return ranges;
+            } else {
+                ranges = shiftRanges(date.getDayOfWeek().getValue());
             }
-        }
 
-        if (schedule.getShift() != null && schedule.getShift().getShiftDetails() != null) {
-            if (schedule.getShift().getShiftDetails().isEmpty()) {
-                return ranges;
+            if (log.isTraceEnabled()) {
+                log.trace("Rangos: scheduleId={} fecha={} origen={} rangos={}", schedule.getId(), date,
+                        fromDays ? "DAYS" : "SHIFT", Arrays.toString(ranges));
             }
-            for (ShiftDetail detail : schedule.getShift().getShiftDetails()) {
-                if (Objects.equals(detail.getDayOfWeek(), dayOfWeek) &&
-                        detail.getStartTime() != null && detail.getEndTime() != null) {
-                    ranges.add(new int[]{
-                            toMinutes(detail.getStartTime()),
-                            toMinutes(detail.getEndTime())
-                    });
+            return ranges;
+        }
+
+        private EmployeeScheduleDay dayFor(LocalDate date) {
+            if (days == null) return null;
+            if (daysByDate == null) {
+                daysByDate = new HashMap<>(days.size() * 2);
+                for (EmployeeScheduleDay d : days) {
+                    LocalDate dayDate = convertToLocalDateSafe(d.getDate());
+                    if (dayDate != null) daysByDate.putIfAbsent(dayDate, d);
                 }
             }
+            return daysByDate.get(date);
         }
 
-        System.out.println("  → Total ranges: " + ranges.size());
-        return ranges;
+        private int[] shiftRanges(int dayOfWeek) {
+            if (shiftRangesByDayOfWeek == null) {
+                shiftRangesByDayOfWeek = new int[8][];
+            }
+            int[] cached = shiftRangesByDayOfWeek[dayOfWeek];
+            if (cached != null) return cached;
+
+            ShiftTemplate template = shiftTemplateCache.get(schedule.getShift());
+            int[] ranges = template != null ? template.ranges(dayOfWeek) : NO_RANGES;
+            shiftRangesByDayOfWeek[dayOfWeek] = ranges;
+            return ranges;
+        }
     }
+
+    private static final int[] NO_RANGES = new int[0];
+
     private LocalDate convertToLocalDateSafe(Date date) {
         if (date == null) return null;
         try {
@@ -191,86 +183,57 @@ public class HourClassificationService {
             return null;
         }
     }
-    /**
-     * Dividir día/noche simplificado - retorna [dayMinutes, nightMinutes]
-     */
-    private int[] splitDayNightSimple(int startMinutes, int endMinutes, int nightStartMinutes) {
-        int totalMinutes = (endMinutes > startMinutes) ?
+
+    private static int totalMinutes(int startMinutes, int endMinutes) {
+        return (endMinutes > startMinutes) ?
                 (endMinutes - startMinutes) :
                 (1440 - startMinutes + endMinutes);
+    }
 
-        // ✅ USAR CONFIGURACIÓN en lugar de hardcodear
-        int nightStart = nightStartMinutes;  // Usar el parámetro configurado
+    /**
+     * Minutos nocturnos del rango; los diurnos son siempre el total menos estos.
+     * Noche: desde el inicio configurado hasta las 06:00.
+     */
+    private int nightMinutes(int startMinutes, int endMinutes, int nightStartMinutes) {
+        int totalMinutes = totalMinutes(startMinutes, endMinutes);
+        int nightStart = nightStartMinutes;
         int nightEnd = 6 * 60;     // 06:00 = 360 minutos
 
-        int nightMinutes = 0;
-        int dayMinutes = 0;
-
-        System.out.println("🔍 DEBUG - Clasificando horario:");
-        System.out.println("  - Rango: " + (startMinutes/60) + ":" + String.format("%02d", startMinutes%60) +
-                " - " + (endMinutes/60) + ":" + String.format("%02d", endMinutes%60));
-        System.out.println("  - Límite nocturno configurado: " + (nightStart/60) + ":" + String.format("%02d", nightStart%60));
-
-        // ✅ LÓGICA CORREGIDA
+        int nightMinutes;
         if (startMinutes >= nightStart || endMinutes <= nightEnd) {
             // Completamente nocturno
             nightMinutes = totalMinutes;
-            dayMinutes = 0;
-            System.out.println("  - Resultado: COMPLETAMENTE NOCTURNO (" + (nightMinutes/60.0) + "h)");
-
         } else if (startMinutes >= nightEnd && endMinutes <= nightStart) {
             // Completamente diurno
-            dayMinutes = totalMinutes;
             nightMinutes = 0;
-            System.out.println("  - Resultado: COMPLETAMENTE DIURNO (" + (dayMinutes/60.0) + "h)");
-
+        } else if (startMinutes < nightStart && endMinutes > nightStart) {
+            // Cruza el inicio de la noche
+            nightMinutes = totalMinutes - (nightStart - startMinutes);
+        } else if (startMinutes < nightEnd && endMinutes > nightEnd) {
+            // Cruza el fin de la noche
+            nightMinutes = nightEnd - startMinutes;
         } else {
-            // Dividir entre diurno y nocturno
-            if (startMinutes < nightStart && endMinutes > nightStart) {
-                // Cruza el inicio de la noche
-                dayMinutes = nightStart - startMinutes;
-                nightMinutes = totalMinutes - dayMinutes;
-            } else if (startMinutes < nightEnd && endMinutes > nightEnd) {
-                // Cruza el fin de la noche
-                nightMinutes = nightEnd - startMinutes;
-                dayMinutes = totalMinutes - nightMinutes;
-            } else {
-                // Caso por defecto
-                dayMinutes = totalMinutes;
-            }
-            System.out.println("  - Resultado: MIXTO - Diurno: " + (dayMinutes/60.0) + "h, Nocturno: " + (nightMinutes/60.0) + "h");
+            // Caso por defecto
+            nightMinutes = 0;
         }
 
-        return new int[]{dayMinutes, nightMinutes};
-    }
-    /**
-     * Encuentra la mejor coincidencia en tipos disponibles
-     */
-    private String findBestMatch(String baseType, boolean isNight,
-                                 Map<String, OvertimeTypeDTO> availableTypes) {
-        String suffix = isNight ? "_NOCTURNA" : "_DIURNA";
-        String preferredCode = baseType + suffix;
-
-        // Intentar código exacto
-        if (availableTypes.containsKey(preferredCode)) {
-            return preferredCode;
-        }
-
-        // Fallbacks según tipo base
-        if (baseType.contains("EXTRA")) {
-            return isNight ? "EXTRA_NOCTURNA" : "EXTRA_DIURNA";
-        } else if (baseType.contains("FESTIVO")) {
-            return isNight ? "FESTIVO_NOCTURNA" : "FESTIVO_DIURNA";
-        } else if (baseType.contains("DOMINICAL")) {
-            return isNight ? "DOMINICAL_NOCTURNA" : "DOMINICAL_DIURNA";
-        } else {
-            return isNight ? "REGULAR_NOCTURNA" : "REGULAR_DIURNA";
+        if (log.isTraceEnabled()) {
+            log.trace("Día/noche: rango {}-{} inicioNoche={} -> diurno={}min nocturno={}min",
+                    startMinutes, endMinutes, nightStart, totalMinutes - nightMinutes, nightMinutes);
         }
+        return nightMinutes;
     }
 
     // ===== MÉTODOS DE UTILIDAD =====
 
     private List<LocalDate> getDatesToProcess(EmployeeSchedule schedule) {
+        return getDatesToProcess(schedule, null);
+    }
+
+    private List<LocalDate> getDatesToProcess(EmployeeSchedule schedule, LocalDate openEndedUntil) {
+        if (ScheduleExpansionService.isCompact(schedule)) {
+            return getCompactDates(schedule, openEndedUntil);
+        }
         if (schedule.getDays() != null && !schedule.getDays().isEmpty()) {
             return schedule.getDays().stream()
                     .map(day -> convertToLocalDate(day.getDate()))
@@ -289,43 +252,45 @@ public class HourClassificationService {
         }
     }
 
-    // ===== CONFIGURACIÓN =====
+    // Compacto: todo el rango (sin fin: hasta openEndedUntil o el horizonte) menos las fechas quitadas
+    private List<LocalDate> getCompactDates(EmployeeSchedule schedule, LocalDate openEndedUntil) {
+        LocalDate start = schedule.getStartDate();
+        if (start == null) return new ArrayList<>();
+        LocalDate end = compactEnd(schedule, openEndedUntil);
 
-    private int getNightStartMinutes() {
-        try {
-            String value = configService.getByType("NIGHT_START").getValue();
-            String[] parts = value.split(":");
-            return Integer.parseInt(parts[0]) * 60 + Integer.parseInt(parts[1]);
-        } catch (Exception e) {
-            return 19 * 60; // 19:00 por defecto
+        Set<LocalDate> removed = new HashSet<>();
+        for (EmployeeScheduleDay day : schedule.getDays()) {
+            if (day.getTimeBlocks().isEmpty()) removed.add(convertToLocalDate(day.getDate()));
+        }
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            if (!removed.contains(date)) dates.add(date);
         }
+        return dates;
     }
 
-    private BigDecimal getWeeklyLimit() {
-        try {
-            String value = configService.getByType("WEEKLY_HOURS").getValue();
-            if (value.contains(":")) {
-                String[] parts = value.split(":");
-                return new BigDecimal(parts[0]).add(
-                        new BigDecimal(parts[1]).divide(BigDecimal.valueOf(60), 2, RoundingMode.HALF_UP)
-                );
-            }
-            return new BigDecimal(value);
-        } catch (Exception e) {
-            return new BigDecimal("56"); // 56h por defecto
-        }
+    // Último día de un compacto: su fecha fin; sin ella, openEndedUntil o el horizonte desde hoy
+    private LocalDate compactEnd(EmployeeSchedule schedule, LocalDate openEndedUntil) {
+        if (schedule.getEndDate() != null) return schedule.getEndDate();
+        if (openEndedUntil != null) return openEndedUntil;
+        return ScheduleExpansionService.windowEnd(schedule, compactOpenEndedDays);
     }
 
-    private Set<LocalDate> getHolidayDates() {
-        try {
-            return holidayService.getAllHolidays().stream()
-                    .filter(Objects::nonNull)
-                    .map(h -> h.getHolidayDate())
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toSet());
-        } catch (Exception e) {
-            return Collections.emptySet();
-        }
+    // Las fechas de un compacto sin fin dependen de openEndedUntil
+    private static boolean isOpenEndedCompact(EmployeeSchedule schedule) {
+        return ScheduleExpansionService.isCompact(schedule) && schedule.getEndDate() == null;
+    }
+
+    // ===== CONFIGURACIÓN =====
+
+    private int getNightStartMinutes() {
+        Integer nightStart = workingRulesService.current().getNightStartMinutes();
+        return nightStart != null ? nightStart : 19 * 60; // 19:00 por defecto
+    }
+
+    private BigDecimal getWeeklyLimit() {
+        BigDecimal weekly = workingRulesService.current().getWeeklyHours();
+        return weekly != null ? weekly : new BigDecimal("56"); // 56h por defecto
     }
 
     private Map<String, OvertimeTypeDTO> getAvailableTypes() {
@@ -333,39 +298,35 @@ public class HourClassificationService {
                 .collect(Collectors.toMap(OvertimeTypeDTO::getCode, t -> t));
     }
 
-    private boolean checkHolidayExemption(Long employeeId, LocalDate date) {
-        try {
-            return holidayExemptionService.hasExemption(employeeId, date);
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
     private LocalDate convertToLocalDate(Date date) {
         if (date == null) return null;
         if (date instanceof java.sql.Date) return ((java.sql.Date) date).toLocalDate();
         return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
     }
 
-    private int toMinutes(String time) {
-        try {
-            String[] parts = time.split(":");
-            return Integer.parseInt(parts[0]) * 60 + Integer.parseInt(parts[1]);
-        } catch (Exception e) {
-            return 0;
-        }
+    private int toMinutes(java.sql.Time time) {
+        LocalTime t = time.toLocalTime();
+        return t.getHour() * 60 + t.getMinute();
     }
+
+
     public Map<String, BigDecimal> classifyScheduleHours(List<EmployeeSchedule> schedules) {
+        return classifyScheduleHours(schedules, null);
+    }
+
+    /** Igual, con los compactos sin fecha fin hasta {@code openEndedUntil} (fin del período del grupo). */
+    public Map<String, BigDecimal> classifyScheduleHours(List<EmployeeSchedule> schedules, LocalDate openEndedUntil) {
+        return timed("schedule", () -> classifySchedules(schedules, openEndedUntil));
+    }
+
+    private Map<String, BigDecimal> classifySchedules(List<EmployeeSchedule> schedules, LocalDate openEndedUntil) {
         if (schedules == null || schedules.isEmpty()) {
             return new HashMap<>();
         }
 
         try {
-            int nightStartMinutes = getNightStartMinutesSafe();
-            BigDecimal weeklyLimit = getWeeklyLimitSafe();
-            Set<LocalDate> holidays = getHolidayDatesSafe();
-            Map<String, OvertimeTypeDTO> availableTypes = getAvailableTypesSafe();
-            return processSchedulesDirectly(schedules, nightStartMinutes, weeklyLimit, holidays, availableTypes);
+            ClassificationContext context = buildContext(schedules, null, openEndedUntil);
+            return processSchedulesDirectly(schedules, context);
 
         } catch (Exception e) {
             System.err.println("ERROR en classifyScheduleHours: " + e.getMessage());
@@ -374,6 +335,344 @@ public class HourClassificationService {
         }
     }
 
+    /**
+     * Horas por tipo de varios grupos (groupId -> horarios del grupo) con un solo contexto.
+     * Cada grupo se clasifica solo con sus horarios y con los compactos sin fecha fin hasta el
+     * fin de su período ({@code periodEndByGroup}; sin él, el horizonte), así que el resultado de
+     * cada uno es el de {@link #classifyScheduleHours(List, LocalDate)}. A diferencia de ese método,
+     * los errores se propagan.
+     */
+    public Map<Long, Map<String, BigDecimal>> classifyGroupHours(Map<Long, List<EmployeeSchedule>> schedulesByGroup,
+                                                                 Map<Long, LocalDate> periodEndByGroup) {
+        return timed("groups", () -> classifyGroups(schedulesByGroup, periodEndByGroup));
+    }
+
+    private Map<Long, Map<String, BigDecimal>> classifyGroups(Map<Long, List<EmployeeSchedule>> schedulesByGroup,
+                                                              Map<Long, LocalDate> periodEndByGroup) {
+        Map<Long, Map<String, BigDecimal>> result = new LinkedHashMap<>();
+        if (schedulesByGroup == null || schedulesByGroup.isEmpty()) return result;
+        Map<Long, LocalDate> periodEnds = periodEndByGroup != null ? periodEndByGroup : Collections.emptyMap();
+
+        // Fechas por grupo (un compacto sin fin compartido puede tener otro período en cada grupo);
+        // el contexto se arma con la unión, que por horario es la lista que llega más lejos
+        IdentityHashMap<EmployeeSchedule, List<LocalDate>> shared = new IdentityHashMap<>();
+        IdentityHashMap<EmployeeSchedule, List<LocalDate>> union = new IdentityHashMap<>();
+        Map<Long, IdentityHashMap<EmployeeSchedule, List<LocalDate>>> datesByGroup = new LinkedHashMap<>();
+        schedulesByGroup.forEach((groupId, schedules) -> {
+            IdentityHashMap<EmployeeSchedule, List<LocalDate>> groupDates = new IdentityHashMap<>();
+            for (EmployeeSchedule schedule : schedules) {
+                List<LocalDate> dates = isOpenEndedCompact(schedule)
+                        ? getDatesToProcess(schedule, periodEnds.get(groupId))
+                        : shared.computeIfAbsent(schedule, this::getDatesToProcess);
+                groupDates.put(schedule, dates);
+                union.merge(schedule, dates, (a, b) -> lastDate(b).isAfter(lastDate(a)) ? b : a);
+            }
+            datesByGroup.put(groupId, groupDates);
+        });
+        ClassificationContext context = newContext(union, null, null);
+
+        schedulesByGroup.forEach((groupId, schedules) -> result.put(groupId, schedules.isEmpty()
+                ? new HashMap<>()
+                : processSchedulesDirectly(schedules, context.withDates(datesByGroup.get(groupId)))));
+        return result;
+    }
+
+    private static LocalDate lastDate(List<LocalDate> dates) {
+        return dates.isEmpty() ? LocalDate.MIN : dates.get(dates.size() - 1);
+    }
+
+    /**
+     * Construye el contexto de clasificación: configuración, festivos, tipos activos y
+     * todas las excepciones de los empleados involucrados en el rango de fechas, con un
+     * número fijo de consultas sin importar cuántos empleados o días haya.
+     * {@code extraDate} (opcional) amplía el rango de excepciones a una fecha fuera de los días del horario.
+     */
+    ClassificationContext buildContext(List<EmployeeSchedule> schedules, LocalDate extraDate, LocalDate openEndedUntil) {
+        IdentityHashMap<EmployeeSchedule, List<LocalDate>> datesBySchedule = new IdentityHashMap<>();
+        for (EmployeeSchedule schedule : schedules) {
+            datesBySchedule.put(schedule, getDatesToProcess(schedule, openEndedUntil));
+        }
+        return newContext(datesBySchedule, null, extraDate);
+    }
+
+    /**
+     * Clasifica solo una fecha de los horarios (recálculo incremental de un día).
+     * {@code daysOnDate} trae, por scheduleId, los días de esa fecha con sus bloques (lista vacía si
+     * el horario tiene días pero ninguno ese día). Los horarios que no están en el mapa no tienen
+     * días propios y, como en la clasificación completa, se toman por su rango de fechas y turno.
+     * Como cada día se clasifica solo con los horarios del mismo empleado ese día, la suma de
+     * esta clasificación sobre todas las fechas es igual a la de {@link #classifyScheduleHours}.
+     */
+    public Map<String, BigDecimal> classifyScheduleDate(List<EmployeeSchedule> schedules, LocalDate date,
+                                                        Map<Long, List<EmployeeScheduleDay>> daysOnDate) {
+        return classifyScheduleDate(schedules, date, daysOnDate, null);
+    }
+
+    /** Igual, con los compactos sin fecha fin hasta {@code openEndedUntil} (fin del período del grupo). */
+    public Map<String, BigDecimal> classifyScheduleDate(List<EmployeeSchedule> schedules, LocalDate date,
+                                                        Map<Long, List<EmployeeScheduleDay>> daysOnDate,
+                                                        LocalDate openEndedUntil) {
+        return timed("date", () -> classifyDate(schedules, date, daysOnDate, openEndedUntil));
+    }
+
+    private Map<String, BigDecimal> classifyDate(List<EmployeeSchedule> schedules, LocalDate date,
+                                              Map<Long, List<EmployeeScheduleDay>> daysOnDate,
+                                              LocalDate openEndedUntil) {
+        if (schedules == null || schedules.isEmpty() || date == null) {
+            return new HashMap<>();
+        }
+
+        IdentityHashMap<EmployeeSchedule, List<LocalDate>> datesBySchedule = new IdentityHashMap<>();
+        IdentityHashMap<EmployeeSchedule, List<EmployeeScheduleDay>> daysBySchedule = new IdentityHashMap<>();
+        for (EmployeeSchedule schedule : schedules) {
+            List<EmployeeScheduleDay> days = daysOnDate.get(schedule.getId());
+            boolean covers;
+            if (ScheduleExpansionService.isCompact(schedule)) {
+                // El patrón cubre todo el rango salvo que la fecha se haya quitado (día guardado sin bloques)
+                LocalDate start = schedule.getStartDate();
+                LocalDate end = start != null ? compactEnd(schedule, openEndedUntil) : null;
+                boolean removed = days != null && !days.isEmpty() && days.get(0).getTimeBlocks().isEmpty();
+                covers = start != null && !date.isBefore(start) && !date.isAfter(end) && !removed;
+            } else if (days != null) {
+                covers = !days.isEmpty();
+            } else {
+                LocalDate start = schedule.getStartDate();
+                LocalDate end = (schedule.getEndDate() != null) ? schedule.getEndDate() : start;
+                covers = start != null && !date.isBefore(start) && !date.isAfter(end);
+            }
+            datesBySchedule.put(schedule, covers ? List.of(date) : Collections.emptyList());
+            daysBySchedule.put(schedule, days != null ? days : Collections.emptyList());
+        }
+
+        try {
+            return processSchedulesDirectly(schedules, newContext(datesBySchedule, daysBySchedule, date));
+        } catch (Exception e) {
+            log.warn("Error clasificando la fecha {}", date, e);
+            return new HashMap<>();
+        }
+    }
+
+    /** Horas de un empleado en una fecha, por código de tipo. */
+    public record DayHours(Long employeeId, LocalDate date, Map<String, BigDecimal> hours) {}
+
+    /**
+     * Clasifica los horarios solo en [from, to] y devuelve el resultado por empleado y fecha,
+     * ordenado por empleado y fecha (sin las fechas sin horas). Se construye un solo contexto.
+     * {@code daysInRange} sigue el criterio de {@link #classifyScheduleDate}: por scheduleId, los
+     * días del rango con sus bloques (lista vacía si el horario tiene días pero ninguno en el rango);
+     * los horarios que no están en el mapa se toman por su rango de fechas y turno.
+     */
+    public List<DayHours> classifyPeriodByDate(List<EmployeeSchedule> schedules, LocalDate from, LocalDate to,
+                                               Map<Long, List<EmployeeScheduleDay>> daysInRange) {
+        return timed("period", () -> classifyPeriod(schedules, from, to, daysInRange));
+    }
+
+    private List<DayHours> classifyPeriod(List<EmployeeSchedule> schedules, LocalDate from, LocalDate to,
+                                          Map<Long, List<EmployeeScheduleDay>> daysInRange) {
+        if (schedules == null || schedules.isEmpty() || from == null || to == null || to.isBefore(from)) {
+            return new ArrayList<>();
+        }
+
+        IdentityHashMap<EmployeeSchedule, List<LocalDate>> datesBySchedule = new IdentityHashMap<>();
+        IdentityHashMap<EmployeeSchedule, List<EmployeeScheduleDay>> daysBySchedule = new IdentityHashMap<>();
+        for (EmployeeSchedule schedule : schedules) {
+            List<EmployeeScheduleDay> days = daysInRange.get(schedule.getId());
+            datesBySchedule.put(schedule, datesInRange(schedule, days, from, to));
+            daysBySchedule.put(schedule, days != null ? days : Collections.emptyList());
+        }
+
+        Map<EmployeeDay, HourAccumulator> byDay = new HashMap<>();
+        ClassificationContext context = newContext(datesBySchedule, daysBySchedule, null);
+        accumulate(schedules, context, (schedule, date, start, end) ->
+                byDay.computeIfAbsent(new EmployeeDay(schedule.getEmployeeId(), date), k -> new HourAccumulator()));
+
+        List<EmployeeDay> keys = new ArrayList<>(byDay.keySet());
+        keys.sort(Comparator.comparing(EmployeeDay::employeeId, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(EmployeeDay::date));
+        List<DayHours> result = new ArrayList<>(keys.size());
+        for (EmployeeDay key : keys) {
+            HourAccumulator accumulator = byDay.get(key);
+            if (accumulator.isEmpty()) continue;
+            result.add(new DayHours(key.employeeId(), key.date(), accumulator.toMap(context.getAvailableTypes())));
+        }
+        return result;
+    }
+
+    // Fechas del horario dentro de [from, to], con el mismo criterio de cobertura que getDatesToProcess
+    private List<LocalDate> datesInRange(EmployeeSchedule schedule, List<EmployeeScheduleDay> days,
+                                         LocalDate from, LocalDate to) {
+        LocalDate start = schedule.getStartDate();
+        if (start == null) return Collections.emptyList();
+
+        List<LocalDate> dates = new ArrayList<>();
+        if (ScheduleExpansionService.isCompact(schedule)) {
+            Set<LocalDate> removed = new HashSet<>();
+            if (days != null) {
+                for (EmployeeScheduleDay day : days) {
+                    if (day.getTimeBlocks().isEmpty()) removed.add(convertToLocalDate(day.getDate()));
+                }
+            }
+            LocalDate end = compactEnd(schedule, to);
+            for (LocalDate date = later(start, from); !date.isAfter(earlier(end, to)); date = date.plusDays(1)) {
+                if (!removed.contains(date)) dates.add(date);
+            }
+        } else if (days != null) {
+            TreeSet<LocalDate> sorted = new TreeSet<>();
+            for (EmployeeScheduleDay day : days) {
+                LocalDate date = convertToLocalDate(day.getDate());
+                if (date != null && !date.isBefore(from) && !date.isAfter(to)) sorted.add(date);
+            }
+            dates.addAll(sorted);
+        } else {
+            LocalDate end = (schedule.getEndDate() != null) ? schedule.getEndDate() : start;
+            for (LocalDate date = later(start, from); !date.isAfter(earlier(end, to)); date = date.plusDays(1)) {
+                dates.add(date);
+            }
+        }
+        return dates;
+    }
+
+    /** Horas de un bloque (rango en minutos, como está configurado) por código de tipo. */
+    public record BlockHours(int startMinutes, int endMinutes, Map<String, BigDecimal> hours) {
+        public BigDecimal totalHours() {
+            return hours.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+    }
+
+    /**
+     * Un día clasificado de un horario: sus bloques con las horas por tipo y los datos con que se
+     * clasificó (festivo, excepción). Los bloques suman lo mismo que la clasificación completa en esa fecha.
+     */
+    public record DayBreakdown(Long scheduleId, Long employeeId, String shiftName, LocalDate date,
+                               boolean holiday, String holidayName, boolean exempt, String exemptionReason,
+                               List<BlockHours> blocks) {
+
+        public Map<String, BigDecimal> hours() {
+            Map<String, BigDecimal> total = new HashMap<>();
+            for (BlockHours block : blocks) {
+                block.hours().forEach((type, hours) -> total.merge(type, hours, BigDecimal::add));
+            }
+            return total;
+        }
+
+        public BigDecimal totalHours() {
+            BigDecimal total = BigDecimal.ZERO;
+            for (BlockHours block : blocks) total = total.add(block.totalHours());
+            return total;
+        }
+
+        /** Tipo con más horas del día, o null si no tiene horas. */
+        public String mainType() {
+            return hours().entrySet().stream()
+                    .filter(e -> e.getValue().signum() > 0)
+                    .max(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey)
+                    .orElse(null);
+        }
+    }
+
+    /**
+     * Clasificación por fecha y por bloque en una sola pasada (un contexto, un recorrido de los
+     * rangos), para los desgloses diarios. {@code from}/{@code to} opcionales limitan las fechas;
+     * como cada día se clasifica solo con los horarios del mismo empleado ese día, limitar no
+     * cambia el resultado de los días que quedan. Ordenado por fecha y scheduleId.
+     */
+    public List<DayBreakdown> classifyBreakdown(List<EmployeeSchedule> schedules, LocalDate from, LocalDate to) {
+        return timed("breakdown", () -> breakdown(schedules, from, to));
+    }
+
+    private List<DayBreakdown> breakdown(List<EmployeeSchedule> schedules, LocalDate from, LocalDate to) {
+        if (schedules == null || schedules.isEmpty()) return new ArrayList<>();
+
+        IdentityHashMap<EmployeeSchedule, List<LocalDate>> datesBySchedule = new IdentityHashMap<>();
+        for (EmployeeSchedule schedule : schedules) {
+            List<LocalDate> dates = getDatesToProcess(schedule, to);
+            if (from != null || to != null) {
+                dates = dates.stream()
+                        .filter(d -> (from == null || !d.isBefore(from)) && (to == null || !d.isAfter(to)))
+                        .collect(Collectors.toList());
+            }
+            datesBySchedule.put(schedule, dates);
+        }
+        ClassificationContext context = newContext(datesBySchedule, null, null);
+
+        // Un acumulador por rango, agrupados por horario y fecha
+        IdentityHashMap<EmployeeSchedule, Map<LocalDate, List<RangeHours>>> rangesBySchedule = new IdentityHashMap<>();
+        accumulate(schedules, context, (schedule, date, start, end) -> {
+            RangeHours range = new RangeHours(start, end, new HourAccumulator());
+            rangesBySchedule.computeIfAbsent(schedule, k -> new TreeMap<>())
+                    .computeIfAbsent(date, k -> new ArrayList<>())
+                    .add(range);
+            return range.accumulator();
+        });
+
+        List<DayBreakdown> result = new ArrayList<>();
+        for (EmployeeSchedule schedule : schedules) {
+            Map<LocalDate, List<RangeHours>> byDate = rangesBySchedule.get(schedule);
+            if (byDate == null) continue;
+            ShiftTemplate template = shiftTemplateCache.get(schedule.getShift());
+            String shiftName = template != null ? template.name() : null;
+            Long employeeId = schedule.getEmployeeId();
+
+            for (Map.Entry<LocalDate, List<RangeHours>> entry : byDate.entrySet()) {
+                LocalDate date = entry.getKey();
+                List<BlockHours> blocks = new ArrayList<>(entry.getValue().size());
+                for (RangeHours range : entry.getValue()) {
+                    blocks.add(new BlockHours(range.start(), range.end(),
+                            range.accumulator().toMap(context.getAvailableTypes())));
+                }
+                boolean exempt = context.hasExemption(employeeId, date);
+                result.add(new DayBreakdown(schedule.getId(), employeeId, shiftName, date,
+                        context.isHoliday(date), context.getHolidayName(date),
+                        exempt, exempt ? context.getExemptionReason(employeeId, date) : null, blocks));
+            }
+        }
+        result.sort(Comparator.comparing(DayBreakdown::date)
+                .thenComparing(DayBreakdown::scheduleId, Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    private record RangeHours(int start, int end, HourAccumulator accumulator) {}
+
+    private static LocalDate later(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDate earlier(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private ClassificationContext newContext(IdentityHashMap<EmployeeSchedule, List<LocalDate>> datesBySchedule,
+                                             IdentityHashMap<EmployeeSchedule, List<EmployeeScheduleDay>> daysBySchedule,
+                                             LocalDate extraDate) {
+        Set<Long> employeeIds = new HashSet<>();
+        LocalDate minDate = extraDate;
+        LocalDate maxDate = extraDate;
+
+        for (Map.Entry<EmployeeSchedule, List<LocalDate>> entry : datesBySchedule.entrySet()) {
+            List<LocalDate> dates = entry.getValue();
+            if (entry.getKey().getEmployeeId() != null) {
+                employeeIds.add(entry.getKey().getEmployeeId());
+            }
+            if (!dates.isEmpty()) {
+                LocalDate first = dates.get(0);
+                LocalDate last = dates.get(dates.size() - 1);
+                if (minDate == null || first.isBefore(minDate)) minDate = first;
+                if (maxDate == null || last.isAfter(maxDate)) maxDate = last;
+            }
+        }
+
+        return new ClassificationContext(
+                getNightStartMinutesSafe(),
+                getWeeklyLimitSafe(),
+                getHolidayCalendarSafe(),
+                getAvailableTypesSafe(),
+                getExemptionIndexSafe(employeeIds, minDate, maxDate),
+                datesBySchedule,
+                daysBySchedule
+        );
+    }
+
 
     // MÉTODOS SEGUROS para configuración
     private int getNightStartMinutesSafe() {
@@ -394,12 +693,22 @@ public class HourClassificationService {
         }
     }
 
-    private Set<LocalDate> getHolidayDatesSafe() {
+    private HolidayCalendar.Snapshot getHolidayCalendarSafe() {
         try {
-            return getHolidayDates();
+            return holidayCalendar.snapshot();
         } catch (Exception e) {
             System.err.println("Error obteniendo festivos, usando lista vacía: " + e.getMessage());
-            return Collections.emptySet();
+            return HolidayCalendar.Snapshot.EMPTY;
+        }
+    }
+
+    private Map<Long, Map<LocalDate, String>> getExemptionIndexSafe(Set<Long> employeeIds,
+                                                                   LocalDate start, LocalDate end) {
+        try {
+            return holidayExemptionService.getExemptionIndex(employeeIds, start, end);
+        } catch (Exception e) {
+            System.err.println("Error obteniendo excepciones, usando índice vacío: " + e.getMessage());
+            return Collections.emptyMap();
         }
     }
 
@@ -413,145 +722,125 @@ public class HourClassificationService {
     }
 
 
+    /**
+     * Núcleo de la clasificación: trabaja en minutos enteros y acumula en {@link HourAccumulator};
+     * los códigos de tipo y los BigDecimal se resuelven una sola vez al final.
+     * Las trazas por rango solo se generan con el logger de esta clase en TRACE.
+     */
     private Map<String, BigDecimal> processSchedulesDirectly(List<EmployeeSchedule> schedules,
-                                                             int nightStartMinutes,
-                                                             BigDecimal weeklyLimit,
-                                                             Set<LocalDate> holidays,
-                                                             Map<String, OvertimeTypeDTO> availableTypes) {
+                                                             ClassificationContext context) {
+        HourAccumulator accumulator = new HourAccumulator();
+        accumulate(schedules, context, (schedule, date, start, end) -> accumulator);
+        return accumulator.toMap(context.getAvailableTypes());
+    }
 
-        Map<String, BigDecimal> result = new HashMap<>();
-        Map<String, Set<Long>> schedulesPerEmployeeDay = new HashMap<>();
+    /** Acumulador donde se suma un rango (minutos tal como están configurados) de un horario en una fecha. */
+    @FunctionalInterface
+    private interface RangeTarget {
+        HourAccumulator get(EmployeeSchedule schedule, LocalDate date, int startMinutes, int endMinutes);
+    }
+
+    /** Recorre los rangos y suma cada uno en el acumulador que devuelve {@code target}. */
+    private void accumulate(List<EmployeeSchedule> schedules, ClassificationContext context,
+                            RangeTarget target) {
+
+        int nightStartMinutes = context.getNightStartMinutes();
+
+        // Rangos de cada horario por fecha (alineados con context.getDates), calculados una vez
+        List<int[][]> rangesBySchedule = new ArrayList<>(schedules.size());
+        // Menor scheduleId con horas por empleado y día: los demás horarios ese día son extra
+        Map<EmployeeDay, Long> firstSchedulePerEmployeeDay = new HashMap<>();
 
         for (EmployeeSchedule schedule : schedules) {
             Long employeeId = schedule.getEmployeeId();
             Long scheduleId = schedule.getId();
-            List<LocalDate> dates = getDatesToProcess(schedule);
-
-            for (LocalDate date : dates) {
-                List<int[]> timeRanges = getTimeRangesForDateSimple(schedule, date);
-                if (!timeRanges.isEmpty()) {
-                    String employeeDayKey = employeeId + "-" + date.toString();
-                    Set<Long> existingSchedules = schedulesPerEmployeeDay.getOrDefault(employeeDayKey, new HashSet<>());
-                    existingSchedules.add(scheduleId);
-                    schedulesPerEmployeeDay.put(employeeDayKey, existingSchedules);
+            List<LocalDate> dates = context.getDates(schedule);
+            ScheduleRanges scheduleRanges = new ScheduleRanges(schedule, context.getDays(schedule));
+            int[][] rangesByDate = new int[dates.size()][];
+
+            for (int d = 0; d < dates.size(); d++) {
+                int[] ranges = scheduleRanges.forDate(dates.get(d));
+                rangesByDate[d] = ranges;
+                if (ranges.length > 0 && scheduleId != null) {
+                    firstSchedulePerEmployeeDay.merge(new EmployeeDay(employeeId, dates.get(d)), scheduleId,
+                            (a, b) -> a.compareTo(b) <= 0 ? a : b);
                 }
             }
+            rangesBySchedule.add(rangesByDate);
         }
 
-        for (EmployeeSchedule schedule : schedules) {
+        for (int s = 0; s < schedules.size(); s++) {
+            EmployeeSchedule schedule = schedules.get(s);
             Long employeeId = schedule.getEmployeeId();
             Long scheduleId = schedule.getId();
-            List<LocalDate> dates = getDatesToProcess(schedule);
+            List<LocalDate> dates = context.getDates(schedule);
+            int[][] rangesByDate = rangesBySchedule.get(s);
 
-            for (LocalDate date : dates) {
-                int dayOfWeek = date.getDayOfWeek().getValue();
-                boolean isHoliday = holidays.contains(date);
-                boolean isSunday = (dayOfWeek == 7);
+            for (int d = 0; d < dates.size(); d++) {
+                int[] ranges = rangesByDate[d];
+                if (ranges.length == 0) continue;
 
-                boolean hasExemption = checkHolidayExemption(employeeId, date);
+                if (classifiedDays != null) classifiedDays.increment();
+                LocalDate date = dates.get(d);
+                boolean isHoliday = context.isHoliday(date);
+                boolean isSunday = date.getDayOfWeek().getValue() == 7;
+
+                boolean hasExemption = context.hasExemption(employeeId, date);
                 String exemptionReason = hasExemption ?
-                        holidayExemptionService.getExemptionReason(employeeId, date) : null;
+                        context.getExemptionReason(employeeId, date) : null;
 
                 if (hasExemption && exemptionReason != null &&
                         (exemptionReason.contains("NO_TRABAJAR") || exemptionReason.contains("DIA_LIBRE"))) {
                     continue;
                 }
 
-                String employeeDayKey = employeeId + "-" + date.toString();
-                Set<Long> schedulesInDate = schedulesPerEmployeeDay.getOrDefault(employeeDayKey, new HashSet<>());
-                List<Long> sortedSchedules = schedulesInDate.stream().sorted().collect(Collectors.toList());
-                boolean isOverlapExtra = sortedSchedules.size() > 1 && !sortedSchedules.get(0).equals(scheduleId);
-
-                List<int[]> timeRanges = getTimeRangesForDateSimple(schedule, date);
-                if (timeRanges.isEmpty()) continue;
-
-                for (int[] range : timeRanges) {
-                    System.out.println("Processing: Employee=" + employeeId +
-                            " Date=" + date +
-                            " ScheduleId=" + scheduleId +
-                            " Range=" + range[0] + "-" + range[1] +
-                            " IsHoliday=" + isHoliday);
-                    int startMinutes = range[0];
-                    int endMinutes = range[1];
-                    int[] split = splitDayNightSimple(startMinutes, endMinutes, nightStartMinutes);
-                    int dayMinutes = split[0];
-                    int nightMinutes = split[1];
-
-                    // ✅ FIX: Procesar horas normalmente (diurnas y nocturnas)
-                    if (dayMinutes > 0) {
-                        processHoursSegment(employeeId, scheduleId, date, dayMinutes, false,
-                                isHoliday, isSunday, hasExemption, exemptionReason, isOverlapExtra,
-                                availableTypes, result);
-                    }
+                Long firstSchedule = firstSchedulePerEmployeeDay.get(new EmployeeDay(employeeId, date));
+                boolean isOverlapExtra = firstSchedule != null && !firstSchedule.equals(scheduleId);
+                HourBaseType type = determineHourType(isHoliday, isSunday, hasExemption, exemptionReason, isOverlapExtra);
 
-                    if (nightMinutes > 0) {
-                        processHoursSegment(employeeId, scheduleId, date, nightMinutes, true,
-                                isHoliday, isSunday, hasExemption, exemptionReason, isOverlapExtra,
-                                availableTypes, result);
+                for (int i = 0; i < ranges.length; i += 2) {
+                    int startMinutes = ranges[i];
+                    int endMinutes = ranges[i + 1];
+                    int totalMinutes = totalMinutes(startMinutes, endMinutes);
+                    int nightMinutes = nightMinutes(startMinutes, endMinutes, nightStartMinutes);
+                    HourAccumulator accumulator = target.get(schedule, date, startMinutes, endMinutes);
+
+                    if (log.isTraceEnabled()) {
+                        log.trace("Procesando: empleado={} fecha={} scheduleId={} rango={}-{} festivo={} tipo={}",
+                                employeeId, date, scheduleId, startMinutes, endMinutes, isHoliday, type);
                     }
+
+                    // Procesar horas normalmente (diurnas y nocturnas)
+                    accumulator.add(type, false, totalMinutes - nightMinutes);
+                    accumulator.add(type, true, nightMinutes);
                 }
             }
         }
-
-        return result;
     }
-    private void processHoursSegment(Long employeeId, Long scheduleId, LocalDate date, int minutes, boolean isNight,
-                                     boolean isHoliday, boolean isSunday, boolean hasExemption, String exemptionReason,
-                                     boolean isOverlapExtra, Map<String, OvertimeTypeDTO> availableTypes,
-                                     Map<String, BigDecimal> result) {
-
-        BigDecimal segmentHours = BigDecimal.valueOf(minutes).divide(BigDecimal.valueOf(60), 2, RoundingMode.HALF_UP);
-        String typeCode = determineHourTypeSimple(isNight, isHoliday, isSunday, hasExemption,
-                exemptionReason, isOverlapExtra, availableTypes);
 
-        if (typeCode != null) {
-            result.merge(typeCode, segmentHours, BigDecimal::add);
-
-        } else {
+    // Duración de cada punto de entrada, etiquetada por operación (day/date/period/schedule/groups/breakdown)
+    private <T> T timed(String operation, Supplier<T> body) {
+        if (meterRegistry == null) return body.get();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return body.get();
+        } finally {
+            sample.stop(Timer.builder("schedule.classification")
+                    .description("Duración de la clasificación de horas")
+                    .tag("operation", operation)
+                    .register(meterRegistry));
         }
     }
 
-    // REEMPLAZAR COMPLETO el método determineHourTypeSimple
-    private String determineHourTypeSimple(boolean isNight, boolean isHoliday, boolean isSunday,
-                                           boolean hasExemption, String exemptionReason, boolean isExtra,
-                                           Map<String, OvertimeTypeDTO> availableTypes) {
+    private record EmployeeDay(Long employeeId, LocalDate date) {
+    }
+
+    private HourBaseType determineHourType(boolean isHoliday, boolean isSunday,
+                                           boolean hasExemption, String exemptionReason, boolean isExtra) {
+        // Festivo sin recargo: cuenta como regular (o extra) aunque caiga en domingo
         if (isHoliday && hasExemption && "NO_APLICAR_RECARGO".equals(exemptionReason)) {
-            String baseType = isExtra ? "EXTRA" : "REGULAR";
-            String result = findBestMatch(baseType, isNight, availableTypes);
-            return result;
-        }
-        String result;
-        if (isExtra) {
-            if (isHoliday && isSunday) {
-                String baseType = "EXTRA_FESTIVO_DOMINICAL";
-                result = findBestMatch(baseType, isNight, availableTypes);
-            } else if (isHoliday) {
-                String baseType = "EXTRA_FESTIVO";
-                result = findBestMatch(baseType, isNight, availableTypes);
-            } else if (isSunday) {
-                String baseType = "EXTRA_DOMINICAL";
-                result = findBestMatch(baseType, isNight, availableTypes);
-            } else {
-                // ✅ HORAS EXTRAS NORMALES (las nocturnas del segundo turno)
-                String baseType = "EXTRA";
-                result = findBestMatch(baseType, isNight, availableTypes);
-            }
-        } else {
-            if (isHoliday && isSunday) {
-                String baseType = "FESTIVO_DOMINICAL";
-                result = findBestMatch(baseType, isNight, availableTypes);
-            } else if (isHoliday) {
-                String baseType = "FESTIVO";
-                result = findBestMatch(baseType, isNight, availableTypes);
-            } else if (isSunday) {
-                String baseType = "DOMINICAL";
-                result = findBestMatch(baseType, isNight, availableTypes);
-            } else {
-                String baseType = "REGULAR";
-                result = findBestMatch(baseType, isNight, availableTypes);
-            }
+            return isExtra ? HourBaseType.EXTRA : HourBaseType.REGULAR;
         }
-        return result;
+        return HourBaseType.of(isExtra, isHoliday, isSunday);
     }
-
-}
\ No newline at end of file
+}
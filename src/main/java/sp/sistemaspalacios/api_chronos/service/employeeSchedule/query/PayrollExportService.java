@@ -0,0 +1,284 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.query;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleTimeBlock;
+import sp.sistemaspalacios.api_chronos.entity.shift.Shifts;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.overtime.HourClassificationService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.overtime.HourClassificationService.DayHours;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Exportación de horas clasificadas para nómina: una fila por empleado, fecha y tipo de hora,
+ * en CSV o NDJSON, escrita directo a la respuesta.
+ * - Los horarios, días y bloques del período se leen con un cursor del servidor (fetch size en
+ *   una transacción de solo lectura), ordenados por empleado.
+ * - Cada {@code export.payroll.batch-employees} empleados se clasifican con un solo contexto, se
+ *   escriben sus filas y se hace flush; la memoria no depende del tamaño del período ni del total
+ *   de empleados.
+ * El resultado por fecha es el de {@link HourClassificationService#classifyPeriodByDate}.
+ */
+@Slf4j
+@Service
+public class PayrollExportService {
+
+    public enum Format {
+        CSV("text/csv"), NDJSON("application/x-ndjson");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public static Format of(String value) {
+            if (value == null || value.isBlank()) return CSV;
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Formato no soportado: " + value + " (csv o ndjson)");
+            }
+        }
+    }
+
+    private static final String CSV_HEADER = "employeeId,date,hourType,hours\n";
+
+    // Rango de días en el ON: los horarios sin días en el período siguen saliendo (una fila con nulos)
+    private static final String ROWS_SQL =
+            "SELECT es.id, es.employee_id, es.shift_id, es.start_date, es.end_date, es.compact, " +
+                    "       EXISTS (SELECT 1 FROM employee_schedule_days x WHERE x.employee_schedule_id = es.id) AS has_days, " +
+                    "       d.id AS day_id, d.date, tb.start_time, tb.end_time " +
+                    "FROM employee_schedules es " +
+                    "JOIN shifts s ON s.id = es.shift_id " +
+                    "LEFT JOIN employee_schedule_days d ON d.employee_schedule_id = es.id AND d.date BETWEEN ? AND ? " +
+                    "LEFT JOIN employee_schedule_time_blocks tb ON tb.employee_schedule_day_id = d.id " +
+                    "WHERE es.start_date <= ? AND (es.end_date IS NULL OR es.end_date >= ?) " +
+                    "AND (CAST(? AS BIGINT) IS NULL OR s.dependency_id = ?) " +
+                    "ORDER BY es.employee_id, es.id, d.date, d.id, tb.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final HourClassificationService hourClassificationService;
+    private final int fetchSize;
+    private final int batchEmployees;
+
+    public PayrollExportService(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                HourClassificationService hourClassificationService,
+                                @Value("${export.payroll.fetch-size:2000}") int fetchSize,
+                                @Value("${export.payroll.batch-employees:200}") int batchEmployees) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.hourClassificationService = hourClassificationService;
+        this.fetchSize = Math.max(1, fetchSize);
+        this.batchEmployees = Math.max(1, batchEmployees);
+    }
+
+    /** Valida los parámetros antes de empezar a escribir (después ya no se puede cambiar el status). */
+    public void validate(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("startDate y endDate son obligatorios");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("endDate no puede ser anterior a startDate");
+        }
+    }
+
+    /** Escribe la exportación en {@code out}. No cierra el stream. */
+    public void export(LocalDate from, LocalDate to, Long dependencyId, Format format, OutputStream out) throws IOException {
+        validate(from, to);
+        long start = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.CSV) writer.write(CSV_HEADER);
+        writer.flush();
+
+        Batch batch = new Batch(from, to, format, writer);
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(ROWS_SQL,
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(fetchSize);
+                    ps.setDate(1, java.sql.Date.valueOf(from));
+                    ps.setDate(2, java.sql.Date.valueOf(to));
+                    ps.setDate(3, java.sql.Date.valueOf(to));
+                    ps.setDate(4, java.sql.Date.valueOf(from));
+                    ps.setObject(5, dependencyId, java.sql.Types.BIGINT);
+                    ps.setObject(6, dependencyId, java.sql.Types.BIGINT);
+                    return ps;
+                }, batch);
+                batch.flush();
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+
+        log.info("Exportación de nómina {}..{} (dependencia {}): {} empleados, {} filas en {} ms",
+                from, to, dependencyId, batch.employeeCount, batch.rowCount, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // ===== INTERNOS =====
+
+    /** Acumula las filas del cursor por empleado y clasifica/escribe cada lote. */
+    private final class Batch implements RowCallbackHandler {
+        private final LocalDate from;
+        private final LocalDate to;
+        private final Format format;
+        private final Writer writer;
+
+        private final List<EmployeeSchedule> schedules = new ArrayList<>();
+        private final Map<Long, List<EmployeeScheduleDay>> daysBySchedule = new HashMap<>();
+        private final Map<Long, Shifts> shiftRefs = new HashMap<>();
+        private int employeesInBatch;
+        private boolean started;
+        private Long currentEmployee;
+        private EmployeeSchedule currentSchedule;
+        private EmployeeScheduleDay currentDay;
+
+        long employeeCount;
+        long rowCount;
+
+        Batch(LocalDate from, LocalDate to, Format format, Writer writer) {
+            this.from = from;
+            this.to = to;
+            this.format = format;
+            this.writer = writer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long scheduleId = rs.getLong(1);
+            Long employeeId = rs.getObject(2, Long.class);
+
+            // Un empleado nunca queda partido entre dos lotes
+            if (!started || !Objects.equals(employeeId, currentEmployee)) {
+                if (employeesInBatch >= batchEmployees) flush();
+                started = true;
+                currentEmployee = employeeId;
+                employeesInBatch++;
+                employeeCount++;
+            }
+
+            if (currentSchedule == null || currentSchedule.getId() != scheduleId) {
+                currentSchedule = new EmployeeSchedule();
+                currentSchedule.setId(scheduleId);
+                currentSchedule.setEmployeeId(employeeId);
+                // Solo la referencia: el turno compilado sale de ShiftTemplateCache por ID
+                currentSchedule.setShift(shiftRefs.computeIfAbsent(rs.getLong(3), id -> {
+                    Shifts shift = new Shifts();
+                    shift.setId(id);
+                    return shift;
+                }));
+                currentSchedule.setStartDate(rs.getObject(4, LocalDate.class));
+                currentSchedule.setEndDate(rs.getObject(5, LocalDate.class));
+                currentSchedule.setCompact(rs.getBoolean(6));
+                schedules.add(currentSchedule);
+                currentDay = null;
+                if (rs.getBoolean(7) || Boolean.TRUE.equals(currentSchedule.getCompact())) {
+                    daysBySchedule.put(scheduleId, new ArrayList<>());
+                }
+            }
+
+            long dayId = rs.getLong(8);
+            if (rs.wasNull()) return;
+            if (currentDay == null || currentDay.getId() != dayId) {
+                LocalDate date = rs.getObject(9, LocalDate.class);
+                currentDay = new EmployeeScheduleDay();
+                currentDay.setId(dayId);
+                currentDay.setDate(java.sql.Date.valueOf(date));
+                currentDay.setDayOfWeek(date.getDayOfWeek().getValue());
+                daysBySchedule.computeIfAbsent(scheduleId, k -> new ArrayList<>()).add(currentDay);
+            }
+            java.sql.Time startTime = rs.getTime(10);
+            java.sql.Time endTime = rs.getTime(11);
+            if (startTime != null && endTime != null) {
+                EmployeeScheduleTimeBlock block = new EmployeeScheduleTimeBlock();
+                block.setStartTime(startTime);
+                block.setEndTime(endTime);
+                currentDay.getTimeBlocks().add(block);
+            }
+        }
+
+        void flush() {
+            if (schedules.isEmpty()) return;
+            try {
+                for (DayHours day : hourClassificationService.classifyPeriodByDate(schedules, from, to, daysBySchedule)) {
+                    for (Map.Entry<String, BigDecimal> entry : new TreeMap<>(day.hours()).entrySet()) {
+                        if (entry.getValue().signum() == 0) continue;
+                        writeRow(day.employeeId(), day.date(), entry.getKey(), entry.getValue());
+                        rowCount++;
+                    }
+                }
+                writer.flush();
+            } catch (IOException e) {
+                // El cliente cortó la descarga: se corta también el cursor
+                throw new UncheckedIOException(e);
+            }
+            schedules.clear();
+            daysBySchedule.clear();
+            employeesInBatch = 0;
+            currentSchedule = null;
+            currentDay = null;
+        }
+
+        private void writeRow(Long employeeId, LocalDate date, String type, BigDecimal hours) throws IOException {
+            if (format == Format.CSV) {
+                writer.write(String.valueOf(employeeId));
+                writer.write(',');
+                writer.write(date.toString());
+                writer.write(',');
+                writer.write(csv(type));
+                writer.write(',');
+                writer.write(hours.toPlainString());
+                writer.write('\n');
+            } else {
+                writer.write("{\"employeeId\":");
+                writer.write(String.valueOf(employeeId));
+                writer.write(",\"date\":\"");
+                writer.write(date.toString());
+                writer.write("\",\"hourType\":\"");
+                writer.write(json(type));
+                writer.write("\",\"hours\":");
+                writer.write(hours.toPlainString());
+                writer.write("}\n");
+            }
+        }
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -11,6 +11,7 @@ import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleD
 import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleTimeBlock;
 import sp.sistemaspalacios.api_chronos.entity.shift.Shifts;
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.core.EmployeeDataService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.time.ScheduleExpansionService;
 
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
@@ -25,6 +26,7 @@ public class ScheduleMappingService {
 
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
     private final EmployeeDataService employeeDataService;
+    private final ScheduleExpansionService scheduleExpansionService;
 
 
 
@@ -76,8 +78,14 @@ public class ScheduleMappingService {
         Map<String, Object> daysMap = new HashMap<>();
         daysMap.put("id", schedule.getDaysParentId());
 
-        if (schedule.getDays() != null && !schedule.getDays().isEmpty()) {
-            List<Map<String, Object>> dayItems = schedule.getDays().stream()
+        // Compactos: días guardados + los generados del patrón (sin ID)
+        List<EmployeeScheduleDay> days = ScheduleExpansionService.isCompact(schedule)
+                ? scheduleExpansionService.expand(schedule, schedule.getDays())
+                : schedule.getDays();
+        daysMap.put("compact", ScheduleExpansionService.isCompact(schedule));
+
+        if (days != null && !days.isEmpty()) {
+            List<Map<String, Object>> dayItems = days.stream()
                     .sorted(Comparator.comparing(EmployeeScheduleDay::getDate))
                     .map(this::convertDayToMap)
                     .collect(Collectors.toList());
@@ -95,6 +103,7 @@ public class ScheduleMappingService {
         dayMap.put("id", day.getId());
         dayMap.put("date", formatDate(day.getDate()));
         dayMap.put("dayOfWeek", day.getDayOfWeek());
+        if (day.getId() == null) dayMap.put("generated", true);
 
         // TimeBlocks - CRÍTICO para el frontend
         if (day.getTimeBlocks() != null && !day.getTimeBlocks().isEmpty()) {
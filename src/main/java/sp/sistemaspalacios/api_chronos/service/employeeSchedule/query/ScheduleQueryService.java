@@ -6,10 +6,9 @@ import sp.sistemaspalacios.api_chronos.dto.employee.EmployeeResponse;
 import sp.sistemaspalacios.api_chronos.dto.employee.EmployeeScheduleDTO;
 import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
 import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
-import sp.sistemaspalacios.api_chronos.entity.shift.Shifts;
 import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.EmployeeScheduleRepository;
-import sp.sistemaspalacios.api_chronos.repository.shift.ShiftsRepository;
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.core.EmployeeDataService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.time.ScheduleExpansionService;
 
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
@@ -23,9 +22,12 @@ import java.util.stream.Collectors;
 public class ScheduleQueryService {
 
     private final EmployeeScheduleRepository employeeScheduleRepository;
-    private final ShiftsRepository shiftsRepository;
     private final ScheduleMappingService scheduleMappingService;
     private final EmployeeDataService employeeDataService;
+    private final ScheduleExpansionService scheduleExpansionService;
+
+    // Máximo de IDs por consulta IN al cargar días
+    private static final int DAYS_QUERY_CHUNK = 1000;
 
     private static final DateTimeFormatter ISO_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter ISO_TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
@@ -120,26 +122,26 @@ public class ScheduleQueryService {
         try {
             List<EmployeeSchedule> schedules;
 
+            // Horarios con su turno en una sola consulta
             if (shiftId != null) {
-                schedules = employeeScheduleRepository.findByShiftId(shiftId);
-
+                schedules = employeeScheduleRepository.findByShiftIdWithShift(shiftId);
             } else {
-                // Obtener todos los shifts que pertenecen a esta dependencia
-                List<Shifts> dependencyShifts = shiftsRepository.findByDependencyId(dependencyId);
-                if (dependencyShifts.isEmpty()) {
-                    return Collections.emptyList();
-                }
-                List<Long> shiftIds = dependencyShifts.stream()
-                        .map(Shifts::getId)
-                        .collect(Collectors.toList());
-                schedules = employeeScheduleRepository.findByShiftIdIn(shiftIds);
+                schedules = employeeScheduleRepository.findByDependencyIdWithShift(dependencyId);
+            }
+
+            if (schedules.isEmpty()) {
+                return Collections.emptyList();
             }
 
             if (startDate != null || endDate != null || startTime != null) {
                 schedules = applyAdditionalFilters(schedules, startDate, endDate, startTime);
             }
 
-            return groupSchedulesByShift(schedules);
+            // Días y bloques de todos los horarios en consultas por lotes, no una por empleado
+            Map<Long, List<EmployeeScheduleDay>> daysBySchedule = loadDaysBySchedule(schedules);
+            expandCompactSchedules(schedules, daysBySchedule, startDate, endDate);
+
+            return groupSchedulesByShift(schedules, daysBySchedule);
 
         } catch (Exception e) {
             System.err.println("Error en consulta de dependencia: " + e.getMessage());
@@ -175,7 +177,42 @@ public class ScheduleQueryService {
                 .collect(Collectors.toList());
     }
 
-    private List<Map<String, Object>> groupSchedulesByShift(List<EmployeeSchedule> schedules) {
+    private Map<Long, List<EmployeeScheduleDay>> loadDaysBySchedule(List<EmployeeSchedule> schedules) {
+        List<Long> scheduleIds = schedules.stream()
+                .map(EmployeeSchedule::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        Map<Long, List<EmployeeScheduleDay>> daysBySchedule = new HashMap<>();
+        for (int from = 0; from < scheduleIds.size(); from += DAYS_QUERY_CHUNK) {
+            List<Long> chunk = scheduleIds.subList(from, Math.min(from + DAYS_QUERY_CHUNK, scheduleIds.size()));
+            try {
+                for (EmployeeScheduleDay day : employeeScheduleRepository.findDaysWithTimeBlocksByScheduleIds(chunk)) {
+                    daysBySchedule.computeIfAbsent(day.getEmployeeSchedule().getId(), k -> new ArrayList<>()).add(day);
+                }
+            } catch (Exception e) {
+                System.err.println("Error cargando días de horarios: " + e.getMessage());
+            }
+        }
+        return daysBySchedule;
+    }
+
+    // Compactos: los días cargados son solo los guardados; se completan con el patrón en el rango pedido
+    private void expandCompactSchedules(List<EmployeeSchedule> schedules,
+                                        Map<Long, List<EmployeeScheduleDay>> daysBySchedule,
+                                        LocalDate startDate, LocalDate endDate) {
+        for (EmployeeSchedule schedule : schedules) {
+            if (!ScheduleExpansionService.isCompact(schedule) || schedule.getStartDate() == null) continue;
+            LocalDate from = startDate != null ? startDate : schedule.getStartDate();
+            LocalDate to = endDate != null ? endDate : scheduleExpansionService.windowEnd(schedule);
+            List<EmployeeScheduleDay> stored = daysBySchedule.getOrDefault(schedule.getId(), Collections.emptyList());
+            daysBySchedule.put(schedule.getId(), scheduleExpansionService.expand(schedule, stored, from, to));
+        }
+    }
+
+    private List<Map<String, Object>> groupSchedulesByShift(List<EmployeeSchedule> schedules,
+                                                            Map<Long, List<EmployeeScheduleDay>> daysBySchedule) {
         // Agrupar schedules por shift ID
         Map<Long, List<EmployeeSchedule>> schedulesByShift = schedules.stream()
                 .collect(Collectors.groupingBy(
@@ -184,6 +221,14 @@ public class ScheduleQueryService {
 
         List<Map<String, Object>> result = new ArrayList<>();
 
+        // Datos de todos los empleados en una sola pasada (no una llamada HTTP por empleado)
+        Map<Long, EmployeeResponse> employeesById = employeeDataService.getEmployeesData(
+                schedules.stream()
+                        .map(EmployeeSchedule::getEmployeeId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet())
+        );
+
         for (Map.Entry<Long, List<EmployeeSchedule>> entry : schedulesByShift.entrySet()) {
             Long shiftId = entry.getKey();
             List<EmployeeSchedule> shiftSchedules = entry.getValue();
@@ -206,7 +251,7 @@ public class ScheduleQueryService {
             // Obtener dependency del primer empleado (para display)
             String dependencyName = "Sin dependencia";
             try {
-                EmployeeResponse response = employeeDataService.getEmployeeData(firstSchedule.getEmployeeId());
+                EmployeeResponse response = employeesById.get(firstSchedule.getEmployeeId());
                 if (response != null && response.getEmployee() != null &&
                         response.getEmployee().getPosition() != null &&
                         response.getEmployee().getPosition().getDependency() != null) {
@@ -225,7 +270,7 @@ public class ScheduleQueryService {
                 if (!uniqueEmployeeIds.contains(schedule.getEmployeeId())) {
                     uniqueEmployeeIds.add(schedule.getEmployeeId());
 
-                    Map<String, Object> employeeData = createEmployeeData(schedule);
+                    Map<String, Object> employeeData = createEmployeeData(schedule, employeesById, daysBySchedule);
                     employees.add(employeeData);
                 }
             }
@@ -238,14 +283,16 @@ public class ScheduleQueryService {
         return result;
     }
 
-    private Map<String, Object> createEmployeeData(EmployeeSchedule schedule) {
+    private Map<String, Object> createEmployeeData(EmployeeSchedule schedule,
+                                                   Map<Long, EmployeeResponse> employeesById,
+                                                   Map<Long, List<EmployeeScheduleDay>> daysBySchedule) {
         Map<String, Object> employeeData = new HashMap<>();
         employeeData.put("id", schedule.getEmployeeId());
         employeeData.put("numberId", schedule.getEmployeeId());
 
         // Datos del empleado
         try {
-            EmployeeResponse response = employeeDataService.getEmployeeData(schedule.getEmployeeId());
+            EmployeeResponse response = employeesById.get(schedule.getEmployeeId());
             if (response != null && response.getEmployee() != null) {
                 EmployeeResponse.Employee emp = response.getEmployee();
                 employeeData.put("firstName", emp.getFirstName() != null ? emp.getFirstName() : "");
@@ -273,22 +320,20 @@ public class ScheduleQueryService {
         employeeData.put("endDate", fmtDate(schedule.getEndDate()));
 
         // ✅ Días con timeblocks reales
-        Map<String, Object> daysStructure = buildDaysStructureForEmployee(schedule);
+        Map<String, Object> daysStructure = buildDaysStructureForEmployee(schedule,
+                daysBySchedule.getOrDefault(schedule.getId(), Collections.emptyList()));
         employeeData.put("days", daysStructure);
 
         return employeeData;
     }
 
-    // Construir días con timeBlocks
-    private Map<String, Object> buildDaysStructureForEmployee(EmployeeSchedule schedule) {
+    // Construir días con timeBlocks (ya cargados en lote)
+    private Map<String, Object> buildDaysStructureForEmployee(EmployeeSchedule schedule,
+                                                              List<EmployeeScheduleDay> daysWithBlocks) {
         Map<String, Object> daysStructure = new HashMap<>();
         daysStructure.put("id", schedule.getDaysParentId());
 
         try {
-            // Cargar días con timeBlocks para este schedule específico
-            List<EmployeeScheduleDay> daysWithBlocks =
-                    employeeScheduleRepository.findDaysWithTimeBlocksByScheduleIds(Arrays.asList(schedule.getId()));
-
             if (!daysWithBlocks.isEmpty()) {
                 List<Map<String, Object>> dayItems = daysWithBlocks.stream()
                         .sorted(Comparator.comparing(EmployeeScheduleDay::getDate))
@@ -313,6 +358,7 @@ public class ScheduleQueryService {
         dayMap.put("id", day.getId());
         dayMap.put("date", fmtDate(day.getDate()));
         dayMap.put("dayOfWeek", day.getDayOfWeek());
+        if (day.getId() == null) dayMap.put("generated", true);
 
         if (day.getTimeBlocks() != null && !day.getTimeBlocks().isEmpty()) {
             List<Map<String, Object>> timeBlocks = day.getTimeBlocks().stream()
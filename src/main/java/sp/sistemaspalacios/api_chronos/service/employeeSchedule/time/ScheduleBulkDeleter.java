@@ -0,0 +1,235 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.time;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import sp.sistemaspalacios.api_chronos.service.employeeAttendance.ScheduleDayIndexListener;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Borrado masivo de horarios, días y bloques por JDBC, con unos pocos DELETE por conjunto
+ * (por IDs de horario, por empleado o por rango de fechas) en vez de cargar cada día y bloque
+ * en Hibernate para borrarlos uno a uno por cascada/orphanRemoval.
+ * - Los vínculos con grupos (schedule_group_details) se borran junto con el horario; los grupos
+ *   que quedan sin horarios se eliminan y los demás se devuelven para recalcularlos.
+ * - En horarios compactos un día vacío es un día quitado: la limpieza de días vacíos no los toca,
+ *   y borrar un rango deja las fechas del rango como días vacíos (igual que eliminar un día suelto).
+ * Las entidades ya cargadas en la sesión no se enteran del borrado; el llamador no debe volver a
+ * guardarlas en la misma transacción.
+ */
+@Slf4j
+@Component
+public class ScheduleBulkDeleter {
+
+    private static final String SELECT_SCHEDULES =
+            "SELECT id, employee_id FROM employee_schedules WHERE id = ANY (?)";
+    private static final String SELECT_SCHEDULES_BY_EMPLOYEE =
+            "SELECT id, employee_id FROM employee_schedules WHERE employee_id = ?";
+
+    private static final String DELETE_BLOCKS =
+            "DELETE FROM employee_schedule_time_blocks tb USING employee_schedule_days d " +
+                    "WHERE tb.employee_schedule_day_id = d.id AND d.employee_schedule_id = ANY (?)";
+    private static final String DELETE_DAYS =
+            "DELETE FROM employee_schedule_days WHERE employee_schedule_id = ANY (?) RETURNING id";
+    private static final String DELETE_GROUP_LINKS =
+            "DELETE FROM schedule_group_details WHERE employee_schedule_id = ANY (?) RETURNING group_id";
+    private static final String DELETE_EMPTY_GROUPS =
+            "DELETE FROM schedule_assignment_group g WHERE g.id = ANY (?) " +
+                    "AND NOT EXISTS (SELECT 1 FROM schedule_group_details x WHERE x.group_id = g.id) RETURNING g.id";
+    private static final String DELETE_SCHEDULES =
+            "DELETE FROM employee_schedules WHERE id = ANY (?)";
+
+    private static final String DELETE_BLOCKS_IN_RANGE =
+            "DELETE FROM employee_schedule_time_blocks tb USING employee_schedule_days d " +
+                    "WHERE tb.employee_schedule_day_id = d.id AND d.employee_schedule_id = ANY (?) " +
+                    "AND d.date BETWEEN ? AND ? RETURNING d.id";
+    private static final String DELETE_DAYS_IN_RANGE =
+            "DELETE FROM employee_schedule_days d USING employee_schedules es " +
+                    "WHERE d.employee_schedule_id = es.id AND es.id = ANY (?) AND es.compact IS NOT TRUE " +
+                    "AND d.date BETWEEN ? AND ? RETURNING d.id";
+    // Compactos: las fechas del rango sin día guardado quedan como días vacíos (quitadas del patrón)
+    private static final String INSERT_REMOVED_DAYS =
+            "INSERT INTO employee_schedule_days (date, day_of_week, employee_schedule_id, created_at) " +
+                    "SELECT g.day, EXTRACT(ISODOW FROM g.day)::int, es.id, now() " +
+                    "FROM employee_schedules es " +
+                    "CROSS JOIN LATERAL (SELECT CAST(s AS DATE) AS day FROM generate_series(" +
+                    "    GREATEST(CAST(? AS DATE), es.start_date), " +
+                    "    LEAST(CAST(? AS DATE), COALESCE(es.end_date, CAST(? AS DATE))), INTERVAL '1 day') s) g " +
+                    "WHERE es.id = ANY (?) AND es.compact IS TRUE " +
+                    "AND NOT EXISTS (SELECT 1 FROM employee_schedule_days x " +
+                    "                WHERE x.employee_schedule_id = es.id AND x.date = g.day) " +
+                    "RETURNING id";
+
+    private static final String DELETE_EMPTY_DAYS =
+            "DELETE FROM employee_schedule_days d USING employee_schedules es " +
+                    "WHERE d.employee_schedule_id = es.id AND es.employee_id = ? AND es.compact IS NOT TRUE " +
+                    "AND NOT EXISTS (SELECT 1 FROM employee_schedule_time_blocks tb WHERE tb.employee_schedule_day_id = d.id) " +
+                    "RETURNING d.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduleDayIndexListener dayIndexListener;
+
+    public ScheduleBulkDeleter(JdbcTemplate jdbcTemplate, ScheduleDayIndexListener dayIndexListener) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dayIndexListener = dayIndexListener;
+    }
+
+    /** Elimina los horarios con sus días, bloques y vínculos con grupos. Los IDs inexistentes se ignoran. */
+    @Transactional
+    public DeleteResult deleteSchedules(Collection<Long> scheduleIds) {
+        return delete(load(SELECT_SCHEDULES, ids(scheduleIds)));
+    }
+
+    /** Elimina todos los horarios del empleado. */
+    @Transactional
+    public DeleteResult deleteByEmployee(Long employeeId) {
+        if (employeeId == null) throw new IllegalArgumentException("employeeId es obligatorio");
+        return delete(load(SELECT_SCHEDULES_BY_EMPLOYEE, employeeId));
+    }
+
+    /**
+     * Elimina los días (y sus bloques) de {@code [from, to]} en los horarios indicados. Los horarios
+     * no se eliminan aunque queden sin días. En compactos el rango queda como días vacíos.
+     */
+    @Transactional
+    public DeleteResult deleteDays(Collection<Long> scheduleIds, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return deleteRange(load(SELECT_SCHEDULES, ids(scheduleIds)), from, to);
+    }
+
+    /** Como {@link #deleteDays}, para todos los horarios del empleado. */
+    @Transactional
+    public DeleteResult deleteDaysByEmployee(Long employeeId, LocalDate from, LocalDate to) {
+        if (employeeId == null) throw new IllegalArgumentException("employeeId es obligatorio");
+        validateRange(from, to);
+        return deleteRange(load(SELECT_SCHEDULES_BY_EMPLOYEE, employeeId), from, to);
+    }
+
+    /** Elimina los días sin bloques de los horarios no compactos del empleado. Devuelve cuántos. */
+    @Transactional
+    public int deleteEmptyDays(Long employeeId) {
+        if (employeeId == null) throw new IllegalArgumentException("employeeId es obligatorio");
+        List<Long> dayIds = jdbcTemplate.queryForList(DELETE_EMPTY_DAYS, Long.class, employeeId);
+        dayIndexListener.markDaysChanged(dayIds);
+        return dayIds.size();
+    }
+
+    public record DeleteResult(int schedules, int days, int blocks, int groupLinks,
+                               Set<Long> employeeIds, Set<Long> deletedGroupIds, Set<Long> affectedGroupIds) {
+        static DeleteResult empty() {
+            return new DeleteResult(0, 0, 0, 0, Set.of(), Set.of(), Set.of());
+        }
+    }
+
+    // ===== INTERNOS =====
+
+    private DeleteResult delete(Map<Long, Long> employeeBySchedule) {
+        if (employeeBySchedule.isEmpty()) return DeleteResult.empty();
+        long start = System.nanoTime();
+        Long[] scheduleIds = employeeBySchedule.keySet().toArray(new Long[0]);
+
+        int blocks = jdbcTemplate.update(con -> withIds(con, DELETE_BLOCKS, scheduleIds));
+        List<Long> dayIds = jdbcTemplate.query(con -> withIds(con, DELETE_DAYS, scheduleIds), (rs, i) -> rs.getLong(1));
+        List<Long> linkedGroups = jdbcTemplate.query(con -> withIds(con, DELETE_GROUP_LINKS, scheduleIds), (rs, i) -> rs.getLong(1));
+
+        Set<Long> affectedGroups = new HashSet<>(linkedGroups);
+        Set<Long> deletedGroups = new HashSet<>();
+        if (!affectedGroups.isEmpty()) {
+            Long[] groupIds = affectedGroups.toArray(new Long[0]);
+            deletedGroups.addAll(jdbcTemplate.query(con -> withIds(con, DELETE_EMPTY_GROUPS, groupIds), (rs, i) -> rs.getLong(1)));
+            affectedGroups.removeAll(deletedGroups);
+        }
+        int schedules = jdbcTemplate.update(con -> withIds(con, DELETE_SCHEDULES, scheduleIds));
+
+        // Los listeners JPA no se disparan con JDBC: se avisa al índice de días a mano (los
+        // compactos también tienen entradas del patrón sin día guardado)
+        dayIndexListener.markDaysChanged(dayIds);
+        dayIndexListener.markSchedulesChanged(employeeBySchedule.keySet());
+
+        log.info("Borrado masivo: {} horarios, {} días, {} bloques, {} vínculos ({} grupos vacíos eliminados) en {} ms",
+                schedules, dayIds.size(), blocks, linkedGroups.size(), deletedGroups.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return new DeleteResult(schedules, dayIds.size(), blocks, linkedGroups.size(),
+                new HashSet<>(employeeBySchedule.values()), deletedGroups, affectedGroups);
+    }
+
+    private DeleteResult deleteRange(Map<Long, Long> employeeBySchedule, LocalDate from, LocalDate to) {
+        if (employeeBySchedule.isEmpty()) return DeleteResult.empty();
+        long start = System.nanoTime();
+        Long[] scheduleIds = employeeBySchedule.keySet().toArray(new Long[0]);
+        java.sql.Date sqlFrom = java.sql.Date.valueOf(from);
+        java.sql.Date sqlTo = java.sql.Date.valueOf(to);
+
+        List<Long> touchedDays = jdbcTemplate.query(con -> {
+            PreparedStatement ps = withIds(con, DELETE_BLOCKS_IN_RANGE, scheduleIds);
+            ps.setDate(2, sqlFrom);
+            ps.setDate(3, sqlTo);
+            return ps;
+        }, (rs, i) -> rs.getLong(1));
+        List<Long> deletedDays = jdbcTemplate.query(con -> {
+            PreparedStatement ps = withIds(con, DELETE_DAYS_IN_RANGE, scheduleIds);
+            ps.setDate(2, sqlFrom);
+            ps.setDate(3, sqlTo);
+            return ps;
+        }, (rs, i) -> rs.getLong(1));
+        List<Long> removedDays = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_REMOVED_DAYS);
+            ps.setDate(1, sqlFrom);
+            ps.setDate(2, sqlTo);
+            ps.setDate(3, sqlTo);
+            ps.setArray(4, con.createArrayOf("bigint", scheduleIds));
+            return ps;
+        }, (rs, i) -> rs.getLong(1));
+
+        Set<Long> changedDays = new HashSet<>(touchedDays);
+        changedDays.addAll(deletedDays);
+        changedDays.addAll(removedDays);
+        dayIndexListener.markDaysChanged(changedDays);
+
+        log.info("Borrado masivo {}..{}: {} días y {} bloques en {} horarios ({} días quitados en compactos) en {} ms",
+                from, to, deletedDays.size(), touchedDays.size(), scheduleIds.length, removedDays.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return new DeleteResult(0, deletedDays.size(), touchedDays.size(), 0,
+                new HashSet<>(employeeBySchedule.values()), Set.of(), Set.of());
+    }
+
+    private Map<Long, Long> load(String sql, Object param) {
+        Map<Long, Long> employeeBySchedule = new LinkedHashMap<>();
+        if (param == null) return employeeBySchedule;
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            if (param instanceof Long[] ids) ps.setArray(1, con.createArrayOf("bigint", ids));
+            else ps.setObject(1, param);
+            return ps;
+        }, (RowCallbackHandler) rs -> employeeBySchedule.put(rs.getLong(1), rs.getObject(2, Long.class)));
+        return employeeBySchedule;
+    }
+
+    private static Long[] ids(Collection<Long> scheduleIds) {
+        if (scheduleIds == null) return null;
+        Long[] ids = scheduleIds.stream().filter(Objects::nonNull).distinct().toArray(Long[]::new);
+        return ids.length == 0 ? null : ids;
+    }
+
+    private static PreparedStatement withIds(Connection con, String sql, Long[] ids) throws SQLException {
+        PreparedStatement ps = con.prepareStatement(sql);
+        ps.setArray(1, con.createArrayOf("bigint", ids));
+        return ps;
+    }
+
+    private static void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("startDate y endDate son obligatorios");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("endDate no puede ser anterior a startDate");
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.time;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleTimeBlock;
+import sp.sistemaspalacios.api_chronos.service.employeeAttendance.ScheduleDayIndexListener;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.*;
+
+/**
+ * Inserción masiva de días y bloques generados (o de bloques sueltos en días existentes), por JDBC.
+ * Los IDs se reservan de una vez a la secuencia de cada tabla (nextval sobre generate_series) y
+ * los INSERT van en lotes; con reWriteBatchedInserts el driver los envía como INSERT multi-fila.
+ * Las entidades no pasan por Hibernate: quedan con su ID asignado pero fuera del contexto de
+ * persistencia, el llamador debe recargar la colección de días del horario si la necesita.
+ */
+@Slf4j
+@Component
+public class ScheduleDayBulkWriter {
+
+    private static final String NEXT_DAY_IDS =
+            "SELECT nextval(pg_get_serial_sequence('employee_schedule_days', 'id')) FROM generate_series(1, ?)";
+    private static final String NEXT_BLOCK_IDS =
+            "SELECT nextval(pg_get_serial_sequence('employee_schedule_time_blocks', 'id')) FROM generate_series(1, ?)";
+
+    private static final String INSERT_DAY =
+            "INSERT INTO employee_schedule_days " +
+                    "(id, date, day_of_week, employee_schedule_id, days_parent_id, created_at, updated_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_BLOCK =
+            "INSERT INTO employee_schedule_time_blocks " +
+                    "(id, employee_schedule_day_id, start_time, end_time, break_start_time, break_end_time, created_at, updated_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduleDayIndexListener dayIndexListener;
+    private final int batchSize;
+
+    public ScheduleDayBulkWriter(JdbcTemplate jdbcTemplate,
+                                 ScheduleDayIndexListener dayIndexListener,
+                                 @Value("${schedule.bulk.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dayIndexListener = dayIndexListener;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Inserta los días (con sus bloques) y les asigna los IDs generados. Cada día debe tener
+     * su horario ya guardado. Debe correr dentro de la transacción del llamador.
+     */
+    public void insertDays(List<EmployeeScheduleDay> days) {
+        if (days == null || days.isEmpty()) return;
+        long start = System.nanoTime();
+
+        List<Long> dayIds = reserveIds(NEXT_DAY_IDS, days.size());
+        List<EmployeeScheduleTimeBlock> blocks = new ArrayList<>();
+        for (int i = 0; i < days.size(); i++) {
+            EmployeeScheduleDay day = days.get(i);
+            if (day.getEmployeeSchedule() == null || day.getEmployeeSchedule().getId() == null) {
+                throw new IllegalStateException("El día " + day.getDate() + " no tiene un horario guardado");
+            }
+            day.setId(dayIds.get(i));
+            if (day.getCreatedAt() == null) day.setCreatedAt(new Date());
+            for (EmployeeScheduleTimeBlock block : day.getTimeBlocks()) {
+                block.setEmployeeScheduleDay(day);
+                if (block.getCreatedAt() == null) block.setCreatedAt(new Date());
+                blocks.add(block);
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_DAY, days, batchSize, (ps, day) -> {
+            ps.setLong(1, day.getId());
+            ps.setDate(2, toSqlDate(day.getDate()));
+            setInteger(ps, 3, day.getDayOfWeek());
+            ps.setLong(4, day.getEmployeeSchedule().getId());
+            setLong(ps, 5, day.getDaysParentId());
+            ps.setTimestamp(6, new Timestamp(day.getCreatedAt().getTime()));
+            ps.setTimestamp(7, day.getUpdatedAt() != null ? new Timestamp(day.getUpdatedAt().getTime()) : null);
+        });
+
+        writeBlocks(blocks);
+
+        // Los listeners JPA no se disparan con JDBC: se avisa al índice de días a mano
+        dayIndexListener.markDaysChanged(dayIds);
+
+        log.debug("Inserción masiva: {} días y {} bloques en {} ms",
+                days.size(), blocks.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Inserta bloques en días ya guardados (cada bloque con su día con ID) y les asigna los IDs
+     * generados. Debe correr dentro de la transacción del llamador.
+     */
+    public void insertBlocks(List<EmployeeScheduleTimeBlock> blocks) {
+        if (blocks == null || blocks.isEmpty()) return;
+        Set<Long> dayIds = new HashSet<>();
+        for (EmployeeScheduleTimeBlock block : blocks) {
+            if (block.getEmployeeScheduleDay() == null || block.getEmployeeScheduleDay().getId() == null) {
+                throw new IllegalStateException("El bloque " + block.getStartTime() + " no tiene un día guardado");
+            }
+            if (block.getCreatedAt() == null) block.setCreatedAt(new Date());
+            dayIds.add(block.getEmployeeScheduleDay().getId());
+        }
+        writeBlocks(blocks);
+        dayIndexListener.markDaysChanged(dayIds);
+    }
+
+    // ===== INTERNOS =====
+
+    private void writeBlocks(List<EmployeeScheduleTimeBlock> blocks) {
+        if (blocks.isEmpty()) return;
+        List<Long> blockIds = reserveIds(NEXT_BLOCK_IDS, blocks.size());
+        for (int i = 0; i < blocks.size(); i++) {
+            blocks.get(i).setId(blockIds.get(i));
+        }
+        jdbcTemplate.batchUpdate(INSERT_BLOCK, blocks, batchSize, (ps, block) -> {
+            ps.setLong(1, block.getId());
+            ps.setLong(2, block.getEmployeeScheduleDay().getId());
+            ps.setTime(3, block.getStartTime());
+            ps.setTime(4, block.getEndTime());
+            ps.setTime(5, block.getBreakStartTime());
+            ps.setTime(6, block.getBreakEndTime());
+            ps.setTimestamp(7, new Timestamp(block.getCreatedAt().getTime()));
+            ps.setTimestamp(8, block.getUpdatedAt() != null ? new Timestamp(block.getUpdatedAt().getTime()) : null);
+        });
+    }
+
+    private List<Long> reserveIds(String sql, int count) {
+        List<Long> ids = jdbcTemplate.queryForList(sql, Long.class, count);
+        if (ids.size() != count) {
+            throw new IllegalStateException("Se esperaban " + count + " IDs y la secuencia devolvió " + ids.size());
+        }
+        return ids;
+    }
+
+    private static java.sql.Date toSqlDate(Date date) {
+        if (date == null) return null;
+        return date instanceof java.sql.Date ? (java.sql.Date) date : new java.sql.Date(date.getTime());
+    }
+
+    private static void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value != null) ps.setInt(index, value);
+        else ps.setNull(index, Types.INTEGER);
+    }
+
+    private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) ps.setLong(index, value);
+        else ps.setNull(index, Types.BIGINT);
+    }
+}
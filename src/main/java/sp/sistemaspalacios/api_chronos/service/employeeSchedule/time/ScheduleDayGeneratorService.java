@@ -5,10 +5,11 @@ import sp.sistemaspalacios.api_chronos.dto.schedule.ScheduleDto;
 import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
 import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
 import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleTimeBlock;
-import sp.sistemaspalacios.api_chronos.entity.shift.ShiftDetail;
 import sp.sistemaspalacios.api_chronos.service.boundaries.holiday.HolidayService;
 import sp.sistemaspalacios.api_chronos.service.common.TimeService;
 import sp.sistemaspalacios.api_chronos.service.employeeSchedule.holiday.HolidayExemptionService;
+import sp.sistemaspalacios.api_chronos.service.shift.ShiftTemplate;
+import sp.sistemaspalacios.api_chronos.service.shift.ShiftTemplateCache;
 
 import java.sql.Time;
 import java.text.Normalizer;
@@ -22,29 +23,47 @@ public class ScheduleDayGeneratorService {
     private final HolidayService holidayService;
     private final HolidayExemptionService holidayExemptionService;
     private final TimeService timeService;
+    private final ShiftTemplateCache shiftTemplateCache;
 
     public ScheduleDayGeneratorService(HolidayService holidayService,
                                        HolidayExemptionService holidayExemptionService,
-                                       TimeService timeService) {
+                                       TimeService timeService,
+                                       ShiftTemplateCache shiftTemplateCache) {
         this.holidayService = holidayService;
         this.holidayExemptionService = holidayExemptionService;
         this.timeService = timeService;
+        this.shiftTemplateCache = shiftTemplateCache;
     }
 
 
     public void generateScheduleDaysWithHolidayDecisions(EmployeeSchedule schedule, List<ScheduleDto.HolidayDecision> holidayDecisions) {
+        List<EmployeeScheduleDay> days = generateDays(schedule, holidayDecisions);
         if (schedule.getDays() == null) schedule.setDays(new ArrayList<>());
         else schedule.getDays().clear();
+        schedule.getDays().addAll(days);
+    }
 
+    /**
+     * Genera los días del rango del horario sin tocar su colección (para la inserción masiva).
+     * Los bloques de cada día de la semana se arman una sola vez desde el turno compilado; solo los
+     * festivos con segmentos personalizados calculan sus horas aparte.
+     */
+    public List<EmployeeScheduleDay> generateDays(EmployeeSchedule schedule, List<ScheduleDto.HolidayDecision> holidayDecisions) {
         LocalDate startDate = schedule.getStartDate();
         LocalDate endDate = (schedule.getEndDate() != null) ? schedule.getEndDate() : startDate;
 
+        if (startDate == null) throw new IllegalStateException("StartDate es requerido");
+        return generateDays(schedule, holidayDecisions, startDate, endDate);
+    }
+
+    /** Igual que {@link #generateDays(EmployeeSchedule, List)} pero solo para [startDate, endDate]. */
+    @SuppressWarnings("unchecked")
+    public List<EmployeeScheduleDay> generateDays(EmployeeSchedule schedule, List<ScheduleDto.HolidayDecision> holidayDecisions,
+                                                  LocalDate startDate, LocalDate endDate) {
         if (startDate == null) throw new IllegalStateException("StartDate es requerido");
         if (endDate == null) endDate = startDate;
 
-        List<ShiftDetail> details = (schedule.getShift() != null && schedule.getShift().getShiftDetails() != null)
-                ? schedule.getShift().getShiftDetails()
-                : Collections.emptyList();
+        ShiftTemplate shift = shiftTemplateCache.get(schedule.getShift());
 
         Map<LocalDate, ScheduleDto.HolidayDecision> decisionMap =
                 (holidayDecisions != null ? holidayDecisions : Collections.<ScheduleDto.HolidayDecision>emptyList())
@@ -53,33 +72,14 @@ public class ScheduleDayGeneratorService {
                         .filter(h -> h.getHolidayDate() != null)
                         .collect(Collectors.toMap(ScheduleDto.HolidayDecision::getHolidayDate, h -> h, (a, b) -> a));
 
+        // Plantilla de bloques por día de la semana (1..7), se arma al primer uso
+        List<BlockTemplate>[] templates = new List[8];
+        List<EmployeeScheduleDay> days = new ArrayList<>();
+
         for (LocalDate d = startDate; !d.isAfter(endDate); d = d.plusDays(1)) {
             ScheduleDto.HolidayDecision decision = decisionMap.get(d);
 
-            // ✅ CAMBIO: NO GUARDAR EXENCIONES - Solo verificar si debe saltarse el día
-            // COMENTADO: Ya no guardamos exenciones globales
-        /*
-        if (decision != null) {
-            try {
-                if (decision.getExemptionReason() != null && !decision.getExemptionReason().isBlank()) {
-                    holidayExemptionService.saveExemption(
-                            schedule.getEmployeeId(), d, holidayService.getHolidayName(d),
-                            decision.getExemptionReason(), null
-                    );
-                } else if (!decision.isApplyHolidayCharge()) {
-                    holidayExemptionService.saveExemption(
-                            schedule.getEmployeeId(), d, holidayService.getHolidayName(d),
-                            "NO_APLICAR_RECARGO", null
-                    );
-                }
-            } catch (Exception e) {
-                System.err.println("Error guardando excención de festivo: " + e.getMessage());
-                e.printStackTrace();
-            }
-        }
-        */
-
-            // PASO 2: Verificar si se debe saltar la creación del día (sin guardar exenciones)
+            // ✅ Sin exenciones globales: solo se verifica si el día debe saltarse
             boolean skipDayCreation = decision != null &&
                     decision.getExemptionReason() != null &&
                     !decision.getExemptionReason().isBlank() &&
@@ -90,7 +90,6 @@ public class ScheduleDayGeneratorService {
                 continue; // Simplemente no crear el día para este turno
             }
 
-            // PASO 3: crear día normalmente
             EmployeeScheduleDay day = new EmployeeScheduleDay();
             day.setEmployeeSchedule(schedule);
             day.setDate(java.sql.Date.valueOf(d));
@@ -98,90 +97,84 @@ public class ScheduleDayGeneratorService {
             day.setCreatedAt(new Date());
             day.setTimeBlocks(new ArrayList<>());
 
-            System.out.println("Procesando día: " + d + " (festivo: " + holidayService.isHoliday(d) + ")");
-
-            // Procesar cada ShiftDetail completamente aislado
-            for (ShiftDetail sd : details) {
-                if (sd.getDayOfWeek() == null || !Objects.equals(sd.getDayOfWeek(), d.getDayOfWeek().getValue())) continue;
-                if (sd.getStartTime() == null || sd.getEndTime() == null) continue;
-
-                // Variables locales DENTRO del loop - cada bloque es independiente
-                String blockStartTime = sd.getStartTime();
-                String blockEndTime = sd.getEndTime();
+            int dayOfWeek = d.getDayOfWeek().getValue();
+            if (templates[dayOfWeek] == null) {
+                templates[dayOfWeek] = buildTemplates(shift, dayOfWeek);
+            }
 
-                System.out.println("  ShiftDetail original: " + blockStartTime + " - " + blockEndTime);
+            boolean customSegments = decision != null && decision.getShiftSegments() != null && !decision.getShiftSegments().isEmpty();
+            for (BlockTemplate template : templates[dayOfWeek]) {
+                Time startTime = template.startTime();
+                Time endTime = template.endTime();
 
                 // Solo si hay decisión de festivo Y hay segmentos definidos
-                if (decision != null && decision.getShiftSegments() != null && !decision.getShiftSegments().isEmpty()) {
-                    String currentSegmentName = determineSegmentName(sd.getStartTime());
-                    System.out.println("  Buscando segmento: " + currentSegmentName);
-
-                    // Buscar si hay un segmento que coincida con este bloque específico
-                    for (Object segmentObj : decision.getShiftSegments()) {
-                        if (!(segmentObj instanceof Map)) continue;
-
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> seg = (Map<String, Object>) segmentObj;
-                        String segName = stringOf(seg.get("segmentName"));
-
-                        // Solo modificar SI el nombre del segmento coincide
-                        if (equalsIgnoreCaseNoAccents(segName, currentSegmentName)) {
-                            String customStart = stringOf(seg.get("startTime"));
-                            String customEnd = stringOf(seg.get("endTime"));
-
-                            // Solo aplicar si los valores personalizados existen
-                            if (!isBlank(customStart)) blockStartTime = customStart;
-                            if (!isBlank(customEnd)) blockEndTime = customEnd;
-
-                            System.out.println("  → Aplicando segmento '" + segName + "': " + blockStartTime + "-" + blockEndTime);
-                            break;
-                        }
+                if (customSegments) {
+                    Time[] custom = applySegment(template, decision);
+                    if (custom != null) {
+                        startTime = custom[0];
+                        endTime = custom[1];
                     }
                 }
 
-                // Normalizar y crear el TimeBlock
-                String sStr = normalizeTimeString(blockStartTime);
-                String eStr = normalizeTimeString(blockEndTime);
-
-                System.out.println("  → Strings normalizados: '" + sStr + "' - '" + eStr + "'");
-
-                Time startTime = Time.valueOf(sStr);
-                Time endTime = Time.valueOf(eStr);
-
-                System.out.println("  → Creando TimeBlock: " + startTime + " - " + endTime);
-
                 EmployeeScheduleTimeBlock tb = new EmployeeScheduleTimeBlock();
                 tb.setEmployeeScheduleDay(day);
                 tb.setStartTime(startTime);
                 tb.setEndTime(endTime);
-
-                // AGREGAR MANEJO DE BREAKS - COPIAR DESDE ShiftDetail
-                if (sd.getBreakStartTime() != null && !sd.getBreakStartTime().trim().isEmpty()) {
-                    try {
-                        String normalizedBreakStart = normalizeTimeString(sd.getBreakStartTime());
-                        tb.setBreakStartTime(Time.valueOf(normalizedBreakStart));
-                        System.out.println("  → Break start copiado: " + normalizedBreakStart);
-                    } catch (Exception e) {
-                        System.err.println("  → Error procesando breakStartTime: " + e.getMessage());
-                    }
-                }
-
-                if (sd.getBreakEndTime() != null && !sd.getBreakEndTime().trim().isEmpty()) {
-                    try {
-                        String normalizedBreakEnd = normalizeTimeString(sd.getBreakEndTime());
-                        tb.setBreakEndTime(Time.valueOf(normalizedBreakEnd));
-                        System.out.println("  → Break end copiado: " + normalizedBreakEnd);
-                    } catch (Exception e) {
-                        System.err.println("  → Error procesando breakEndTime: " + e.getMessage());
-                    }
-                }
-
+                tb.setBreakStartTime(template.breakStartTime());
+                tb.setBreakEndTime(template.breakEndTime());
                 tb.setCreatedAt(new Date());
                 day.getTimeBlocks().add(tb);
             }
 
-            schedule.getDays().add(day);
+            days.add(day);
+        }
+        return days;
+    }
+
+    private record BlockTemplate(String segmentName, Time startTime, Time endTime, Time breakStartTime, Time breakEndTime) {}
+
+    private List<BlockTemplate> buildTemplates(ShiftTemplate shift, int dayOfWeek) {
+        List<BlockTemplate> templates = new ArrayList<>();
+        if (shift == null) return templates;
+        for (ShiftTemplate.Segment segment : shift.segments(dayOfWeek)) {
+            // Breaks copiados desde el turno
+            Time breakStart = segment.hasBreakWindow() ? toTime(segment.breakStart()) : null;
+            Time breakEnd = segment.hasBreakWindow() ? toTime(segment.breakEnd()) : null;
+            templates.add(new BlockTemplate(determineSegmentName(segment.start() / 60),
+                    toTime(segment.start()), toTime(segment.end()), breakStart, breakEnd));
         }
+        return templates;
+    }
+
+    private static Time toTime(int minutes) {
+        int m = Math.floorMod(minutes, 24 * 60);
+        return Time.valueOf(java.time.LocalTime.of(m / 60, m % 60));
+    }
+
+    /** Horas del segmento de la decisión que coincide con el bloque, o null si ninguno aplica. */
+    private Time[] applySegment(BlockTemplate template, ScheduleDto.HolidayDecision decision) {
+        String currentSegmentName = template.segmentName();
+
+        for (Object segmentObj : decision.getShiftSegments()) {
+            if (!(segmentObj instanceof Map)) continue;
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> seg = (Map<String, Object>) segmentObj;
+            String segName = stringOf(seg.get("segmentName"));
+
+            // Solo modificar SI el nombre del segmento coincide
+            if (equalsIgnoreCaseNoAccents(segName, currentSegmentName)) {
+                String customStart = stringOf(seg.get("startTime"));
+                String customEnd = stringOf(seg.get("endTime"));
+
+                // Solo aplicar si los valores personalizados existen
+                Time blockStart = !isBlank(customStart) ? Time.valueOf(normalizeTimeString(customStart)) : template.startTime();
+                Time blockEnd = !isBlank(customEnd) ? Time.valueOf(normalizeTimeString(customEnd)) : template.endTime();
+
+                return new Time[]{blockStart, blockEnd};
+            }
+        }
+        return null;
     }
         private String normalizeTimeString(String timeStr) {
         if (timeStr == null || timeStr.trim().isEmpty()) return "00:00:00";
@@ -213,15 +206,10 @@ public class ScheduleDayGeneratorService {
         return na.equalsIgnoreCase(nb);
     }
 
-    private String determineSegmentName(String startTime) {
-        try {
-            int hour = Integer.parseInt(startTime.split(":")[0]);
-            if (hour >= 6 && hour < 14) return "Mañana";
-            if (hour >= 14 && hour < 20) return "Tarde";
-            return "Noche";
-        } catch (Exception e) {
-            return "Turno";
-        }
+    private String determineSegmentName(int hour) {
+        if (hour >= 6 && hour < 14) return "Mañana";
+        if (hour >= 14 && hour < 20) return "Tarde";
+        return "Noche";
     }
 
     private static String stringOf(Object o){ return o==null? null : o.toString(); }
@@ -0,0 +1,223 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.time;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sp.sistemaspalacios.api_chronos.dto.schedule.ScheduleDto;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleTimeBlock;
+import sp.sistemaspalacios.api_chronos.exception.ResourceNotFoundException;
+import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.EmployeeScheduleRepository;
+import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.EmployeeScheduleTimeBlockRepository;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Horarios compactos: el horario guarda solo el turno (patrón semanal de ShiftDetail) y los días
+ * que difieren de él. Un día guardado sin bloques es un día quitado (festivo que no se trabaja);
+ * con bloques, reemplaza al patrón en esa fecha. Las demás fechas se generan al leer.
+ * <p>
+ * Los días generados no tienen ID. Para editar los bloques de una fecha generada primero se
+ * guarda como día propio con {@link #materializeOverride}.
+ * Un horario compacto sin fecha fin se expande hasta {@code schedule.compact.open-ended-days}
+ * días después de hoy (o de su inicio, si aún no empieza).
+ */
+@Slf4j
+@Service
+public class ScheduleExpansionService {
+
+    private final ScheduleDayGeneratorService dayGeneratorService;
+    private final EmployeeScheduleRepository scheduleRepository;
+    private final EmployeeScheduleTimeBlockRepository timeBlockRepository;
+    private final int openEndedDays;
+
+    public ScheduleExpansionService(ScheduleDayGeneratorService dayGeneratorService,
+                                    EmployeeScheduleRepository scheduleRepository,
+                                    EmployeeScheduleTimeBlockRepository timeBlockRepository,
+                                    @Value("${schedule.compact.open-ended-days:62}") int openEndedDays) {
+        this.dayGeneratorService = dayGeneratorService;
+        this.scheduleRepository = scheduleRepository;
+        this.timeBlockRepository = timeBlockRepository;
+        this.openEndedDays = Math.max(0, openEndedDays);
+    }
+
+    public static boolean isCompact(EmployeeSchedule schedule) {
+        return schedule != null && Boolean.TRUE.equals(schedule.getCompact());
+    }
+
+    /** Última fecha a expandir: la fecha fin o, sin ella, hoy (o el inicio) + horizonte. */
+    public static LocalDate windowEnd(EmployeeSchedule schedule, int openEndedDays) {
+        if (schedule.getEndDate() != null) return schedule.getEndDate();
+        LocalDate start = schedule.getStartDate();
+        LocalDate today = LocalDate.now();
+        LocalDate base = (start != null && start.isAfter(today)) ? start : today;
+        return base.plusDays(openEndedDays);
+    }
+
+    public LocalDate windowEnd(EmployeeSchedule schedule) {
+        return windowEnd(schedule, openEndedDays);
+    }
+
+    public int getOpenEndedDays() {
+        return openEndedDays;
+    }
+
+    /**
+     * Días del horario en todo su rango (días guardados + patrón), sin los quitados.
+     * Si el horario no es compacto devuelve los días recibidos, tal cual.
+     */
+    public List<EmployeeScheduleDay> expand(EmployeeSchedule schedule, Collection<EmployeeScheduleDay> overrides) {
+        if (!isCompact(schedule)) return overrides != null ? new ArrayList<>(overrides) : new ArrayList<>();
+        if (schedule.getStartDate() == null) return new ArrayList<>();
+        return expand(schedule, overrides, schedule.getStartDate(), windowEnd(schedule));
+    }
+
+    /**
+     * Días del horario en [from, to] ordenados por fecha. Si el horario no es compacto devuelve
+     * los días recibidos dentro del rango, tal cual.
+     */
+    public List<EmployeeScheduleDay> expand(EmployeeSchedule schedule, Collection<EmployeeScheduleDay> overrides,
+                                            LocalDate from, LocalDate to) {
+        Collection<EmployeeScheduleDay> stored = overrides != null ? overrides : Collections.emptyList();
+        if (!isCompact(schedule)) {
+            List<EmployeeScheduleDay> days = new ArrayList<>();
+            for (EmployeeScheduleDay day : stored) {
+                LocalDate date = toLocalDate(day.getDate());
+                if (date != null && !date.isBefore(from) && !date.isAfter(to)) days.add(day);
+            }
+            days.sort(Comparator.comparing(d -> toLocalDate(d.getDate())));
+            return days;
+        }
+
+        LocalDate start = schedule.getStartDate();
+        if (start == null) return new ArrayList<>();
+        LocalDate end = windowEnd(schedule);
+        LocalDate rangeStart = from.isBefore(start) ? start : from;
+        LocalDate rangeEnd = to.isAfter(end) ? end : to;
+        if (rangeEnd.isBefore(rangeStart)) return new ArrayList<>();
+
+        Map<LocalDate, EmployeeScheduleDay> byDate = overridesByDate(stored);
+
+        List<EmployeeScheduleDay> result = new ArrayList<>();
+        for (EmployeeScheduleDay generated : dayGeneratorService.generateDays(schedule, null, rangeStart, rangeEnd)) {
+            LocalDate date = toLocalDate(generated.getDate());
+            EmployeeScheduleDay override = byDate.remove(date);
+            if (override == null) {
+                result.add(generated);
+            } else if (!override.getTimeBlocks().isEmpty()) {
+                result.add(override);
+            }
+        }
+        // Días guardados dentro del rango que el patrón no cubre (ej. un sábado agregado a mano)
+        for (Map.Entry<LocalDate, EmployeeScheduleDay> entry : byDate.entrySet()) {
+            LocalDate date = entry.getKey();
+            if (!date.isBefore(rangeStart) && !date.isAfter(rangeEnd) && !entry.getValue().getTimeBlocks().isEmpty()) {
+                result.add(entry.getValue());
+            }
+        }
+        result.sort(Comparator.comparing(d -> toLocalDate(d.getDate())));
+        return result;
+    }
+
+    /**
+     * Días a guardar al crear un horario compacto: los festivos que no se trabajan (día vacío)
+     * y los que tienen segmentos personalizados (día con sus bloques).
+     */
+    public List<EmployeeScheduleDay> buildOverrides(EmployeeSchedule schedule, List<ScheduleDto.HolidayDecision> decisions) {
+        List<EmployeeScheduleDay> overrides = new ArrayList<>();
+        if (decisions == null || schedule.getStartDate() == null) return overrides;
+
+        LocalDate start = schedule.getStartDate();
+        LocalDate end = windowEnd(schedule);
+        Set<LocalDate> seen = new HashSet<>();
+        for (ScheduleDto.HolidayDecision decision : decisions) {
+            if (decision == null || decision.getHolidayDate() == null) continue;
+            LocalDate date = decision.getHolidayDate();
+            if (date.isBefore(start) || date.isAfter(end) || !seen.add(date)) continue;
+
+            boolean skipped = decision.getExemptionReason() != null
+                    && !decision.getExemptionReason().isBlank()
+                    && !decision.isApplyHolidayCharge();
+            boolean customSegments = decision.getShiftSegments() != null && !decision.getShiftSegments().isEmpty();
+
+            if (skipped) {
+                overrides.add(emptyDay(schedule, date));
+            } else if (customSegments) {
+                overrides.addAll(dayGeneratorService.generateDays(schedule, List.of(decision), date, date));
+            }
+        }
+        return overrides;
+    }
+
+    /**
+     * Guarda la fecha de un horario compacto como día propio para poder editarla o quitarla.
+     * Si ya estaba guardada la devuelve (con {@code removed} le quita los bloques).
+     */
+    @Transactional
+    public EmployeeScheduleDay materializeOverride(Long scheduleId, LocalDate date, boolean removed) {
+        EmployeeSchedule schedule = scheduleRepository.findById(scheduleId)
+                .orElseThrow(() -> new ResourceNotFoundException("Horario no encontrado con ID: " + scheduleId));
+        if (!isCompact(schedule)) {
+            throw new IllegalStateException("El horario " + scheduleId + " no es compacto");
+        }
+        if (schedule.getStartDate() == null || date.isBefore(schedule.getStartDate())
+                || (schedule.getEndDate() != null && date.isAfter(schedule.getEndDate()))) {
+            throw new IllegalArgumentException("La fecha " + date + " está fuera del rango del horario");
+        }
+
+        EmployeeScheduleDay existing = overridesByDate(schedule.getDays()).get(date);
+        if (existing != null) {
+            if (removed && !existing.getTimeBlocks().isEmpty()) {
+                // La relación no tiene orphanRemoval: sacarlos de la lista no los borra. Primero se
+                // vacía la lista (si no, la cascada del día los volvería a guardar) y luego se borran.
+                List<EmployeeScheduleTimeBlock> blocks = new ArrayList<>(existing.getTimeBlocks());
+                existing.getTimeBlocks().clear();
+                timeBlockRepository.deleteAll(blocks);
+                existing.setUpdatedAt(new Date());
+                scheduleRepository.saveAndFlush(schedule);
+            }
+            return existing;
+        }
+
+        EmployeeScheduleDay day;
+        if (removed) {
+            day = emptyDay(schedule, date);
+        } else {
+            List<EmployeeScheduleDay> generated = dayGeneratorService.generateDays(schedule, null, date, date);
+            day = generated.isEmpty() ? emptyDay(schedule, date) : generated.get(0);
+        }
+        schedule.getDays().add(day);
+        scheduleRepository.saveAndFlush(schedule);
+        log.debug("Horario compacto {}: fecha {} guardada ({} bloques)", scheduleId, date, day.getTimeBlocks().size());
+        return day;
+    }
+
+    // ===== INTERNOS =====
+
+    private Map<LocalDate, EmployeeScheduleDay> overridesByDate(Collection<EmployeeScheduleDay> days) {
+        Map<LocalDate, EmployeeScheduleDay> byDate = new TreeMap<>();
+        for (EmployeeScheduleDay day : days) {
+            LocalDate date = toLocalDate(day.getDate());
+            if (date != null) byDate.putIfAbsent(date, day);
+        }
+        return byDate;
+    }
+
+    private EmployeeScheduleDay emptyDay(EmployeeSchedule schedule, LocalDate date) {
+        EmployeeScheduleDay day = new EmployeeScheduleDay();
+        day.setEmployeeSchedule(schedule);
+        day.setDate(java.sql.Date.valueOf(date));
+        day.setDayOfWeek(date.getDayOfWeek().getValue());
+        day.setCreatedAt(new Date());
+        return day;
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        if (date == null) return null;
+        if (date instanceof java.sql.Date) return ((java.sql.Date) date).toLocalDate();
+        return new java.sql.Date(date.getTime()).toLocalDate();
+    }
+}
@@ -0,0 +1,322 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.time;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sp.sistemaspalacios.api_chronos.dto.schedule.TimeBlockDependencyDTO;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleTimeBlock;
+import sp.sistemaspalacios.api_chronos.service.common.TimeService;
+import sp.sistemaspalacios.api_chronos.service.employeeAttendance.ScheduleDayIndexListener;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Edición masiva de bloques de una dependencia ({@code PUT /employee-schedules/time-blocks/by-dependency}).
+ * - Todo el lote se valida antes de escribir: si un elemento es inválido no se aplica ninguno.
+ * - Los bloques y días del lote se leen con una consulta cada uno.
+ * - Las actualizaciones, altas y bajas van en lotes JDBC dentro de una sola transacción.
+ * Devuelve, por empleado, el rango de fechas tocado para un único recálculo de sus grupos.
+ */
+@Slf4j
+@Service
+public class TimeBlockBulkUpdateService {
+
+    private static final String SELECT_DAYS =
+            "SELECT d.id, d.date, es.employee_id FROM employee_schedule_days d " +
+                    "JOIN employee_schedules es ON es.id = d.employee_schedule_id WHERE d.id = ANY (?)";
+    private static final String SELECT_BLOCKS =
+            "SELECT tb.id, tb.employee_schedule_day_id FROM employee_schedule_time_blocks tb WHERE tb.id = ANY (?)";
+    private static final String UPDATE_BLOCK =
+            "UPDATE employee_schedule_time_blocks " +
+                    "SET start_time = ?, end_time = ?, break_start_time = ?, break_end_time = ?, updated_at = ? " +
+                    "WHERE id = ?";
+    private static final String DELETE_BLOCKS =
+            "DELETE FROM employee_schedule_time_blocks WHERE id = ANY (?)";
+
+    public enum Action { UPDATED, CREATED, DELETED }
+
+    /** Rango de fechas tocado de un empleado. */
+    public record EmployeePeriod(Long employeeId, LocalDate from, LocalDate to) {}
+
+    public record BulkResult(List<Map<String, Object>> processedBlocks, int updated, int created, int deleted,
+                             List<EmployeePeriod> affectedPeriods) {}
+
+    /** Lote inválido: trae todos los errores encontrados, con la posición del elemento. */
+    public static class InvalidBatchException extends IllegalArgumentException {
+        private final List<String> errors;
+
+        public InvalidBatchException(List<String> errors) {
+            super(errors.size() + " bloque(s) inválido(s); no se aplicó ningún cambio");
+            this.errors = List.copyOf(errors);
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduleDayBulkWriter bulkWriter;
+    private final ScheduleDayIndexListener dayIndexListener;
+    private final TimeService timeService;
+    private final int batchSize;
+
+    public TimeBlockBulkUpdateService(JdbcTemplate jdbcTemplate,
+                                      ScheduleDayBulkWriter bulkWriter,
+                                      ScheduleDayIndexListener dayIndexListener,
+                                      TimeService timeService,
+                                      @Value("${schedule.bulk.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bulkWriter = bulkWriter;
+        this.dayIndexListener = dayIndexListener;
+        this.timeService = timeService;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Transactional
+    public BulkResult apply(List<TimeBlockDependencyDTO> items) {
+        long start = System.nanoTime();
+        if (items == null || items.isEmpty()) {
+            return new BulkResult(new ArrayList<>(), 0, 0, 0, new ArrayList<>());
+        }
+
+        // 1. Leer de una vez los días y bloques referenciados
+        Set<Long> dayIds = new HashSet<>();
+        Set<Long> blockIds = new HashSet<>();
+        for (TimeBlockDependencyDTO item : items) {
+            if (item == null) continue;
+            if (item.getEmployeeScheduleDayId() != null) dayIds.add(item.getEmployeeScheduleDayId());
+            if (isExisting(item)) blockIds.add(item.getId());
+        }
+        Map<Long, DayRef> days = loadDays(dayIds);
+        Map<Long, Long> dayByBlock = loadBlockDays(blockIds);
+
+        // 2. Validar todo el lote antes de escribir
+        List<Change> changes = new ArrayList<>(items.size());
+        List<String> errors = new ArrayList<>();
+        Set<Long> seenBlocks = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            Change change = validate(i, items.get(i), days, dayByBlock, seenBlocks, errors);
+            if (change != null) changes.add(change);
+        }
+        if (!errors.isEmpty()) {
+            throw new InvalidBatchException(errors);
+        }
+
+        // 3. Escribir en lotes
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Change> updates = new ArrayList<>();
+        List<Long> deletes = new ArrayList<>();
+        List<EmployeeScheduleTimeBlock> inserts = new ArrayList<>();
+        Map<Change, EmployeeScheduleTimeBlock> created = new IdentityHashMap<>();
+        for (Change change : changes) {
+            switch (change.action()) {
+                case UPDATED -> updates.add(change);
+                case DELETED -> deletes.add(change.item().getId());
+                case CREATED -> {
+                    EmployeeScheduleDay day = new EmployeeScheduleDay();
+                    day.setId(change.day().dayId());
+                    EmployeeScheduleTimeBlock block = new EmployeeScheduleTimeBlock();
+                    block.setEmployeeScheduleDay(day);
+                    block.setStartTime(change.start());
+                    block.setEndTime(change.end());
+                    block.setBreakStartTime(change.breakStart());
+                    block.setBreakEndTime(change.breakEnd());
+                    block.setCreatedAt(now);
+                    inserts.add(block);
+                    created.put(change, block);
+                }
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_BLOCK, updates, batchSize, (ps, change) -> {
+                ps.setTime(1, change.start());
+                ps.setTime(2, change.end());
+                ps.setTime(3, change.breakStart());
+                ps.setTime(4, change.breakEnd());
+                ps.setTimestamp(5, now);
+                ps.setLong(6, change.item().getId());
+            });
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(DELETE_BLOCKS);
+                ps.setArray(1, connection.createArrayOf("bigint", deletes.toArray()));
+                return ps;
+            });
+        }
+        bulkWriter.insertBlocks(inserts);
+
+        // Los listeners JPA no se disparan con JDBC: se avisa al índice de días a mano
+        Set<Long> touchedDays = new HashSet<>();
+        for (Change change : changes) touchedDays.add(change.day().dayId());
+        dayIndexListener.markDaysChanged(touchedDays);
+
+        // 4. Respuesta y rangos a recalcular
+        List<Map<String, Object>> processed = new ArrayList<>(changes.size());
+        Map<Long, LocalDate[]> periods = new LinkedHashMap<>();
+        for (Change change : changes) {
+            EmployeeScheduleTimeBlock block = created.get(change);
+            processed.add(toResponse(change, block != null ? block.getId() : change.item().getId()));
+
+            DayRef day = change.day();
+            if (day.employeeId() == null || day.date() == null) continue;
+            LocalDate[] range = periods.computeIfAbsent(day.employeeId(), k -> new LocalDate[]{day.date(), day.date()});
+            if (day.date().isBefore(range[0])) range[0] = day.date();
+            if (day.date().isAfter(range[1])) range[1] = day.date();
+        }
+        List<EmployeePeriod> affected = new ArrayList<>(periods.size());
+        periods.forEach((employeeId, range) -> affected.add(new EmployeePeriod(employeeId, range[0], range[1])));
+
+        log.info("Edición masiva de bloques: {} actualizados, {} creados, {} eliminados, {} empleados en {} ms",
+                updates.size(), inserts.size(), deletes.size(), affected.size(), (System.nanoTime() - start) / 1_000_000);
+        return new BulkResult(processed, updates.size(), inserts.size(), deletes.size(), affected);
+    }
+
+    // ===== VALIDACIÓN =====
+
+    private record DayRef(Long dayId, LocalDate date, Long employeeId) {}
+
+    private record Change(Action action, TimeBlockDependencyDTO item, DayRef day,
+                          Time start, Time end, Time breakStart, Time breakEnd) {}
+
+    // null si el elemento no cambia nada (baja sin ID) o si es inválido (el error queda en errors)
+    private Change validate(int index, TimeBlockDependencyDTO item, Map<Long, DayRef> days,
+                            Map<Long, Long> dayByBlock, Set<Long> seenBlocks, List<String> errors) {
+        String at = "[" + index + "] ";
+        if (item == null) {
+            errors.add(at + "elemento vacío");
+            return null;
+        }
+        Long dayId = item.getEmployeeScheduleDayId();
+        if (dayId == null) {
+            errors.add(at + "employeeScheduleDayId es obligatorio");
+            return null;
+        }
+        DayRef day = days.get(dayId);
+        if (day == null) {
+            errors.add(at + "no existe el día " + dayId);
+            return null;
+        }
+
+        boolean existing = isExisting(item);
+        if (existing) {
+            Long blockDay = dayByBlock.get(item.getId());
+            if (blockDay == null) {
+                errors.add(at + "no existe el bloque " + item.getId());
+                return null;
+            }
+            if (!blockDay.equals(dayId)) {
+                errors.add(at + "el bloque " + item.getId() + " no pertenece al día " + dayId);
+                return null;
+            }
+            if (!seenBlocks.add(item.getId())) {
+                errors.add(at + "el bloque " + item.getId() + " aparece más de una vez");
+                return null;
+            }
+        }
+
+        if (isBlank(item.getStartTime()) && isBlank(item.getEndTime())) {
+            return existing ? new Change(Action.DELETED, item, day, null, null, null, null) : null;
+        }
+
+        int before = errors.size();
+        Time start = parseRequired(at + "startTime", item.getStartTime(), errors);
+        Time end = parseRequired(at + "endTime", item.getEndTime(), errors);
+        Time breakStart = parseOptional(at + "breakStartTime", item.getBreakStartTime(), errors);
+        Time breakEnd = parseOptional(at + "breakEndTime", item.getBreakEndTime(), errors);
+        if (errors.size() > before) return null;
+        return new Change(existing ? Action.UPDATED : Action.CREATED, item, day, start, end, breakStart, breakEnd);
+    }
+
+    private Time parseRequired(String field, String value, List<String> errors) {
+        if (isBlank(value)) {
+            errors.add(field + " es obligatorio");
+            return null;
+        }
+        return parse(field, value, errors);
+    }
+
+    private Time parseOptional(String field, String value, List<String> errors) {
+        return isBlank(value) ? null : parse(field, value, errors);
+    }
+
+    // "H:mm", "HH:mm", "HH:mm:ss" o con AM/PM (TimeService)
+    private Time parse(String field, String value, List<String> errors) {
+        String s = value.trim();
+        try {
+            LocalTime time = s.matches("\\d{1,2}:\\d{2}(:\\d{2})?")
+                    ? LocalTime.parse(s.length() == 4 || s.length() == 7 ? "0" + s : s)
+                    : timeService.parseAny(s);
+            return Time.valueOf(time);
+        } catch (RuntimeException e) {
+            errors.add(field + " inválido: " + value);
+            return null;
+        }
+    }
+
+    private static boolean isExisting(TimeBlockDependencyDTO item) {
+        return item.getId() != null && item.getId() > 0;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    // ===== LECTURA =====
+
+    private Map<Long, DayRef> loadDays(Collection<Long> dayIds) {
+        Map<Long, DayRef> days = new HashMap<>();
+        if (dayIds.isEmpty()) return days;
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_DAYS);
+            ps.setArray(1, bigintArray(connection, dayIds));
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            long id = rs.getLong(1);
+            days.put(id, new DayRef(id, rs.getObject(2, LocalDate.class), rs.getObject(3, Long.class)));
+        });
+        return days;
+    }
+
+    private Map<Long, Long> loadBlockDays(Collection<Long> blockIds) {
+        Map<Long, Long> dayByBlock = new HashMap<>();
+        if (blockIds.isEmpty()) return dayByBlock;
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_BLOCKS);
+            ps.setArray(1, bigintArray(connection, blockIds));
+            return ps;
+        }, (RowCallbackHandler) rs -> dayByBlock.put(rs.getLong(1), rs.getLong(2)));
+        return dayByBlock;
+    }
+
+    private static Array bigintArray(java.sql.Connection connection, Collection<Long> ids) throws java.sql.SQLException {
+        return connection.createArrayOf("bigint", ids.toArray());
+    }
+
+    private static Map<String, Object> toResponse(Change change, Long blockId) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", blockId);
+        if (change.action() != Action.DELETED) {
+            response.put("employeeScheduleDayId", change.day().dayId());
+            response.put("startTime", change.start().toString());
+            response.put("endTime", change.end().toString());
+            if (change.breakStart() != null) response.put("breakStartTime", change.breakStart().toString());
+            if (change.breakEnd() != null) response.put("breakEndTime", change.breakEnd().toString());
+        }
+        response.put("numberId", change.item().getNumberId());
+        response.put("action", change.action().name());
+        return response;
+    }
+}
@@ -0,0 +1,286 @@
+package sp.sistemaspalacios.api_chronos.service.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sp.sistemaspalacios.api_chronos.entity.notification.NotificationOutbox;
+import sp.sistemaspalacios.api_chronos.entity.notification.NotificationStatus;
+import sp.sistemaspalacios.api_chronos.repository.notification.NotificationOutboxRepository;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Despachador de la bandeja de salida:
+ * - Toma lotes de notificaciones pendientes (SKIP LOCKED, con un plazo de reserva por si la instancia cae).
+ * - Las envía en paralelo con concurrencia acotada, fuera de cualquier transacción.
+ * - Reintenta con espera exponencial y pasa a DEAD al agotar los intentos.
+ * - Publica profundidad de la cola, latencia de envío y demora total (creación a entrega).
+ */
+@Slf4j
+@Service
+public class NotificationDispatcher {
+
+    private static final List<NotificationStatus> DUE_STATUSES =
+            List.of(NotificationStatus.PENDING, NotificationStatus.SENDING);
+
+    private final NotificationOutboxRepository repository;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long leaseMillis;
+
+    private final ExecutorService sendExecutor;
+    private final ExecutorService wakeExecutor;
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicBoolean rerun = new AtomicBoolean(false);
+
+    private final AtomicLong pendingGauge = new AtomicLong();
+    private final AtomicLong deadGauge = new AtomicLong();
+    private final Timer deliveryTimer;
+    private final Timer failedDeliveryTimer;
+    private final Timer lagTimer;
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+    private final Counter deadCounter;
+    private final Counter failedCounter;
+
+    public NotificationDispatcher(NotificationOutboxRepository repository,
+                                  NotificationService notificationService,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${notification.outbox.batch-size:50}") int batchSize,
+                                  @Value("${notification.outbox.parallelism:4}") int parallelism,
+                                  @Value("${notification.outbox.max-attempts:8}") int maxAttempts,
+                                  @Value("${notification.outbox.base-backoff-seconds:5}") long baseBackoffSeconds,
+                                  @Value("${notification.outbox.max-backoff-minutes:30}") long maxBackoffMinutes,
+                                  @Value("${notification.outbox.lease-seconds:60}") long leaseSeconds) {
+        this.repository = repository;
+        this.notificationService = notificationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMillis = TimeUnit.SECONDS.toMillis(Math.max(1, baseBackoffSeconds));
+        this.maxBackoffMillis = Math.max(this.baseBackoffMillis, TimeUnit.MINUTES.toMillis(maxBackoffMinutes));
+        this.leaseMillis = TimeUnit.SECONDS.toMillis(Math.max(1, leaseSeconds));
+
+        this.sendExecutor = Executors.newFixedThreadPool(Math.max(1, parallelism), namedThreads("notification-sender-"));
+        this.wakeExecutor = Executors.newSingleThreadExecutor(namedThreads("notification-dispatcher-"));
+
+        Gauge.builder("notification.outbox.pending", pendingGauge, AtomicLong::get)
+                .description("Notificaciones pendientes de envío")
+                .register(meterRegistry);
+        Gauge.builder("notification.outbox.dead", deadGauge, AtomicLong::get)
+                .description("Notificaciones que agotaron los reintentos")
+                .register(meterRegistry);
+        this.deliveryTimer = Timer.builder("notification.outbox.delivery")
+                .description("Duración de cada llamada al servicio de notificaciones")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.failedDeliveryTimer = Timer.builder("notification.outbox.delivery")
+                .description("Duración de cada llamada al servicio de notificaciones")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("notification.outbox.lag")
+                .description("Tiempo desde que se encola hasta que se entrega")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("notification.outbox.sent").register(meterRegistry);
+        this.retryCounter = Counter.builder("notification.outbox.retried").register(meterRegistry);
+        this.deadCounter = Counter.builder("notification.outbox.dead.total").register(meterRegistry);
+        this.failedCounter = Counter.builder("notification.outbox.failed")
+                .description("Intentos de entrega fallidos (reintentados o descartados)")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        wakeExecutor.shutdownNow();
+        sendExecutor.shutdownNow();
+    }
+
+    /** Barrido periódico: reintentos vencidos y reservas abandonadas. */
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        drain();
+    }
+
+    /** Despierta al despachador cuando la transacción actual confirme (o de inmediato si no hay). */
+    public void wakeUpAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp();
+                }
+            });
+        } else {
+            wakeUp();
+        }
+    }
+
+    public void wakeUp() {
+        try {
+            wakeExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            log.debug("Despachador detenido, se ignora el aviso");
+        }
+    }
+
+    // ===== CICLO DE ENVÍO =====
+
+    void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            // Ya hay un ciclo en curso: que vuelva a mirar al terminar
+            rerun.set(true);
+            return;
+        }
+        try {
+            do {
+                rerun.set(false);
+                List<NotificationOutbox> batch;
+                do {
+                    batch = claimBatch();
+                    if (!batch.isEmpty()) {
+                        deliverBatch(batch);
+                    }
+                } while (batch.size() == batchSize);
+            } while (rerun.get());
+        } catch (Exception e) {
+            log.warn("Error en el ciclo de notificaciones: {}", e.getMessage());
+        } finally {
+            draining.set(false);
+            refreshGauges();
+        }
+    }
+
+    private List<NotificationOutbox> claimBatch() {
+        List<NotificationOutbox> batch = transactionTemplate.execute(status -> {
+            Date now = new Date();
+            List<NotificationOutbox> due = repository.findDueForUpdate(DUE_STATUSES, now, PageRequest.of(0, batchSize));
+            if (!due.isEmpty()) {
+                List<Long> ids = due.stream().map(NotificationOutbox::getId).toList();
+                repository.markClaimed(ids, NotificationStatus.SENDING, new Date(now.getTime() + leaseMillis));
+            }
+            return due;
+        });
+        return batch != null ? batch : Collections.emptyList();
+    }
+
+    private void deliverBatch(List<NotificationOutbox> batch) {
+        Map<NotificationOutbox, CompletableFuture<Throwable>> results = new LinkedHashMap<>();
+        for (NotificationOutbox notification : batch) {
+            results.put(notification, CompletableFuture.supplyAsync(() -> deliver(notification), sendExecutor));
+        }
+
+        Set<Long> sentIds = new HashSet<>();
+        Map<NotificationOutbox, Throwable> failures = new LinkedHashMap<>();
+        for (Map.Entry<NotificationOutbox, CompletableFuture<Throwable>> e : results.entrySet()) {
+            Throwable error;
+            try {
+                error = e.getValue().join();
+            } catch (CompletionException ex) {
+                error = ex.getCause() != null ? ex.getCause() : ex;
+            }
+            if (error == null) {
+                sentIds.add(e.getKey().getId());
+            } else {
+                failures.put(e.getKey(), error);
+            }
+        }
+
+        Date now = new Date();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                repository.markSent(sentIds, NotificationStatus.SENT, now);
+            }
+            failures.forEach((notification, error) -> scheduleRetry(notification, error, now));
+        });
+
+        sentCounter.increment(sentIds.size());
+        for (NotificationOutbox notification : batch) {
+            if (sentIds.contains(notification.getId()) && notification.getCreatedAt() != null) {
+                lagTimer.record(Math.max(0, now.getTime() - notification.getCreatedAt().getTime()), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    // Devuelve null si se entregó, o el error
+    private Throwable deliver(NotificationOutbox notification) {
+        long start = System.nanoTime();
+        try {
+            notificationService.deliver(notification.getRecipient(), notification.getMessage());
+            deliveryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return null;
+        } catch (Exception e) {
+            failedDeliveryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            failedCounter.increment();
+            return e;
+        }
+    }
+
+    private void scheduleRetry(NotificationOutbox notification, Throwable error, Date now) {
+        int attempts = (notification.getAttempts() != null ? notification.getAttempts() : 0) + 1;
+        String lastError = truncate(error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName());
+
+        if (attempts >= maxAttempts) {
+            repository.markFailed(notification.getId(), NotificationStatus.DEAD, attempts, now, lastError);
+            deadCounter.increment();
+            log.error("❌ Notificación {} descartada tras {} intentos: {}", notification.getId(), attempts, lastError);
+            return;
+        }
+
+        Date next = new Date(now.getTime() + backoffMillis(attempts));
+        repository.markFailed(notification.getId(), NotificationStatus.PENDING, attempts, next, lastError);
+        retryCounter.increment();
+        log.warn("⚠️ Notificación {} falló (intento {}), se reintenta a las {}: {}",
+                notification.getId(), attempts, next, lastError);
+    }
+
+    // base * 2^(intento-1), con tope y hasta un 20% de variación para no reintentar todas juntas
+    private long backoffMillis(int attempts) {
+        long delay = baseBackoffMillis << Math.min(attempts - 1, 20);
+        delay = Math.min(delay, maxBackoffMillis);
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    private void refreshGauges() {
+        try {
+            pendingGauge.set(repository.countByStatus(NotificationStatus.PENDING)
+                    + repository.countByStatus(NotificationStatus.SENDING));
+            deadGauge.set(repository.countByStatus(NotificationStatus.DEAD));
+        } catch (Exception e) {
+            log.debug("No se pudo actualizar la profundidad de la cola: {}", e.getMessage());
+        }
+    }
+
+    private static String truncate(String value) {
+        return value.length() > 500 ? value.substring(0, 500) : value;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
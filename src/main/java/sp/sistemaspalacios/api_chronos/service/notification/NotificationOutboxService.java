@@ -0,0 +1,50 @@
+package sp.sistemaspalacios.api_chronos.service.notification;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sp.sistemaspalacios.api_chronos.entity.notification.NotificationOutbox;
+import sp.sistemaspalacios.api_chronos.entity.notification.NotificationStatus;
+import sp.sistemaspalacios.api_chronos.repository.notification.NotificationOutboxRepository;
+
+/**
+ * Bandeja de salida de notificaciones. Las alertas se guardan como filas en la misma
+ * transacción que las genera y {@link NotificationDispatcher} las envía en segundo plano,
+ * así la marcación no espera al servicio de notificaciones.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationOutboxService {
+
+    private final NotificationOutboxRepository repository;
+    private final NotificationDispatcher dispatcher;
+
+    /** Encola dentro de la transacción actual: si la operación se revierte, no se envía. */
+    @Transactional
+    public NotificationOutbox enqueue(String recipient, String message) {
+        return save(recipient, message);
+    }
+
+    /** Encola en una transacción propia: se envía aunque la operación actual falle (ej. marcación bloqueada). */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public NotificationOutbox enqueueIndependent(String recipient, String message) {
+        return save(recipient, message);
+    }
+
+    private NotificationOutbox save(String recipient, String message) {
+        NotificationOutbox notification = new NotificationOutbox();
+        notification.setRecipient(recipient);
+        notification.setMessage(message);
+        notification.setStatus(NotificationStatus.PENDING);
+        notification.setAttempts(0);
+
+        NotificationOutbox saved = repository.save(notification);
+        log.debug("📥 Notificación {} encolada para {}", saved.getId(), recipient);
+
+        dispatcher.wakeUpAfterCommit();
+        return saved;
+    }
+}
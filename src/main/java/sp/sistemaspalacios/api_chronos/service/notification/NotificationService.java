@@ -1,7 +1,7 @@
 package sp.sistemaspalacios.api_chronos.service.notification;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
@@ -12,11 +12,14 @@ import java.util.Map;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class NotificationService {
 
     private final RestTemplate restTemplate;
 
+    public NotificationService(@Qualifier("notificationRestTemplate") RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
     @Value("${notification.service.url:http://192.168.80.13:3008}")
     private String notificationServiceUrl;
 
@@ -25,36 +28,42 @@ public class NotificationService {
 
     public void sendLatenessNotification(String employeeNumber, String message) {
         try {
-            String url = notificationServiceUrl + notificationEndpoint;
+            deliver(employeeNumber, message);
+        } catch (Exception e) {
+            log.error("❌ Error enviando notificación: {}", e.getMessage(), e);
+        }
+    }
 
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("number", employeeNumber);
-            payload.put("message", message);
+    /**
+     * Envía la notificación y lanza excepción si falla o la respuesta no es 2xx
+     * (lo usa {@link NotificationDispatcher} para decidir si reintenta).
+     */
+    public void deliver(String employeeNumber, String message) {
+        String url = notificationServiceUrl + notificationEndpoint;
 
-            log.info("📤 Enviando notificación a: {} - URL: {}", employeeNumber, url);
-            log.debug("📦 Payload: {}", payload);
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("number", employeeNumber);
+        payload.put("message", message);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
+        log.info("📤 Enviando notificación a: {} - URL: {}", employeeNumber, url);
+        log.debug("📦 Payload: {}", payload);
 
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
 
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.POST,
-                    request,
-                    Map.class
-            );
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
 
-            if (response.getStatusCode().is2xxSuccessful()) {
-                log.info("✅ Notificación enviada exitosamente");
-            } else {
-                log.warn("⚠️ Respuesta no exitosa: {}", response.getStatusCode());
-            }
+        ResponseEntity<Map> response = restTemplate.exchange(
+                url,
+                HttpMethod.POST,
+                request,
+                Map.class
+        );
 
-        } catch (Exception e) {
-            log.error("❌ Error enviando notificación: {}", e.getMessage(), e);
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new IllegalStateException("Respuesta no exitosa: " + response.getStatusCode());
         }
+        log.info("✅ Notificación enviada exitosamente");
     }
 
     public void sendNotification(String employeeNumber, String message) {
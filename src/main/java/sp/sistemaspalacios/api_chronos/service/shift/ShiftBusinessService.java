@@ -6,11 +6,13 @@ import sp.sistemaspalacios.api_chronos.dto.shift.ShiftBusinessDTOs;
 import sp.sistemaspalacios.api_chronos.entity.shift.ShiftDetail;
 import sp.sistemaspalacios.api_chronos.repository.shift.ShiftDetailRepository;
 import sp.sistemaspalacios.api_chronos.repository.shift.ShiftsRepository;
-import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.GeneralConfigurationService;
+import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.WorkingRulesService;
+import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.WorkingRulesSnapshot;
 import sp.sistemaspalacios.api_chronos.service.common.TimeService;
 import sp.sistemaspalacios.api_chronos.service.common.WorkingTimeCalculatorService;
 import sp.sistemaspalacios.api_chronos.service.common.WorkingTimeValidatorService;
 
+import java.math.BigDecimal;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -22,11 +24,12 @@ public class ShiftBusinessService {
     private final ValidationService validationService;
     private final ShiftsRepository shiftsRepository;
     private final ShiftDetailRepository shiftDetailRepository;
-    private final GeneralConfigurationService generalConfigurationService;
+    private final WorkingRulesService workingRulesService;
 
     private final TimeService timeService;
     private final WorkingTimeCalculatorService calculator;
     private final WorkingTimeValidatorService validator;
+    private final ShiftTemplateCache shiftTemplateCache;
 
     // Mapeo de días
     private final Map<String, Integer> DAY_MAPPING = Map.of(
@@ -37,17 +40,19 @@ public class ShiftBusinessService {
     public ShiftBusinessService(ValidationService validationService,
                                 ShiftsRepository shiftsRepository,
                                 ShiftDetailRepository shiftDetailRepository,
-                                GeneralConfigurationService generalConfigurationService,
+                                WorkingRulesService workingRulesService,
                                 TimeService timeService,
                                 WorkingTimeCalculatorService calculator,
-                                WorkingTimeValidatorService validator) {
+                                WorkingTimeValidatorService validator,
+                                ShiftTemplateCache shiftTemplateCache) {
         this.validationService = validationService;
         this.shiftsRepository = shiftsRepository;
         this.shiftDetailRepository = shiftDetailRepository;
-        this.generalConfigurationService = generalConfigurationService;
+        this.workingRulesService = workingRulesService;
         this.timeService = timeService;
         this.calculator = calculator;
         this.validator = validator;
+        this.shiftTemplateCache = shiftTemplateCache;
     }
 
 
@@ -243,11 +248,8 @@ public class ShiftBusinessService {
             double netHours = Math.max(0.0, workHours - breakHours);
 
             // 2) Límite semanal
-            Double configuredLimit = null;
-            try {
-                String weeklyCfg = generalConfigurationService.getByType("WEEKLY_HOURS").getValue();
-                configuredLimit = parseConfigurationHours(weeklyCfg);
-            } catch (Exception ignore) {}
+            BigDecimal weeklyCfg = workingRulesService.current().getWeeklyHours();
+            Double configuredLimit = (weeklyCfg != null) ? weeklyCfg.doubleValue() : null;
 
             double weeklyLimit = (configuredLimit != null && configuredLimit > 0)
                     ? configuredLimit
@@ -301,6 +303,7 @@ public class ShiftBusinessService {
                 shiftDetails.add(detail);
             }
             shiftDetailRepository.saveAll(shiftDetails);
+            shiftTemplateCache.invalidateAfterCommit(savedShift.getId());
 
             // 6) Respuesta
             response.put("success", true);
@@ -860,12 +863,13 @@ public class ShiftBusinessService {
 
     private void setConfigurationValues(ShiftDetail shiftDetail) {
         try {
-            String breakValue = generalConfigurationService.getByType("BREAK").getValue();
-            String weeklyHours = generalConfigurationService.getByType("WEEKLY_HOURS").getValue();
-            String hoursPerDay = generalConfigurationService.getByType("DAILY_HOURS").getValue();
-            String nightStart = generalConfigurationService.getByType("NIGHT_START").getValue();
+            WorkingRulesSnapshot rules = workingRulesService.current();
+            int breakMinutes = rules.requireBreakMinutes();
+            String weeklyHours = rules.requireRaw(WorkingRulesSnapshot.WEEKLY_HOURS);
+            String hoursPerDay = rules.requireRaw(WorkingRulesSnapshot.DAILY_HOURS);
+            String nightStart = rules.requireRaw(WorkingRulesSnapshot.NIGHT_START);
 
-            shiftDetail.setBreakMinutes(Integer.parseInt(breakValue));
+            shiftDetail.setBreakMinutes(breakMinutes);
             shiftDetail.setWeeklyHours(weeklyHours);
             shiftDetail.setNightHoursStart(nightStart);
             shiftDetail.setHoursPerDay(hoursPerDay);
@@ -4,7 +4,8 @@ import org.springframework.stereotype.Service;
 import sp.sistemaspalacios.api_chronos.entity.shift.ShiftDetail;
 import sp.sistemaspalacios.api_chronos.exception.ResourceNotFoundException;
 import sp.sistemaspalacios.api_chronos.repository.shift.ShiftDetailRepository;
-import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.GeneralConfigurationService;
+import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.WorkingRulesService;
+import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.WorkingRulesSnapshot;
 import sp.sistemaspalacios.api_chronos.validator.shift.ShiftDetailValidator;
 
 import java.time.Duration;
@@ -21,7 +22,8 @@ import java.util.Map;
 public class ShiftDetailService {
 
     private final ShiftDetailRepository shiftDetailRepository;
-    private final GeneralConfigurationService generalConfigurationService;
+    private final WorkingRulesService workingRulesService;
+    private final ShiftTemplateCache shiftTemplateCache;
 
     // Formateadores y helpers de tiempo
     private static final DateTimeFormatter HH_MM = DateTimeFormatter.ofPattern("HH:mm");
@@ -34,9 +36,11 @@ public class ShiftDetailService {
                     .appendPattern("h:mm a")
                     .toFormatter();
     public ShiftDetailService(ShiftDetailRepository shiftDetailRepository,
-                              GeneralConfigurationService generalConfigurationService) {
+                              WorkingRulesService workingRulesService,
+                              ShiftTemplateCache shiftTemplateCache) {
         this.shiftDetailRepository = shiftDetailRepository;
-        this.generalConfigurationService = generalConfigurationService;
+        this.workingRulesService = workingRulesService;
+        this.shiftTemplateCache = shiftTemplateCache;
     }
 
 
@@ -57,7 +61,7 @@ public class ShiftDetailService {
         // Validación centralizada
         ShiftDetailValidator.validateShiftDetail(
                 shiftDetail,
-                generalConfigurationService,
+                workingRulesService.current(),
                 shiftDetailRepository
         );
 
@@ -65,13 +69,15 @@ public class ShiftDetailService {
         configureBreakTimes(shiftDetail);
 
         shiftDetail.setCreatedAt(new Date());
-        return shiftDetailRepository.save(shiftDetail);
+        ShiftDetail saved = shiftDetailRepository.save(shiftDetail);
+        invalidateShift(saved);
+        return saved;
     }
 
     public ShiftDetail updateShiftDetail(Long id, ShiftDetail shiftDetail) {
         ShiftDetailValidator.validateShiftDetail(
                 shiftDetail,
-                generalConfigurationService,
+                workingRulesService.current(),
                 shiftDetailRepository
         );
 
@@ -80,6 +86,8 @@ public class ShiftDetailService {
 
         ShiftDetail existing = shiftDetailRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("ShiftDetail no encontrado con ID: " + id));
+        // El detalle puede cambiar de turno: se descartan el anterior y el nuevo
+        invalidateShift(existing);
 
         existing.setShift(shiftDetail.getShift());
         existing.setDayOfWeek(shiftDetail.getDayOfWeek());
@@ -94,14 +102,21 @@ public class ShiftDetailService {
         existing.setHoursPerDay(shiftDetail.getHoursPerDay());
         existing.setUpdatedAt(new Date());
 
-        return shiftDetailRepository.save(existing);
+        ShiftDetail saved = shiftDetailRepository.save(existing);
+        invalidateShift(saved);
+        return saved;
     }
     public void deleteShiftDetail(Long id) {
-        if (!shiftDetailRepository.existsById(id)) {
-            throw new ResourceNotFoundException("ShiftDetail no encontrado con ID: " + id);
-        }
+        ShiftDetail existing = shiftDetailRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("ShiftDetail no encontrado con ID: " + id));
         shiftDetailRepository.deleteById(id);
+        invalidateShift(existing);
+    }
 
+    private void invalidateShift(ShiftDetail detail) {
+        if (detail != null && detail.getShift() != null) {
+            shiftTemplateCache.invalidateAfterCommit(detail.getShift().getId());
+        }
     }
 
     // ==========================
@@ -110,13 +125,13 @@ public class ShiftDetailService {
 
     private void setConfigurationValues(ShiftDetail shiftDetail) {
         try {
-            String breakValue = generalConfigurationService.getByType("BREAK").getValue();
-            String weeklyHours = generalConfigurationService.getByType("WEEKLY_HOURS").getValue();
-            String hoursPerDay = generalConfigurationService.getByType("DAILY_HOURS").getValue();
-            String nightStart = generalConfigurationService.getByType("NIGHT_START").getValue();
+            WorkingRulesSnapshot rules = workingRulesService.current();
+            String weeklyHours = rules.requireRaw(WorkingRulesSnapshot.WEEKLY_HOURS);
+            String hoursPerDay = rules.requireRaw(WorkingRulesSnapshot.DAILY_HOURS);
+            String nightStart = rules.requireRaw(WorkingRulesSnapshot.NIGHT_START);
 
             // Nunca confíes en breakMinutes de frontend
-            shiftDetail.setBreakMinutes(parseBreakMinutes(breakValue));
+            shiftDetail.setBreakMinutes(rules.requireBreakMinutes());
 
             // Mantén estas cadenas tal cual en BD
             shiftDetail.setWeeklyHours(weeklyHours);
@@ -194,9 +209,7 @@ public class ShiftDetailService {
         int totalHours = totalMinutes / 60;
         int remainingMinutes = totalMinutes % 60;
 
-        double weeklyLimit = parseConfigurationHours(
-                generalConfigurationService.getByType("WEEKLY_HOURS").getValue()
-        );
+        double weeklyLimit = workingRulesService.current().requireWeeklyHours().doubleValue();
         int weeklyLimitMinutes = (int)(weeklyLimit * 60);
 
         Map<String, Object> result = new HashMap<>();
@@ -245,29 +258,6 @@ public class ShiftDetailService {
     }
 
 
-    private double parseConfigurationHours(String value) {
-        if (value == null || value.trim().isEmpty()) return 0.0;
-
-        value = value.trim();
-        try {
-            if (value.contains(":")) {
-                String[] parts = value.split(":");
-                if (parts.length != 2) throw new IllegalArgumentException("Formato inválido: " + value);
-                int hours = Integer.parseInt(parts[0]);
-                int minutes = Integer.parseInt(parts[1]);
-                if (hours < 0 || minutes < 0 || minutes >= 60) {
-                    throw new IllegalArgumentException("Valores inválidos: " + value);
-                }
-                return hours + (minutes / 60.0);
-            } else {
-                double hours = Double.parseDouble(value);
-                if (hours < 0) throw new IllegalArgumentException("Horas negativas: " + value);
-                return hours;
-            }
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Formato inválido: " + value + " (use HH:MM o decimal)", e);
-        }
-    }
     // ==========================
     // Normalización + ParseAny
     // ==========================
@@ -288,17 +278,6 @@ public class ShiftDetailService {
 
 
 
-    private int parseBreakMinutes(String value) {
-        if (value == null || value.trim().isEmpty()) return 0;
-        try {
-            double minutes = Double.parseDouble(value.trim());
-            if (minutes < 0) throw new IllegalArgumentException("Minutos negativos: " + value);
-            return (int) Math.round(minutes);
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Valor de break inválido: " + value, e);
-        }
-    }
-
     private LocalTime parseAny(String raw) {
         if (raw == null || raw.isBlank()) throw new IllegalArgumentException("Hora vacía");
         String s = raw.trim();
@@ -0,0 +1,171 @@
+package sp.sistemaspalacios.api_chronos.service.shift;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Forma compilada e inmutable de un turno: por día de la semana (ISO, 1..7) los segmentos en
+ * minutos ordenados por inicio, con su descanso. Un segmento con fin <= inicio pasa la
+ * medianoche (mismo criterio que TimeService.timeOverlaps).
+ * Se construye con {@link ShiftTemplateCache}; los arreglos que devuelve son copias.
+ */
+public final class ShiftTemplate {
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int[] NO_RANGES = new int[0];
+
+    /**
+     * Segmento de un día. {@code breakStart}/{@code breakEnd} son -1 si no hay ventana de
+     * descanso; {@code breakMinutes} es el valor configurado o, sin él, el largo de la ventana.
+     */
+    public record Segment(int start, int end, int breakStart, int breakEnd, int breakMinutes) {
+        public boolean crossesMidnight() {
+            return end <= start;
+        }
+
+        public int durationMinutes() {
+            return crossesMidnight() ? end + MINUTES_PER_DAY - start : end - start;
+        }
+
+        public boolean hasBreakWindow() {
+            return breakStart >= 0 && breakEnd >= 0;
+        }
+    }
+
+    private final Long shiftId;
+    private final String name;
+    private final Long dependencyId;
+    // Índice 0 sin usar; 1..7 = lunes..domingo
+    private final List<Segment>[] segments;
+    private final int[][] ranges;
+    private final int[][] normalized;
+    private final int weeklyMinutes;
+    private final int weeklyBreakMinutes;
+
+    @SuppressWarnings("unchecked")
+    ShiftTemplate(Long shiftId, String name, Long dependencyId, List<List<Segment>> byDay) {
+        this.shiftId = shiftId;
+        this.name = name;
+        this.dependencyId = dependencyId;
+        this.segments = new List[8];
+        this.ranges = new int[8][];
+        this.normalized = new int[8][];
+
+        int weekly = 0;
+        int weeklyBreak = 0;
+        for (int dow = 0; dow < 8; dow++) {
+            List<Segment> day = dow < byDay.size() ? byDay.get(dow) : Collections.emptyList();
+            segments[dow] = List.copyOf(day);
+            int[] raw = day.isEmpty() ? NO_RANGES : new int[day.size() * 2];
+            int[] norm = day.isEmpty() ? NO_RANGES : new int[day.size() * 2];
+            for (int i = 0; i < day.size(); i++) {
+                Segment s = day.get(i);
+                raw[i * 2] = s.start();
+                raw[i * 2 + 1] = s.end();
+                norm[i * 2] = s.start();
+                norm[i * 2 + 1] = s.start() + s.durationMinutes();
+                if (dow >= 1) {
+                    weekly += s.durationMinutes();
+                    weeklyBreak += s.breakMinutes();
+                }
+            }
+            ranges[dow] = raw;
+            normalized[dow] = norm;
+        }
+        this.weeklyMinutes = weekly;
+        this.weeklyBreakMinutes = weeklyBreak;
+    }
+
+    public Long shiftId() {
+        return shiftId;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Long dependencyId() {
+        return dependencyId;
+    }
+
+    public List<Segment> segments(int dayOfWeek) {
+        return valid(dayOfWeek) ? segments[dayOfWeek] : Collections.emptyList();
+    }
+
+    /** [inicio0, fin0, inicio1, fin1, ...] en minutos tal como están configurados, ordenado por inicio. */
+    public int[] ranges(int dayOfWeek) {
+        return valid(dayOfWeek) && ranges[dayOfWeek].length > 0 ? ranges[dayOfWeek].clone() : NO_RANGES;
+    }
+
+    public boolean worksOn(int dayOfWeek) {
+        return valid(dayOfWeek) && !segments[dayOfWeek].isEmpty();
+    }
+
+    public boolean crossesMidnight(int dayOfWeek) {
+        if (!valid(dayOfWeek)) return false;
+        for (Segment s : segments[dayOfWeek]) {
+            if (s.crossesMidnight()) return true;
+        }
+        return false;
+    }
+
+    public int weeklyMinutes() {
+        return weeklyMinutes;
+    }
+
+    public int weeklyBreakMinutes() {
+        return weeklyBreakMinutes;
+    }
+
+    /**
+     * Si algún segmento de este turno choca con uno del otro el mismo día de la semana.
+     * Barrido por inicio sobre ambas listas: un segmento choca con el otro lado si alguno de
+     * los que ya empezaron (del otro lado) termina después de su inicio.
+     */
+    public boolean overlaps(int dayOfWeek, ShiftTemplate other) {
+        if (other == null || !valid(dayOfWeek)) return false;
+        int[] a = normalized[dayOfWeek];
+        int[] b = other.normalized[dayOfWeek];
+        if (a.length == 0 || b.length == 0) return false;
+        int i = 0;
+        int j = 0;
+        int maxEndA = Integer.MIN_VALUE;
+        int maxEndB = Integer.MIN_VALUE;
+        while (i < a.length || j < b.length) {
+            boolean takeA = j >= b.length || (i < a.length && a[i] <= b[j]);
+            if (takeA) {
+                if (maxEndB > a[i]) return true;
+                maxEndA = Math.max(maxEndA, a[i + 1]);
+                i += 2;
+            } else {
+                if (maxEndA > b[j]) return true;
+                maxEndB = Math.max(maxEndB, b[j + 1]);
+                j += 2;
+            }
+        }
+        return false;
+    }
+
+    /** Bits 1..7: días de la semana (ISO) en que los dos turnos se solapan. */
+    public int conflictDays(ShiftTemplate other) {
+        int mask = 0;
+        for (int dow = 1; dow <= 7; dow++) {
+            if (overlaps(dow, other)) mask |= 1 << dow;
+        }
+        return mask;
+    }
+
+    private static boolean valid(int dayOfWeek) {
+        return dayOfWeek >= 1 && dayOfWeek <= 7;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ShiftTemplate{id=").append(shiftId).append(", name=").append(name);
+        for (int dow = 1; dow <= 7; dow++) {
+            if (ranges[dow].length > 0) sb.append(", ").append(dow).append('=').append(Arrays.toString(ranges[dow]));
+        }
+        return sb.append('}').toString();
+    }
+}
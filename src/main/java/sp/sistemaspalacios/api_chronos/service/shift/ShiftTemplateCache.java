@@ -0,0 +1,205 @@
+package sp.sistemaspalacios.api_chronos.service.shift;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sp.sistemaspalacios.api_chronos.entity.shift.ShiftDetail;
+import sp.sistemaspalacios.api_chronos.entity.shift.Shifts;
+import sp.sistemaspalacios.api_chronos.repository.shift.ShiftsRepository;
+import sp.sistemaspalacios.api_chronos.service.common.TimeService;
+import sp.sistemaspalacios.api_chronos.service.employeeAttendance.ScheduleDayIndexListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turnos compilados en memoria ({@link ShiftTemplate}), por ID. Se cargan a demanda (en bloque
+ * con sus detalles) y se descartan cuando se escribe el turno o alguno de sus detalles, así los
+ * ciclos por día y por asignación no vuelven a leer ni a parsear los ShiftDetail.
+ * <p>
+ * Una carga que empezó antes de una invalidación no se guarda: podría traer datos viejos.
+ */
+@Slf4j
+@Service
+public class ShiftTemplateCache {
+
+    private final ShiftsRepository shiftsRepository;
+    private final TimeService timeService;
+    private final ScheduleDayIndexListener dayIndexListener;
+
+    private final ConcurrentHashMap<Long, ShiftTemplate> templates = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public ShiftTemplateCache(ShiftsRepository shiftsRepository, TimeService timeService,
+                              ScheduleDayIndexListener dayIndexListener) {
+        this.shiftsRepository = shiftsRepository;
+        this.timeService = timeService;
+        this.dayIndexListener = dayIndexListener;
+    }
+
+    /** Turno compilado o null si no existe. */
+    public ShiftTemplate get(Long shiftId) {
+        if (shiftId == null) return null;
+        ShiftTemplate cached = templates.get(shiftId);
+        if (cached != null) return cached;
+        return getAll(List.of(shiftId)).get(shiftId);
+    }
+
+    /** Turnos compilados por ID; los que faltan se cargan en una sola consulta. Los inexistentes no aparecen. */
+    public Map<Long, ShiftTemplate> getAll(Collection<Long> shiftIds) {
+        Map<Long, ShiftTemplate> result = new HashMap<>();
+        if (shiftIds == null || shiftIds.isEmpty()) return result;
+
+        Set<Long> missing = new HashSet<>();
+        for (Long id : shiftIds) {
+            if (id == null) continue;
+            ShiftTemplate cached = templates.get(id);
+            if (cached != null) result.put(id, cached);
+            else missing.add(id);
+        }
+        if (missing.isEmpty()) return result;
+
+        long gen = generation.get();
+        for (Shifts shift : shiftsRepository.findAllByIdWithDetails(missing)) {
+            ShiftTemplate template = compile(shift);
+            result.put(shift.getId(), template);
+            store(gen, template);
+        }
+        log.debug("Turnos compilados: {} de {} cargados", missing.size(), shiftIds.size());
+        return result;
+    }
+
+    /**
+     * Turno compilado de una entidad ya cargada (ej. el turno de un horario). Si no está en
+     * caché se compila desde la entidad, sin consultar el repositorio. Una referencia sin
+     * detalles (solo el ID, ej. armada desde filas JDBC) se carga por ID.
+     */
+    public ShiftTemplate get(Shifts shift) {
+        if (shift == null) return null;
+        if (shift.getId() != null) {
+            ShiftTemplate cached = templates.get(shift.getId());
+            if (cached != null) return cached;
+            if (shift.getShiftDetails() == null) return get(shift.getId());
+        }
+        long gen = generation.get();
+        ShiftTemplate template = compile(shift);
+        if (shift.getId() != null) store(gen, template);
+        return template;
+    }
+
+    public void invalidate(Long shiftId) {
+        generation.incrementAndGet();
+        if (shiftId != null) templates.remove(shiftId);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        templates.clear();
+    }
+
+    /**
+     * Descarta el turno ahora y otra vez cuando la transacción actual confirme (una lectura
+     * dentro de la transacción pudo volver a guardarlo con datos sin confirmar). Al confirmar
+     * también se recargan en el índice de días los horarios compactos del turno.
+     */
+    public void invalidateAfterCommit(Long shiftId) {
+        invalidate(shiftId);
+        dayIndexListener.markShiftChanged(shiftId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(shiftId);
+                }
+            });
+        }
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    // ===== INTERNOS =====
+
+    private void store(long gen, ShiftTemplate template) {
+        templates.put(template.shiftId(), template);
+        // Si hubo una invalidación mientras se cargaba, no se deja la versión posiblemente vieja
+        if (generation.get() != gen) templates.remove(template.shiftId(), template);
+    }
+
+    ShiftTemplate compile(Shifts shift) {
+        List<List<ShiftTemplate.Segment>> byDay = new ArrayList<>(8);
+        for (int i = 0; i < 8; i++) byDay.add(new ArrayList<>());
+
+        if (shift.getShiftDetails() != null) {
+            for (ShiftDetail detail : shift.getShiftDetails()) {
+                Integer dow = detail.getDayOfWeek();
+                if (dow == null || dow < 1 || dow > 7) continue;
+                ShiftTemplate.Segment segment = toSegment(detail);
+                if (segment != null) byDay.get(dow).add(segment);
+            }
+        }
+        for (List<ShiftTemplate.Segment> day : byDay) {
+            day.sort(Comparator.comparingInt(ShiftTemplate.Segment::start));
+        }
+        return new ShiftTemplate(shift.getId(), shift.getName(), shift.getDependencyId(), byDay);
+    }
+
+    private ShiftTemplate.Segment toSegment(ShiftDetail detail) {
+        int start = minutes(detail.getStartTime());
+        int end = minutes(detail.getEndTime());
+        if (start < 0 || end < 0) {
+            if (detail.getStartTime() != null && detail.getEndTime() != null) {
+                log.warn("Detalle de turno {} con hora inválida: {}-{}", detail.getId(),
+                        detail.getStartTime(), detail.getEndTime());
+            }
+            return null;
+        }
+
+        int breakStart = minutes(detail.getBreakStartTime());
+        int breakEnd = minutes(detail.getBreakEndTime());
+        if (breakStart < 0 || breakEnd < 0) {
+            breakStart = -1;
+            breakEnd = -1;
+        }
+        int breakMinutes;
+        if (detail.getBreakMinutes() != null) {
+            breakMinutes = Math.max(0, detail.getBreakMinutes());
+        } else if (breakStart >= 0) {
+            breakMinutes = breakEnd > breakStart ? breakEnd - breakStart : breakEnd + ShiftTemplate.MINUTES_PER_DAY - breakStart;
+        } else {
+            breakMinutes = 0;
+        }
+        return new ShiftTemplate.Segment(start, end, breakStart, breakEnd, breakMinutes);
+    }
+
+    // "HH:mm" / "H:mm" / "HH:mm:ss" sin parsear; los demás formatos pasan por TimeService. -1 si no es una hora.
+    private int minutes(String time) {
+        if (time == null || time.isBlank()) return -1;
+        String t = time.trim();
+        int len = t.length();
+        int colon = t.indexOf(':');
+        if ((colon == 1 || colon == 2) && (len == colon + 3 || (len == colon + 6 && t.charAt(colon + 3) == ':'))) {
+            int h = digits(t, 0, colon);
+            int m = digits(t, colon + 1, colon + 3);
+            if (h >= 0 && m >= 0) return h * 60 + m;
+        }
+        try {
+            return timeService.toMinutes(timeService.parseAny(t));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
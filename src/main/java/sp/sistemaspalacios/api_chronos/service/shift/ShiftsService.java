@@ -5,7 +5,8 @@ import sp.sistemaspalacios.api_chronos.entity.shift.ShiftDetail;
 import sp.sistemaspalacios.api_chronos.entity.shift.Shifts;
 import sp.sistemaspalacios.api_chronos.exception.ResourceNotFoundException;
 import sp.sistemaspalacios.api_chronos.repository.shift.ShiftsRepository;
-import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.GeneralConfigurationService;
+import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.WorkingRulesService;
+import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.WorkingRulesSnapshot;
 
 import java.util.*;
 
@@ -13,12 +14,15 @@ import java.util.*;
 public class ShiftsService {
 
     private final ShiftsRepository shiftsRepository;
-    private final GeneralConfigurationService generalConfigurationService;
+    private final WorkingRulesService workingRulesService;
+    private final ShiftTemplateCache shiftTemplateCache;
 
     public ShiftsService(ShiftsRepository shiftsRepository,
-                         GeneralConfigurationService generalConfigurationService) {
+                         WorkingRulesService workingRulesService,
+                         ShiftTemplateCache shiftTemplateCache) {
         this.shiftsRepository = shiftsRepository;
-        this.generalConfigurationService = generalConfigurationService;
+        this.workingRulesService = workingRulesService;
+        this.shiftTemplateCache = shiftTemplateCache;
     }
 
     // ==========================================
@@ -42,7 +46,9 @@ public class ShiftsService {
     public Shifts save(Shifts shifts) {
         validateShift(shifts);
         assignShiftToDetails(shifts);
-        return shiftsRepository.save(shifts);
+        Shifts saved = shiftsRepository.save(shifts);
+        shiftTemplateCache.invalidateAfterCommit(saved.getId());
+        return saved;
     }
 
     public Shifts updateShift(Long id, Shifts shiftDetails) {
@@ -52,12 +58,15 @@ public class ShiftsService {
         updateShiftProperties(existingShift, shiftDetails);
         assignShiftToDetails(existingShift);
 
-        return shiftsRepository.save(existingShift);
+        Shifts saved = shiftsRepository.save(existingShift);
+        shiftTemplateCache.invalidateAfterCommit(id);
+        return saved;
     }
 
     public void deleteById(Long id) {
         Shifts shift = findById(id);
         shiftsRepository.delete(shift);
+        shiftTemplateCache.invalidateAfterCommit(id);
     }
 
     // ==========================================
@@ -123,10 +132,11 @@ public class ShiftsService {
 
     private SystemConfiguration loadCurrentSystemConfiguration() {
         try {
-            String daily = generalConfigurationService.getByType("DAILY_HOURS").getValue();
-            int breakMin = Integer.parseInt(generalConfigurationService.getByType("BREAK").getValue());
-            String night = generalConfigurationService.getByType("NIGHT_START").getValue();
-            String weekly = generalConfigurationService.getByType("WEEKLY_HOURS").getValue();
+            WorkingRulesSnapshot rules = workingRulesService.current();
+            String daily = rules.requireRaw(WorkingRulesSnapshot.DAILY_HOURS);
+            int breakMin = rules.requireBreakMinutes();
+            String night = rules.requireRaw(WorkingRulesSnapshot.NIGHT_START);
+            String weekly = rules.requireRaw(WorkingRulesSnapshot.WEEKLY_HOURS);
 
             return new SystemConfiguration(daily, breakMin, night, weekly);
 
@@ -2,7 +2,8 @@ package sp.sistemaspalacios.api_chronos.service.shift;
 
 import org.springframework.stereotype.Service;
 import sp.sistemaspalacios.api_chronos.controller.shift.ValidationController;
-import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.GeneralConfigurationService;
+import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.WorkingRulesService;
+import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.WorkingRulesSnapshot;
 import sp.sistemaspalacios.api_chronos.service.common.TimeService;
 import sp.sistemaspalacios.api_chronos.service.common.WorkingTimeValidatorService;
 
@@ -16,13 +17,13 @@ import java.util.regex.Pattern;
 @Service
 public class ValidationService {
 
-    private final GeneralConfigurationService generalConfigurationService;
+    private final WorkingRulesService workingRulesService;
     private static final Pattern MILITARY_TIME_PATTERN = Pattern.compile("^([01]?[0-9]|2[0-3]):([0-5][0-9])$");
     private static final Pattern AMPM_TIME_PATTERN = Pattern.compile("^([0]?[1-9]|1[0-2]):[0-5][0-9]\\s*(AM|PM)$");
     private final WorkingTimeValidatorService validator;
     private final TimeService timeService;
-    public ValidationService(GeneralConfigurationService generalConfigurationService,  WorkingTimeValidatorService validator, TimeService timeService) {
-        this.generalConfigurationService = generalConfigurationService;
+    public ValidationService(WorkingRulesService workingRulesService,  WorkingTimeValidatorService validator, TimeService timeService) {
+        this.workingRulesService = workingRulesService;
         this.validator = validator;
         this.timeService = timeService;
     }
@@ -366,12 +367,8 @@ public class ValidationService {
     }
 
     private LocalTime getNightStart() {
-        try {
-            String nightStartConfig = generalConfigurationService.getByType("NIGHT_START").getValue();
-            return LocalTime.parse(nightStartConfig); // ejemplo "19:00"
-        } catch (Exception e) {
-            return LocalTime.of(19, 0); // fallback
-        }
+        LocalTime nightStart = workingRulesService.current().getNightStart(); // ejemplo "19:00"
+        return nightStart != null ? nightStart : LocalTime.of(19, 0); // fallback
     }
 
     private String formatAmPm(LocalTime t) {
@@ -382,8 +379,10 @@ public class ValidationService {
 
     private String checkNightShiftWarning(String start24h, String end24h) {
         try {
-            String nightStartConfig = generalConfigurationService.getByType("NIGHT_START").getValue();
-            LocalTime nightStartTime = LocalTime.parse(nightStartConfig);
+            WorkingRulesSnapshot rules = workingRulesService.current();
+            String nightStartConfig = rules.requireRaw(WorkingRulesSnapshot.NIGHT_START);
+            LocalTime nightStartTime = rules.getNightStart();
+            if (nightStartTime == null) return null;
             LocalTime startTime = LocalTime.parse(start24h);
             LocalTime endTime = LocalTime.parse(end24h);
 
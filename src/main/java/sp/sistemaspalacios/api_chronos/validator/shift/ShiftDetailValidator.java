@@ -2,7 +2,7 @@ package sp.sistemaspalacios.api_chronos.validator.shift;
 
 import sp.sistemaspalacios.api_chronos.entity.shift.ShiftDetail;
 import sp.sistemaspalacios.api_chronos.repository.shift.ShiftDetailRepository;
-import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.GeneralConfigurationService;
+import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.WorkingRulesSnapshot;
 
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
@@ -13,7 +13,7 @@ public class ShiftDetailValidator {
 
     public static void validateShiftDetail(
             ShiftDetail shiftDetail,
-            GeneralConfigurationService generalConfigurationService,
+            WorkingRulesSnapshot rules,
             ShiftDetailRepository shiftDetailRepository
     ) {
         // ==========================================
@@ -33,9 +33,9 @@ public class ShiftDetailValidator {
         // PASO 3: VALIDACIONES DE NEGOCIO (RECALCULAR TODO)
         // ==========================================
 
-        validateTimeLogic(shiftDetail, generalConfigurationService);
-        validateWeeklyHours(shiftDetail, shiftDetailRepository, generalConfigurationService);
-        validateBreakTimes(shiftDetail, generalConfigurationService, shiftDetailRepository);
+        validateTimeLogic(shiftDetail, rules);
+        validateWeeklyHours(shiftDetail, shiftDetailRepository, rules);
+        validateBreakTimes(shiftDetail, rules, shiftDetailRepository);
     }
 
     // ==========================================
@@ -169,7 +169,7 @@ public class ShiftDetailValidator {
     // VALIDACIONES DE LÓGICA DE TIEMPO - RECALCULAR TODO
     // ==========================================
 
-    private static void validateTimeLogic(ShiftDetail shiftDetail, GeneralConfigurationService configService) {
+    private static void validateTimeLogic(ShiftDetail shiftDetail, WorkingRulesSnapshot rules) {
         LocalTime startTime = LocalTime.parse(shiftDetail.getStartTime());
         LocalTime endTime = LocalTime.parse(shiftDetail.getEndTime());
 
@@ -182,16 +182,15 @@ public class ShiftDetailValidator {
         }
 
         // Validar contra límites diarios
-        validateAgainstDailyLimits(actualDurationHours, configService);
+        validateAgainstDailyLimits(actualDurationHours, rules);
 
         // Validar coherencia de horario (cruce de medianoche debe ser intencional)
         validateTimeCoherence(startTime, endTime, actualDurationHours);
     }
 
-    private static void validateAgainstDailyLimits(long durationHours, GeneralConfigurationService configService) {
+    private static void validateAgainstDailyLimits(long durationHours, WorkingRulesSnapshot rules) {
         try {
-            String dailyHoursValue = configService.getByType("DAILY_HOURS").getValue();
-            double maxDailyHours = parseHoursValue(dailyHoursValue);
+            double maxDailyHours = rules.requireDailyHours().doubleValue();
 
             if (durationHours > maxDailyHours) {
                 throw new IllegalArgumentException(
@@ -229,7 +228,7 @@ public class ShiftDetailValidator {
 
     public static void validateBreakTimes(
             ShiftDetail shiftDetail,
-            GeneralConfigurationService generalConfigurationService,
+            WorkingRulesSnapshot rules,
             ShiftDetailRepository shiftDetailRepository
     ) {
         if (!hasBreakConfigured(shiftDetail)) {
@@ -250,7 +249,7 @@ public class ShiftDetailValidator {
         validateBreakWithinWorkingHours(shiftDetail, breakStart, breakEnd);
 
         // Validar contra límites de break configurados
-        validateBreakAgainstLimits(shiftDetail, actualBreakMinutes, generalConfigurationService, shiftDetailRepository);
+        validateBreakAgainstLimits(shiftDetail, actualBreakMinutes, rules, shiftDetailRepository);
     }
 
     private static boolean hasBreakConfigured(ShiftDetail shiftDetail) {
@@ -294,10 +293,10 @@ public class ShiftDetailValidator {
     private static void validateBreakAgainstLimits(
             ShiftDetail shiftDetail,
             int actualBreakMinutes,
-            GeneralConfigurationService configService,
+            WorkingRulesSnapshot rules,
             ShiftDetailRepository repository
     ) {
-        Integer maxBreakMinutes = getCurrentBreakMinutes(configService);
+        Integer maxBreakMinutes = getCurrentBreakMinutes(rules);
 
         // Calcular total de breaks para este día (RECALCULAR, no confiar en frontend)
         int totalBreakMinutesForDay = calculateTotalBreakMinutesForDay(
@@ -352,7 +351,7 @@ public class ShiftDetailValidator {
     public static void validateWeeklyHours(
             ShiftDetail shiftDetail,
             ShiftDetailRepository shiftDetailRepository,
-            GeneralConfigurationService generalConfigurationService
+            WorkingRulesSnapshot rules
     ) {
         // RECALCULAR horas reales del turno actual (no confiar en frontend)
         LocalTime start = LocalTime.parse(shiftDetail.getStartTime());
@@ -364,7 +363,7 @@ public class ShiftDetailValidator {
         int totalWithNew = totalScheduledHours + currentShiftHours;
 
         // Obtener límite real de configuración
-        int exactWeeklyHours = getExactWeeklyHoursFromConfig(generalConfigurationService);
+        int exactWeeklyHours = getExactWeeklyHoursFromConfig(rules);
 
         if (totalWithNew > exactWeeklyHours) {
             throw new IllegalArgumentException(
@@ -427,40 +426,13 @@ public class ShiftDetailValidator {
         }
     }
 
-    private static double parseHoursValue(String value) {
-        if (value == null || value.trim().isEmpty()) {
-            throw new IllegalArgumentException("Valor de horas vacío");
-        }
-
-        String cleanValue = value.trim();
-
-        if (cleanValue.contains(":")) {
-            // Formato HH:MM
-            String[] parts = cleanValue.split(":");
-            if (parts.length != 2) {
-                throw new IllegalArgumentException("Formato de horas inválido: " + value);
-            }
-
-            int hours = Integer.parseInt(parts[0]);
-            int minutes = Integer.parseInt(parts[1]);
-
-            return hours + (minutes / 60.0);
-        } else {
-            // Formato decimal
-            return Double.parseDouble(cleanValue);
-        }
-    }
-
-    public static int getExactWeeklyHoursFromConfig(GeneralConfigurationService configService) {
+    public static int getExactWeeklyHoursFromConfig(WorkingRulesSnapshot rules) {
         try {
-            String hoursStr = configService.getByType("WEEKLY_HOURS").getValue();
-
-            if (hoursStr == null) {
+            if (rules.getRaw(WorkingRulesSnapshot.WEEKLY_HOURS) == null) {
                 throw new IllegalStateException("No se encontró configuración de horas semanales.");
             }
 
-            double hoursDecimal = parseHoursValue(hoursStr);
-            int exactHours = (int) Math.floor(hoursDecimal);
+            int exactHours = rules.requireWeeklyHours().intValue(); // trunca, igual que floor para valores positivos
 
             if (exactHours <= 0) {
                 throw new IllegalStateException("Las horas semanales deben ser mayor a 0");
@@ -472,13 +444,9 @@ public class ShiftDetailValidator {
         }
     }
 
-    private static Integer getCurrentBreakMinutes(GeneralConfigurationService configService) {
-        try {
-            String breakValue = configService.getByType("BREAK").getValue();
-            return Integer.parseInt(breakValue);
-        } catch (Exception e) {
-            return 60; // Fallback por defecto
-        }
+    private static Integer getCurrentBreakMinutes(WorkingRulesSnapshot rules) {
+        Integer breakMinutes = rules.getBreakMinutes();
+        return breakMinutes != null ? breakMinutes : 60; // Fallback por defecto
     }
 
     // ==========================================
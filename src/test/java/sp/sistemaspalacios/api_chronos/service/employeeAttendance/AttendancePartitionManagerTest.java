@@ -0,0 +1,149 @@
+package sp.sistemaspalacios.api_chronos.service.employeeAttendance;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import sp.sistemaspalacios.api_chronos.entity.employeeAttendance.AttendanceType;
+import sp.sistemaspalacios.api_chronos.entity.employeeAttendance.EmployeeAttendance;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
+import sp.sistemaspalacios.api_chronos.entity.shift.Shifts;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Conversión de una employee_attendance de la época IDENTITY (script de arranque del contenedor)
+ * con ddl-auto=update, como en dev. El contexto se recrea entre pruebas: la segunda es un
+ * reinicio sobre la tabla ya particionada, con el mismo contenedor.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({AttendancePartitionManager.class, AttendancePartitionHealthIndicator.class,
+        AttendanceSequenceAligner.class, ScheduleDayIndexListener.class})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class AttendancePartitionManagerTest {
+
+    private static final int LEGACY_ROWS = 3;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withInitScript("db/attendance-identity-era.sql");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "update");
+        registry.add("attendance.partitioning.enabled", () -> "true");
+    }
+
+    @Autowired
+    private AttendancePartitionManager partitionManager;
+
+    @Autowired
+    private AttendancePartitionHealthIndicator healthIndicator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @Order(1)
+    void identityEraTableIsAttachedAsLegacyPartition() {
+        assertThat(relkind("employee_attendance")).isEqualTo("p");
+        assertThat(count("employee_attendance")).isEqualTo(LEGACY_ROWS);
+        assertThat(count("ONLY employee_attendance_legacy")).isEqualTo(LEGACY_ROWS);
+        // La partición ya no tiene IDENTITY: los IDs salen de employee_attendance_seq
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT CAST(attidentity AS TEXT) FROM pg_attribute " +
+                        "WHERE attrelid = to_regclass('employee_attendance_legacy') AND attname = 'id'",
+                String.class)).isEmpty();
+
+        List<AttendancePartitionManager.Partition> partitions = partitionManager.getPartitions();
+        LocalDate nextMonth = YearMonth.now().plusMonths(1).atDay(1);
+        assertThat(partitions).anySatisfy(p -> {
+            assertThat(p.name()).isEqualTo("employee_attendance_legacy");
+            assertThat(p.from()).isNull();
+            assertThat(p.to()).isEqualTo(nextMonth);
+        });
+        assertThat(partitions).extracting(AttendancePartitionManager.Partition::name)
+                .contains("employee_attendance_default", partitionName(YearMonth.now().plusMonths(3)));
+
+        assertThat(partitionManager.getState().healthy()).isTrue();
+        assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    @Order(2)
+    void restartWithDdlAutoUpdateKeepsThePartitionedTable() {
+        assertThat(relkind("employee_attendance")).isEqualTo("p");
+        assertThat(relkind("employee_attendance_legacy")).isEqualTo("r");
+        assertThat(count("employee_attendance")).isEqualTo(LEGACY_ROWS);
+
+        YearMonth month = YearMonth.now().plusMonths(1);
+        EmployeeAttendance attendance = new EmployeeAttendance();
+        attendance.setEmployeeSchedule(schedule());
+        attendance.setType(AttendanceType.CLOCK_IN);
+        attendance.setIsLate(false);
+        attendance.setTimestamp(Date.from(month.atDay(10).atTime(8, 0).atZone(ZoneId.systemDefault()).toInstant()));
+        entityManager.persistAndFlush(attendance);
+
+        // Secuencia adelantada sobre los IDs de la época IDENTITY y fila en la partición del mes
+        assertThat(attendance.getId()).isGreaterThan(LEGACY_ROWS);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT CAST(tableoid::regclass AS TEXT) FROM employee_attendance WHERE id = ?",
+                String.class, attendance.getId())).isEqualTo(partitionName(month));
+
+        assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    private EmployeeSchedule schedule() {
+        Shifts shift = new Shifts();
+        shift.setName("Oficina");
+        entityManager.persist(shift);
+
+        EmployeeSchedule schedule = new EmployeeSchedule();
+        schedule.setEmployeeId(10L);
+        schedule.setShift(shift);
+        schedule.setStartDate(LocalDate.now());
+        return entityManager.persist(schedule);
+    }
+
+    private String relkind(String table) {
+        return jdbcTemplate.queryForObject(
+                "SELECT CAST(relkind AS TEXT) FROM pg_class WHERE oid = to_regclass(?)", String.class, table);
+    }
+
+    private long count(String from) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + from, Long.class);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "employee_attendance_p" + month.format(DateTimeFormatter.ofPattern("yyyyMM"));
+    }
+}
@@ -0,0 +1,142 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.ScheduleAssignmentGroupRepository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Job de recálculo con el repositorio y el servicio de grupos simulados: lotes por empleado,
+ * reintento grupo por grupo y cancelación de los lotes pendientes.
+ */
+class GroupRecalculationJobServiceTest {
+
+    private static final LocalDate FROM = LocalDate.of(2025, 3, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 3, 31);
+
+    private ScheduleAssignmentGroupRepository groupRepository;
+    private ScheduleAssignmentGroupService groupService;
+    private GroupRecalculationJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        groupRepository = mock(ScheduleAssignmentGroupRepository.class);
+        groupService = mock(ScheduleAssignmentGroupService.class);
+        // Lotes de 2 grupos con un solo hilo: los lotes corren en orden
+        jobService = new GroupRecalculationJobService(groupRepository, groupService, 1, 2, 20);
+
+        // [groupId, employeeId] ordenados por empleado, como la consulta
+        when(groupRepository.findRecalculationTargets(any(), any())).thenReturn(List.of(
+                new Object[]{1L, 10L}, new Object[]{2L, 10L}, new Object[]{3L, 10L},
+                new Object[]{4L, 11L}, new Object[]{5L, 12L}));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+    }
+
+    @Test
+    void groupsOfOneEmployeeStayInTheSameChunk() throws Exception {
+        when(groupService.recalculateGroups(anyCollection()))
+                .thenAnswer(inv -> ((Collection<?>) inv.getArgument(0)).size());
+
+        GroupRecalculationJobService.JobSnapshot job = awaitFinished(jobService.start(FROM, TO, null));
+
+        verify(groupService).recalculateGroups(List.of(1L, 2L, 3L));
+        verify(groupService).recalculateGroups(List.of(4L, 5L));
+        verifyNoMoreInteractions(groupService);
+        assertThat(job.status()).isEqualTo(GroupRecalculationJobService.JobStatus.COMPLETED);
+        assertThat(job.totalGroups()).isEqualTo(5);
+        assertThat(job.employees()).isEqualTo(3);
+        assertThat(job.processedGroups()).isEqualTo(5);
+        assertThat(job.failedGroups()).isZero();
+        assertThat(job.progress()).isEqualTo(1.0);
+    }
+
+    @Test
+    void failedChunkIsRetriedGroupByGroupAndFailuresAreCounted() throws Exception {
+        when(groupService.recalculateGroups(anyCollection())).thenAnswer(inv -> {
+            Collection<?> ids = inv.getArgument(0);
+            if (ids.contains(2L)) throw new IllegalStateException("clasificación fallida");
+            return ids.size();
+        });
+
+        GroupRecalculationJobService.JobSnapshot job = awaitFinished(jobService.start(FROM, TO, null));
+
+        verify(groupService).recalculateGroups(List.of(1L, 2L, 3L));
+        verify(groupService).recalculateGroups(List.of(1L));
+        verify(groupService).recalculateGroups(List.of(2L));
+        verify(groupService).recalculateGroups(List.of(3L));
+        assertThat(job.status()).isEqualTo(GroupRecalculationJobService.JobStatus.COMPLETED_WITH_ERRORS);
+        assertThat(job.processedGroups()).isEqualTo(4);
+        assertThat(job.failedGroups()).isEqualTo(1);
+        assertThat(job.errors()).singleElement().asString().startsWith("Grupo 2:");
+    }
+
+    @Test
+    void cancelDiscardsPendingChunksAndLetsTheRunningOneFinish() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(groupService.recalculateGroups(anyCollection())).thenAnswer(inv -> {
+            started.countDown();
+            assertThat(release.await(5, TimeUnit.SECONDS)).isTrue();
+            return ((Collection<?>) inv.getArgument(0)).size();
+        });
+
+        GroupRecalculationJobService.JobSnapshot running = jobService.start(FROM, TO, null);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        GroupRecalculationJobService.JobSnapshot cancelled = jobService.cancel(running.jobId()).orElseThrow();
+        assertThat(cancelled.status()).isEqualTo(GroupRecalculationJobService.JobStatus.RUNNING);
+        release.countDown();
+
+        GroupRecalculationJobService.JobSnapshot job = awaitFinished(running);
+
+        verify(groupService).recalculateGroups(List.of(1L, 2L, 3L));
+        verifyNoMoreInteractions(groupService);
+        assertThat(job.status()).isEqualTo(GroupRecalculationJobService.JobStatus.CANCELLED);
+        assertThat(job.processedGroups()).isEqualTo(3);
+    }
+
+    @Test
+    void onlyOneJobRunsAtATime() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(groupService.recalculateGroups(anyCollection())).thenAnswer(inv -> {
+            assertThat(release.await(5, TimeUnit.SECONDS)).isTrue();
+            return ((Collection<?>) inv.getArgument(0)).size();
+        });
+
+        GroupRecalculationJobService.JobSnapshot running = jobService.start(FROM, TO, null);
+        try {
+            assertThatThrownBy(() -> jobService.start(FROM, TO, null))
+                    .isInstanceOf(IllegalStateException.class);
+        } finally {
+            release.countDown();
+        }
+        awaitFinished(running);
+    }
+
+    private GroupRecalculationJobService.JobSnapshot awaitFinished(GroupRecalculationJobService.JobSnapshot started)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            GroupRecalculationJobService.JobSnapshot job = jobService.get(started.jobId()).orElseThrow();
+            if (job.status() != GroupRecalculationJobService.JobStatus.RUNNING) return job;
+            Thread.sleep(10);
+        }
+        throw new AssertionError("El job " + started.jobId() + " no terminó");
+    }
+}
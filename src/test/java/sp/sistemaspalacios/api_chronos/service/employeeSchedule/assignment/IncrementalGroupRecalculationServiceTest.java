@@ -0,0 +1,227 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import sp.sistemaspalacios.api_chronos.dto.overtime.OvertimeTypeDTO;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleTimeBlock;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.ScheduleAssignmentGroup;
+import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.EmployeeScheduleRepository;
+import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.ScheduleAssignmentGroupRepository;
+import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.WorkingRulesService;
+import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.WorkingRulesSnapshot;
+import sp.sistemaspalacios.api_chronos.service.boundaries.holiday.HolidayCalendar;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.holiday.HolidayExemptionService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.overtime.HourClassificationService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.overtime.OvertimeTypeService;
+import sp.sistemaspalacios.api_chronos.service.shift.ShiftTemplateCache;
+
+import java.math.BigDecimal;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Recálculo por día: la diferencia aplicada a los totales del grupo debe dar lo mismo que
+ * recalcular el grupo completo con los bloques nuevos.
+ * Horario 1: 08:00-16:00 de lunes a domingo. Horario 2 (mismo empleado): 18:00-22:00 el viernes,
+ * que es hora extra por solape.
+ */
+class IncrementalGroupRecalculationServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 3, 17);
+    private static final LocalDate WEDNESDAY = MONDAY.plusDays(2);
+    private static final LocalDate FRIDAY = MONDAY.plusDays(4);
+    private static final Long EMPLOYEE_ID = 10L;
+    private static final Long GROUP_ID = 100L;
+
+    private EmployeeScheduleRepository scheduleRepository;
+    private ScheduleAssignmentGroupRepository groupRepository;
+    private ScheduleAssignmentGroupService groupService;
+    private HourClassificationService classification;
+    private IncrementalGroupRecalculationService service;
+
+    private EmployeeSchedule main;
+    private EmployeeSchedule extra;
+    private ScheduleAssignmentGroup group;
+
+    @BeforeEach
+    void setUp() {
+        OvertimeTypeService overtimeTypeService = mock(OvertimeTypeService.class);
+        List<OvertimeTypeDTO> types = new ArrayList<>();
+        for (String base : List.of("REGULAR", "EXTRA", "DOMINICAL", "FESTIVO")) {
+            for (String suffix : List.of("_DIURNA", "_NOCTURNA")) {
+                types.add(OvertimeTypeDTO.builder().code(base + suffix).displayName(base + suffix).active(true).build());
+            }
+        }
+        when(overtimeTypeService.getAllActiveTypes()).thenReturn(types);
+
+        HolidayCalendar holidayCalendar = mock(HolidayCalendar.class);
+        when(holidayCalendar.snapshot()).thenReturn(HolidayCalendar.Snapshot.EMPTY);
+        WorkingRulesService workingRulesService = mock(WorkingRulesService.class);
+        when(workingRulesService.current()).thenReturn(WorkingRulesSnapshot.from(Map.of(
+                WorkingRulesSnapshot.NIGHT_START, "19:00", WorkingRulesSnapshot.WEEKLY_HOURS, "44:00")));
+
+        classification = new HourClassificationService(overtimeTypeService, mock(HolidayExemptionService.class),
+                holidayCalendar, workingRulesService, mock(ShiftTemplateCache.class),
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class), 62);
+
+        main = schedule(1L);
+        for (int i = 0; i < 7; i++) addDay(main, 10L + i, MONDAY.plusDays(i), "08:00:00", "16:00:00");
+        extra = schedule(2L);
+        addDay(extra, 20L, FRIDAY, "18:00:00", "22:00:00");
+
+        Map<String, BigDecimal> full = classification.classifyScheduleHours(List.of(main, extra));
+        group = new ScheduleAssignmentGroup();
+        group.setId(GROUP_ID);
+        group.setEmployeeId(EMPLOYEE_ID);
+        group.setEmployeeScheduleIds(new ArrayList<>(List.of(1L, 2L)));
+        group.setRegularHours(regular(full));
+        group.setTotalHours(total(full));
+
+        scheduleRepository = mock(EmployeeScheduleRepository.class);
+        groupRepository = mock(ScheduleAssignmentGroupRepository.class);
+        groupService = mock(ScheduleAssignmentGroupService.class);
+        service = new IncrementalGroupRecalculationService(scheduleRepository, groupRepository, groupService,
+                classification, true);
+
+        when(groupRepository.findAllByEmployeeScheduleId(anyLong())).thenReturn(List.of(group));
+        when(groupRepository.findById(GROUP_ID)).thenReturn(Optional.of(group));
+        when(scheduleRepository.findAllByIdWithShift(any())).thenReturn(List.of(main, extra));
+        when(scheduleRepository.findScheduleIdsWithDays(any())).thenReturn(List.of(1L, 2L));
+        // Filas [dayId, scheduleId, inicio, fin] leídas de los bloques actuales
+        when(scheduleRepository.findBlockRowsByScheduleIdsAndDate(any(), any())).thenAnswer(inv -> {
+            LocalDate date = ((java.sql.Date) inv.getArgument(1)).toLocalDate();
+            List<Object[]> rows = new ArrayList<>();
+            for (EmployeeSchedule schedule : List.of(main, extra)) {
+                for (EmployeeScheduleDay day : schedule.getDays()) {
+                    if (!((java.sql.Date) day.getDate()).toLocalDate().equals(date)) continue;
+                    for (EmployeeScheduleTimeBlock block : day.getTimeBlocks()) {
+                        rows.add(new Object[]{day.getId(), schedule.getId(), block.getStartTime(), block.getEndTime()});
+                    }
+                }
+            }
+            return rows;
+        });
+    }
+
+    @Test
+    void perDateClassificationAddsUpToTheFullClassification() {
+        Map<String, BigDecimal> byDates = new HashMap<>();
+        for (int i = 0; i < 7; i++) {
+            LocalDate date = MONDAY.plusDays(i);
+            classification.classifyScheduleDate(List.of(main, extra), date, daysOn(date))
+                    .forEach((type, hours) -> byDates.merge(type, hours, BigDecimal::add));
+        }
+
+        assertThat(byDates).isEqualTo(classification.classifyScheduleHours(List.of(main, extra)));
+    }
+
+    @Test
+    void regularDayDeltaEqualsFullRecalculation() {
+        stubOwner(12L, WEDNESDAY);
+        IncrementalGroupRecalculationService.DaySnapshot before = service.captureDay(12L);
+
+        setBlock(main, WEDNESDAY, "07:00:00", "17:30:00");
+        IncrementalGroupRecalculationService.DeltaResult result = service.applyDay(before);
+
+        Map<String, BigDecimal> full = classification.classifyScheduleHours(List.of(main, extra));
+        assertThat(result.incrementalGroups()).isEqualTo(1);
+        assertThat(result.fullGroups()).isZero();
+        assertThat(group.getRegularHours()).isEqualByComparingTo(regular(full));
+        assertThat(group.getTotalHours()).isEqualByComparingTo(total(full));
+        verify(groupService, never()).recalculateGroups(any());
+    }
+
+    @Test
+    void removingADayGivesTheSameTotalsAsTheFullRecalculation() {
+        stubOwner(12L, WEDNESDAY);
+        IncrementalGroupRecalculationService.DaySnapshot before = service.captureDay(12L);
+
+        main.getDays().stream()
+                .filter(d -> ((java.sql.Date) d.getDate()).toLocalDate().equals(WEDNESDAY))
+                .forEach(d -> d.getTimeBlocks().clear());
+        service.applyDay(before);
+
+        Map<String, BigDecimal> full = classification.classifyScheduleHours(List.of(main, extra));
+        assertThat(group.getTotalHours()).isEqualByComparingTo(total(full));
+        assertThat(group.getTotalHours()).isEqualByComparingTo(new BigDecimal("52.00"));
+    }
+
+    @Test
+    void dayWithOvertimeFallsBackToFullRecalculation() {
+        stubOwner(14L, FRIDAY);
+        IncrementalGroupRecalculationService.DaySnapshot before = service.captureDay(14L);
+
+        setBlock(main, FRIDAY, "07:00:00", "15:00:00");
+        IncrementalGroupRecalculationService.DeltaResult result = service.applyDay(before);
+
+        assertThat(result.fullGroups()).isEqualTo(1);
+        verify(groupService).recalculateGroups(List.of(GROUP_ID));
+    }
+
+    private void stubOwner(Long dayId, LocalDate date) {
+        when(scheduleRepository.findDayOwner(dayId)).thenReturn(
+                List.<Object[]>of(new Object[]{1L, EMPLOYEE_ID, java.sql.Date.valueOf(date)}));
+    }
+
+    private Map<Long, List<EmployeeScheduleDay>> daysOn(LocalDate date) {
+        Map<Long, List<EmployeeScheduleDay>> result = new HashMap<>();
+        for (EmployeeSchedule schedule : List.of(main, extra)) {
+            List<EmployeeScheduleDay> days = new ArrayList<>();
+            for (EmployeeScheduleDay day : schedule.getDays()) {
+                if (((java.sql.Date) day.getDate()).toLocalDate().equals(date)) days.add(day);
+            }
+            result.put(schedule.getId(), days);
+        }
+        return result;
+    }
+
+    private static EmployeeSchedule schedule(Long id) {
+        EmployeeSchedule schedule = new EmployeeSchedule();
+        schedule.setId(id);
+        schedule.setEmployeeId(EMPLOYEE_ID);
+        schedule.setStartDate(MONDAY);
+        schedule.setEndDate(MONDAY.plusDays(6));
+        return schedule;
+    }
+
+    private static void addDay(EmployeeSchedule schedule, Long dayId, LocalDate date, String start, String end) {
+        EmployeeScheduleDay day = new EmployeeScheduleDay();
+        day.setId(dayId);
+        day.setDate(java.sql.Date.valueOf(date));
+        day.setDayOfWeek(date.getDayOfWeek().getValue());
+        EmployeeScheduleTimeBlock block = new EmployeeScheduleTimeBlock();
+        block.setStartTime(Time.valueOf(start));
+        block.setEndTime(Time.valueOf(end));
+        day.getTimeBlocks().add(block);
+        schedule.getDays().add(day);
+    }
+
+    private static void setBlock(EmployeeSchedule schedule, LocalDate date, String start, String end) {
+        for (EmployeeScheduleDay day : schedule.getDays()) {
+            if (!((java.sql.Date) day.getDate()).toLocalDate().equals(date)) continue;
+            day.getTimeBlocks().get(0).setStartTime(Time.valueOf(start));
+            day.getTimeBlocks().get(0).setEndTime(Time.valueOf(end));
+        }
+    }
+
+    private static BigDecimal regular(Map<String, BigDecimal> hours) {
+        return hours.entrySet().stream()
+                .filter(e -> e.getKey().startsWith("REGULAR_"))
+                .map(Map.Entry::getValue)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private static BigDecimal total(Map<String, BigDecimal> hours) {
+        return hours.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,86 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.ScheduleAssignmentGroup;
+import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.EmployeeScheduleRepository;
+import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.ScheduleAssignmentGroupRepository;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.overtime.HourClassificationService;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.overtime.OvertimeTypeService;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+/** Recálculo por lote de grupos: los totales salen de una sola clasificación y los errores no se ocultan. */
+class ScheduleAssignmentGroupServiceTest {
+
+    private ScheduleAssignmentGroupRepository groupRepository;
+    private EmployeeScheduleRepository scheduleRepository;
+    private HourClassificationService hourClassificationService;
+    private ScheduleAssignmentGroupService service;
+
+    private ScheduleAssignmentGroup group;
+
+    @BeforeEach
+    void setUp() {
+        groupRepository = mock(ScheduleAssignmentGroupRepository.class);
+        scheduleRepository = mock(EmployeeScheduleRepository.class);
+        hourClassificationService = mock(HourClassificationService.class);
+        service = new ScheduleAssignmentGroupService(groupRepository, scheduleRepository,
+                mock(OvertimeTypeService.class), hourClassificationService);
+
+        group = new ScheduleAssignmentGroup();
+        group.setId(5L);
+        group.setEmployeeId(10L);
+        group.setPeriodStart(Date.valueOf(LocalDate.of(2025, 3, 1)));
+        group.setPeriodEnd(Date.valueOf(LocalDate.of(2025, 3, 31)));
+        group.setEmployeeScheduleIds(new ArrayList<>(List.of(7L)));
+
+        EmployeeSchedule schedule = new EmployeeSchedule();
+        schedule.setId(7L);
+        schedule.setEmployeeId(10L);
+
+        when(groupRepository.findAllById(any())).thenReturn(List.of(group));
+        when(scheduleRepository.findAllByIdWithShift(any())).thenReturn(List.of(schedule));
+    }
+
+    @Test
+    void recalculateGroupsWritesTotalsFromTheGroupClassification() {
+        when(hourClassificationService.classifyGroupHours(anyMap(), anyMap())).thenReturn(Map.of(5L, Map.of(
+                "REGULAR_DIURNA", new BigDecimal("40.00"),
+                "EXTRA_NOCTURNA", new BigDecimal("2.50"),
+                "FESTIVO_DIURNA", new BigDecimal("8.00"))));
+
+        assertThat(service.recalculateGroups(List.of(5L))).isEqualTo(1);
+
+        assertThat(group.getRegularHours()).isEqualByComparingTo("40.00");
+        assertThat(group.getOvertimeHours()).isEqualByComparingTo("2.50");
+        assertThat(group.getFestivoHours()).isEqualByComparingTo("8.00");
+        assertThat(group.getTotalHours()).isEqualByComparingTo("50.50");
+        verify(groupRepository).saveAll(List.of(group));
+    }
+
+    @Test
+    void recalculateGroupsPropagatesClassificationFailures() {
+        group.setTotalHours(new BigDecimal("44.00"));
+        when(hourClassificationService.classifyGroupHours(anyMap(), anyMap()))
+                .thenThrow(new IllegalStateException("sin tipos de hora"));
+
+        assertThatThrownBy(() -> service.recalculateGroups(List.of(5L)))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(group.getTotalHours()).isEqualByComparingTo("44.00");
+        verify(groupRepository, never()).saveAll(any());
+    }
+}
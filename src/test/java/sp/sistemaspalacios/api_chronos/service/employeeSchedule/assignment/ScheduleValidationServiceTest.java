@@ -0,0 +1,143 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.assignment;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sp.sistemaspalacios.api_chronos.dto.schedule.ScheduleDto.ScheduleAssignment;
+import sp.sistemaspalacios.api_chronos.dto.schedule.ScheduleDto.ScheduleConflict;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
+import sp.sistemaspalacios.api_chronos.entity.shift.Shifts;
+import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.EmployeeScheduleRepository;
+import sp.sistemaspalacios.api_chronos.service.boundaries.holiday.HolidayService;
+import sp.sistemaspalacios.api_chronos.service.common.TimeService;
+import sp.sistemaspalacios.api_chronos.service.shift.ShiftTemplate;
+import sp.sistemaspalacios.api_chronos.service.shift.ShiftTemplateCache;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Conflictos de una solicitud con el barrido por empleado: contra horarios existentes, entre
+ * asignaciones nuevas y con turnos inexistentes. Los turnos 1 y 2 chocan de lunes a viernes; el 3
+ * no choca con ninguno.
+ */
+class ScheduleValidationServiceTest {
+
+    private static final LocalDate WEDNESDAY = LocalDate.of(2025, 3, 19);
+    // Bits 1..5: lunes a viernes
+    private static final int WEEKDAYS = 0b111110;
+
+    private EmployeeScheduleRepository scheduleRepository;
+    private ShiftTemplateCache shiftTemplateCache;
+    private ScheduleValidationService service;
+
+    private final Map<Long, ShiftTemplate> templates = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        scheduleRepository = mock(EmployeeScheduleRepository.class);
+        shiftTemplateCache = mock(ShiftTemplateCache.class);
+        service = new ScheduleValidationService(mock(HolidayService.class), mock(TimeService.class),
+                new ScheduleConflictDetector(scheduleRepository, shiftTemplateCache));
+
+        ShiftTemplate morning = template(1L, "Mañana");
+        ShiftTemplate office = template(2L, "Oficina");
+        ShiftTemplate night = template(3L, "Noche");
+        conflicts(morning, office, WEEKDAYS);
+        conflicts(morning, night, 0);
+        conflicts(office, night, 0);
+
+        when(shiftTemplateCache.getAll(anyCollection())).thenAnswer(inv -> {
+            Map<Long, ShiftTemplate> found = new HashMap<>();
+            for (Object id : inv.getArgument(0, Collection.class)) {
+                if (templates.containsKey(id)) found.put((Long) id, templates.get(id));
+            }
+            return found;
+        });
+        when(scheduleRepository.findByEmployeeIdIn(anyList())).thenReturn(List.of());
+    }
+
+    @Test
+    void conflictWithAnExistingScheduleIsReportedOnTheFirstCollidingWeekday() {
+        // El cruce empieza un sábado: el primer día en conflicto es el lunes siguiente
+        when(scheduleRepository.findByEmployeeIdIn(anyList()))
+                .thenReturn(List.of(existing(99L, 10L, 2L, WEDNESDAY.plusDays(3), WEDNESDAY.plusDays(22))));
+
+        List<ScheduleConflict> conflicts = service.detectScheduleConflicts(
+                List.of(assignment(10L, 1L, WEDNESDAY, WEDNESDAY.plusDays(11))));
+
+        assertThat(conflicts).hasSize(1);
+        assertThat(conflicts.get(0).getConflictDate()).isEqualTo(WEDNESDAY.plusDays(5));
+        assertThat(conflicts.get(0).getExistingScheduleId()).isEqualTo(99L);
+        assertThat(conflicts.get(0).getMessage()).contains("Oficina");
+    }
+
+    @Test
+    void conflictsBetweenNewAssignmentsOnlyForOverlappingRangesAndShifts() {
+        List<ScheduleConflict> conflicts = service.detectScheduleConflicts(List.of(
+                assignment(10L, 1L, WEDNESDAY, WEDNESDAY.plusDays(6)),
+                assignment(10L, 3L, WEDNESDAY, WEDNESDAY.plusDays(6)),
+                assignment(10L, 2L, WEDNESDAY.plusDays(2), WEDNESDAY.plusDays(9)),
+                // Sin cruce de fechas con el turno 1
+                assignment(11L, 1L, WEDNESDAY, WEDNESDAY.plusDays(1)),
+                assignment(11L, 2L, WEDNESDAY.plusDays(2), WEDNESDAY.plusDays(9))));
+
+        assertThat(conflicts).hasSize(1);
+        assertThat(conflicts.get(0).getEmployeeId()).isEqualTo(10L);
+        assertThat(conflicts.get(0).getConflictDate()).isEqualTo(WEDNESDAY.plusDays(2));
+        assertThat(conflicts.get(0).getMessage()).contains("se solapan");
+        assertThat(conflicts.get(0).getExistingScheduleId()).isNull();
+    }
+
+    @Test
+    void existingScheduleWithAMissingShiftCannotBeVerified() {
+        when(scheduleRepository.findByEmployeeIdIn(anyList()))
+                .thenReturn(List.of(existing(98L, 10L, 7L, WEDNESDAY, WEDNESDAY.plusDays(6))));
+
+        List<ScheduleConflict> conflicts = service.detectScheduleConflicts(
+                List.of(assignment(10L, 1L, WEDNESDAY.plusDays(1), WEDNESDAY.plusDays(3))));
+
+        assertThat(conflicts).hasSize(1);
+        assertThat(conflicts.get(0).getConflictDate()).isEqualTo(WEDNESDAY.plusDays(1));
+        assertThat(conflicts.get(0).getMessage()).isEqualTo("No se pudo verificar turnos");
+        verify(scheduleRepository, times(1)).findByEmployeeIdIn(anyList());
+    }
+
+    private ShiftTemplate template(Long id, String name) {
+        ShiftTemplate template = mock(ShiftTemplate.class);
+        when(template.shiftId()).thenReturn(id);
+        when(template.name()).thenReturn(name);
+        templates.put(id, template);
+        return template;
+    }
+
+    private static void conflicts(ShiftTemplate a, ShiftTemplate b, int mask) {
+        when(a.conflictDays(b)).thenReturn(mask);
+        when(b.conflictDays(a)).thenReturn(mask);
+    }
+
+    private static ScheduleAssignment assignment(Long employeeId, Long shiftId, LocalDate start, LocalDate end) {
+        ScheduleAssignment a = new ScheduleAssignment();
+        a.setEmployeeId(employeeId);
+        a.setShiftId(shiftId);
+        a.setStartDate(start);
+        a.setEndDate(end);
+        return a;
+    }
+
+    private static EmployeeSchedule existing(Long id, Long employeeId, Long shiftId, LocalDate start, LocalDate end) {
+        Shifts shift = new Shifts();
+        shift.setId(shiftId);
+        EmployeeSchedule schedule = new EmployeeSchedule();
+        schedule.setId(id);
+        schedule.setEmployeeId(employeeId);
+        schedule.setShift(shift);
+        schedule.setStartDate(start);
+        schedule.setEndDate(end);
+        return schedule;
+    }
+}
@@ -0,0 +1,123 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.core;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+import sp.sistemaspalacios.api_chronos.dto.employee.EmployeeResponse;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cliente del api de empleados contra un servidor HTTP local: lotes, cache, llamadas unificadas
+ * y tiempo máximo de espera.
+ */
+class EmployeeDirectoryClientTest {
+
+    private static final String PATH = "/api/employees/bynumberid/";
+
+    private HttpServer server;
+    private final Map<Long, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final Map<Long, Long> delayMillis = new ConcurrentHashMap<>();
+    private EmployeeDirectoryClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext(PATH, exchange -> {
+            long id = Long.parseLong(exchange.getRequestURI().getPath().substring(PATH.length()));
+            requests.computeIfAbsent(id, k -> new AtomicInteger()).incrementAndGet();
+            try {
+                Thread.sleep(delayMillis.getOrDefault(id, 0L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = ("{\"employee\":{\"id\":" + id + ",\"numberId\":" + id + ",\"firstName\":\"E" + id + "\"}}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        client = newClient(30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void getEmployeesFetchesEachMissingIdOnceAndThenServesFromCache() {
+        Map<Long, EmployeeResponse> first = client.getEmployees(List.of(1L, 2L, 3L, 2L));
+
+        assertThat(first).containsOnlyKeys(1L, 2L, 3L);
+        assertThat(first.get(2L).getEmployee().getFirstName()).isEqualTo("E2");
+        assertThat(totalRequests()).isEqualTo(3);
+
+        Map<Long, EmployeeResponse> second = client.getEmployees(List.of(1L, 2L, 3L));
+
+        assertThat(second).containsOnlyKeys(1L, 2L, 3L);
+        assertThat(totalRequests()).isEqualTo(3);
+        EmployeeDirectoryClient.Stats stats = client.getStats();
+        assertThat(stats.hits()).isEqualTo(3);
+        assertThat(stats.misses()).isEqualTo(3);
+        assertThat(stats.remoteCalls()).isEqualTo(3);
+    }
+
+    @Test
+    void concurrentRequestsForTheSameIdShareOneRemoteCall() throws Exception {
+        delayMillis.put(7L, 300L);
+        ExecutorService callers = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<EmployeeResponse>> futures = callers.invokeAll(
+                    List.<Callable<EmployeeResponse>>of(
+                            () -> client.getEmployee(7L), () -> client.getEmployee(7L), () -> client.getEmployee(7L),
+                            () -> client.getEmployee(7L), () -> client.getEmployee(7L)));
+            for (Future<EmployeeResponse> future : futures) {
+                assertThat(future.get().getEmployee().getId()).isEqualTo(7L);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertThat(requests.get(7L).get()).isEqualTo(1);
+    }
+
+    @Test
+    void slowEmployeesAreLeftOutOnceTheTimeoutExpires() {
+        client.shutdown();
+        client = newClient(1);
+        delayMillis.put(99L, 2_500L);
+
+        long start = System.nanoTime();
+        Map<Long, EmployeeResponse> result = client.getEmployees(List.of(1L, 99L));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(result).containsOnlyKeys(1L);
+        assertThat(elapsedMillis).isLessThan(2_000);
+    }
+
+    private EmployeeDirectoryClient newClient(long timeoutSeconds) {
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        return new EmployeeDirectoryClient(new RestTemplate(), baseUrl, PATH, 100, 30, 25, 4, timeoutSeconds);
+    }
+
+    private int totalRequests() {
+        return requests.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+}
@@ -0,0 +1,90 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.overtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * El acumulador en centésimas debe dar lo mismo que la suma anterior: cada segmento dividido
+ * entre 60 a 2 decimales (HALF_UP) y sumado como BigDecimal en su código de tipo.
+ */
+class HourAccumulatorTest {
+
+    @Test
+    void toHundredthsRoundsLikeTheBigDecimalDivision() {
+        for (int minutes = 0; minutes <= 1440; minutes++) {
+            BigDecimal expected = BigDecimal.valueOf(minutes).divide(BigDecimal.valueOf(60), 2, RoundingMode.HALF_UP);
+            assertThat(HourAccumulator.toHundredths(minutes))
+                    .as("%d minutos", minutes)
+                    .isEqualTo(expected.unscaledValue().longValueExact());
+        }
+    }
+
+    @Test
+    void totalsMatchPerSegmentBigDecimalSums() {
+        // Solo algunos tipos activos: los demás caen en el genérico de su familia
+        Map<String, Object> availableTypes = new HashMap<>();
+        for (String code : new String[]{"REGULAR_DIURNA", "REGULAR_NOCTURNA", "EXTRA_DIURNA", "EXTRA_NOCTURNA",
+                "FESTIVO_DIURNA", "DOMINICAL_NOCTURNA", "EXTRA_FESTIVO_DIURNA"}) {
+            availableTypes.put(code, Boolean.TRUE);
+        }
+
+        Random random = new Random(20250317L);
+        for (int run = 0; run < 200; run++) {
+            HourAccumulator accumulator = new HourAccumulator();
+            Map<String, BigDecimal> expected = new HashMap<>();
+
+            int segments = 1 + random.nextInt(60);
+            for (int i = 0; i < segments; i++) {
+                HourBaseType type = HourBaseType.VALUES[random.nextInt(HourBaseType.VALUES.length)];
+                boolean isNight = random.nextBoolean();
+                int minutes = random.nextInt(9 * 60);
+
+                accumulator.add(type, isNight, minutes);
+                if (minutes > 0) {
+                    BigDecimal hours = BigDecimal.valueOf(minutes).divide(BigDecimal.valueOf(60), 2, RoundingMode.HALF_UP);
+                    expected.merge(previousCode(type.name(), isNight, availableTypes), hours, BigDecimal::add);
+                }
+            }
+
+            assertThat(accumulator.toMap(availableTypes)).as("corrida %d", run).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void emptyAccumulatorHasNoTypes() {
+        HourAccumulator accumulator = new HourAccumulator();
+        accumulator.add(HourBaseType.REGULAR, false, 0);
+
+        assertThat(accumulator.isEmpty()).isTrue();
+        assertThat(accumulator.toMap(Map.of())).isEmpty();
+    }
+
+    @Test
+    void baseTypeFollowsExtraHolidayAndSundayFlags() {
+        assertThat(HourBaseType.of(false, false, false)).isEqualTo(HourBaseType.REGULAR);
+        assertThat(HourBaseType.of(false, true, false)).isEqualTo(HourBaseType.FESTIVO);
+        assertThat(HourBaseType.of(false, false, true)).isEqualTo(HourBaseType.DOMINICAL);
+        assertThat(HourBaseType.of(false, true, true)).isEqualTo(HourBaseType.FESTIVO_DOMINICAL);
+        assertThat(HourBaseType.of(true, false, false)).isEqualTo(HourBaseType.EXTRA);
+        assertThat(HourBaseType.of(true, true, false)).isEqualTo(HourBaseType.EXTRA_FESTIVO);
+        assertThat(HourBaseType.of(true, false, true)).isEqualTo(HourBaseType.EXTRA_DOMINICAL);
+        assertThat(HourBaseType.of(true, true, true)).isEqualTo(HourBaseType.EXTRA_FESTIVO_DOMINICAL);
+    }
+
+    // Resolución de código de la clasificación anterior (findBestMatch)
+    private static String previousCode(String baseType, boolean isNight, Map<String, ?> availableTypes) {
+        String suffix = isNight ? "_NOCTURNA" : "_DIURNA";
+        if (availableTypes.containsKey(baseType + suffix)) return baseType + suffix;
+        if (baseType.contains("EXTRA")) return isNight ? "EXTRA_NOCTURNA" : "EXTRA_DIURNA";
+        if (baseType.contains("FESTIVO")) return isNight ? "FESTIVO_NOCTURNA" : "FESTIVO_DIURNA";
+        if (baseType.contains("DOMINICAL")) return isNight ? "DOMINICAL_NOCTURNA" : "DOMINICAL_DIURNA";
+        return isNight ? "REGULAR_NOCTURNA" : "REGULAR_DIURNA";
+    }
+}
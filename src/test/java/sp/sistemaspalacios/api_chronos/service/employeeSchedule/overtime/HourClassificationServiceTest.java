@@ -0,0 +1,127 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.overtime;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import sp.sistemaspalacios.api_chronos.dto.overtime.OvertimeTypeDTO;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
+import sp.sistemaspalacios.api_chronos.entity.shift.Shifts;
+import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.WorkingRulesService;
+import sp.sistemaspalacios.api_chronos.service.boundaries.generalConfiguration.WorkingRulesSnapshot;
+import sp.sistemaspalacios.api_chronos.service.boundaries.holiday.HolidayCalendar;
+import sp.sistemaspalacios.api_chronos.service.employeeSchedule.holiday.HolidayExemptionService;
+import sp.sistemaspalacios.api_chronos.service.shift.ShiftTemplate;
+import sp.sistemaspalacios.api_chronos.service.shift.ShiftTemplateCache;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Horarios compactos sin fecha fin: en los totales de un grupo se clasifican hasta el fin del
+ * período del grupo, no hasta el horizonte contado desde hoy. Turno de 08:00 a 16:00 todos los días.
+ */
+class HourClassificationServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 3, 17);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HourClassificationService service;
+    private EmployeeSchedule openEnded;
+
+    @BeforeEach
+    void setUp() {
+        OvertimeTypeService overtimeTypeService = mock(OvertimeTypeService.class);
+        List<OvertimeTypeDTO> types = new ArrayList<>();
+        for (String base : List.of("REGULAR", "EXTRA", "DOMINICAL", "FESTIVO")) {
+            for (String suffix : List.of("_DIURNA", "_NOCTURNA")) {
+                types.add(OvertimeTypeDTO.builder().code(base + suffix).displayName(base + suffix).active(true).build());
+            }
+        }
+        when(overtimeTypeService.getAllActiveTypes()).thenReturn(types);
+
+        HolidayCalendar holidayCalendar = mock(HolidayCalendar.class);
+        when(holidayCalendar.snapshot()).thenReturn(HolidayCalendar.Snapshot.EMPTY);
+        WorkingRulesService workingRulesService = mock(WorkingRulesService.class);
+        when(workingRulesService.current()).thenReturn(WorkingRulesSnapshot.from(Map.of(
+                WorkingRulesSnapshot.NIGHT_START, "19:00", WorkingRulesSnapshot.WEEKLY_HOURS, "44:00")));
+
+        ShiftTemplate template = mock(ShiftTemplate.class);
+        when(template.ranges(anyInt())).thenReturn(new int[]{8 * 60, 16 * 60});
+        ShiftTemplateCache shiftTemplateCache = mock(ShiftTemplateCache.class);
+        when(shiftTemplateCache.get(any(Shifts.class))).thenReturn(template);
+
+        service = new HourClassificationService(overtimeTypeService, mock(HolidayExemptionService.class),
+                holidayCalendar, workingRulesService, shiftTemplateCache, provider(meterRegistry), 62);
+
+        Shifts shift = new Shifts();
+        shift.setId(1L);
+        openEnded = new EmployeeSchedule();
+        openEnded.setId(7L);
+        openEnded.setEmployeeId(10L);
+        openEnded.setShift(shift);
+        openEnded.setStartDate(MONDAY);
+        openEnded.setCompact(true);
+    }
+
+    @Test
+    void openEndedCompactScheduleStopsAtEachGroupPeriodEnd() {
+        Map<Long, List<EmployeeSchedule>> schedulesByGroup = new LinkedHashMap<>();
+        schedulesByGroup.put(1L, List.of(openEnded));
+        schedulesByGroup.put(2L, List.of(openEnded));
+        Map<Long, LocalDate> periodEnds = Map.of(1L, MONDAY.plusDays(6), 2L, MONDAY.plusDays(13));
+
+        Map<Long, Map<String, BigDecimal>> hours = service.classifyGroupHours(schedulesByGroup, periodEnds);
+
+        assertThat(total(hours.get(1L))).isEqualByComparingTo("56.00");
+        assertThat(total(hours.get(2L))).isEqualByComparingTo("112.00");
+    }
+
+    @Test
+    void groupClassificationMatchesSingleGroupClassification() {
+        LocalDate periodEnd = MONDAY.plusDays(6);
+
+        Map<String, BigDecimal> group = service.classifyGroupHours(Map.of(1L, List.of(openEnded)), Map.of(1L, periodEnd))
+                .get(1L);
+
+        assertThat(group).isEqualTo(service.classifyScheduleHours(List.of(openEnded), periodEnd));
+        assertThat(total(group)).isEqualByComparingTo("56.00");
+    }
+
+    @Test
+    void scheduleWithEndDateIgnoresThePeriodEnd() {
+        openEnded.setEndDate(MONDAY.plusDays(2));
+
+        Map<String, BigDecimal> hours = service.classifyScheduleHours(List.of(openEnded), MONDAY.plusDays(13));
+
+        assertThat(total(hours)).isEqualByComparingTo("24.00");
+    }
+
+    @Test
+    void classifiedDaysAreCountedWhenThereIsARegistry() {
+        service.classifyScheduleHours(List.of(openEnded), MONDAY.plusDays(6));
+
+        assertThat(meterRegistry.get("schedule.classification.days").counter().count()).isEqualTo(7.0);
+        assertThat(meterRegistry.get("schedule.classification").tag("operation", "schedule").timer().count())
+                .isEqualTo(1L);
+    }
+
+    private static ObjectProvider<MeterRegistry> provider(MeterRegistry registry) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", registry);
+        return beanFactory.getBeanProvider(MeterRegistry.class);
+    }
+
+    private static BigDecimal total(Map<String, BigDecimal> hours) {
+        return hours.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,112 @@
+package sp.sistemaspalacios.api_chronos.service.employeeSchedule.time;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeSchedule;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleDay;
+import sp.sistemaspalacios.api_chronos.entity.employeeSchedule.EmployeeScheduleTimeBlock;
+import sp.sistemaspalacios.api_chronos.entity.shift.Shifts;
+import sp.sistemaspalacios.api_chronos.repository.employeeSchedule.EmployeeScheduleTimeBlockRepository;
+import sp.sistemaspalacios.api_chronos.service.employeeAttendance.ScheduleDayIndexListener;
+
+import java.sql.Time;
+import java.time.LocalDate;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Quitar una fecha ya guardada de un horario compacto debe borrar sus bloques en la BD: el día
+ * recargado queda sin bloques (fecha quitada) y sigue existiendo.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({ScheduleExpansionService.class, ScheduleDayIndexListener.class})
+class ScheduleExpansionServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 3, 17);
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+    }
+
+    @MockBean
+    private ScheduleDayGeneratorService dayGeneratorService;
+
+    @Autowired
+    private ScheduleExpansionService service;
+
+    @Autowired
+    private EmployeeScheduleTimeBlockRepository timeBlockRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void removingAStoredDateDeletesItsBlocks() {
+        EmployeeSchedule schedule = compactSchedule();
+        EmployeeScheduleDay day = storedDay(schedule, MONDAY, "08:00:00", "12:00:00", "14:00:00", "18:00:00");
+        entityManager.flush();
+        entityManager.clear();
+
+        EmployeeScheduleDay result = service.materializeOverride(schedule.getId(), MONDAY, true);
+        assertThat(result.getId()).isEqualTo(day.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        EmployeeScheduleDay reloaded = entityManager.find(EmployeeScheduleDay.class, day.getId());
+        assertThat(reloaded).isNotNull();
+        assertThat(reloaded.getTimeBlocks()).isEmpty();
+        assertThat(timeBlockRepository.findByEmployeeScheduleDayId(day.getId())).isEmpty();
+    }
+
+    private EmployeeSchedule compactSchedule() {
+        Shifts shift = new Shifts();
+        shift.setName("Oficina");
+        entityManager.persist(shift);
+
+        EmployeeSchedule schedule = new EmployeeSchedule();
+        schedule.setEmployeeId(10L);
+        schedule.setShift(shift);
+        schedule.setStartDate(MONDAY);
+        schedule.setEndDate(MONDAY.plusDays(6));
+        schedule.setCompact(true);
+        return entityManager.persist(schedule);
+    }
+
+    // Bloques como pares inicio/fin
+    private EmployeeScheduleDay storedDay(EmployeeSchedule schedule, LocalDate date, String... times) {
+        EmployeeScheduleDay day = new EmployeeScheduleDay();
+        day.setDate(java.sql.Date.valueOf(date));
+        day.setDayOfWeek(date.getDayOfWeek().getValue());
+        day.setEmployeeSchedule(schedule);
+        day.setCreatedAt(new Date());
+        for (int i = 0; i + 1 < times.length; i += 2) {
+            EmployeeScheduleTimeBlock block = new EmployeeScheduleTimeBlock();
+            block.setEmployeeScheduleDay(day);
+            block.setStartTime(Time.valueOf(times[i]));
+            block.setEndTime(Time.valueOf(times[i + 1]));
+            block.setCreatedAt(new Date());
+            day.getTimeBlocks().add(block);
+        }
+        return entityManager.persist(day);
+    }
+}
@@ -0,0 +1,15 @@
+-- employee_attendance como la dejaba Hibernate con GenerationType.IDENTITY, antes del particionado
+CREATE TABLE employee_attendance (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    employee_schedule_id bigint,
+    timestamp timestamp(6) NOT NULL,
+    type varchar(255),
+    is_late boolean,
+    message varchar(255)
+);
+CREATE INDEX idx_attendance_schedule_ts ON employee_attendance (employee_schedule_id, timestamp);
+
+INSERT INTO employee_attendance (timestamp, type, is_late, message) VALUES
+    ('2024-01-15 08:02:00', 'CLOCK_IN', false, 'histórica'),
+    ('2024-01-15 17:01:00', 'CLOCK_OUT', false, 'histórica'),
+    ('2024-06-03 08:15:00', 'CLOCK_IN', true, 'histórica');